@@ -0,0 +1,151 @@
+package com.mathlearning.config;
+
+import com.mathlearning.service.impl.AIGradingServiceImpl;
+import com.mathlearning.service.impl.AnthropicGradingService;
+import com.mathlearning.service.impl.ProviderQuotaLimiter;
+import com.mathlearning.util.CallScope;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.okhttp3.OkHttpMetricsEventListener;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Long-lived HTTP stack for AI providers. Building a client per call creates a
+ * new connection pool, dispatcher and TLS session every time; these beans are
+ * created once and reused by every grading request.
+ */
+@Configuration
+@Slf4j
+public class AIClientConfig {
+
+    @Value("${app.ai.openai.api-key}")
+    private String openaiApiKey;
+
+    @Value("${app.ai.openai.timeout:60s}")
+    private Duration timeout;
+
+    @Value("${app.ai.openai.connect-timeout:10s}")
+    private Duration connectTimeout;
+
+    @Value("${app.ai.openai.pool.max-idle-connections:20}")
+    private int maxIdleConnections;
+
+    @Value("${app.ai.openai.pool.keep-alive:5m}")
+    private Duration keepAlive;
+
+    @Value("${app.ai.openai.max-requests:64}")
+    private int maxRequests;
+
+    @Value("${app.ai.openai.max-requests-per-host:32}")
+    private int maxRequestsPerHost;
+
+    @Value("${app.ai.anthropic.api-key:}")
+    private String anthropicApiKey;
+
+    @Value("${app.ai.anthropic.api-version:2023-06-01}")
+    private String anthropicApiVersion;
+
+    @Value("${app.ai.anthropic.timeout:60s}")
+    private Duration anthropicTimeout;
+
+    private OkHttpClient aiHttpClient;
+
+    /**
+     * Shared OkHttp client for all AI provider calls. Provider-specific clients
+     * derive from it with {@link OkHttpClient#newBuilder()} so they share the same
+     * connection pool and dispatcher, and inherit the {@link CallScope}
+     * interceptor that lets hedged grading cancel the losing call.
+     */
+    @Bean
+    @Primary
+    public OkHttpClient aiHttpClient(MeterRegistry meterRegistry) {
+        log.info("Configuring AI HTTP client - idle connections: {}, keep-alive: {}, max requests per host: {}",
+                maxIdleConnections, keepAlive, maxRequestsPerHost);
+
+        ConnectionPool connectionPool = new ConnectionPool(maxIdleConnections, keepAlive.toMillis(),
+                TimeUnit.MILLISECONDS);
+
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(maxRequests);
+        dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+
+        aiHttpClient = new OkHttpClient.Builder()
+                .connectionPool(connectionPool)
+                .dispatcher(dispatcher)
+                .connectTimeout(connectTimeout)
+                .readTimeout(timeout)
+                .writeTimeout(timeout)
+                .callTimeout(timeout.plus(connectTimeout))
+                .addInterceptor(CallScope.interceptor())
+                .eventListener(OkHttpMetricsEventListener.builder(meterRegistry, "ai.http.requests")
+                        .uriMapper(request -> request.url().encodedPath())
+                        .build())
+                .build();
+
+        Gauge.builder("ai.http.pool.connections", connectionPool, ConnectionPool::connectionCount)
+                .description("Open connections in the AI HTTP connection pool")
+                .register(meterRegistry);
+        Gauge.builder("ai.http.pool.idle", connectionPool, ConnectionPool::idleConnectionCount)
+                .description("Idle connections in the AI HTTP connection pool")
+                .register(meterRegistry);
+        Gauge.builder("ai.http.dispatcher.running", dispatcher, Dispatcher::runningCallsCount)
+                .description("In-flight AI HTTP calls")
+                .register(meterRegistry);
+        Gauge.builder("ai.http.dispatcher.queued", dispatcher, Dispatcher::queuedCallsCount)
+                .description("AI HTTP calls waiting for a dispatcher slot")
+                .register(meterRegistry);
+
+        return aiHttpClient;
+    }
+
+    /**
+     * OpenAI Chat Completions client on the shared pool and dispatcher, with the
+     * bearer token and quota calibration.
+     */
+    @Bean
+    public OkHttpClient openaiHttpClient(OkHttpClient aiHttpClient, ProviderQuotaLimiter quotaLimiter) {
+        return aiHttpClient.newBuilder()
+                .addInterceptor(chain -> chain.proceed(chain.request().newBuilder()
+                        .header("Authorization", "Bearer " + openaiApiKey)
+                        .build()))
+                .addInterceptor(quotaLimiter.interceptor(AIGradingServiceImpl.NAME))
+                .build();
+    }
+
+    /**
+     * Anthropic Messages API client on the shared pool and dispatcher, with the
+     * provider's auth and version headers and quota calibration.
+     */
+    @Bean
+    public OkHttpClient anthropicHttpClient(OkHttpClient aiHttpClient, ProviderQuotaLimiter quotaLimiter) {
+        return aiHttpClient.newBuilder()
+                .readTimeout(anthropicTimeout)
+                .writeTimeout(anthropicTimeout)
+                .callTimeout(anthropicTimeout.plus(connectTimeout))
+                .addInterceptor(chain -> chain.proceed(chain.request().newBuilder()
+                        .header("x-api-key", anthropicApiKey)
+                        .header("anthropic-version", anthropicApiVersion)
+                        .build()))
+                .addInterceptor(quotaLimiter.interceptor(AnthropicGradingService.NAME))
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (aiHttpClient != null) {
+            aiHttpClient.dispatcher().executorService().shutdown();
+            aiHttpClient.connectionPool().evictAll();
+        }
+    }
+}
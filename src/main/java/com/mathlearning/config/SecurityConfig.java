@@ -1,11 +1,15 @@
 package com.mathlearning.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mathlearning.security.IRateLimiter;
 import com.mathlearning.security.JwtAuthenticationFilter;
 import com.mathlearning.security.JwtTokenProvider;
+import com.mathlearning.security.RateLimitFilter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
@@ -27,6 +31,11 @@ import java.util.List;
 public class SecurityConfig {
 
     private final JwtTokenProvider tokenProvider;
+    private final IRateLimiter rateLimiter;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.security.bcrypt.strength:10}")
+    private int bcryptStrength;
 
     @Value("${app.cors.allowed-origins}")
     private String allowedOrigins;
@@ -38,7 +47,8 @@ public class SecurityConfig {
 
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        // Raising the strength rehashes existing passwords as users log in
+        return new BCryptPasswordEncoder(bcryptStrength);
     }
 
     @Bean
@@ -49,8 +59,13 @@ public class SecurityConfig {
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/api/auth/**", "/api/health").permitAll()
+                        // Local storage objects are addressed by unguessable keys, like bucket URLs
+                        .requestMatchers(HttpMethod.GET, "/api/files/**").permitAll()
                         .anyRequest().authenticated())
-                .addFilterBefore(jwtAuthenticationFilter(), UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtAuthenticationFilter(), UsernamePasswordAuthenticationFilter.class)
+                // After JWT authentication so limits are per user where possible
+                .addFilterAfter(new RateLimitFilter(rateLimiter, objectMapper),
+                        UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
     }
@@ -2,17 +2,27 @@ package com.mathlearning.config;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3AsyncClientBuilder;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.multipart.MultipartConfiguration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 
 import java.net.URI;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Configuration
+@ConditionalOnExpression("!'${app.storage.type:minio}'.equalsIgnoreCase('local')")
 @Slf4j
 public class StorageConfig {
 
@@ -31,6 +41,15 @@ public class StorageConfig {
     @Value("${app.storage.aws.region:us-east-1}")
     private String awsRegion;
 
+    @Value("${app.storage.upload.multipart-threshold:8MB}")
+    private DataSize multipartThreshold;
+
+    @Value("${app.storage.upload.part-size:5MB}")
+    private DataSize partSize;
+
+    @Value("${app.storage.upload.stream-threads:16}")
+    private int streamThreads;
+
     @Bean
     public S3Client s3Client() {
         if ("minio".equalsIgnoreCase(storageType)) {
@@ -53,4 +72,76 @@ public class StorageConfig {
                     .build();
         }
     }
+
+    /**
+     * Non-blocking client for uploads. Bodies are streamed from the request, and
+     * objects above the threshold go up as a multipart upload in part-sized
+     * buffers, so an upload never needs the whole file on the heap.
+     */
+    @Bean
+    public S3AsyncClient s3AsyncClient() {
+        MultipartConfiguration multipart = MultipartConfiguration.builder()
+                .thresholdInBytes(multipartThreshold.toBytes())
+                .minimumPartSizeInBytes(partSize.toBytes())
+                .build();
+
+        S3AsyncClientBuilder builder = S3AsyncClient.builder()
+                .multipartEnabled(true)
+                .multipartConfiguration(multipart);
+
+        if ("minio".equalsIgnoreCase(storageType)) {
+            log.info("Configuring async MinIO S3 client at: {}", minioEndpoint);
+
+            return builder
+                    .endpointOverride(URI.create(minioEndpoint))
+                    .region(Region.US_EAST_1)
+                    .credentialsProvider(StaticCredentialsProvider.create(
+                            AwsBasicCredentials.create(minioAccessKey, minioSecretKey)))
+                    .forcePathStyle(true)
+                    .build();
+        }
+
+        log.info("Configuring async AWS S3 client in region: {}", awsRegion);
+        return builder
+                .region(Region.of(awsRegion))
+                .build();
+    }
+
+    /**
+     * Signs direct-to-storage upload URLs with the same endpoint and credentials
+     * as the clients above, so browsers can PUT images without going through
+     * the API.
+     */
+    @Bean(destroyMethod = "close")
+    public S3Presigner s3Presigner() {
+        if ("minio".equalsIgnoreCase(storageType)) {
+            return S3Presigner.builder()
+                    .endpointOverride(URI.create(minioEndpoint))
+                    .region(Region.US_EAST_1)
+                    .credentialsProvider(StaticCredentialsProvider.create(
+                            AwsBasicCredentials.create(minioAccessKey, minioSecretKey)))
+                    .serviceConfiguration(S3Configuration.builder()
+                            .pathStyleAccessEnabled(true)
+                            .build())
+                    .build();
+        }
+
+        return S3Presigner.builder()
+                .region(Region.of(awsRegion))
+                .build();
+    }
+
+    /**
+     * Threads that read upload input streams into the async client. Reading a
+     * multipart temp file blocks, so it is kept off the SDK's event loop.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService storageUploadExecutor() {
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(streamThreads, runnable -> {
+            Thread thread = new Thread(runnable, "storage-upload-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
 }
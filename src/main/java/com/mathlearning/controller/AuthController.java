@@ -4,6 +4,7 @@ import com.mathlearning.dto.ApiResponse;
 import com.mathlearning.dto.AuthResponse;
 import com.mathlearning.dto.LoginRequest;
 import com.mathlearning.dto.RegisterRequest;
+import com.mathlearning.exception.ServiceUnavailableException;
 import com.mathlearning.service.IAuthService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -22,6 +23,8 @@ public class AuthController {
         try {
             AuthResponse response = authService.register(request);
             return ResponseEntity.ok(ApiResponse.success("Registration successful", response));
+        } catch (ServiceUnavailableException e) {
+            throw e; // 503 with Retry-After from the exception handler
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest()
                     .body(ApiResponse.error(e.getMessage()));
@@ -33,6 +36,8 @@ public class AuthController {
         try {
             AuthResponse response = authService.login(request);
             return ResponseEntity.ok(ApiResponse.success("Login successful", response));
+        } catch (ServiceUnavailableException e) {
+            throw e; // 503 with Retry-After from the exception handler
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest()
                     .body(ApiResponse.error(e.getMessage()));
@@ -0,0 +1,114 @@
+package com.mathlearning.controller;
+
+import com.mathlearning.service.LocalFileStorageService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.util.UriUtils;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Serves objects of the local storage backend. The body is copied with
+ * {@link FileChannel#transferTo}, and a single {@code Range} is answered with
+ * 206 so clients can resume or fetch part of an image.
+ */
+@RestController
+@RequestMapping("/api/files")
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "local")
+@RequiredArgsConstructor
+public class FileController {
+
+    private static final String PREFIX = "/api/files/";
+    private static final Pattern SINGLE_RANGE = Pattern.compile("^bytes=(\\d*)-(\\d*)$");
+
+    private final LocalFileStorageService storageService;
+
+    @GetMapping("/**")
+    public void getFile(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        String key = UriUtils.decode(path.substring(PREFIX.length()), StandardCharsets.UTF_8);
+        Path file = storageService.pathFor(key);
+
+        if (!Files.isRegularFile(file)) {
+            response.sendError(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long start = 0;
+            long end = size - 1;
+
+            String range = request.getHeader(HttpHeaders.RANGE);
+            Matcher matcher = range == null ? null : SINGLE_RANGE.matcher(range.trim());
+            // Multiple ranges are not supported and are answered with the whole file
+            if (matcher != null && matcher.matches()) {
+                String first = matcher.group(1);
+                String last = matcher.group(2);
+                if (first.isEmpty() && last.isEmpty()) {
+                    sendUnsatisfiable(response, size);
+                    return;
+                }
+                if (first.isEmpty()) {
+                    // Suffix range: the final N bytes
+                    start = Math.max(0, size - Long.parseLong(last));
+                } else {
+                    start = Long.parseLong(first);
+                    end = last.isEmpty() ? size - 1 : Math.min(Long.parseLong(last), size - 1);
+                }
+                if (start >= size || start > end) {
+                    sendUnsatisfiable(response, size);
+                    return;
+                }
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+            } else {
+                response.setStatus(HttpStatus.OK.value());
+            }
+
+            long length = end - start + 1;
+            response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+            response.setContentType(storageService.contentTypeOf(file));
+            response.setContentLengthLong(Math.max(length, 0));
+            // Keys are immutable: a new upload always gets a new key or identical content
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable");
+
+            WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = length;
+            while (remaining > 0) {
+                long transferred = channel.transferTo(position, remaining, target);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+                remaining -= transferred;
+            }
+        } catch (NoSuchFileException e) {
+            // Removed between the existence check and the open
+            response.sendError(HttpStatus.NOT_FOUND.value());
+        }
+    }
+
+    private void sendUnsatisfiable(HttpServletResponse response, long size) {
+        response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+        response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+    }
+}
@@ -1,24 +1,35 @@
 package com.mathlearning.controller;
 
 import com.mathlearning.dto.ApiResponse;
+import com.mathlearning.dto.CursorPage;
+import com.mathlearning.dto.DueReviewDto;
 import com.mathlearning.dto.MistakeDto;
 import com.mathlearning.dto.ProgressDto;
-import com.mathlearning.model.MistakeNotebook;
+import com.mathlearning.dto.ReviewRequest;
 import com.mathlearning.model.UserProgress;
 import com.mathlearning.repository.MistakeNotebookRepository;
-import com.mathlearning.repository.SubmissionRepository;
 import com.mathlearning.repository.UserProgressRepository;
+import com.mathlearning.service.IReviewScheduler;
+import com.mathlearning.util.KeysetCursor;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.Function;
 
 @RestController
 @RequestMapping("/api/progress")
@@ -26,13 +37,20 @@ import java.util.stream.Collectors;
 public class ProgressController {
 
         private final UserProgressRepository userProgressRepository;
-        private final SubmissionRepository submissionRepository;
         private final MistakeNotebookRepository mistakeNotebookRepository;
+        private final IReviewScheduler reviewScheduler;
+
+        @Value("${app.pagination.default-page-size:20}")
+        private int defaultPageSize;
+
+        @Value("${app.pagination.max-page-size:100}")
+        private int maxPageSize;
 
         @GetMapping
         public ResponseEntity<ApiResponse<ProgressDto>> getProgress(Authentication authentication) {
                 Long userId = extractUserId(authentication);
 
+                // Counters are maintained on every graded submission, so this is one primary-key lookup
                 UserProgress progress = userProgressRepository.findByUserId(userId)
                                 .orElseGet(() -> UserProgress.builder()
                                                 .totalXp(0)
@@ -40,9 +58,8 @@ public class ProgressController {
                                                 .longestStreak(0)
                                                 .build());
 
-                long totalSubmissions = submissionRepository.countByUserIdAndIsCorrect(userId, true) +
-                                submissionRepository.countByUserIdAndIsCorrect(userId, false);
-                long correctSubmissions = submissionRepository.countByUserIdAndIsCorrect(userId, true);
+                int totalSubmissions = progress.getTotalSubmissions();
+                int correctSubmissions = progress.getCorrectSubmissions();
 
                 double accuracy = totalSubmissions > 0 ? (correctSubmissions * 100.0 / totalSubmissions) : 0.0;
 
@@ -50,8 +67,8 @@ public class ProgressController {
                                 .totalXp(progress.getTotalXp())
                                 .currentStreak(progress.getCurrentStreak())
                                 .longestStreak(progress.getLongestStreak())
-                                .totalSubmissions((int) totalSubmissions)
-                                .correctSubmissions((int) correctSubmissions)
+                                .totalSubmissions(totalSubmissions)
+                                .correctSubmissions(correctSubmissions)
                                 .accuracy(accuracy)
                                 .build();
 
@@ -59,23 +76,62 @@ public class ProgressController {
         }
 
         @GetMapping("/mistakes")
-        public ResponseEntity<ApiResponse<List<MistakeDto>>> getMistakes(Authentication authentication) {
+        public ResponseEntity<ApiResponse<CursorPage<MistakeDto>>> getMistakes(
+                        @RequestParam(value = "cursor", required = false) String cursor,
+                        @RequestParam(value = "limit", required = false) Integer limit,
+                        @RequestParam(value = "topic", required = false) String topic,
+                        Authentication authentication) {
+                Long userId = extractUserId(authentication);
+
+                KeysetCursor after = KeysetCursor.decode(cursor);
+                int pageSize = limit == null ? defaultPageSize : Math.max(1, Math.min(limit, maxPageSize));
+                String topicFilter = topic == null || topic.isBlank() ? null : topic.trim();
+
+                // One statement per page, one extra row to detect the next page
+                Limit fetch = Limit.of(pageSize + 1);
+                List<MistakeDto> rows = after == null
+                                ? mistakeNotebookRepository.findPage(userId, false, topicFilter, fetch)
+                                : mistakeNotebookRepository.findPageBefore(userId, false, topicFilter,
+                                                after.sortKey(), after.id(), fetch);
+
+                CursorPage<MistakeDto> page = CursorPage.fromRows(rows, pageSize, Function.identity(),
+                                mistake -> new KeysetCursor(mistake.getCreatedAt(), mistake.getId()));
+                return ResponseEntity.ok(ApiResponse.success(page));
+        }
+
+        @GetMapping("/mistakes/due")
+        public ResponseEntity<ApiResponse<CursorPage<DueReviewDto>>> getDueReviews(
+                        @RequestParam(value = "cursor", required = false) String cursor,
+                        @RequestParam(value = "limit", required = false) Integer limit,
+                        Authentication authentication) {
                 Long userId = extractUserId(authentication);
 
-                List<MistakeNotebook> mistakes = mistakeNotebookRepository.findByUserIdAndReviewed(userId, false);
+                // The cursor's sort key is the due_at of the previous page's last review
+                KeysetCursor after = KeysetCursor.decode(cursor);
+                int pageSize = limit == null ? defaultPageSize : Math.max(1, Math.min(limit, maxPageSize));
+                LocalDateTime now = LocalDateTime.now();
+
+                // Most overdue first, read in index order however many mistakes are retired or not yet due
+                Limit fetch = Limit.of(pageSize + 1);
+                List<DueReviewDto> rows = after == null
+                                ? mistakeNotebookRepository.findDuePage(userId, now, fetch)
+                                : mistakeNotebookRepository.findDuePageAfter(userId, now, after.sortKey(),
+                                                after.id(), fetch);
 
-                List<MistakeDto> mistakeDtos = mistakes.stream()
-                                .map(mistake -> MistakeDto.builder()
-                                                .id(mistake.getId())
-                                                .submissionId(mistake.getSubmission().getId())
-                                                .questionText(mistake.getSubmission().getQuestion().getQuestionText())
-                                                .topic(mistake.getSubmission().getQuestion().getTopic())
-                                                .createdAt(mistake.getCreatedAt())
-                                                .reviewed(mistake.getReviewed())
-                                                .build())
-                                .collect(Collectors.toList());
+                CursorPage<DueReviewDto> page = CursorPage.fromRows(rows, pageSize, Function.identity(),
+                                review -> new KeysetCursor(review.getDueAt(), review.getId()));
+                return ResponseEntity.ok(ApiResponse.success(page));
+        }
+
+        @PostMapping("/mistakes/{id}/review")
+        public ResponseEntity<ApiResponse<DueReviewDto>> reviewMistake(
+                        @PathVariable("id") Long mistakeId,
+                        @Valid @RequestBody ReviewRequest request,
+                        Authentication authentication) {
+                Long userId = extractUserId(authentication);
 
-                return ResponseEntity.ok(ApiResponse.success(mistakeDtos));
+                DueReviewDto review = reviewScheduler.recordReview(userId, mistakeId, request.getQuality());
+                return ResponseEntity.ok(ApiResponse.success(review));
         }
 
         private Long extractUserId(Authentication methodAuth) {
@@ -4,8 +4,8 @@ import com.mathlearning.dto.ApiResponse;
 import com.mathlearning.dto.QuestionDto;
 import com.mathlearning.model.Question;
 import com.mathlearning.model.User;
-import com.mathlearning.repository.QuestionRepository;
 import com.mathlearning.repository.UserRepository;
+import com.mathlearning.service.IDailyQuestionSelector;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -14,6 +14,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -22,7 +23,7 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class QuestionController {
 
-    private final QuestionRepository questionRepository;
+    private final IDailyQuestionSelector dailyQuestionSelector;
     private final UserRepository userRepository;
 
     @GetMapping("/daily")
@@ -33,10 +34,8 @@ public class QuestionController {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        // For MVP, return all questions for user's grade level
-        // In production, you'd implement more sophisticated logic (adaptive learning,
-        // etc.)
-        List<Question> questions = questionRepository.findByGradeLevel(user.getGradeLevel());
+        List<Question> questions = dailyQuestionSelector.selectDailyQuestions(userId, user.getGradeLevel(),
+                LocalDate.now());
 
         List<QuestionDto> questionDtos = questions.stream()
                 .map(this::toDto)
@@ -1,18 +1,28 @@
 package com.mathlearning.controller;
 
 import com.mathlearning.dto.ApiResponse;
+import com.mathlearning.dto.CursorPage;
+import com.mathlearning.dto.FinalizeUploadRequest;
+import com.mathlearning.dto.PresignedUploadResponse;
 import com.mathlearning.dto.SubmissionDto;
+import com.mathlearning.dto.SubmissionJobResponse;
 import com.mathlearning.dto.SubmissionResponse;
+import com.mathlearning.dto.SubmissionSummaryDto;
+import com.mathlearning.dto.UploadUrlRequest;
+import com.mathlearning.exception.MathLearningException;
+import com.mathlearning.exception.ServiceUnavailableException;
 import com.mathlearning.service.ISubmissionService;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/api/submissions")
 @RequiredArgsConstructor
@@ -20,18 +30,89 @@ public class SubmissionController {
 
     private final ISubmissionService submissionService;
 
+    @Value("${app.grading.async-enabled:false}")
+    private boolean asyncGradingEnabled;
+
     @PostMapping("/upload")
-    public ResponseEntity<ApiResponse<SubmissionResponse>> uploadSubmission(
+    public ResponseEntity<ApiResponse<?>> uploadSubmission(
             @RequestParam("questionId") Long questionId,
             @RequestParam("image") MultipartFile image,
+            @RequestParam(value = "answer", required = false) String answer,
             Authentication authentication) {
 
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         Long userId = (Long) (auth != null ? auth.getPrincipal() : null);
 
+        if (asyncGradingEnabled) {
+            return queueSubmission(userId, questionId, image, answer);
+        }
+
         try {
-            SubmissionResponse response = submissionService.createSubmission(userId, questionId, image);
+            SubmissionResponse response = submissionService.createSubmission(userId, questionId, image, answer);
             return ResponseEntity.ok(ApiResponse.success("Submission graded successfully", response));
+        } catch (MathLearningException e) {
+            return errorResponse(e);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    /**
+     * Step one of a direct upload: returns a presigned PUT URL for the image.
+     */
+    @PostMapping("/upload-url")
+    public ResponseEntity<ApiResponse<PresignedUploadResponse>> createUploadUrl(
+            @Valid @RequestBody UploadUrlRequest request,
+            Authentication authentication) {
+
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        Long userId = (Long) (auth != null ? auth.getPrincipal() : null);
+
+        try {
+            PresignedUploadResponse response = submissionService.createUploadUrl(userId, request.getFileName(),
+                    request.getContentType(), request.getContentLength(), request.getSha256());
+            return ResponseEntity.ok(ApiResponse.success(response));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    /**
+     * Step two of a direct upload: creates the submission from the uploaded
+     * object and starts grading.
+     */
+    @PostMapping("/finalize")
+    public ResponseEntity<ApiResponse<?>> finalizeUpload(
+            @Valid @RequestBody FinalizeUploadRequest request,
+            Authentication authentication) {
+
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        Long userId = (Long) (auth != null ? auth.getPrincipal() : null);
+
+        try {
+            return jobResponse(submissionService.finalizeUpload(userId, request.getQuestionId(),
+                    request.getObjectKey(), request.getAnswer()));
+        } catch (MathLearningException e) {
+            return errorResponse(e);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{id}/status")
+    public ResponseEntity<ApiResponse<SubmissionJobResponse>> getSubmissionStatus(
+            @PathVariable Long id,
+            Authentication authentication) {
+
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        Long userId = (Long) (auth != null ? auth.getPrincipal() : null);
+
+        try {
+            SubmissionJobResponse status = submissionService.getSubmissionStatus(id, userId);
+            return ResponseEntity.ok(ApiResponse.success(status));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                     .body(ApiResponse.error(e.getMessage()));
@@ -39,12 +120,20 @@ public class SubmissionController {
     }
 
     @GetMapping("/history")
-    public ResponseEntity<ApiResponse<List<SubmissionDto>>> getHistory(Authentication authentication) {
+    public ResponseEntity<ApiResponse<CursorPage<SubmissionSummaryDto>>> getHistory(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            Authentication authentication) {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         Long userId = (Long) (auth != null ? auth.getPrincipal() : null);
 
-        List<SubmissionDto> submissions = submissionService.getUserSubmissions(userId);
-        return ResponseEntity.ok(ApiResponse.success(submissions));
+        try {
+            CursorPage<SubmissionSummaryDto> history = submissionService.getSubmissionHistory(userId, cursor, limit);
+            return ResponseEntity.ok(ApiResponse.success(history));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(e.getMessage()));
+        }
     }
 
     @GetMapping("/{id}")
@@ -63,4 +152,37 @@ public class SubmissionController {
                     .body(ApiResponse.error(e.getMessage()));
         }
     }
+
+    private ResponseEntity<ApiResponse<?>> queueSubmission(Long userId, Long questionId,
+            MultipartFile image, String answer) {
+        try {
+            return jobResponse(submissionService.submitForGrading(userId, questionId, image, answer));
+        } catch (MathLearningException e) {
+            return errorResponse(e);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    /**
+     * Keeps the exception's status, and tells clients turned away by busy
+     * grading when to come back.
+     */
+    private ResponseEntity<ApiResponse<?>> errorResponse(MathLearningException e) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(e.getStatus());
+        if (e instanceof ServiceUnavailableException unavailable && unavailable.getRetryAfter() != null) {
+            response.header(HttpHeaders.RETRY_AFTER,
+                    String.valueOf(Math.max(1, unavailable.getRetryAfter().toSeconds())));
+        }
+        return response.body(ApiResponse.error(e.getMessage()));
+    }
+
+    private ResponseEntity<ApiResponse<?>> jobResponse(SubmissionJobResponse response) {
+        if (response.getResult() != null) {
+            return ResponseEntity.ok(ApiResponse.success("Submission graded successfully", response));
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success("Submission accepted for grading", response));
+    }
 }
@@ -0,0 +1,15 @@
+package com.mathlearning.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CachedGrading {
+    private String imageUrl;
+    private GradingResult result;
+}
@@ -0,0 +1,42 @@
+package com.mathlearning.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import com.mathlearning.util.KeysetCursor;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * One page of a keyset-paginated list. Pass {@code nextCursor} back to fetch
+ * the following page; it is null on the last page.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> items;
+    private String nextCursor;
+    private boolean hasMore;
+
+    /**
+     * Builds a page from up to {@code pageSize + 1} rows fetched in keyset order;
+     * the extra row only signals that another page exists.
+     */
+    public static <R, T> CursorPage<T> fromRows(List<R> rows, int pageSize, Function<R, T> mapper,
+            Function<R, KeysetCursor> cursorOf) {
+        boolean hasMore = rows.size() > pageSize;
+        List<R> page = hasMore ? rows.subList(0, pageSize) : rows;
+
+        return CursorPage.<T>builder()
+                .items(page.stream().map(mapper).collect(Collectors.toList()))
+                .nextCursor(hasMore ? cursorOf.apply(page.get(page.size() - 1)).encode() : null)
+                .hasMore(hasMore)
+                .build();
+    }
+}
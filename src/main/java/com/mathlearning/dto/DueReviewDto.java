@@ -0,0 +1,24 @@
+package com.mathlearning.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DueReviewDto {
+    private Long id;
+    private Long submissionId;
+    private Long questionId;
+    private String questionText;
+    private String topic;
+    private LocalDateTime dueAt;
+    private Integer intervalDays;
+    private Double easeFactor;
+    private Integer repetitions;
+}
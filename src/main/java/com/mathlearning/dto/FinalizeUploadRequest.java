@@ -0,0 +1,23 @@
+package com.mathlearning.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FinalizeUploadRequest {
+
+    @NotNull(message = "Question ID is required")
+    private Long questionId;
+
+    @NotBlank(message = "Object key is required")
+    private String objectKey;
+
+    private String answer;
+}
@@ -0,0 +1,21 @@
+package com.mathlearning.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresignedUploadResponse {
+    private String uploadUrl;
+    private String objectKey;
+    // Headers the client must send with the PUT exactly as given
+    private Map<String, String> headers;
+    private Instant expiresAt;
+}
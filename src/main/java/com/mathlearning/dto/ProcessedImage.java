@@ -0,0 +1,18 @@
+package com.mathlearning.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProcessedImage {
+    private byte[] data;
+    private String contentType;
+    private String fileName;
+    private Integer width;
+    private Integer height;
+}
@@ -0,0 +1,22 @@
+package com.mathlearning.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReviewRequest {
+
+    // SM-2 recall quality: 0 = no recall at all, 3 = recalled with effort, 5 = perfect
+    @NotNull(message = "Quality is required")
+    @Min(value = 0, message = "Quality must be between 0 and 5")
+    @Max(value = 5, message = "Quality must be between 0 and 5")
+    private Integer quality;
+}
@@ -0,0 +1,18 @@
+package com.mathlearning.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StoredObject {
+    private String key;
+    private long contentLength;
+    private String contentType;
+    // Hex SHA-256 verified by storage, null when the upload carried no checksum
+    private String sha256;
+}
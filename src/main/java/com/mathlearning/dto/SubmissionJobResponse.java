@@ -0,0 +1,17 @@
+package com.mathlearning.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubmissionJobResponse {
+    private Long submissionId;
+    private String status;
+    private String errorMessage;
+    private SubmissionResponse result;
+}
@@ -0,0 +1,29 @@
+package com.mathlearning.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * History list row. Feedback and solution steps are only returned by the
+ * submission detail endpoint.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubmissionSummaryDto {
+    private Long id;
+    private Long questionId;
+    private String questionText;
+    private String topic;
+    private String status;
+    private BigDecimal score;
+    private Boolean correct;
+    private Integer xpEarned;
+    private LocalDateTime createdAt;
+}
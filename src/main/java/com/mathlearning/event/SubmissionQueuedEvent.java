@@ -0,0 +1,11 @@
+package com.mathlearning.event;
+
+/**
+ * Published once a PENDING submission has been persisted and is ready to be
+ * picked up by the grading scheduler.
+ *
+ * @param submissionId the ID of the submission awaiting grading
+ * @param userId       the ID of the submitting user, for fair queuing
+ */
+public record SubmissionQueuedEvent(Long submissionId, Long userId) {
+}
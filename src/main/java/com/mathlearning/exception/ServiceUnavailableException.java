@@ -0,0 +1,27 @@
+package com.mathlearning.exception;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+
+@Getter
+public class ServiceUnavailableException extends MathLearningException {
+    // Sent as Retry-After when set
+    private final Duration retryAfter;
+
+    public ServiceUnavailableException(String message) {
+        super(message, HttpStatus.SERVICE_UNAVAILABLE, "SERVICE_UNAVAILABLE");
+        this.retryAfter = null;
+    }
+
+    public ServiceUnavailableException(String message, Throwable cause) {
+        super(message, cause, HttpStatus.SERVICE_UNAVAILABLE, "SERVICE_UNAVAILABLE");
+        this.retryAfter = null;
+    }
+
+    public ServiceUnavailableException(String message, Duration retryAfter, Throwable cause) {
+        super(message, cause, HttpStatus.SERVICE_UNAVAILABLE, "SERVICE_UNAVAILABLE");
+        this.retryAfter = retryAfter;
+    }
+}
@@ -37,8 +37,38 @@ public class MistakeNotebook {
     
     @Column(columnDefinition = "TEXT")
     private String notes;
+
+    /** SM-2 ease factor; grows with easy recalls, never below 1.3. */
+    @Column(name = "ease_factor", nullable = false)
+    @Builder.Default
+    private Double easeFactor = 2.5;
+
+    @Column(name = "interval_days", nullable = false)
+    @Builder.Default
+    private Integer intervalDays = 0;
+
+    /** Successful reviews in a row; reset by a failed recall. */
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer repetitions = 0;
+
+    @Column(name = "due_at", nullable = false)
+    private LocalDateTime dueAt;
+
+    @Column(name = "last_reviewed_at")
+    private LocalDateTime lastReviewedAt;
     
     @CreatedDate
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
+
+    /**
+     * New mistakes come up for their first review a day after they were made.
+     */
+    @PrePersist
+    void scheduleFirstReview() {
+        if (dueAt == null) {
+            dueAt = LocalDateTime.now().plusDays(1);
+        }
+    }
 }
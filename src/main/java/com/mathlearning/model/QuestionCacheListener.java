@@ -0,0 +1,43 @@
+package com.mathlearning.model;
+
+import com.mathlearning.service.IQuestionCache;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Invalidates the question cache whenever a question is written through JPA.
+ * Inside a transaction the invalidation waits for the commit, so no node can
+ * reload the old row after it has been dropped.
+ */
+public class QuestionCacheListener {
+
+    private final ObjectProvider<IQuestionCache> questionCache;
+
+    public QuestionCacheListener(ObjectProvider<IQuestionCache> questionCache) {
+        this.questionCache = questionCache;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    void onQuestionChanged(Question question) {
+        IQuestionCache cache = questionCache.getIfAvailable();
+        if (cache == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidateAll();
+                }
+            });
+        } else {
+            cache.invalidateAll();
+        }
+    }
+}
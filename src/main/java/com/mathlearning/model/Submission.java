@@ -38,6 +38,12 @@ public class Submission {
     @Column(name = "original_image_url", nullable = false, columnDefinition = "TEXT")
     private String originalImageUrl;
 
+    @Column(name = "image_hash", length = 64)
+    private String imageHash;
+
+    @Column(name = "student_answer", columnDefinition = "TEXT")
+    private String studentAnswer;
+
     @Column(name = "annotated_image_url", columnDefinition = "TEXT")
     private String annotatedImageUrl;
 
@@ -64,7 +70,25 @@ public class Submission {
     @Column(name = "ai_provider")
     private String aiProvider;
 
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    @Builder.Default
+    private Status status = Status.COMPLETED;
+
+    @Column(name = "error_message", columnDefinition = "TEXT")
+    private String errorMessage;
+
+    @Column(name = "xp_earned")
+    private Integer xpEarned;
+
+    @Column(name = "claimed_at")
+    private LocalDateTime claimedAt;
+
     @CreatedDate
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
+
+    public enum Status {
+        PENDING, PROCESSING, COMPLETED, FAILED
+    }
 }
@@ -24,7 +24,7 @@ public class UserProgress {
     @Column(name = "user_id")
     private Long userId;
     
-    @OneToOne
+    @OneToOne(fetch = FetchType.LAZY)
     @MapsId
     @JoinColumn(name = "user_id")
     private User user;
@@ -41,6 +41,14 @@ public class UserProgress {
     @Builder.Default
     private Integer longestStreak = 0;
     
+    @Column(name = "total_submissions")
+    @Builder.Default
+    private Integer totalSubmissions = 0;
+    
+    @Column(name = "correct_submissions")
+    @Builder.Default
+    private Integer correctSubmissions = 0;
+    
     @Column(name = "last_activity_date")
     private LocalDate lastActivityDate;
     
@@ -1,14 +1,106 @@
 package com.mathlearning.repository;
 
+import com.mathlearning.dto.DueReviewDto;
+import com.mathlearning.dto.MistakeDto;
 import com.mathlearning.model.MistakeNotebook;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface MistakeNotebookRepository extends JpaRepository<MistakeNotebook, Long> {
+    /** Select list and joins shared by the mistake page queries. */
+    String MISTAKE_DTO_FROM = "SELECT new com.mathlearning.dto.MistakeDto(" +
+            "m.id, s.id, q.questionText, q.topic, m.createdAt, m.reviewed) " +
+            "FROM MistakeNotebook m JOIN m.submission s JOIN s.question q ";
+
+    /** Select list and joins shared by the due review queries. */
+    String DUE_REVIEW_DTO_FROM = "SELECT new com.mathlearning.dto.DueReviewDto(" +
+            "m.id, s.id, q.id, q.questionText, q.topic, m.dueAt, m.intervalDays, m.easeFactor, m.repetitions) " +
+            "FROM MistakeNotebook m JOIN m.submission s JOIN s.question q ";
+
+    @EntityGraph(attributePaths = { "submission", "submission.question" })
     List<MistakeNotebook> findByUserIdAndReviewed(Long userId, Boolean reviewed);
 
     List<MistakeNotebook> findByUserId(Long userId);
+
+    /**
+     * Questions behind a user's unreviewed mistakes, soonest review due first.
+     */
+    @Query("SELECT s.question.id FROM MistakeNotebook m JOIN m.submission s " +
+            "WHERE m.user.id = :userId AND m.reviewed = false " +
+            "GROUP BY s.question.id ORDER BY MIN(m.dueAt)")
+    List<Long> findOpenMistakeQuestionIds(@Param("userId") Long userId, Limit limit);
+
+    /**
+     * First page of a user's mistakes, newest first, built in one statement.
+     *
+     * @param topic only mistakes on this question topic, or null for all
+     */
+    @Query(MISTAKE_DTO_FROM +
+            "WHERE m.user.id = :userId AND m.reviewed = :reviewed " +
+            "AND (:topic IS NULL OR q.topic = :topic) " +
+            "ORDER BY m.createdAt DESC, m.id DESC")
+    List<MistakeDto> findPage(@Param("userId") Long userId,
+            @Param("reviewed") Boolean reviewed,
+            @Param("topic") String topic,
+            Limit limit);
+
+    /**
+     * Page of a user's mistakes strictly after the keyset {@code (createdAt, id)}
+     * of the previous page's last row.
+     */
+    @Query(MISTAKE_DTO_FROM +
+            "WHERE m.user.id = :userId AND m.reviewed = :reviewed " +
+            "AND (:topic IS NULL OR q.topic = :topic) " +
+            "AND (m.createdAt < :createdAt OR (m.createdAt = :createdAt AND m.id < :id)) " +
+            "ORDER BY m.createdAt DESC, m.id DESC")
+    List<MistakeDto> findPageBefore(@Param("userId") Long userId,
+            @Param("reviewed") Boolean reviewed,
+            @Param("topic") String topic,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Long id,
+            Limit limit);
+
+    /**
+     * First page of a user's reviews due at {@code now}, most overdue first,
+     * read from the partial {@code (user_id, due_at, id)} index.
+     */
+    @Query(DUE_REVIEW_DTO_FROM +
+            "WHERE m.user.id = :userId AND m.reviewed = false AND m.dueAt <= :now " +
+            "ORDER BY m.dueAt, m.id")
+    List<DueReviewDto> findDuePage(@Param("userId") Long userId,
+            @Param("now") LocalDateTime now,
+            Limit limit);
+
+    /**
+     * Page of due reviews strictly after the keyset {@code (dueAt, id)} of the
+     * previous page's last row.
+     */
+    @Query(DUE_REVIEW_DTO_FROM +
+            "WHERE m.user.id = :userId AND m.reviewed = false AND m.dueAt <= :now " +
+            "AND (m.dueAt > :dueAt OR (m.dueAt = :dueAt AND m.id > :id)) " +
+            "ORDER BY m.dueAt, m.id")
+    List<DueReviewDto> findDuePageAfter(@Param("userId") Long userId,
+            @Param("now") LocalDateTime now,
+            @Param("dueAt") LocalDateTime dueAt,
+            @Param("id") Long id,
+            Limit limit);
+
+    /**
+     * Loads one of a user's mistakes by primary key and locks it, so two
+     * reviews of the same item apply one after the other.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT m FROM MistakeNotebook m WHERE m.id = :id AND m.user.id = :userId")
+    Optional<MistakeNotebook> findForReview(@Param("id") Long id, @Param("userId") Long userId);
 }
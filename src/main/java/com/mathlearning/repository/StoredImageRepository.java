@@ -0,0 +1,44 @@
+package com.mathlearning.repository;
+
+import com.mathlearning.model.StoredImage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface StoredImageRepository extends JpaRepository<StoredImage, String> {
+
+    /**
+     * Counts another reference to an already stored image.
+     *
+     * @return 1 if the image is stored, 0 if it still has to be uploaded
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            UPDATE stored_images
+            SET ref_count = ref_count + 1, last_referenced_at = CURRENT_TIMESTAMP
+            WHERE content_hash = :hash
+            """, nativeQuery = true)
+    int addReference(@Param("hash") String contentHash);
+
+    /**
+     * Records an uploaded image. Two first uploads of the same content may race;
+     * both wrote identical bytes to the same key, so the loser just adds its
+     * reference.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            INSERT INTO stored_images (content_hash, object_key, content_type, size_bytes)
+            VALUES (:hash, :objectKey, :contentType, :size)
+            ON CONFLICT (content_hash) DO UPDATE SET
+                ref_count = stored_images.ref_count + 1,
+                last_referenced_at = CURRENT_TIMESTAMP
+            """, nativeQuery = true)
+    void register(@Param("hash") String contentHash, @Param("objectKey") String objectKey,
+            @Param("contentType") String contentType, @Param("size") long size);
+}
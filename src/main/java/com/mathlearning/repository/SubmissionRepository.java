@@ -1,18 +1,164 @@
 package com.mathlearning.repository;
 
+import com.mathlearning.event.SubmissionQueuedEvent;
 import com.mathlearning.model.Submission;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface SubmissionRepository extends JpaRepository<Submission, Long> {
+    /** Columns of {@link SubmissionSummary}, shared by the history queries. */
+    String SUMMARY_COLUMNS = "s.id AS id, q.id AS questionId, q.questionText AS questionText, " +
+            "q.topic AS topic, s.status AS status, s.aiScore AS score, s.isCorrect AS correct, " +
+            "s.xpEarned AS xpEarned, s.createdAt AS createdAt";
+
     List<Submission> findByUserIdOrderByCreatedAtDesc(Long userId);
 
     Page<Submission> findByUserId(Long userId, Pageable pageable);
 
     long countByUserIdAndIsCorrect(Long userId, Boolean isCorrect);
+
+    /**
+     * First page of a user's history, newest first, as a projection joined with
+     * the question in one statement.
+     */
+    @Query("SELECT " + SUMMARY_COLUMNS + " FROM Submission s JOIN s.question q " +
+            "WHERE s.user.id = :userId ORDER BY s.createdAt DESC, s.id DESC")
+    List<SubmissionSummary> findHistory(@Param("userId") Long userId, Limit limit);
+
+    /**
+     * Page of a user's history strictly after the keyset {@code (createdAt, id)}
+     * of the previous page's last row.
+     */
+    @Query("SELECT " + SUMMARY_COLUMNS + " FROM Submission s JOIN s.question q " +
+            "WHERE s.user.id = :userId AND (s.createdAt < :createdAt " +
+            "OR (s.createdAt = :createdAt AND s.id < :id)) " +
+            "ORDER BY s.createdAt DESC, s.id DESC")
+    List<SubmissionSummary> findHistoryBefore(@Param("userId") Long userId,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Long id,
+            Limit limit);
+
+    /**
+     * History list columns; feedback, steps and image URLs are left out.
+     */
+    interface SubmissionSummary {
+        Long getId();
+
+        Long getQuestionId();
+
+        String getQuestionText();
+
+        String getTopic();
+
+        Submission.Status getStatus();
+
+        BigDecimal getScore();
+
+        Boolean getCorrect();
+
+        Integer getXpEarned();
+
+        LocalDateTime getCreatedAt();
+    }
+
+    /**
+     * Per-question attempt counts of one user's graded submissions since a
+     * point in time, read from the {@code (user_id, created_at)} index.
+     */
+    @Query("SELECT q.id AS questionId, q.topic AS topic, COUNT(s) AS attempts, " +
+            "SUM(CASE WHEN s.isCorrect = true THEN 1 ELSE 0 END) AS correct, " +
+            "MAX(s.createdAt) AS lastAttemptAt " +
+            "FROM Submission s JOIN s.question q " +
+            "WHERE s.user.id = :userId AND s.createdAt >= :since " +
+            "AND s.status = com.mathlearning.model.Submission.Status.COMPLETED " +
+            "GROUP BY q.id, q.topic")
+    List<QuestionAttempts> findQuestionAttempts(@Param("userId") Long userId,
+            @Param("since") LocalDateTime since);
+
+    /**
+     * Row of {@link #findQuestionAttempts}.
+     */
+    interface QuestionAttempts {
+        Long getQuestionId();
+
+        String getTopic();
+
+        Long getAttempts();
+
+        Long getCorrect();
+
+        LocalDateTime getLastAttemptAt();
+    }
+
+    @EntityGraph(attributePaths = { "user", "question" })
+    Optional<Submission> findWithUserAndQuestionById(Long id);
+
+    /**
+     * Moves a submission from one status to another only if it is still in the
+     * expected status, so a job is never picked up by two workers.
+     *
+     * @return number of rows updated (0 if the submission was already claimed)
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Submission s SET s.status = :to WHERE s.id = :id AND s.status = :from")
+    int transitionStatus(@Param("id") Long id,
+            @Param("from") Submission.Status from,
+            @Param("to") Submission.Status to);
+
+    /**
+     * Claims a PENDING submission for grading and records when, so a claim left
+     * by a stopped instance can be told apart from one still being graded.
+     *
+     * @return number of rows updated (0 if the submission was already claimed)
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Submission s SET s.status = com.mathlearning.model.Submission.Status.PROCESSING, " +
+            "s.claimedAt = :claimedAt " +
+            "WHERE s.id = :id AND s.status = com.mathlearning.model.Submission.Status.PENDING")
+    int claimPending(@Param("id") Long id, @Param("claimedAt") LocalDateTime claimedAt);
+
+    /**
+     * PENDING submissions queued before a point in time, oldest first, read
+     * from the partial in-flight status index.
+     */
+    @Query("SELECT new com.mathlearning.event.SubmissionQueuedEvent(s.id, s.user.id) FROM Submission s " +
+            "WHERE s.status = com.mathlearning.model.Submission.Status.PENDING AND s.createdAt < :queuedBefore " +
+            "ORDER BY s.id")
+    List<SubmissionQueuedEvent> findPendingJobs(@Param("queuedBefore") LocalDateTime queuedBefore, Limit limit);
+
+    /**
+     * Returns PROCESSING submissions claimed before a point in time (or before
+     * claims were recorded) to PENDING.
+     *
+     * @return number of submissions released
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Submission s SET s.status = com.mathlearning.model.Submission.Status.PENDING, " +
+            "s.claimedAt = NULL " +
+            "WHERE s.status = com.mathlearning.model.Submission.Status.PROCESSING " +
+            "AND (s.claimedAt IS NULL OR s.claimedAt < :claimedBefore)")
+    int releaseStaleClaims(@Param("claimedBefore") LocalDateTime claimedBefore);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Submission s SET s.status = com.mathlearning.model.Submission.Status.FAILED, " +
+            "s.errorMessage = :errorMessage WHERE s.id = :id")
+    int markFailed(@Param("id") Long id, @Param("errorMessage") String errorMessage);
 }
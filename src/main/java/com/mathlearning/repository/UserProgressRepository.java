@@ -2,11 +2,62 @@ package com.mathlearning.repository;
 
 import com.mathlearning.model.UserProgress;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.util.Optional;
 
 @Repository
 public interface UserProgressRepository extends JpaRepository<UserProgress, Long> {
     Optional<UserProgress> findByUserId(Long userId);
+
+    /**
+     * Adds XP, counts the submission and advances the streak for a submission
+     * made on {@code today} in a single statement, creating the progress row if
+     * it is missing. The row lock taken by the upsert serialises concurrent
+     * submissions of one user, so no update is lost. The streak rules match the
+     * previous Java logic: same day keeps it, the day after extends it, any
+     * longer gap restarts at 1.
+     *
+     * @return the progress values after the update
+     */
+    @Transactional
+    @Query(value = """
+            INSERT INTO user_progress AS p (user_id, total_xp, current_streak, longest_streak, last_activity_date,
+                total_submissions, correct_submissions)
+            VALUES (:userId, :xp, 1, 1, :today, 1, CASE WHEN :correct THEN 1 ELSE 0 END)
+            ON CONFLICT (user_id) DO UPDATE SET
+                total_xp = COALESCE(p.total_xp, 0) + EXCLUDED.total_xp,
+                total_submissions = p.total_submissions + 1,
+                correct_submissions = p.correct_submissions + EXCLUDED.correct_submissions,
+                current_streak = CASE
+                    WHEN p.last_activity_date >= EXCLUDED.last_activity_date THEN COALESCE(p.current_streak, 1)
+                    WHEN p.last_activity_date = EXCLUDED.last_activity_date - 1 THEN COALESCE(p.current_streak, 0) + 1
+                    ELSE 1
+                END,
+                longest_streak = GREATEST(COALESCE(p.longest_streak, 0), CASE
+                    WHEN p.last_activity_date >= EXCLUDED.last_activity_date THEN COALESCE(p.current_streak, 1)
+                    WHEN p.last_activity_date = EXCLUDED.last_activity_date - 1 THEN COALESCE(p.current_streak, 0) + 1
+                    ELSE 1
+                END),
+                last_activity_date = GREATEST(p.last_activity_date, EXCLUDED.last_activity_date)
+            RETURNING p.total_xp AS "totalXp", p.current_streak AS "currentStreak",
+                p.longest_streak AS "longestStreak"
+            """, nativeQuery = true)
+    ProgressSnapshot applySubmission(@Param("userId") Long userId, @Param("xp") int xp,
+            @Param("correct") boolean correct, @Param("today") LocalDate today);
+
+    /**
+     * Progress values returned by {@link #applySubmission}.
+     */
+    interface ProgressSnapshot {
+        Integer getTotalXp();
+
+        Integer getCurrentStreak();
+
+        Integer getLongestStreak();
+    }
 }
@@ -1,9 +1,18 @@
 package com.mathlearning.security;
 
+import java.util.Optional;
+
 public interface IJwtTokenProvider {
     String generateToken(Long userId, String email);
 
     Long getUserIdFromToken(String token);
 
     boolean validateToken(String authToken);
+
+    /**
+     * Verifies the signature and expiry and extracts the claims in one parse.
+     *
+     * @return the claims, or empty if the token is invalid or expired
+     */
+    Optional<VerifiedToken> verifyToken(String token);
 }
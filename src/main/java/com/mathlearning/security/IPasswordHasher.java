@@ -0,0 +1,37 @@
+package com.mathlearning.security;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Password hashing isolated from request threads. Implementations bound the
+ * CPU given to hashing so a login burst cannot starve other endpoints.
+ */
+public interface IPasswordHasher {
+
+    /**
+     * Hashes a password with the configured work factor.
+     *
+     * @throws com.mathlearning.exception.ServiceUnavailableException if hashing
+     *                                                                is saturated
+     */
+    String hash(String rawPassword);
+
+    /**
+     * Checks a password against a stored hash.
+     *
+     * @throws com.mathlearning.exception.ServiceUnavailableException if hashing
+     *                                                                is saturated
+     */
+    boolean matches(String rawPassword, String passwordHash);
+
+    /**
+     * Whether the stored hash uses a lower work factor than configured.
+     */
+    boolean needsRehash(String passwordHash);
+
+    /**
+     * Hashes in the background without waiting; fails instead of queueing when
+     * hashing is busy, so optional work never delays logins.
+     */
+    CompletableFuture<String> hashIfIdle(String rawPassword);
+}
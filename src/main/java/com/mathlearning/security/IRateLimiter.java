@@ -0,0 +1,13 @@
+package com.mathlearning.security;
+
+public interface IRateLimiter {
+
+    /**
+     * Takes one token from the client's bucket for the route.
+     *
+     * @param route     the endpoint group being called
+     * @param clientKey identifies the caller, e.g. {@code u:42} or {@code ip:10.0.0.1}
+     * @return whether the request may proceed, with values for the response headers
+     */
+    RateLimitDecision tryAcquire(RateLimitRoute route, String clientKey);
+}
@@ -1,5 +1,9 @@
 package com.mathlearning.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.mathlearning.util.ContentHash;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import jakarta.annotation.PostConstruct;
@@ -9,7 +13,10 @@ import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Date;
+import java.util.Optional;
 
 @Component
 @Slf4j
@@ -21,11 +28,48 @@ public class JwtTokenProvider implements IJwtTokenProvider {
     @Value("${app.jwt.expiration}")
     private long jwtExpiration;
 
+    @Value("${app.jwt.cache.max-size:10000}")
+    private long cacheMaxSize;
+
     private SecretKey signingKey;
 
+    // Thread-safe and immutable, so one parser serves every request
+    private JwtParser parser;
+
+    /**
+     * Recently verified tokens keyed by the SHA-256 of the token, so the raw
+     * bearer tokens are not kept in memory. Each entry expires at the token's
+     * own {@code exp}.
+     */
+    private Cache<String, VerifiedToken> verifiedTokens;
+
     @PostConstruct
     public void init() {
         this.signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String key, VerifiedToken token, long currentTime) {
+                        return Math.max(0, Duration.between(Instant.now(), token.expiresAt()).toNanos());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, VerifiedToken token, long currentTime,
+                            long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, VerifiedToken token, long currentTime,
+                            long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
     }
 
     public String generateToken(Long userId, String email) {
@@ -42,23 +86,40 @@ public class JwtTokenProvider implements IJwtTokenProvider {
     }
 
     public Long getUserIdFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(signingKey)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-
-        return Long.parseLong(claims.getSubject());
+        return verifyToken(token)
+                .map(VerifiedToken::userId)
+                .orElseThrow(() -> new JwtException("Invalid JWT token"));
     }
 
     public boolean validateToken(String authToken) {
+        return verifyToken(authToken).isPresent();
+    }
+
+    public Optional<VerifiedToken> verifyToken(String token) {
+        if (token == null || token.isBlank()) {
+            log.error("JWT claims string is empty");
+            return Optional.empty();
+        }
+
+        String cacheKey = ContentHash.sha256Hex(token.getBytes(StandardCharsets.UTF_8));
+        VerifiedToken cached = verifiedTokens.getIfPresent(cacheKey);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
         try {
-            Jwts.parser()
-                    .verifyWith(signingKey)
-                    .build()
-                    .parseSignedClaims(authToken);
-            return true;
-        } catch (SecurityException ex) {
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            Date expiration = claims.getExpiration();
+            if (expiration == null) {
+                // Without exp the cache entry would never expire; such tokens are never issued here
+                log.error("JWT token has no expiration");
+                return Optional.empty();
+            }
+            VerifiedToken verified = new VerifiedToken(Long.parseLong(claims.getSubject()),
+                    claims.get("email", String.class), expiration.toInstant());
+            verifiedTokens.put(cacheKey, verified);
+            return Optional.of(verified);
+        } catch (io.jsonwebtoken.security.SecurityException ex) {
             log.error("Invalid JWT signature");
         } catch (MalformedJwtException ex) {
             log.error("Invalid JWT token");
@@ -66,9 +127,9 @@ public class JwtTokenProvider implements IJwtTokenProvider {
             log.error("Expired JWT token");
         } catch (UnsupportedJwtException ex) {
             log.error("Unsupported JWT token");
-        } catch (IllegalArgumentException ex) {
-            log.error("JWT claims string is empty");
+        } catch (JwtException | IllegalArgumentException ex) {
+            log.error("Invalid JWT token: {}", ex.getMessage());
         }
-        return false;
+        return Optional.empty();
     }
 }
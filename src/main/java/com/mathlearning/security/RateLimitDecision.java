@@ -0,0 +1,12 @@
+package com.mathlearning.security;
+
+/**
+ * Outcome of a rate limit check. A negative {@code limit} means no limit was
+ * applied, so no rate limit headers are sent.
+ */
+public record RateLimitDecision(boolean allowed, long limit, long remaining, long retryAfterSeconds) {
+
+    public static RateLimitDecision unlimited() {
+        return new RateLimitDecision(true, -1, -1, 0);
+    }
+}
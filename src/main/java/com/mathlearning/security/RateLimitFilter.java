@@ -0,0 +1,87 @@
+package com.mathlearning.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mathlearning.dto.ApiResponse;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Admission control in front of every API endpoint. Runs after JWT
+ * authentication so signed-in users are limited per user and everyone else per
+ * client IP. Sends {@code X-RateLimit-Limit} and {@code X-RateLimit-Remaining}
+ * on every limited response, and 429 with {@code Retry-After} when the bucket
+ * is empty.
+ */
+@RequiredArgsConstructor
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    static final String LIMIT_HEADER = "X-RateLimit-Limit";
+    static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+
+    private final IRateLimiter rateLimiter;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !path.startsWith("/api/") || path.equals("/api/health")
+                || HttpMethod.OPTIONS.matches(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain) throws ServletException, IOException {
+        RateLimitRoute route = routeOf(request);
+        RateLimitDecision decision = rateLimiter.tryAcquire(route, clientKey(route, request));
+
+        if (decision.limit() >= 0) {
+            response.setHeader(LIMIT_HEADER, String.valueOf(decision.limit()));
+            response.setHeader(REMAINING_HEADER, String.valueOf(Math.max(0, decision.remaining())));
+        }
+
+        if (!decision.allowed()) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(decision.retryAfterSeconds()));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(),
+                    ApiResponse.error("Too many requests, please retry later"));
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    static RateLimitRoute routeOf(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.startsWith("/api/auth/")) {
+            return RateLimitRoute.AUTH;
+        }
+        if (HttpMethod.POST.matches(request.getMethod()) && (path.equals("/api/submissions/upload")
+                || path.equals("/api/submissions/upload-url") || path.equals("/api/submissions/finalize"))) {
+            return RateLimitRoute.UPLOAD;
+        }
+        return HttpMethod.GET.matches(request.getMethod()) ? RateLimitRoute.READ : RateLimitRoute.WRITE;
+    }
+
+    private String clientKey(RateLimitRoute route, HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        // Auth endpoints are limited per IP so one address cannot try many accounts
+        if (route != RateLimitRoute.AUTH && authentication != null && authentication.getPrincipal() instanceof Long userId) {
+            return "u:" + userId;
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,15 @@
+package com.mathlearning.security;
+
+/**
+ * Groups of endpoints that share a rate limit.
+ */
+public enum RateLimitRoute {
+    /** Login and registration, keyed by client IP. */
+    AUTH,
+    /** Image uploads, which cost storage and AI quota. */
+    UPLOAD,
+    /** Any other GET. */
+    READ,
+    /** Any other write. */
+    WRITE
+}
@@ -0,0 +1,161 @@
+package com.mathlearning.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets shared through Redis, one per route and client. To avoid a
+ * Redis round trip per request, each node leases up to a second's worth of
+ * tokens at a time and serves them from a local near-bucket until they run out
+ * or the lease expires. A node can therefore admit at most one lease beyond the
+ * shared limit. Redis errors fail open, so an outage never blocks traffic.
+ */
+@Component
+@Slf4j
+public class RedisRateLimiter implements IRateLimiter {
+
+    private static final String KEY_PREFIX = "ratelimit:";
+
+    /**
+     * Refills the bucket from the elapsed time, then grants up to the requested
+     * tokens. Returns {granted, tokens left, ms until one token is available}.
+     */
+    private static final RedisScript<List> TAKE_TOKENS = new DefaultRedisScript<>("""
+            local capacity = tonumber(ARGV[1])
+            local rate = tonumber(ARGV[2])
+            local requested = tonumber(ARGV[3])
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+            local bucket = redis.call('HMGET', KEYS[1], 'tokens', 'ts')
+            local tokens = tonumber(bucket[1])
+            local ts = tonumber(bucket[2])
+            if tokens == nil or ts == nil then
+                tokens = capacity
+                ts = now
+            end
+            tokens = math.min(capacity, tokens + math.max(0, now - ts) * rate)
+            local granted = math.min(requested, math.floor(tokens))
+            tokens = tokens - granted
+            redis.call('HSET', KEYS[1], 'tokens', tostring(tokens), 'ts', tostring(now))
+            redis.call('PEXPIRE', KEYS[1], math.ceil((capacity - tokens) / rate) + 1000)
+            local retry = 0
+            if granted == 0 then
+                retry = math.ceil((1 - tokens) / rate)
+            end
+            return {granted, math.floor(tokens), retry}
+            """, List.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final boolean enabled;
+    private final Map<RateLimitRoute, Policy> policies = new EnumMap<>(RateLimitRoute.class);
+    private final Cache<String, Lease> leases;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Bucket size and refill rate of one route; {@code leaseSize} is about one
+     * second of refill, at least one token.
+     */
+    record Policy(long capacity, double tokensPerMs, int leaseSize) {
+    }
+
+    /**
+     * Tokens this node took from Redis and has not used yet.
+     */
+    private record Lease(AtomicLong tokens, long sharedRemaining) {
+    }
+
+    public RedisRateLimiter(StringRedisTemplate redisTemplate,
+            MeterRegistry meterRegistry,
+            Environment environment,
+            @Value("${app.rate-limit.enabled:true}") boolean enabled,
+            @Value("${app.rate-limit.lease-ttl:1s}") Duration leaseTtl) {
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+
+        for (RateLimitRoute route : RateLimitRoute.values()) {
+            String prefix = "app.rate-limit." + route.name().toLowerCase() + ".";
+            long capacity = environment.getProperty(prefix + "capacity", Long.class, 60L);
+            long perMinute = environment.getProperty(prefix + "refill-per-minute", Long.class, capacity);
+            policies.put(route, new Policy(capacity, perMinute / 60_000.0,
+                    (int) Math.max(1, Math.min(capacity, perMinute / 60))));
+        }
+        log.info("Configuring rate limits - {}", policies);
+
+        this.leases = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(leaseTtl)
+                .build();
+    }
+
+    @Override
+    public RateLimitDecision tryAcquire(RateLimitRoute route, String clientKey) {
+        if (!enabled) {
+            return RateLimitDecision.unlimited();
+        }
+
+        Policy policy = policies.get(route);
+        String key = KEY_PREFIX + route.name().toLowerCase() + ":" + clientKey;
+
+        Lease lease = leases.getIfPresent(key);
+        if (lease != null) {
+            long left = lease.tokens().decrementAndGet();
+            if (left >= 0) {
+                count(route, "local");
+                return new RateLimitDecision(true, policy.capacity(), lease.sharedRemaining() + left, 0);
+            }
+        }
+
+        List<?> result;
+        try {
+            result = redisTemplate.execute(TAKE_TOKENS, List.of(key),
+                    String.valueOf(policy.capacity()),
+                    String.valueOf(policy.tokensPerMs()),
+                    String.valueOf(policy.leaseSize()));
+        } catch (Exception e) {
+            log.warn("Rate limit check failed, allowing request: {}", e.getMessage());
+            result = null;
+        }
+        if (result == null || result.size() < 3) {
+            count(route, "error");
+            return RateLimitDecision.unlimited();
+        }
+
+        long granted = ((Number) result.get(0)).longValue();
+        long sharedRemaining = ((Number) result.get(1)).longValue();
+        if (granted <= 0) {
+            long retryAfterMs = ((Number) result.get(2)).longValue();
+            count(route, "rejected");
+            return new RateLimitDecision(false, policy.capacity(), 0,
+                    Math.max(1, (retryAfterMs + 999) / 1000));
+        }
+
+        // One token serves this request, the rest stay on this node
+        if (granted > 1) {
+            leases.put(key, new Lease(new AtomicLong(granted - 1), sharedRemaining));
+        } else {
+            leases.invalidate(key);
+        }
+        count(route, "redis");
+        return new RateLimitDecision(true, policy.capacity(), sharedRemaining + granted - 1, 0);
+    }
+
+    private void count(RateLimitRoute route, String outcome) {
+        meterRegistry.counter("ratelimit.requests", "route", route.name().toLowerCase(), "outcome", outcome)
+                .increment();
+    }
+}
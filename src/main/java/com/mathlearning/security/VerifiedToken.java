@@ -0,0 +1,9 @@
+package com.mathlearning.security;
+
+import java.time.Instant;
+
+/**
+ * Claims of a token whose signature and expiry have been checked.
+ */
+public record VerifiedToken(Long userId, String email, Instant expiresAt) {
+}
@@ -0,0 +1,24 @@
+package com.mathlearning.service;
+
+/**
+ * One AI vendor able to grade submissions. The routing
+ * {@link IAIGradingService} picks among all providers per request.
+ */
+public interface IAIGradingProvider extends IAIGradingService {
+
+    /**
+     * @return stable provider name used in configuration and metrics, e.g.
+     *         {@code openai}
+     */
+    String getName();
+
+    /**
+     * @return whether the provider is configured (e.g. has an API key)
+     */
+    boolean isAvailable();
+
+    /**
+     * @return estimated cost of one grading call in USD
+     */
+    double getCostPerRequest();
+}
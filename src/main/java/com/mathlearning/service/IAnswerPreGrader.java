@@ -0,0 +1,22 @@
+package com.mathlearning.service;
+
+import com.mathlearning.dto.GradingResult;
+import com.mathlearning.model.Question;
+
+import java.util.Optional;
+
+/**
+ * Deterministic grading of a student's final answer against the question's
+ * canonical answer, used to avoid an AI call when the outcome is unambiguous.
+ */
+public interface IAnswerPreGrader {
+
+    /**
+     * Attempts to grade a final answer without calling an AI provider.
+     *
+     * @param question the question being answered
+     * @param answer   the student's typed or extracted final answer, may be null
+     * @return grading result, or empty when the answer cannot be decided locally
+     */
+    Optional<GradingResult> tryGrade(Question question, String answer);
+}
@@ -0,0 +1,23 @@
+package com.mathlearning.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Image storage keyed by content hash. Identical images share one object, so a
+ * duplicate upload costs an index update instead of a write to storage.
+ */
+public interface IContentAddressedStorage {
+
+    /**
+     * Stores the content unless an object with the same hash already exists,
+     * counting the reference either way.
+     *
+     * @param content       the image bytes, only read when the object is new
+     * @param contentLength size of the content in bytes
+     * @param contentType   MIME type stored with a new object
+     * @param sha256Hex     SHA-256 hex of exactly these bytes
+     * @return URL of the stored object
+     */
+    String store(InputStream content, long contentLength, String contentType, String sha256Hex) throws IOException;
+}
@@ -0,0 +1,24 @@
+package com.mathlearning.service;
+
+import com.mathlearning.model.Question;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Picks each user's daily practice set from their grade's question bank,
+ * weighted towards weak topics and open mistakes.
+ */
+public interface IDailyQuestionSelector {
+
+    /**
+     * Returns the user's question set for a day. The set is computed on the
+     * first request of the day and the same set is returned for the rest of it.
+     *
+     * @param userId     the user ID
+     * @param gradeLevel the user's grade level
+     * @param day        the day the set is for
+     * @return the selected questions, at most the configured daily count
+     */
+    List<Question> selectDailyQuestions(Long userId, Integer gradeLevel, LocalDate day);
+}
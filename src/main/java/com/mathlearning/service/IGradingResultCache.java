@@ -0,0 +1,38 @@
+package com.mathlearning.service;
+
+import com.mathlearning.dto.CachedGrading;
+
+import java.util.Optional;
+
+/**
+ * Cache of grading results keyed by image content, question and prompt version,
+ * so a resubmitted photo skips both storage and the AI provider.
+ */
+public interface IGradingResultCache {
+
+    /**
+     * Builds the cache key for an image/question pair under the current prompt
+     * version.
+     *
+     * @param imageHash  SHA-256 hex of the image bytes
+     * @param questionId the question being answered
+     * @return cache key
+     */
+    String keyFor(String imageHash, Long questionId);
+
+    /**
+     * Looks up a previous grading, checking the local tier before the shared one.
+     *
+     * @param key cache key from {@link #keyFor(String, Long)}
+     * @return the cached grading, or empty on a miss
+     */
+    Optional<CachedGrading> get(String key);
+
+    /**
+     * Stores a grading in both tiers.
+     *
+     * @param key     cache key from {@link #keyFor(String, Long)}
+     * @param grading the stored image URL and grading result
+     */
+    void put(String key, CachedGrading grading);
+}
@@ -0,0 +1,53 @@
+package com.mathlearning.service;
+
+import java.util.function.Supplier;
+
+/**
+ * Decides which grading work gets AI capacity next. Work is queued by priority
+ * class and, within a class, fairly per user, so one user's worksheet or a
+ * bulk regrade cannot hold up a student waiting on a single answer.
+ */
+public interface IGradingScheduler {
+
+    /**
+     * Priority classes of grading work, each with a configured weight.
+     */
+    enum Priority {
+        /** A student waiting on the HTTP response. */
+        INTERACTIVE,
+        /** Queued uploads the client polls for. */
+        BATCH,
+        /** Bulk regrading, e.g. after a prompt change. */
+        REGRADE
+    }
+
+    /**
+     * Runs grading work on the caller's thread once it is admitted, waiting up
+     * to the class's configured max wait.
+     *
+     * @param priority the class the work belongs to
+     * @param userId   the user the work is done for
+     * @param work     the grading work
+     * @return the work's result
+     * @throws com.mathlearning.exception.ServiceUnavailableException if the
+     *                                                                class's
+     *                                                                queue is
+     *                                                                full or
+     *                                                                the wait
+     *                                                                runs out
+     */
+    <T> T call(Priority priority, Long userId, Supplier<T> work);
+
+    /**
+     * Queues grading work to run in the background once it is admitted.
+     *
+     * @param priority the class the work belongs to
+     * @param userId   the user the work is done for
+     * @param work     the grading work
+     * @throws com.mathlearning.exception.ServiceUnavailableException if the
+     *                                                                class's
+     *                                                                queue is
+     *                                                                full
+     */
+    void submit(Priority priority, Long userId, Runnable work);
+}
@@ -0,0 +1,22 @@
+package com.mathlearning.service;
+
+import com.mathlearning.dto.ProcessedImage;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.Optional;
+
+/**
+ * Prepares uploaded photos for storage and vision grading: orientation fix,
+ * downsampling, contrast enhancement and compact re-encoding.
+ */
+public interface IImagePreprocessor {
+
+    /**
+     * Preprocesses an uploaded image.
+     *
+     * @param image the uploaded image
+     * @return the processed image, or empty when preprocessing is disabled or the
+     *         format cannot be decoded, in which case the original should be stored
+     */
+    Optional<ProcessedImage> preprocess(MultipartFile image);
+}
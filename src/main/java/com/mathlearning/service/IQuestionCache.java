@@ -0,0 +1,56 @@
+package com.mathlearning.service;
+
+import com.mathlearning.model.Question;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Read-through cache of the question bank. Questions change rarely, so reads
+ * are served from a per-node tier and a shared Redis tier, and any change
+ * drops both everywhere.
+ *
+ * <p>Returned questions are shared between requests and must not be modified.
+ */
+public interface IQuestionCache {
+
+    /**
+     * Looks up a single question.
+     *
+     * @param questionId the question ID
+     * @return the question, or empty if it does not exist
+     */
+    Optional<Question> findById(Long questionId);
+
+    /**
+     * Returns every question for a grade level.
+     *
+     * @param gradeLevel the grade level
+     * @return the questions, possibly empty
+     */
+    List<Question> findByGradeLevel(Integer gradeLevel);
+
+    /**
+     * Returns the questions of one topic within a grade level.
+     *
+     * @param gradeLevel the grade level
+     * @param topic      the exact topic name
+     * @return the questions, possibly empty
+     */
+    List<Question> findByGradeLevelAndTopic(Integer gradeLevel, String topic);
+
+    /**
+     * Returns the questions of one difficulty within a grade level.
+     *
+     * @param gradeLevel the grade level
+     * @param difficulty the difficulty
+     * @return the questions, possibly empty
+     */
+    List<Question> findByGradeLevelAndDifficulty(Integer gradeLevel, Question.Difficulty difficulty);
+
+    /**
+     * Drops all cached questions on every node, e.g. after the question bank
+     * changed.
+     */
+    void invalidateAll();
+}
@@ -0,0 +1,25 @@
+package com.mathlearning.service;
+
+import com.mathlearning.dto.DueReviewDto;
+
+/**
+ * SM-2 spaced-repetition scheduling for the mistake notebook.
+ */
+public interface IReviewScheduler {
+
+    /**
+     * Applies one review to a mistake and schedules the next one. Mistakes whose
+     * interval reaches the retirement threshold are marked reviewed and leave the
+     * due queue.
+     *
+     * @param userId    the ID of the user reviewing
+     * @param mistakeId the mistake notebook entry being reviewed
+     * @param quality   SM-2 recall quality from 0 (forgotten) to 5 (perfect)
+     * @return the entry with its new schedule
+     * @throws com.mathlearning.exception.ResourceNotFoundException if the entry
+     *                                                              does not
+     *                                                              belong to
+     *                                                              the user
+     */
+    DueReviewDto recordReview(Long userId, Long mistakeId, int quality);
+}
@@ -1,12 +1,44 @@
 package com.mathlearning.service;
 
+import com.mathlearning.dto.PresignedUploadResponse;
+import com.mathlearning.dto.StoredObject;
 import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
 
 public interface IStorageService {
     void ensureBucketExists();
 
     String uploadFile(MultipartFile file, String folder) throws IOException;
 
+    String uploadFile(InputStream content, long contentLength, String contentType, String folder,
+            String fileName) throws IOException;
+
+    /**
+     * Uploads under an exact key, replacing any object already stored there.
+     */
+    String uploadObject(String key, InputStream content, long contentLength, String contentType) throws IOException;
+
+    /**
+     * Signs a PUT URL for a new object under {@code folder}. Content type, length
+     * and, when given, the SHA-256 are part of the signature, so storage rejects
+     * an upload that does not match them.
+     */
+    PresignedUploadResponse presignUpload(String folder, String fileName, String contentType, long contentLength,
+            String sha256Hex);
+
+    /**
+     * Reads the stored metadata of an object, or empty if nothing was uploaded
+     * under {@code key}.
+     */
+    Optional<StoredObject> describeObject(String key);
+
+    /**
+     * Reads back an object stored by this service, by the URL it was stored
+     * under.
+     */
+    byte[] readFile(String fileUrl) throws IOException;
+
     String getFileUrl(String fileName);
 }
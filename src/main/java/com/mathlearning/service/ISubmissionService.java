@@ -1,11 +1,13 @@
 package com.mathlearning.service;
 
+import com.mathlearning.dto.CursorPage;
+import com.mathlearning.dto.PresignedUploadResponse;
 import com.mathlearning.dto.SubmissionDto;
+import com.mathlearning.dto.SubmissionJobResponse;
 import com.mathlearning.dto.SubmissionResponse;
+import com.mathlearning.dto.SubmissionSummaryDto;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.util.List;
-
 /**
  * Service interface for submission management operations.
  */
@@ -17,6 +19,8 @@ public interface ISubmissionService {
      * @param userId     the ID of the user submitting
      * @param questionId the ID of the question being answered
      * @param image      the uploaded solution image
+     * @param answer     the student's typed final answer, may be null; when it can
+     *                   be checked deterministically the AI call is skipped
      * @return submission response with grading results and XP earned
      * @throws com.mathlearning.exception.ResourceNotFoundException if user or
      *                                                              question not
@@ -24,15 +28,110 @@ public interface ISubmissionService {
      * @throws com.mathlearning.exception.InvalidRequestException   if image is
      *                                                              invalid
      */
-    SubmissionResponse createSubmission(Long userId, Long questionId, MultipartFile image);
+    SubmissionResponse createSubmission(Long userId, Long questionId, MultipartFile image, String answer);
+
+    /**
+     * Creates a new submission without a typed answer.
+     *
+     * @see #createSubmission(Long, Long, MultipartFile, String)
+     */
+    default SubmissionResponse createSubmission(Long userId, Long questionId, MultipartFile image) {
+        return createSubmission(userId, questionId, image, null);
+    }
+
+    /**
+     * Stores the image and persists a PENDING submission, handing grading off to
+     * the grading scheduler as batch work.
+     *
+     * @param userId     the ID of the user submitting
+     * @param questionId the ID of the question being answered
+     * @param image      the uploaded solution image
+     * @param answer     the student's typed final answer, may be null
+     * @return job response carrying the submission ID to poll, or the result
+     *         when the submission could be graded immediately
+     * @throws com.mathlearning.exception.ServiceUnavailableException if the
+     *                                                                grading
+     *                                                                queue is
+     *                                                                full
+     */
+    SubmissionJobResponse submitForGrading(Long userId, Long questionId, MultipartFile image, String answer);
+
+    /**
+     * Issues a presigned URL the client PUTs the image to directly, so the bytes
+     * never pass through the API.
+     *
+     * @param userId        the ID of the uploading user
+     * @param fileName      the client's file name, sanitised into the object key
+     * @param contentType   the image content type the PUT must use
+     * @param contentLength the exact size in bytes the PUT must send
+     * @param sha256        optional hex SHA-256 of the image; storage rejects other
+     *                      content and resubmissions can reuse cached gradings
+     * @return the URL, object key and headers to send with the PUT
+     * @throws com.mathlearning.exception.InvalidRequestException if the type or
+     *                                                            size is not
+     *                                                            allowed
+     */
+    PresignedUploadResponse createUploadUrl(Long userId, String fileName, String contentType, long contentLength,
+            String sha256);
+
+    /**
+     * Creates a submission from an image uploaded through
+     * {@link #createUploadUrl} and queues it for grading.
+     *
+     * @param userId     the ID of the user submitting
+     * @param questionId the ID of the question being answered
+     * @param objectKey  the key returned with the upload URL
+     * @param answer     the student's typed final answer, may be null
+     * @return job response carrying the submission ID to poll, or the result
+     *         when the submission could be graded immediately
+     * @throws com.mathlearning.exception.InvalidRequestException if the key is
+     *                                                            not the user's
+     *                                                            or nothing was
+     *                                                            uploaded
+     */
+    SubmissionJobResponse finalizeUpload(Long userId, Long questionId, String objectKey, String answer);
+
+    /**
+     * Grades a PENDING submission and applies XP, streak and mistake notebook
+     * updates. Invoked by the grading scheduler, which already holds AI
+     * capacity for it.
+     *
+     * @param submissionId the submission to grade
+     * @throws com.mathlearning.exception.ServiceUnavailableException if AI
+     *                                                                grading
+     *                                                                is
+     *                                                                briefly
+     *                                                                unavailable;
+     *                                                                the
+     *                                                                submission
+     *                                                                is left
+     *                                                                PENDING to
+     *                                                                be retried
+     */
+    void gradePendingSubmission(Long submissionId);
+
+    /**
+     * Retrieves the grading status of a submission.
+     *
+     * @param submissionId the submission ID
+     * @param userId       the user ID for authorization check
+     * @return job response with the result once grading has completed
+     */
+    SubmissionJobResponse getSubmissionStatus(Long submissionId, Long userId);
 
     /**
-     * Retrieves all submissions for a user.
+     * Retrieves a page of a user's submission history, newest first.
      *
      * @param userId the ID of the user
-     * @return list of submission DTOs
+     * @param cursor the {@code nextCursor} of the previous page, or null for the
+     *               first page
+     * @param limit  requested page size, capped at the configured maximum; null
+     *               for the default
+     * @return page of lightweight submission rows
+     * @throws com.mathlearning.exception.InvalidRequestException if the cursor is
+     *                                                            malformed
      */
-    List<SubmissionDto> getUserSubmissions(Long userId);
+    CursorPage<SubmissionSummaryDto> getSubmissionHistory(Long userId, String cursor, Integer limit);
 
     /**
      * Retrieves a specific submission by ID.
@@ -0,0 +1,184 @@
+package com.mathlearning.service;
+
+import com.mathlearning.dto.PresignedUploadResponse;
+import com.mathlearning.dto.StoredObject;
+import com.mathlearning.exception.InvalidRequestException;
+import com.mathlearning.util.ContentHash;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLConnection;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Stores objects on the local filesystem, for single-node installations and
+ * network-free load tests. Objects live under
+ * {@code <root>/<2 hex of sha256(key)>/<key>} so no directory grows unbounded,
+ * and are written to a temp file with {@link FileChannel#transferFrom} and
+ * moved into place atomically, so readers never see a partial object.
+ */
+@Service
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "local")
+@Slf4j
+public class LocalFileStorageService implements IStorageService {
+
+    private static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+    private static final long TRANSFER_CHUNK = 8L * 1024 * 1024;
+
+    private final Path root;
+    private final String baseUrl;
+    private final boolean fsync;
+
+    public LocalFileStorageService(@Value("${app.storage.local.root:./data/storage}") String root,
+            @Value("${app.storage.local.base-url:http://localhost:8080/api/files}") String baseUrl,
+            @Value("${app.storage.local.fsync:true}") boolean fsync) {
+        this.root = Path.of(root).toAbsolutePath().normalize();
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.fsync = fsync;
+        ensureBucketExists();
+    }
+
+    public void ensureBucketExists() {
+        try {
+            Files.createDirectories(root);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot create storage root " + root, e);
+        }
+    }
+
+    public String uploadFile(MultipartFile file, String folder) throws IOException {
+        try (InputStream content = file.getInputStream()) {
+            return uploadFile(content, file.getSize(), file.getContentType(), folder, file.getOriginalFilename());
+        }
+    }
+
+    public String uploadFile(InputStream content, long contentLength, String contentType, String folder,
+            String fileName) throws IOException {
+        return uploadObject(folder + "/" + UUID.randomUUID() + "-" + fileName, content, contentLength, contentType);
+    }
+
+    public String uploadObject(String key, InputStream content, long contentLength, String contentType)
+            throws IOException {
+        Path target = pathFor(key);
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), ".upload-", ".tmp");
+
+        try (ReadableByteChannel source = Channels.newChannel(content);
+                FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            long written = 0;
+            while (true) {
+                long transferred = channel.transferFrom(source, written, TRANSFER_CHUNK);
+                if (transferred <= 0) {
+                    break;
+                }
+                written += transferred;
+            }
+            if (contentLength >= 0 && written != contentLength) {
+                throw new IOException("Expected " + contentLength + " bytes for " + key + " but read " + written);
+            }
+            if (fsync) {
+                channel.force(true);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        if (fsync) {
+            syncDirectory(target.getParent());
+        }
+
+        String fileUrl = getFileUrl(key);
+        log.info("File stored locally: {}", fileUrl);
+        return fileUrl;
+    }
+
+    public PresignedUploadResponse presignUpload(String folder, String fileName, String contentType,
+            long contentLength, String sha256Hex) {
+        throw new InvalidRequestException("Direct uploads are not available with local storage, use /upload");
+    }
+
+    public Optional<StoredObject> describeObject(String key) {
+        Path path = pathFor(key);
+        if (!Files.isRegularFile(path)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(StoredObject.builder()
+                    .key(key)
+                    .contentLength(Files.size(path))
+                    .contentType(contentTypeOf(path))
+                    .build());
+        } catch (IOException e) {
+            log.warn("Failed to read stored object {}", key, e);
+            return Optional.empty();
+        }
+    }
+
+    public byte[] readFile(String fileUrl) throws IOException {
+        String prefix = baseUrl + "/";
+        if (fileUrl == null || !fileUrl.startsWith(prefix)) {
+            throw new IOException("Not a stored file: " + fileUrl);
+        }
+        return Files.readAllBytes(pathFor(fileUrl.substring(prefix.length())));
+    }
+
+    public String getFileUrl(String fileName) {
+        return baseUrl + "/" + fileName;
+    }
+
+    /**
+     * Resolves a key to its sharded path, rejecting keys that would escape the
+     * storage root.
+     */
+    public Path pathFor(String key) {
+        if (key == null || key.isBlank() || key.startsWith("/") || key.contains("..") || key.contains("\\")) {
+            throw new InvalidRequestException("Invalid object key");
+        }
+        String shard = ContentHash.sha256Hex(key.getBytes(StandardCharsets.UTF_8)).substring(0, 2);
+        Path path = root.resolve(shard).resolve(key).normalize();
+        if (!path.startsWith(root)) {
+            throw new InvalidRequestException("Invalid object key");
+        }
+        return path;
+    }
+
+    /**
+     * Content type from the file name, or from the leading bytes for
+     * extensionless content-addressed objects.
+     */
+    public String contentTypeOf(Path path) throws IOException {
+        String contentType = URLConnection.guessContentTypeFromName(path.getFileName().toString());
+        if (contentType == null) {
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(path))) {
+                contentType = URLConnection.guessContentTypeFromStream(in);
+            }
+        }
+        return contentType != null ? contentType : DEFAULT_CONTENT_TYPE;
+    }
+
+    private void syncDirectory(Path directory) {
+        // Persists the rename itself; not every platform allows opening a directory
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            log.debug("Directory fsync not supported for {}", directory, e);
+        }
+    }
+}
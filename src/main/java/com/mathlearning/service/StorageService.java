@@ -1,27 +1,70 @@
 package com.mathlearning.service;
 
+import com.mathlearning.dto.PresignedUploadResponse;
+import com.mathlearning.dto.StoredObject;
+import com.mathlearning.util.ContentHash;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
-import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.*;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
 
 @Service
+@ConditionalOnExpression("!'${app.storage.type:minio}'.equalsIgnoreCase('local')")
 @RequiredArgsConstructor
 @Slf4j
 public class StorageService implements IStorageService {
 
     private final S3Client s3Client;
+    private final S3AsyncClient s3AsyncClient;
+    private final ExecutorService storageUploadExecutor;
+    private final S3Presigner s3Presigner;
+
+    private final AtomicBoolean bucketReady = new AtomicBoolean();
 
     @Value("${app.storage.minio.bucket-name:mathlearning}")
     private String bucketName;
 
+    @Value("${app.storage.direct-upload.url-ttl:10m}")
+    private Duration uploadUrlTtl;
+
+    /**
+     * Checks the bucket once when the application starts instead of before
+     * every upload. If storage is unreachable at startup the check is retried by
+     * the first upload.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void verifyBucketOnStartup() {
+        try {
+            ensureBucketExists();
+        } catch (SdkException e) {
+            log.warn("Could not verify bucket '{}' at startup, will retry on first upload", bucketName, e);
+        }
+    }
+
     public void ensureBucketExists() {
         try {
             s3Client.headBucket(HeadBucketRequest.builder().bucket(bucketName).build());
@@ -30,29 +73,122 @@ public class StorageService implements IStorageService {
             log.info("Creating bucket '{}'", bucketName);
             s3Client.createBucket(CreateBucketRequest.builder().bucket(bucketName).build());
         }
+        bucketReady.set(true);
     }
 
     public String uploadFile(MultipartFile file, String folder) throws IOException {
-        ensureBucketExists();
+        try (InputStream content = file.getInputStream()) {
+            return uploadFile(content, file.getSize(), file.getContentType(), folder, file.getOriginalFilename());
+        }
+    }
+
+    public String uploadFile(InputStream content, long contentLength, String contentType, String folder,
+            String fileName) throws IOException {
+        return uploadObject(folder + "/" + UUID.randomUUID() + "-" + fileName, content, contentLength, contentType);
+    }
 
-        String fileName = folder + "/" + UUID.randomUUID() + "-" + file.getOriginalFilename();
+    public String uploadObject(String key, InputStream content, long contentLength, String contentType)
+            throws IOException {
+        try {
+            return putObjectAsync(key, content, contentLength, contentType).join();
+        } catch (CompletionException e) {
+            throw new IOException("Failed to upload " + key, e.getCause());
+        }
+    }
+
+    private CompletableFuture<String> putObjectAsync(String key, InputStream content, long contentLength,
+            String contentType) {
+        if (!bucketReady.get()) {
+            ensureBucketExists();
+        }
 
         PutObjectRequest putObjectRequest = PutObjectRequest.builder()
                 .bucket(bucketName)
-                .key(fileName)
-                .contentType(file.getContentType())
+                .key(key)
+                .contentType(contentType)
+                .contentLength(contentLength)
                 .build();
 
-        s3Client.putObject(putObjectRequest, RequestBody.fromBytes(file.getBytes()));
+        // The stream is read on the upload executor in part-sized chunks, never buffered whole
+        AsyncRequestBody body = AsyncRequestBody.fromInputStream(content, contentLength, storageUploadExecutor);
 
-        // Return the file URL
-        String fileUrl = String.format("%s/%s/%s",
-                s3Client.serviceClientConfiguration().endpointOverride().orElse(null),
-                bucketName,
-                fileName);
+        return s3AsyncClient.putObject(putObjectRequest, body)
+                .thenApply(response -> {
+                    String fileUrl = getFileUrl(key);
+                    log.info("File uploaded successfully: {}", fileUrl);
+                    return fileUrl;
+                });
+    }
+
+    public PresignedUploadResponse presignUpload(String folder, String fileName, String contentType,
+            long contentLength, String sha256Hex) {
+        String key = folder + "/" + UUID.randomUUID() + "-" + fileName;
+
+        // Every header set here is signed, so the PUT must match type, size and checksum
+        PutObjectRequest.Builder putObject = PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .contentType(contentType)
+                .contentLength(contentLength);
+        if (sha256Hex != null) {
+            putObject.checksumSHA256(ContentHash.hexToBase64(sha256Hex));
+        }
 
-        log.info("File uploaded successfully: {}", fileUrl);
-        return fileUrl;
+        PresignedPutObjectRequest presigned = s3Presigner.presignPutObject(PutObjectPresignRequest.builder()
+                .signatureDuration(uploadUrlTtl)
+                .putObjectRequest(putObject.build())
+                .build());
+
+        Map<String, String> headers = presigned.signedHeaders().entrySet().stream()
+                .filter(header -> !"host".equalsIgnoreCase(header.getKey()))
+                .collect(Collectors.toMap(Map.Entry::getKey, header -> String.join(",", header.getValue())));
+
+        return PresignedUploadResponse.builder()
+                .uploadUrl(presigned.url().toString())
+                .objectKey(key)
+                .headers(headers)
+                .expiresAt(presigned.expiration())
+                .build();
+    }
+
+    public Optional<StoredObject> describeObject(String key) {
+        try {
+            HeadObjectResponse head = s3Client.headObject(HeadObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .checksumMode(ChecksumMode.ENABLED)
+                    .build());
+            return Optional.of(StoredObject.builder()
+                    .key(key)
+                    .contentLength(head.contentLength())
+                    .contentType(head.contentType())
+                    .sha256(head.checksumSHA256() == null ? null : ContentHash.base64ToHex(head.checksumSHA256()))
+                    .build());
+        } catch (NoSuchKeyException e) {
+            return Optional.empty();
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return Optional.empty();
+            }
+            throw e;
+        }
+    }
+
+    public byte[] readFile(String fileUrl) throws IOException {
+        String prefix = getFileUrl("");
+        if (fileUrl == null || !fileUrl.startsWith(prefix)) {
+            throw new IOException("Not a stored file: " + fileUrl);
+        }
+        String key = fileUrl.substring(prefix.length());
+        try {
+            return s3Client.getObjectAsBytes(GetObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .build())
+                    .asByteArray();
+        } catch (SdkException e) {
+            throw new IOException("Failed to read " + key, e);
+        }
     }
 
     public String getFileUrl(String fileName) {
@@ -0,0 +1,220 @@
+package com.mathlearning.service.impl;
+
+import com.mathlearning.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load protection around AI grading, so a slow provider cannot tie up every
+ * request thread:
+ * <ul>
+ * <li>a circuit breaker per provider that stops calling a failing or slow
+ * provider and probes it again after a while;</li>
+ * <li>a bulkhead, a hard cap on grading calls in flight;</li>
+ * <li>an {@link AdaptiveConcurrencyLimit} below that cap that shrinks as
+ * latency rises and grows back when it recovers.</li>
+ * </ul>
+ * Rejected calls fail fast with a {@link ServiceUnavailableException} carrying
+ * Retry-After. Breaker states and limits are reported as metrics and in the
+ * {@code aiGrading} health component.
+ */
+@Component("aiGrading")
+@Slf4j
+public class AIGradingGuard implements HealthIndicator {
+
+    private static final Map<CircuitBreaker.State, Integer> STATE_CODES = Map.of(
+            CircuitBreaker.State.CLOSED, 0,
+            CircuitBreaker.State.HALF_OPEN, 1,
+            CircuitBreaker.State.OPEN, 2);
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private final AdaptiveConcurrencyLimit limit;
+    private final Semaphore bulkhead;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final List<Runnable> limitListeners = new CopyOnWriteArrayList<>();
+
+    private final int breakerWindow;
+    private final int breakerMinCalls;
+    private final double failureRateThreshold;
+    private final Duration slowCallDuration;
+    private final Duration openDuration;
+    private final int halfOpenProbes;
+    private final int maxConcurrent;
+    private final Duration maxWait;
+    private final Duration retryAfter;
+
+    /**
+     * One admitted grading call; release it exactly once with its outcome.
+     */
+    public final class Permit {
+        private final long startNanos = System.nanoTime();
+        private final int inFlightAtStart;
+
+        private Permit(int inFlightAtStart) {
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        public void release(boolean succeeded) {
+            release();
+            int before = limit.current();
+            if (succeeded) {
+                limit.onSuccess(System.nanoTime() - startNanos, inFlightAtStart);
+            } else {
+                limit.onFailure();
+            }
+            if (limit.current() > before) {
+                limitListeners.forEach(Runnable::run);
+            }
+        }
+
+        /**
+         * Releases without a sample, for calls shed before reaching a provider.
+         */
+        public void release() {
+            inFlight.decrementAndGet();
+            bulkhead.release();
+        }
+    }
+
+    public AIGradingGuard(MeterRegistry meterRegistry,
+            @Value("${app.ai.circuit-breaker.window:20}") int breakerWindow,
+            @Value("${app.ai.circuit-breaker.min-calls:10}") int breakerMinCalls,
+            @Value("${app.ai.circuit-breaker.failure-rate-threshold:0.5}") double failureRateThreshold,
+            @Value("${app.ai.circuit-breaker.slow-call-duration:30s}") Duration slowCallDuration,
+            @Value("${app.ai.circuit-breaker.open-duration:30s}") Duration openDuration,
+            @Value("${app.ai.circuit-breaker.half-open-probes:3}") int halfOpenProbes,
+            @Value("${app.ai.concurrency.max-concurrent:32}") int maxConcurrent,
+            @Value("${app.ai.concurrency.max-wait:0s}") Duration maxWait,
+            @Value("${app.ai.concurrency.initial-limit:16}") int initialLimit,
+            @Value("${app.ai.concurrency.min-limit:2}") int minLimit,
+            @Value("${app.ai.concurrency.tolerance:1.5}") double tolerance,
+            @Value("${app.ai.concurrency.backoff-ratio:0.9}") double backoffRatio,
+            @Value("${app.ai.concurrency.retry-after:5s}") Duration retryAfter) {
+        this.meterRegistry = meterRegistry;
+        this.breakerWindow = breakerWindow;
+        this.breakerMinCalls = breakerMinCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallDuration = slowCallDuration;
+        this.openDuration = openDuration;
+        this.halfOpenProbes = halfOpenProbes;
+        this.maxConcurrent = maxConcurrent;
+        this.maxWait = maxWait;
+        this.retryAfter = retryAfter;
+        this.limit = new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxConcurrent, tolerance, backoffRatio);
+        this.bulkhead = new Semaphore(maxConcurrent);
+
+        Gauge.builder("ai.grading.concurrency.limit", limit, AdaptiveConcurrencyLimit::current)
+                .description("Current adaptive limit on concurrent AI grading calls")
+                .register(meterRegistry);
+        Gauge.builder("ai.grading.concurrency.in.flight", inFlight, AtomicInteger::get)
+                .description("AI grading calls in flight")
+                .register(meterRegistry);
+
+        log.info("Configuring AI grading protection - max concurrent: {}, initial limit: {}, breaker: {}/{} calls",
+                maxConcurrent, initialLimit, failureRateThreshold, breakerWindow);
+    }
+
+    /**
+     * Admits one grading call under the bulkhead and the adaptive limit.
+     *
+     * @throws ServiceUnavailableException if either is exhausted
+     */
+    public Permit acquire() {
+        int current = inFlight.incrementAndGet();
+        if (current > limit.current()) {
+            inFlight.decrementAndGet();
+            throw rejected("limit", "AI grading is at capacity, please retry later", retryAfter);
+        }
+        boolean admitted;
+        try {
+            admitted = maxWait.isZero() ? bulkhead.tryAcquire()
+                    : bulkhead.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            admitted = false;
+        }
+        if (!admitted) {
+            inFlight.decrementAndGet();
+            throw rejected("bulkhead", "AI grading is at capacity, please retry later", retryAfter);
+        }
+        return new Permit(current);
+    }
+
+    /**
+     * Current adaptive limit on grading calls in flight.
+     */
+    int concurrencyLimit() {
+        return limit.current();
+    }
+
+    /**
+     * Registers a callback run after the adaptive limit has grown, on the
+     * thread that released the permit.
+     */
+    void onLimitIncrease(Runnable listener) {
+        limitListeners.add(listener);
+    }
+
+    /**
+     * Circuit breaker of one provider, created on first use.
+     */
+    CircuitBreaker breaker(String provider) {
+        return breakers.computeIfAbsent(provider, name -> {
+            CircuitBreaker breaker = new CircuitBreaker(breakerWindow, breakerMinCalls, failureRateThreshold,
+                    slowCallDuration, openDuration, halfOpenProbes, (from, to) -> {
+                        log.warn("AI provider {} circuit {} -> {}", name, from, to);
+                        meterRegistry.counter("ai.grading.circuit.transitions",
+                                "provider", name, "from", from.name(), "to", to.name()).increment();
+                    });
+            Gauge.builder("ai.grading.circuit.state", breaker, b -> STATE_CODES.get(b.state()))
+                    .description("Circuit breaker state: 0 closed, 1 half-open, 2 open")
+                    .tag("provider", name)
+                    .register(meterRegistry);
+            return breaker;
+        });
+    }
+
+    /**
+     * Fast failure for a request whose every provider has an open circuit.
+     */
+    ServiceUnavailableException circuitOpen(Duration retryAfter) {
+        return rejected("circuit-open", "AI grading is temporarily unavailable, please retry later",
+                retryAfter.isZero() ? this.retryAfter : retryAfter);
+    }
+
+    @Override
+    public Health health() {
+        Map<String, String> circuits = new TreeMap<>();
+        breakers.forEach((name, breaker) -> circuits.put(name, breaker.state().name()));
+        // Stays UP: an open circuit fails over or fails fast by design, and must not
+        // take the instance out of the load balancer
+        return Health.up()
+                .withDetail("degraded", circuits.containsValue(CircuitBreaker.State.OPEN.name()))
+                .withDetail("circuits", circuits)
+                .withDetail("concurrencyLimit", limit.current())
+                .withDetail("maxConcurrent", maxConcurrent)
+                .withDetail("inFlight", inFlight.get())
+                .build();
+    }
+
+    private ServiceUnavailableException rejected(String reason, String message, Duration retryAfter) {
+        meterRegistry.counter("ai.grading.rejected", "reason", reason).increment();
+        return new ServiceUnavailableException(message, retryAfter, null);
+    }
+}
@@ -0,0 +1,287 @@
+package com.mathlearning.service.impl;
+
+import com.mathlearning.dto.GradingResult;
+import com.mathlearning.exception.AIGradingException;
+import com.mathlearning.exception.InvalidRequestException;
+import com.mathlearning.exception.MathLearningException;
+import com.mathlearning.exception.ServiceUnavailableException;
+import com.mathlearning.service.IAIGradingProvider;
+import com.mathlearning.service.IAIGradingService;
+import com.mathlearning.util.CallScope;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Grading entry point that routes each request to one of the configured AI
+ * providers and fails over to the next one when a call fails.
+ *
+ * <p>Providers are ranked by a score built from rolling statistics:
+ * {@code latency * (1 + errorWeight * errorRate) + costWeight * cost}, where
+ * latency and error rate are exponentially weighted moving averages of recent
+ * calls and cost is the configured per-request estimate. A small share of
+ * requests goes to another provider so the statistics of the others stay
+ * current.
+ *
+ * <p>Every request runs under {@link AIGradingGuard}: providers whose circuit
+ * breaker is open are left off the route, and a request fails fast with 503
+ * when all of them are, or when the concurrency limit is reached.
+ *
+ * <p>Each call may be hedged by {@link GradingHedger}: when it is slow, the next
+ * provider on the route (or the same one when it is the last) is asked too and
+ * the first answer wins.
+ */
+@Service
+@Primary
+@Slf4j
+public class AIGradingRouter implements IAIGradingService {
+
+    private static final double LATENCY_ALPHA = 0.2;
+    private static final double ERROR_ALPHA = 0.3;
+
+    private final List<IAIGradingProvider> providers;
+    private final Map<String, ProviderStats> stats = new LinkedHashMap<>();
+    private final GradingHedger hedger;
+    private final AIGradingGuard guard;
+    private final MeterRegistry meterRegistry;
+
+    private final String preferredProvider;
+    private final double errorWeight;
+    private final double costWeight;
+    private final double exploreRatio;
+
+    /**
+     * Rolling outcome statistics of one provider.
+     */
+    static final class ProviderStats {
+        private double latencyMs;
+        private double errorRate;
+
+        ProviderStats(double initialLatencyMs) {
+            this.latencyMs = initialLatencyMs;
+        }
+
+        synchronized void recordSuccess(double elapsedMs) {
+            latencyMs += LATENCY_ALPHA * (elapsedMs - latencyMs);
+            errorRate -= ERROR_ALPHA * errorRate;
+        }
+
+        synchronized void recordFailure(double elapsedMs) {
+            latencyMs += LATENCY_ALPHA * (elapsedMs - latencyMs);
+            errorRate += ERROR_ALPHA * (1 - errorRate);
+        }
+
+        synchronized double latencyMs() {
+            return latencyMs;
+        }
+
+        synchronized double errorRate() {
+            return errorRate;
+        }
+    }
+
+    public AIGradingRouter(List<IAIGradingProvider> providers,
+            GradingHedger hedger,
+            AIGradingGuard guard,
+            MeterRegistry meterRegistry,
+            @Value("${app.ai.provider:openai}") String preferredProvider,
+            @Value("${app.ai.routing.initial-latency:5s}") Duration initialLatency,
+            @Value("${app.ai.routing.error-weight:10}") double errorWeight,
+            @Value("${app.ai.routing.cost-weight:100000}") double costWeight,
+            @Value("${app.ai.routing.explore-ratio:0.05}") double exploreRatio) {
+        this.providers = List.copyOf(providers);
+        this.hedger = hedger;
+        this.guard = guard;
+        this.meterRegistry = meterRegistry;
+        this.preferredProvider = preferredProvider;
+        this.errorWeight = errorWeight;
+        this.costWeight = costWeight;
+        this.exploreRatio = exploreRatio;
+
+        for (IAIGradingProvider provider : this.providers) {
+            ProviderStats providerStats = new ProviderStats(initialLatency.toMillis());
+            stats.put(provider.getName(), providerStats);
+            Gauge.builder("ai.grading.provider.latency", providerStats, ProviderStats::latencyMs)
+                    .description("Moving average grading latency in milliseconds")
+                    .tag("provider", provider.getName())
+                    .register(meterRegistry);
+            Gauge.builder("ai.grading.provider.error.rate", providerStats, ProviderStats::errorRate)
+                    .description("Moving average share of failed grading calls")
+                    .tag("provider", provider.getName())
+                    .register(meterRegistry);
+        }
+        log.info("Configuring AI grading routing - providers: {}, preferred: {}",
+                this.providers.stream().map(p -> p.getName() + (p.isAvailable() ? "" : " (no API key)")).toList(),
+                preferredProvider);
+    }
+
+    @Override
+    public GradingResult gradeSubmission(String imageUrl, String questionText, String correctAnswer,
+            Integer gradeLevel) {
+        if (providers.isEmpty()) {
+            throw new AIGradingException("No AI grading provider is configured");
+        }
+        List<IAIGradingProvider> route = route();
+        if (route.isEmpty()) {
+            long now = System.nanoTime();
+            throw guard.circuitOpen(providers.stream()
+                    .map(provider -> guard.breaker(provider.getName()).remainingOpen(now))
+                    .min(Comparator.naturalOrder())
+                    .orElse(Duration.ZERO));
+        }
+
+        AIGradingGuard.Permit permit = guard.acquire();
+        try {
+            GradingResult result = failover(route, imageUrl, questionText, correctAnswer, gradeLevel);
+            permit.release(true);
+            return result;
+        } catch (ServiceUnavailableException | InvalidRequestException e) {
+            // Shed on provider quota or an image no provider accepts: says nothing about provider latency
+            permit.release();
+            throw e;
+        } catch (RuntimeException e) {
+            permit.release(false);
+            throw e;
+        }
+    }
+
+    private GradingResult failover(List<IAIGradingProvider> route, String imageUrl, String questionText,
+            String correctAnswer, Integer gradeLevel) {
+        // A hedge may already have tried the next provider; don't call a failed one twice
+        Set<String> failed = ConcurrentHashMap.newKeySet();
+        MathLearningException lastError = null;
+        for (int i = 0; i < route.size(); i++) {
+            IAIGradingProvider provider = route.get(i);
+            if (failed.contains(provider.getName())) {
+                continue;
+            }
+            IAIGradingProvider backup = next(route, i, failed);
+            try {
+                return hedger.grade(provider, backup != null ? backup : provider,
+                        candidate -> attempt(candidate, imageUrl, questionText, correctAnswer, gradeLevel, failed));
+            } catch (AIGradingException | ServiceUnavailableException e) {
+                lastError = e;
+                IAIGradingProvider next = next(route, i, failed);
+                if (next != null) {
+                    log.warn("AI provider {} failed, failing over to {}: {}", provider.getName(), next.getName(),
+                            e.getMessage());
+                    meterRegistry.counter("ai.grading.failovers",
+                            "from", provider.getName(), "to", next.getName()).increment();
+                }
+            }
+        }
+        throw lastError;
+    }
+
+    /**
+     * One provider call under its circuit breaker, with its statistics. Calls
+     * cancelled because a hedge won are not held against the provider.
+     */
+    private GradingResult attempt(IAIGradingProvider provider, String imageUrl, String questionText,
+            String correctAnswer, Integer gradeLevel, Set<String> failed) {
+        ProviderStats providerStats = stats.get(provider.getName());
+        CircuitBreaker breaker = guard.breaker(provider.getName());
+        long start = System.nanoTime();
+        long permit = breaker.tryAcquire(start);
+        if (permit == CircuitBreaker.REJECTED) {
+            failed.add(provider.getName());
+            throw new AIGradingException("AI provider " + provider.getName() + " circuit is open");
+        }
+        try {
+            GradingResult result = provider.gradeSubmission(imageUrl, questionText, correctAnswer, gradeLevel);
+            long now = System.nanoTime();
+            breaker.onSuccess(permit, now - start, now);
+            providerStats.recordSuccess((now - start) / 1_000_000.0);
+            timer(provider, "success").record(now - start, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (ServiceUnavailableException e) {
+            // Shed by the provider's quota limiter before the call was made
+            breaker.onIgnored(permit);
+            timer(provider, "throttled").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            failed.add(provider.getName());
+            throw e;
+        } catch (InvalidRequestException e) {
+            // The submission is at fault, every other provider would reject it too
+            breaker.onIgnored(permit);
+            throw e;
+        } catch (Exception e) {
+            long now = System.nanoTime();
+            if (CallScope.isCurrentCancelled()) {
+                breaker.onIgnored(permit);
+                timer(provider, "cancelled").record(now - start, TimeUnit.NANOSECONDS);
+            } else {
+                breaker.onFailure(permit, now);
+                providerStats.recordFailure((now - start) / 1_000_000.0);
+                timer(provider, "error").record(now - start, TimeUnit.NANOSECONDS);
+                failed.add(provider.getName());
+            }
+            throw e instanceof AIGradingException grading ? grading
+                    : new AIGradingException("Failed to grade submission with AI: " + e.getMessage(), e);
+        }
+    }
+
+    private static IAIGradingProvider next(List<IAIGradingProvider> route, int index, Set<String> failed) {
+        for (int i = index + 1; i < route.size(); i++) {
+            if (!failed.contains(route.get(i).getName())) {
+                return route.get(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Providers to try for one request, best first. Unconfigured providers are
+     * only used when none is configured; providers whose circuit does not admit
+     * calls are left out.
+     */
+    List<IAIGradingProvider> route() {
+        List<IAIGradingProvider> candidates = providers.stream().filter(IAIGradingProvider::isAvailable).toList();
+        if (candidates.isEmpty()) {
+            candidates = providers;
+        }
+
+        long now = System.nanoTime();
+        Comparator<IAIGradingProvider> byScore = Comparator
+                .comparingDouble(this::score)
+                .thenComparing(provider -> !provider.getName().equalsIgnoreCase(preferredProvider));
+        List<IAIGradingProvider> route = new ArrayList<>(candidates.stream()
+                .filter(provider -> guard.breaker(provider.getName()).allowsCalls(now))
+                .sorted(byScore)
+                .toList());
+
+        // Occasionally lead with another provider to refresh its statistics
+        if (route.size() > 1 && exploreRatio > 0 && ThreadLocalRandom.current().nextDouble() < exploreRatio) {
+            route.add(0, route.remove(1 + ThreadLocalRandom.current().nextInt(route.size() - 1)));
+        }
+        return route;
+    }
+
+    private double score(IAIGradingProvider provider) {
+        ProviderStats providerStats = stats.get(provider.getName());
+        return providerStats.latencyMs() * (1 + errorWeight * providerStats.errorRate())
+                + costWeight * provider.getCostPerRequest();
+    }
+
+    private Timer timer(IAIGradingProvider provider, String outcome) {
+        return Timer.builder("ai.grading.requests")
+                .description("AI grading calls by provider and outcome")
+                .tag("provider", provider.getName())
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -1,35 +1,82 @@
 package com.mathlearning.service.impl;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.mathlearning.dto.GradingResult;
 import com.mathlearning.exception.AIGradingException;
-import com.mathlearning.service.IAIGradingService;
-import com.theokanning.openai.completion.chat.ChatCompletionRequest;
-import com.theokanning.openai.completion.chat.ChatMessage;
-import com.theokanning.openai.completion.chat.ChatMessageRole;
-import com.theokanning.openai.service.OpenAiService;
-import lombok.RequiredArgsConstructor;
+import com.mathlearning.exception.InvalidRequestException;
+import com.mathlearning.service.IAIGradingProvider;
+import com.mathlearning.service.IStorageService;
 import lombok.extern.slf4j.Slf4j;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 
-import java.math.BigDecimal;
-import java.time.Duration;
-import java.util.List;
+import java.util.Base64;
 
+/**
+ * OpenAI grading provider, calling the Chat Completions API directly on the
+ * shared AI HTTP client. Like the other providers it grades the photo: the
+ * image is read back from storage and sent inline as a base64 data URL, since
+ * the API cannot reach the private bucket.
+ */
 @Service
-@RequiredArgsConstructor
 @Slf4j
-public class AIGradingServiceImpl implements IAIGradingService {
+public class AIGradingServiceImpl implements IAIGradingProvider {
 
-    @Value("${app.ai.openai.api-key}")
-    private String openaiApiKey;
+    public static final String NAME = "openai";
 
-    @Value("${app.ai.openai.model:gpt-4o}")
-    private String model;
+    private static final MediaType JSON = MediaType.get("application/json");
 
+    private final OkHttpClient httpClient;
     private final ObjectMapper objectMapper;
+    private final ProviderQuotaLimiter quotaLimiter;
+    private final IStorageService storageService;
+    private final String apiKey;
+    private final String model;
+    private final String baseUrl;
+    private final double costPerRequest;
+
+    public AIGradingServiceImpl(@Qualifier("openaiHttpClient") OkHttpClient httpClient,
+            ObjectMapper objectMapper,
+            ProviderQuotaLimiter quotaLimiter,
+            IStorageService storageService,
+            @Value("${app.ai.openai.api-key:}") String apiKey,
+            @Value("${app.ai.openai.model:gpt-4o}") String model,
+            @Value("${app.ai.openai.base-url:https://api.openai.com}") String baseUrl,
+            @Value("${app.ai.openai.cost-per-request:0.01}") double costPerRequest) {
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.quotaLimiter = quotaLimiter;
+        this.storageService = storageService;
+        this.apiKey = apiKey;
+        this.model = model;
+        this.baseUrl = baseUrl;
+        this.costPerRequest = costPerRequest;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return StringUtils.hasText(apiKey);
+    }
+
+    @Override
+    public double getCostPerRequest() {
+        return costPerRequest;
+    }
 
     @Override
     public GradingResult gradeSubmission(String imageUrl, String questionText, String correctAnswer,
@@ -38,117 +85,77 @@ public class AIGradingServiceImpl implements IAIGradingService {
 
         log.debug("Starting AI grading for question: {}, grade level: {}", questionText, gradeLevel);
 
-        try {
-            OpenAiService service = new OpenAiService(openaiApiKey, Duration.ofSeconds(60));
-
-            // Create structured prompt for grading
-            String prompt = buildGradingPrompt(questionText, correctAnswer, gradeLevel);
+        // Create structured prompt for grading
+        String prompt = GradingPrompts.gradingPrompt(questionText, correctAnswer, gradeLevel);
+        String system = GradingPrompts.systemPrompt(gradeLevel);
 
-            ChatMessage systemMessage = new ChatMessage(ChatMessageRole.SYSTEM.value(),
-                    "You are an expert math teacher for Grade " + gradeLevel + " students. " +
-                            "You grade student work strictly but fairly. " +
-                            "Always respond with valid JSON only, no additional text.");
+        // Waits for or sheds on the account's request and token quota
+        quotaLimiter.acquire(NAME, GradingPrompts.estimateTokens(system, prompt), StringUtils.hasText(imageUrl));
 
-            ChatMessage userMessage = new ChatMessage(ChatMessageRole.USER.value(), prompt);
-
-            ChatCompletionRequest completionRequest = ChatCompletionRequest.builder()
-                    .model(model)
-                    .messages(List.of(systemMessage, userMessage))
-                    .temperature(0.3)
-                    .maxTokens(500)
+        try {
+            byte[] image = StringUtils.hasText(imageUrl) ? storageService.readFile(imageUrl) : null;
+            Request request = new Request.Builder()
+                    .url(baseUrl + "/v1/chat/completions")
+                    .post(RequestBody.create(objectMapper.writeValueAsBytes(
+                            buildRequest(image, system, prompt)), JSON))
                     .build();
 
-            String response = service.createChatCompletion(completionRequest)
-                    .getChoices()
-                    .get(0)
-                    .getMessage()
-                    .getContent();
+            String response;
+            try (Response httpResponse = httpClient.newCall(request).execute()) {
+                ResponseBody body = httpResponse.body();
+                String payload = body != null ? body.string() : "";
+                if (!httpResponse.isSuccessful()) {
+                    throw new AIGradingException("OpenAI API returned " + httpResponse.code() + ": "
+                            + payload.substring(0, Math.min(payload.length(), 200)));
+                }
+                response = objectMapper.readTree(payload).path("choices").path(0).path("message")
+                        .path("content").asText();
+            }
 
             log.debug("Received AI response, parsing JSON");
 
             // Parse JSON response
-            GradingResult result = parseGradingResponse(response);
+            GradingResult result = GradingPrompts.parseGradingResponse(objectMapper, response);
             result.setProcessingTimeMs((int) (System.currentTimeMillis() - startTime));
-            result.setAiProvider("GPT4O");
+            result.setAiProvider(NAME + "/" + model);
 
             log.info("AI grading completed successfully in {}ms, score: {}",
                     result.getProcessingTimeMs(), result.getScore());
 
             return result;
 
+        } catch (AIGradingException | InvalidRequestException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error during AI grading", e);
             throw new AIGradingException("Failed to grade submission with AI: " + e.getMessage(), e);
         }
     }
 
-    private String buildGradingPrompt(String questionText, String correctAnswer, Integer gradeLevel) {
-        return String.format("""
-                Grade this Grade %d math problem:
-
-                Question: %s
-                Correct Answer: %s
-
-                Analyze the student's handwritten work in the image and provide:
-                1. A score out of 10
-                2. Whether the answer is correct (true/false)
-                3. Detailed feedback on what they did right or wrong
-                4. Step-by-step correct solution
-                5. Topic tags (e.g., ["algebra", "equations"])
-
-                Respond ONLY with valid JSON in this exact format:
-                {
-                  "score": 8.5,
-                  "correct": true,
-                  "feedback": "Your work is mostly correct...",
-                  "correctSteps": ["Step 1: ...", "Step 2: ..."],
-                  "topicTags": ["algebra", "linear equations"]
-                }
-                """, gradeLevel, questionText, correctAnswer);
-    }
-
-    private GradingResult parseGradingResponse(String jsonResponse) {
-        try {
-            // Clean response if it contains markdown code blocks
-            String cleaned = jsonResponse.trim();
-            if (cleaned.startsWith("```json")) {
-                cleaned = cleaned.substring(7);
-            }
-            if (cleaned.startsWith("```")) {
-                cleaned = cleaned.substring(3);
-            }
-            if (cleaned.endsWith("```")) {
-                cleaned = cleaned.substring(0, cleaned.length() - 3);
-            }
-            cleaned = cleaned.trim();
-
-            JsonNode node = objectMapper.readTree(cleaned);
-
-            GradingResult result = new GradingResult();
-            result.setScore(BigDecimal.valueOf(node.get("score").asDouble()));
-            result.setCorrect(node.get("correct").asBoolean());
-            result.setFeedback(node.get("feedback").asText());
-
-            // Parse correctSteps array
-            JsonNode stepsNode = node.get("correctSteps");
-            if (stepsNode != null && stepsNode.isArray()) {
-                List<String> steps = new java.util.ArrayList<>();
-                stepsNode.forEach(step -> steps.add(step.asText()));
-                result.setCorrectSteps(steps);
-            }
-
-            // Parse topicTags array
-            JsonNode tagsNode = node.get("topicTags");
-            if (tagsNode != null && tagsNode.isArray()) {
-                List<String> tags = new java.util.ArrayList<>();
-                tagsNode.forEach(tag -> tags.add(tag.asText()));
-                result.setTopicTags(tags);
-            }
-
-            return result;
-        } catch (Exception e) {
-            log.error("Failed to parse AI grading response", e);
-            throw new AIGradingException("Failed to parse AI response: " + e.getMessage(), e);
+    private ObjectNode buildRequest(byte[] image, String system, String prompt) {
+        ObjectNode root = objectMapper.createObjectNode()
+                .put("model", model)
+                .put("max_tokens", GradingPrompts.MAX_TOKENS)
+                .put("temperature", 0.3);
+
+        ArrayNode messages = root.putArray("messages");
+        messages.addObject()
+                .put("role", "system")
+                .put("content", system);
+
+        ArrayNode content = objectMapper.createArrayNode();
+        if (image != null) {
+            content.addObject().put("type", "image_url").putObject("image_url")
+                    .put("url", "data:" + GradingPrompts.imageMediaType(image) + ";base64,"
+                            + Base64.getEncoder().encodeToString(image));
         }
+        content.addObject()
+                .put("type", "text")
+                .put("text", prompt);
+
+        messages.addObject()
+                .put("role", "user")
+                .set("content", content);
+        return root;
     }
 }
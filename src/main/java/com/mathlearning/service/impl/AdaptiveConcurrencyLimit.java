@@ -0,0 +1,59 @@
+package com.mathlearning.service.impl;
+
+/**
+ * Concurrency limit for AI grading that follows observed latency, in the style
+ * of a gradient limiter. Each completed call compares its latency with a slowly
+ * moving baseline: while latency stays within {@code tolerance} of the baseline
+ * the limit grows by about its square root, and as latency rises the limit is
+ * scaled down by the ratio. Failed calls cut the limit multiplicatively (AIMD).
+ *
+ * <p>Samples taken while fewer than half the permits are in use leave the limit
+ * alone, since an idle service says nothing about how much load it can take.
+ */
+final class AdaptiveConcurrencyLimit {
+
+    /** Weight of one sample in the latency baseline. */
+    private static final double BASELINE_ALPHA = 0.05;
+    /** Weight of one sample's target in the limit. */
+    private static final double SMOOTHING = 0.2;
+    private static final double MIN_GRADIENT = 0.5;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double backoffRatio;
+
+    private double limit;
+    private double baselineNanos;
+
+    AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double tolerance, double backoffRatio) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.backoffRatio = backoffRatio;
+        this.limit = clamp(initialLimit);
+    }
+
+    synchronized int current() {
+        return (int) limit;
+    }
+
+    synchronized void onSuccess(long latencyNanos, int inFlight) {
+        baselineNanos = baselineNanos == 0 ? latencyNanos
+                : baselineNanos + BASELINE_ALPHA * (latencyNanos - baselineNanos);
+        if (inFlight < limit / 2) {
+            return;
+        }
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, tolerance * baselineNanos / latencyNanos));
+        double target = limit * gradient + Math.sqrt(limit);
+        limit = clamp(limit + SMOOTHING * (target - limit));
+    }
+
+    synchronized void onFailure() {
+        limit = clamp(limit * backoffRatio);
+    }
+
+    private double clamp(double value) {
+        return Math.max(minLimit, Math.min(maxLimit, value));
+    }
+}
@@ -0,0 +1,161 @@
+package com.mathlearning.service.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.mathlearning.dto.GradingResult;
+import com.mathlearning.exception.AIGradingException;
+import com.mathlearning.exception.InvalidRequestException;
+import com.mathlearning.service.IAIGradingProvider;
+import com.mathlearning.service.IStorageService;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.util.Base64;
+
+/**
+ * Anthropic grading provider, calling the Messages API directly on the shared
+ * AI HTTP client. The image is read back from storage and sent inline as
+ * base64, since the API cannot reach the private bucket, next to the same
+ * prompt the other providers use.
+ */
+@Service
+@Slf4j
+public class AnthropicGradingService implements IAIGradingProvider {
+
+    public static final String NAME = "anthropic";
+
+    private static final MediaType JSON = MediaType.get("application/json");
+
+    private final OkHttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final ProviderQuotaLimiter quotaLimiter;
+    private final IStorageService storageService;
+    private final String apiKey;
+    private final String model;
+    private final String baseUrl;
+    private final double costPerRequest;
+
+    public AnthropicGradingService(@Qualifier("anthropicHttpClient") OkHttpClient httpClient,
+            ObjectMapper objectMapper,
+            ProviderQuotaLimiter quotaLimiter,
+            IStorageService storageService,
+            @Value("${app.ai.anthropic.api-key:}") String apiKey,
+            @Value("${app.ai.anthropic.model:claude-3-5-sonnet-20241022}") String model,
+            @Value("${app.ai.anthropic.base-url:https://api.anthropic.com}") String baseUrl,
+            @Value("${app.ai.anthropic.cost-per-request:0.012}") double costPerRequest) {
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.quotaLimiter = quotaLimiter;
+        this.storageService = storageService;
+        this.apiKey = apiKey;
+        this.model = model;
+        this.baseUrl = baseUrl;
+        this.costPerRequest = costPerRequest;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return StringUtils.hasText(apiKey);
+    }
+
+    @Override
+    public double getCostPerRequest() {
+        return costPerRequest;
+    }
+
+    @Override
+    public GradingResult gradeSubmission(String imageUrl, String questionText, String correctAnswer,
+            Integer gradeLevel) {
+        long startTime = System.currentTimeMillis();
+
+        log.debug("Starting Anthropic grading for question: {}, grade level: {}", questionText, gradeLevel);
+
+        String system = GradingPrompts.systemPrompt(gradeLevel);
+        String prompt = GradingPrompts.gradingPrompt(questionText, correctAnswer, gradeLevel);
+        quotaLimiter.acquire(NAME, GradingPrompts.estimateTokens(system, prompt), StringUtils.hasText(imageUrl));
+
+        try {
+            byte[] image = StringUtils.hasText(imageUrl) ? storageService.readFile(imageUrl) : null;
+            Request request = new Request.Builder()
+                    .url(baseUrl + "/v1/messages")
+                    .post(RequestBody.create(objectMapper.writeValueAsBytes(
+                            buildRequest(image, system, prompt)), JSON))
+                    .build();
+
+            String text;
+            try (Response response = httpClient.newCall(request).execute()) {
+                ResponseBody body = response.body();
+                String payload = body != null ? body.string() : "";
+                if (!response.isSuccessful()) {
+                    throw new AIGradingException("Anthropic API returned " + response.code() + ": "
+                            + payload.substring(0, Math.min(payload.length(), 200)));
+                }
+                text = firstText(objectMapper.readTree(payload));
+            }
+
+            GradingResult result = GradingPrompts.parseGradingResponse(objectMapper, text);
+            result.setProcessingTimeMs((int) (System.currentTimeMillis() - startTime));
+            result.setAiProvider(NAME + "/" + model);
+
+            log.info("Anthropic grading completed successfully in {}ms, score: {}",
+                    result.getProcessingTimeMs(), result.getScore());
+
+            return result;
+
+        } catch (AIGradingException | InvalidRequestException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Error during Anthropic grading", e);
+            throw new AIGradingException("Failed to grade submission with AI: " + e.getMessage(), e);
+        }
+    }
+
+    private ObjectNode buildRequest(byte[] image, String system, String prompt) {
+        ObjectNode root = objectMapper.createObjectNode()
+                .put("model", model)
+                .put("max_tokens", GradingPrompts.MAX_TOKENS)
+                .put("temperature", 0.3)
+                .put("system", system);
+
+        ArrayNode content = objectMapper.createArrayNode();
+        if (image != null) {
+            content.addObject().put("type", "image").putObject("source")
+                    .put("type", "base64")
+                    .put("media_type", GradingPrompts.imageMediaType(image))
+                    .put("data", Base64.getEncoder().encodeToString(image));
+        }
+        content.addObject()
+                .put("type", "text")
+                .put("text", prompt);
+
+        root.putArray("messages").addObject()
+                .put("role", "user")
+                .set("content", content);
+        return root;
+    }
+
+    private static String firstText(JsonNode response) {
+        for (JsonNode block : response.path("content")) {
+            if ("text".equals(block.path("type").asText())) {
+                return block.path("text").asText();
+            }
+        }
+        throw new AIGradingException("Anthropic response contained no text");
+    }
+}
@@ -9,12 +9,11 @@ import com.mathlearning.model.UserProgress;
 import com.mathlearning.repository.UserProgressRepository;
 import com.mathlearning.repository.UserRepository;
 import com.mathlearning.security.IJwtTokenProvider;
+import com.mathlearning.security.IPasswordHasher;
 import com.mathlearning.service.IAuthService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 @Service
 @RequiredArgsConstructor
@@ -23,11 +22,16 @@ public class AuthServiceImpl implements IAuthService {
 
     private final UserRepository userRepository;
     private final UserProgressRepository userProgressRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final IPasswordHasher passwordHasher;
     private final IJwtTokenProvider jwtTokenProvider;
 
+    /**
+     * Not transactional: the password is hashed on the bounded hashing pool,
+     * which may queue, and no connection should be held while it waits. A user
+     * saved without its progress row is still consistent, as progress is
+     * created on first submission and read as empty until then.
+     */
     @Override
-    @Transactional
     public AuthResponse register(RegisterRequest request) {
         log.debug("Attempting to register user with email: {}", request.getEmail());
 
@@ -36,10 +40,12 @@ public class AuthServiceImpl implements IAuthService {
             throw new InvalidRequestException("Email already registered: " + request.getEmail());
         }
 
+        String passwordHash = passwordHasher.hash(request.getPassword());
+
         // Create new user
         User user = User.builder()
                 .email(request.getEmail())
-                .passwordHash(passwordEncoder.encode(request.getPassword()))
+                .passwordHash(passwordHash)
                 .fullName(request.getFullName())
                 .gradeLevel(request.getGradeLevel())
                 .authProvider(User.AuthProvider.EMAIL)
@@ -81,10 +87,14 @@ public class AuthServiceImpl implements IAuthService {
                 .orElseThrow(() -> new InvalidRequestException("Invalid email or password"));
 
         // Verify password
-        if (!passwordEncoder.matches(request.getPassword(), user.getPasswordHash())) {
+        if (!passwordHasher.matches(request.getPassword(), user.getPasswordHash())) {
             throw new InvalidRequestException("Invalid email or password");
         }
 
+        if (passwordHasher.needsRehash(user.getPasswordHash())) {
+            rehashInBackground(user.getId(), request.getPassword());
+        }
+
         log.info("User logged in successfully: {}", user.getEmail());
 
         // Generate JWT token
@@ -99,4 +109,19 @@ public class AuthServiceImpl implements IAuthService {
                 .gradeLevel(user.getGradeLevel())
                 .build();
     }
+
+    /**
+     * Upgrades a hash made with an older work factor while the plain password
+     * is at hand. Skipped when hashing is busy; the next login tries again.
+     */
+    private void rehashInBackground(Long userId, String rawPassword) {
+        passwordHasher.hashIfIdle(rawPassword).whenComplete((passwordHash, error) -> {
+            if (error != null) {
+                log.debug("Skipped password rehash for user {}: {}", userId, error.getMessage());
+                return;
+            }
+            userRepository.updatePasswordHash(userId, passwordHash);
+            log.info("Rehashed password for user {} with the current work factor", userId);
+        });
+    }
 }
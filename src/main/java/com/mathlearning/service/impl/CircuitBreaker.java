@@ -0,0 +1,180 @@
+package com.mathlearning.service.impl;
+
+import java.time.Duration;
+
+/**
+ * Count-based circuit breaker for one AI provider. While closed it tracks the
+ * outcomes of the last {@code window} calls; once at least {@code minCalls} are
+ * known and the share of failed or slow calls reaches the threshold, it opens
+ * and rejects calls for {@code openDuration}. It then lets {@code probes} trial
+ * calls through half-open: all succeeding closes it, any failure opens it again.
+ *
+ * <p>Each permitted call carries the generation it was admitted in, so an
+ * outcome that arrives after a transition cannot skew the new state.
+ */
+final class CircuitBreaker {
+
+    enum State {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    /**
+     * Called on every state change, outside the breaker's lock.
+     */
+    interface TransitionListener {
+        void onTransition(State from, State to);
+    }
+
+    /** Returned by {@link #tryAcquire(long)} when the call is not permitted. */
+    static final long REJECTED = -1;
+
+    private final boolean[] failures;
+    private final int minCalls;
+    private final double failureRateThreshold;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final int probes;
+    private final TransitionListener listener;
+
+    private State state = State.CLOSED;
+    private long generation;
+    private int next;
+    private int size;
+    private int failureCount;
+    private long openedAt;
+    private int probesInFlight;
+    private int probeSuccesses;
+
+    CircuitBreaker(int window, int minCalls, double failureRateThreshold, Duration slowCallDuration,
+            Duration openDuration, int probes, TransitionListener listener) {
+        this.failures = new boolean[window];
+        this.minCalls = Math.min(minCalls, window);
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallNanos = slowCallDuration.toNanos();
+        this.openNanos = openDuration.toNanos();
+        this.probes = probes;
+        this.listener = listener;
+    }
+
+    /**
+     * @return the permit generation to report the outcome with, or
+     *         {@link #REJECTED}
+     */
+    long tryAcquire(long nowNanos) {
+        State from;
+        State to;
+        long permit = REJECTED;
+        synchronized (this) {
+            from = state;
+            if (state == State.OPEN && nowNanos - openedAt >= openNanos) {
+                moveTo(State.HALF_OPEN);
+            }
+            if (state == State.CLOSED || (state == State.HALF_OPEN && probesInFlight < probes)) {
+                if (state == State.HALF_OPEN) {
+                    probesInFlight++;
+                }
+                permit = generation;
+            }
+            to = state;
+        }
+        announce(from, to);
+        return permit;
+    }
+
+    /**
+     * @return whether a call would currently be permitted, without taking a
+     *         probe slot
+     */
+    synchronized boolean allowsCalls(long nowNanos) {
+        return switch (state) {
+            case CLOSED -> true;
+            case OPEN -> nowNanos - openedAt >= openNanos;
+            case HALF_OPEN -> probesInFlight < probes;
+        };
+    }
+
+    void onSuccess(long permit, long elapsedNanos, long nowNanos) {
+        record(permit, elapsedNanos >= slowCallNanos, nowNanos);
+    }
+
+    void onFailure(long permit, long nowNanos) {
+        record(permit, true, nowNanos);
+    }
+
+    /**
+     * Releases a permit whose call ended without a verdict, e.g. cancelled
+     * because a hedge won.
+     */
+    synchronized void onIgnored(long permit) {
+        if (permit == generation && state == State.HALF_OPEN) {
+            probesInFlight--;
+        }
+    }
+
+    synchronized State state() {
+        return state;
+    }
+
+    /**
+     * @return time until an open breaker lets probes through, zero otherwise
+     */
+    synchronized Duration remainingOpen(long nowNanos) {
+        return state == State.OPEN ? Duration.ofNanos(Math.max(0, openNanos - (nowNanos - openedAt)))
+                : Duration.ZERO;
+    }
+
+    private void record(long permit, boolean failed, long nowNanos) {
+        State from;
+        State to;
+        synchronized (this) {
+            if (permit != generation) {
+                return;
+            }
+            from = state;
+            if (state == State.HALF_OPEN) {
+                probesInFlight--;
+                if (failed) {
+                    open(nowNanos);
+                } else if (++probeSuccesses >= probes) {
+                    moveTo(State.CLOSED);
+                }
+            } else if (state == State.CLOSED) {
+                if (size == failures.length && failures[next]) {
+                    failureCount--;
+                }
+                failures[next] = failed;
+                next = (next + 1) % failures.length;
+                size = Math.min(size + 1, failures.length);
+                if (failed) {
+                    failureCount++;
+                }
+                if (size >= minCalls && failureCount >= failureRateThreshold * size) {
+                    open(nowNanos);
+                }
+            }
+            to = state;
+        }
+        announce(from, to);
+    }
+
+    private void open(long nowNanos) {
+        openedAt = nowNanos;
+        moveTo(State.OPEN);
+    }
+
+    private void moveTo(State target) {
+        state = target;
+        generation++;
+        next = 0;
+        size = 0;
+        failureCount = 0;
+        probesInFlight = 0;
+        probeSuccesses = 0;
+    }
+
+    private void announce(State from, State to) {
+        if (from != to) {
+            listener.onTransition(from, to);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.mathlearning.service.impl;
+
+import com.mathlearning.repository.StoredImageRepository;
+import com.mathlearning.service.IContentAddressedStorage;
+import com.mathlearning.service.IStorageService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Stores images under {@code cas/<first two hex chars>/<sha256>} and tracks them
+ * in {@code stored_images}. The index row is written only after the PUT
+ * succeeds, so a hit always points at an object that exists.
+ */
+@Service
+@Slf4j
+public class ContentAddressedStorageImpl implements IContentAddressedStorage {
+
+    private static final String KEY_PREFIX = "cas/";
+
+    private final IStorageService storageService;
+    private final StoredImageRepository storedImageRepository;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public ContentAddressedStorageImpl(IStorageService storageService,
+            StoredImageRepository storedImageRepository,
+            MeterRegistry meterRegistry) {
+        this.storageService = storageService;
+        this.storedImageRepository = storedImageRepository;
+
+        this.hits = Counter.builder("storage.dedup.requests")
+                .tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("storage.dedup.requests")
+                .tag("result", "miss").register(meterRegistry);
+    }
+
+    @Override
+    public String store(InputStream content, long contentLength, String contentType, String sha256Hex)
+            throws IOException {
+        String key = keyFor(sha256Hex);
+
+        if (storedImageRepository.addReference(sha256Hex) > 0) {
+            hits.increment();
+            log.debug("Image {} already stored, skipping upload", sha256Hex);
+            return storageService.getFileUrl(key);
+        }
+
+        misses.increment();
+        String fileUrl = storageService.uploadObject(key, content, contentLength, contentType);
+        storedImageRepository.register(sha256Hex, key, contentType, contentLength);
+        return fileUrl;
+    }
+
+    static String keyFor(String sha256Hex) {
+        // Two-character prefix spreads keys across storage partitions
+        return KEY_PREFIX + sha256Hex.substring(0, 2) + "/" + sha256Hex;
+    }
+}
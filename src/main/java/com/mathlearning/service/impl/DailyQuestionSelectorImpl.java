@@ -0,0 +1,261 @@
+package com.mathlearning.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mathlearning.model.Question;
+import com.mathlearning.repository.MistakeNotebookRepository;
+import com.mathlearning.repository.SubmissionRepository;
+import com.mathlearning.service.IDailyQuestionSelector;
+import com.mathlearning.service.IQuestionCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Builds a daily set per user: retries of open mistakes first, then questions
+ * drawn from the grade bank with a weighted reservoir sample (A-Res), which
+ * makes one pass over the cached bank instead of sorting it randomly in the
+ * database. Weights favour topics with low mastery, topics with open mistakes
+ * and a difficulty matching the user's mastery; recently solved questions are
+ * heavily down-weighted.
+ *
+ * <p>The set is computed once per user and day and stored as question IDs in
+ * Redis until the day ends, with a local tier in front. The sample is seeded by
+ * user and day, so nodes that compute it concurrently agree, and a Redis
+ * outage still gives a stable set.
+ */
+@Service
+@Slf4j
+public class DailyQuestionSelectorImpl implements IDailyQuestionSelector {
+
+    private static final String KEY_PREFIX = "daily-questions:";
+
+    /** Floor so mastered topics still come up now and then. */
+    private static final double MIN_TOPIC_WEIGHT = 0.1;
+    private static final double OPEN_MISTAKE_TOPIC_BOOST = 1.5;
+    private static final double RECENTLY_SOLVED_FACTOR = 0.05;
+
+    private final IQuestionCache questionCache;
+    private final SubmissionRepository submissionRepository;
+    private final MistakeNotebookRepository mistakeNotebookRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Cache<String, List<Long>> localSets;
+    private final Timer computeTimer;
+
+    private final int dailyCount;
+    private final double mistakeShare;
+    private final Duration history;
+    private final Duration repeatAfter;
+
+    /**
+     * A bank question with its sampling key; the largest keys are kept.
+     */
+    private record Candidate(Long questionId, double key) {
+    }
+
+    public DailyQuestionSelectorImpl(IQuestionCache questionCache,
+            SubmissionRepository submissionRepository,
+            MistakeNotebookRepository mistakeNotebookRepository,
+            StringRedisTemplate redisTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${app.questions.daily.count:10}") int dailyCount,
+            @Value("${app.questions.daily.mistake-share:0.3}") double mistakeShare,
+            @Value("${app.questions.daily.history:90d}") Duration history,
+            @Value("${app.questions.daily.repeat-after:14d}") Duration repeatAfter) {
+        this.questionCache = questionCache;
+        this.submissionRepository = submissionRepository;
+        this.mistakeNotebookRepository = mistakeNotebookRepository;
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.dailyCount = dailyCount;
+        this.mistakeShare = mistakeShare;
+        this.history = history;
+        this.repeatAfter = repeatAfter;
+
+        this.localSets = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(Duration.ofHours(1))
+                .build();
+        this.computeTimer = Timer.builder("questions.daily.compute")
+                .description("Time to select a user's daily question set")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public List<Question> selectDailyQuestions(Long userId, Integer gradeLevel, LocalDate day) {
+        String key = KEY_PREFIX + day + ":" + userId + ":" + gradeLevel;
+
+        List<Long> questionIds = localSets.getIfPresent(key);
+        if (questionIds != null) {
+            count("local");
+        } else {
+            questionIds = localSets.get(key, k -> loadOrCompute(k, userId, gradeLevel, day));
+        }
+
+        return questionIds.stream()
+                .map(questionCache::findById)
+                .flatMap(Optional::stream)
+                .toList();
+    }
+
+    private List<Long> loadOrCompute(String key, Long userId, Integer gradeLevel, LocalDate day) {
+        Optional<List<Long>> stored = readShared(key);
+        if (stored.isPresent()) {
+            count("redis");
+            return stored.get();
+        }
+
+        List<Long> selected = computeTimer.record(() -> compute(userId, gradeLevel, day));
+        count("computed");
+
+        try {
+            Duration ttl = Duration.between(LocalDateTime.now(), day.plusDays(1).atStartOfDay()).plusHours(1);
+            Boolean claimed = redisTemplate.opsForValue().setIfAbsent(key, join(selected),
+                    ttl.isNegative() ? Duration.ofHours(1) : ttl);
+            if (Boolean.FALSE.equals(claimed)) {
+                // Another node stored a set first; keep its answer
+                return readShared(key).orElse(selected);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to store daily question set: {}", e.getMessage());
+        }
+        return selected;
+    }
+
+    private List<Long> compute(Long userId, Integer gradeLevel, LocalDate day) {
+        LocalDateTime startOfDay = day.atStartOfDay();
+        List<SubmissionRepository.QuestionAttempts> attempts =
+                submissionRepository.findQuestionAttempts(userId, startOfDay.minus(history));
+
+        // Open mistakes are retried first, up to their share of the set
+        int mistakeSlots = (int) Math.round(dailyCount * mistakeShare);
+        List<Question> mistakes = mistakeSlots > 0
+                ? mistakeNotebookRepository.findOpenMistakeQuestionIds(userId, Limit.of(mistakeSlots)).stream()
+                        .map(questionCache::findById)
+                        .flatMap(Optional::stream)
+                        .toList()
+                : List.of();
+        Set<Long> selected = mistakes.stream().map(Question::getId)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        Set<String> mistakeTopics = mistakes.stream().map(Question::getTopic).collect(Collectors.toSet());
+
+        Map<String, long[]> topicTotals = new HashMap<>();
+        Set<Long> recentlySolved = new HashSet<>();
+        LocalDateTime solvedSince = startOfDay.minus(repeatAfter);
+        for (SubmissionRepository.QuestionAttempts row : attempts) {
+            long[] totals = topicTotals.computeIfAbsent(row.getTopic(), topic -> new long[2]);
+            totals[0] += row.getAttempts();
+            totals[1] += row.getCorrect();
+            if (row.getCorrect() > 0 && row.getLastAttemptAt().isAfter(solvedSince)) {
+                recentlySolved.add(row.getQuestionId());
+            }
+        }
+
+        int wanted = dailyCount - selected.size();
+        if (wanted > 0) {
+            SplittableRandom random = new SplittableRandom(seed(userId, day));
+            PriorityQueue<Candidate> reservoir = new PriorityQueue<>(wanted + 1,
+                    Comparator.comparingDouble(Candidate::key));
+            Map<String, Double> masteryByTopic = new HashMap<>();
+
+            for (Question question : questionCache.findByGradeLevel(gradeLevel)) {
+                if (selected.contains(question.getId())) {
+                    continue;
+                }
+                double mastery = masteryByTopic.computeIfAbsent(question.getTopic(),
+                        topic -> mastery(topicTotals.get(topic)));
+                double weight = weight(question, mastery, mistakeTopics.contains(question.getTopic()),
+                        recentlySolved.contains(question.getId()));
+
+                // A-Res: keep the largest u^(1/w), compared in log space
+                double key = Math.log(random.nextDouble()) / weight;
+                if (reservoir.size() < wanted) {
+                    reservoir.add(new Candidate(question.getId(), key));
+                } else if (key > reservoir.peek().key()) {
+                    reservoir.poll();
+                    reservoir.add(new Candidate(question.getId(), key));
+                }
+            }
+
+            reservoir.stream()
+                    .sorted(Comparator.comparingDouble(Candidate::key).reversed())
+                    .forEach(candidate -> selected.add(candidate.questionId()));
+        }
+
+        log.debug("Selected {} daily questions for user {} ({} open mistakes)", selected.size(), userId,
+                mistakes.size());
+        return List.copyOf(selected);
+    }
+
+    /**
+     * Share of correct answers with one assumed right and one assumed wrong,
+     * so unseen topics start at 0.5.
+     */
+    private static double mastery(long[] totals) {
+        return totals == null ? 0.5 : (totals[1] + 1.0) / (totals[0] + 2.0);
+    }
+
+    private static double weight(Question question, double mastery, boolean openMistakeTopic,
+            boolean recentlySolved) {
+        double weight = 1.0 - mastery + MIN_TOPIC_WEIGHT;
+        if (openMistakeTopic) {
+            weight *= OPEN_MISTAKE_TOPIC_BOOST;
+        }
+
+        Question.Difficulty target = mastery < 0.4 ? Question.Difficulty.EASY
+                : mastery > 0.75 ? Question.Difficulty.HARD : Question.Difficulty.MEDIUM;
+        if (question.getDifficulty() == null) {
+            weight *= 0.75;
+        } else if (question.getDifficulty() != target) {
+            weight *= 0.5;
+        }
+
+        return recentlySolved ? weight * RECENTLY_SOLVED_FACTOR : weight;
+    }
+
+    private static long seed(Long userId, LocalDate day) {
+        return userId * 0x9E3779B97F4A7C15L ^ day.toEpochDay();
+    }
+
+    private Optional<List<Long>> readShared(String key) {
+        try {
+            String stored = redisTemplate.opsForValue().get(key);
+            if (stored != null) {
+                return Optional.of(stored.isEmpty() ? List.of()
+                        : Arrays.stream(stored.split(",")).map(Long::valueOf).toList());
+            }
+        } catch (Exception e) {
+            log.warn("Daily question set lookup failed, computing it: {}", e.getMessage());
+        }
+        return Optional.empty();
+    }
+
+    private static String join(List<Long> questionIds) {
+        return questionIds.stream().map(String::valueOf).collect(Collectors.joining(","));
+    }
+
+    private void count(String source) {
+        meterRegistry.counter("questions.daily.sets", "source", source).increment();
+    }
+}
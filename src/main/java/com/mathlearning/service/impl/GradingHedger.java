@@ -0,0 +1,257 @@
+package com.mathlearning.service.impl;
+
+import com.mathlearning.dto.GradingResult;
+import com.mathlearning.exception.AIGradingException;
+import com.mathlearning.service.IAIGradingProvider;
+import com.mathlearning.util.CallScope;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Hedged grading calls. When a call has not returned by a percentile of the
+ * provider's recent latency, a second call is sent to a backup provider (or the
+ * same one), the first result wins and the other call is cancelled through its
+ * {@link CallScope}. A token budget caps hedges at {@code max-ratio} of calls
+ * so a slow provider cannot double the load on the others.
+ *
+ * <p>Latency is tracked per provider over the last {@code window} calls; until
+ * {@code min-samples} are known, calls run unhedged on the caller's thread.
+ * Cancelled calls count with their time until cancellation, a lower bound, so
+ * the tail the hedges cut off is not forgotten.
+ */
+@Component
+@Slf4j
+public class GradingHedger {
+
+    /** Hedges that may be spent at once after a quiet period. */
+    private static final double MAX_BUDGET = 5;
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, LatencyWindow> windows = new ConcurrentHashMap<>();
+    private final ExecutorService executor;
+
+    private final boolean enabled;
+    private final double percentile;
+    private final long minDelayNanos;
+    private final double maxRatio;
+    private final int windowSize;
+    private final int minSamples;
+
+    private double budget;
+
+    /**
+     * Ring buffer of recent call latencies of one provider.
+     */
+    static final class LatencyWindow {
+        private final long[] samples;
+        private int next;
+        private int size;
+
+        LatencyWindow(int capacity) {
+            this.samples = new long[capacity];
+        }
+
+        synchronized void record(long nanos) {
+            samples[next] = nanos;
+            next = (next + 1) % samples.length;
+            size = Math.min(size + 1, samples.length);
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized long percentile(double percentile) {
+            if (size == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(samples, size);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile * size) - 1;
+            return sorted[Math.max(0, Math.min(index, size - 1))];
+        }
+    }
+
+    /**
+     * One in-flight call and the scope that cancels it.
+     */
+    private record Attempt(IAIGradingProvider provider, CallScope scope, long startNanos, Future<Outcome> future) {
+    }
+
+    private record Outcome(IAIGradingProvider provider, boolean hedge, GradingResult result, RuntimeException error,
+            long elapsedNanos) {
+    }
+
+    public GradingHedger(MeterRegistry meterRegistry,
+            @Value("${app.ai.hedging.enabled:false}") boolean enabled,
+            @Value("${app.ai.hedging.percentile:0.95}") double percentile,
+            @Value("${app.ai.hedging.min-delay:2s}") Duration minDelay,
+            @Value("${app.ai.hedging.max-ratio:0.1}") double maxRatio,
+            @Value("${app.ai.hedging.window:200}") int windowSize,
+            @Value("${app.ai.hedging.min-samples:20}") int minSamples) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.percentile = percentile;
+        this.minDelayNanos = minDelay.toNanos();
+        this.maxRatio = maxRatio;
+        this.windowSize = windowSize;
+        this.minSamples = minSamples;
+        // Grading calls block on HTTP; virtual threads keep waiting calls cheap
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("ai-hedge-", 0).factory());
+
+        if (enabled) {
+            log.info("Configuring AI grading hedging - p{} of last {} calls, min delay: {}, max ratio: {}",
+                    Math.round(percentile * 100), windowSize, minDelay, maxRatio);
+        }
+    }
+
+    /**
+     * Grades with {@code primary}, hedging to {@code backup} when the primary is
+     * slow. {@code attempt} runs one provider call and may run on another
+     * thread. Throws the last error when every call fails.
+     */
+    public GradingResult grade(IAIGradingProvider primary, IAIGradingProvider backup,
+            Function<IAIGradingProvider, GradingResult> attempt) {
+        if (!enabled || backup == null) {
+            return attempt.apply(primary);
+        }
+
+        LatencyWindow window = window(primary);
+        if (window.size() < minSamples) {
+            long start = System.nanoTime();
+            GradingResult result = attempt.apply(primary);
+            window.record(System.nanoTime() - start);
+            return result;
+        }
+
+        long delay = hedgeDelayNanos(window);
+        deposit();
+
+        CompletionService<Outcome> completion = new ExecutorCompletionService<>(executor);
+        List<Attempt> running = new ArrayList<>(2);
+        running.add(submit(completion, primary, false, attempt));
+        try {
+            Future<Outcome> done = completion.poll(delay, TimeUnit.NANOSECONDS);
+            if (done == null) {
+                if (withdraw()) {
+                    log.debug("AI provider {} slower than {}ms, hedging to {}", primary.getName(),
+                            delay / 1_000_000, backup.getName());
+                    running.add(submit(completion, backup, true, attempt));
+                } else {
+                    meterRegistry.counter("ai.grading.hedges.throttled", "provider", primary.getName())
+                            .increment();
+                }
+                done = completion.take();
+            }
+
+            int pending = running.size();
+            while (true) {
+                Outcome outcome = outcome(done);
+                pending--;
+                if (outcome.error() == null) {
+                    window(outcome.provider()).record(outcome.elapsedNanos());
+                    countHedge(primary, running, outcome.hedge() ? "hedge" : "primary");
+                    return outcome.result();
+                }
+                if (pending == 0) {
+                    countHedge(primary, running, "none");
+                    throw outcome.error();
+                }
+                done = completion.take();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AIGradingException("Interrupted while waiting for AI grading", e);
+        } finally {
+            // Cancel the loser; its time so far still says the provider was slow
+            long now = System.nanoTime();
+            for (Attempt call : running) {
+                if (!call.future().isDone()) {
+                    call.scope().cancel();
+                    window(call.provider()).record(now - call.startNanos());
+                }
+            }
+        }
+    }
+
+    private Attempt submit(CompletionService<Outcome> completion, IAIGradingProvider provider, boolean hedge,
+            Function<IAIGradingProvider, GradingResult> attempt) {
+        CallScope scope = CallScope.create();
+        long start = System.nanoTime();
+        Future<Outcome> future = completion.submit(() -> {
+            try (CallScope bound = scope.bind()) {
+                GradingResult result = attempt.apply(provider);
+                return new Outcome(provider, hedge, result, null, System.nanoTime() - start);
+            } catch (RuntimeException e) {
+                return new Outcome(provider, hedge, null, e, System.nanoTime() - start);
+            }
+        });
+        return new Attempt(provider, scope, start, future);
+    }
+
+    private static Outcome outcome(Future<Outcome> done) throws InterruptedException {
+        try {
+            return done.get();
+        } catch (ExecutionException e) {
+            throw new AIGradingException("AI grading call failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private long hedgeDelayNanos(LatencyWindow window) {
+        return Math.max(minDelayNanos, window.percentile(percentile));
+    }
+
+    private synchronized void deposit() {
+        budget = Math.min(MAX_BUDGET, budget + maxRatio);
+    }
+
+    private synchronized boolean withdraw() {
+        if (budget < 1) {
+            return false;
+        }
+        budget -= 1;
+        return true;
+    }
+
+    private void countHedge(IAIGradingProvider primary, List<Attempt> running, String winner) {
+        if (running.size() > 1) {
+            meterRegistry.counter("ai.grading.hedges", "provider", primary.getName(), "winner", winner)
+                    .increment();
+        }
+    }
+
+    private LatencyWindow window(IAIGradingProvider provider) {
+        return windows.computeIfAbsent(provider.getName(), name -> {
+            LatencyWindow window = new LatencyWindow(windowSize);
+            Gauge.builder("ai.grading.hedge.delay", window, w -> hedgeDelayNanos(w) / 1_000_000.0)
+                    .description("Time in milliseconds after which a grading call is hedged")
+                    .tag("provider", name)
+                    .register(meterRegistry);
+            return window;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
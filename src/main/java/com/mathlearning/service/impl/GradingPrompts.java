@@ -0,0 +1,144 @@
+package com.mathlearning.service.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mathlearning.dto.GradingResult;
+import com.mathlearning.exception.AIGradingException;
+import com.mathlearning.exception.InvalidRequestException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Grading prompt and response format shared by all AI providers, so a result
+ * cached under one prompt version means the same whichever provider made it.
+ */
+@Slf4j
+final class GradingPrompts {
+
+    /** Completion budget of one grading call. */
+    static final int MAX_TOKENS = 500;
+
+    /** Rough characters per token of English prompt text. */
+    private static final double CHARS_PER_TOKEN = 4.0;
+
+    private GradingPrompts() {
+    }
+
+    /**
+     * Estimated quota cost of one call in tokens: the prompt texts plus the full
+     * completion budget, which providers reserve up front. Images are priced by
+     * the quota limiter.
+     */
+    static int estimateTokens(String... prompts) {
+        int chars = 0;
+        for (String prompt : prompts) {
+            chars += prompt.length();
+        }
+        return (int) Math.ceil(chars / CHARS_PER_TOKEN) + MAX_TOKENS;
+    }
+
+    /**
+     * Media type of an image from its leading bytes. Only the formats every
+     * provider accepts are recognised; anything else (HEIC, a file that could
+     * not be preprocessed) is rejected instead of being sent under the wrong type.
+     *
+     * @throws InvalidRequestException if the image is in another format
+     */
+    static String imageMediaType(byte[] image) {
+        if (image.length >= 3
+                && (image[0] & 0xFF) == 0xFF && (image[1] & 0xFF) == 0xD8 && (image[2] & 0xFF) == 0xFF) {
+            return "image/jpeg";
+        }
+        if (image.length >= 4 && (image[0] & 0xFF) == 0x89 && image[1] == 'P' && image[2] == 'N' && image[3] == 'G') {
+            return "image/png";
+        }
+        if (image.length >= 3 && image[0] == 'G' && image[1] == 'I' && image[2] == 'F') {
+            return "image/gif";
+        }
+        if (image.length >= 12 && image[0] == 'R' && image[1] == 'I' && image[2] == 'F' && image[3] == 'F'
+                && image[8] == 'W' && image[9] == 'E' && image[10] == 'B' && image[11] == 'P') {
+            return "image/webp";
+        }
+        throw new InvalidRequestException(
+                "Image format is not supported for grading; upload a JPEG, PNG or WebP photo");
+    }
+
+    static String systemPrompt(Integer gradeLevel) {
+        return "You are an expert math teacher for Grade " + gradeLevel + " students. " +
+                "You grade student work strictly but fairly. " +
+                "Always respond with valid JSON only, no additional text.";
+    }
+
+    static String gradingPrompt(String questionText, String correctAnswer, Integer gradeLevel) {
+        return String.format("""
+                Grade this Grade %d math problem:
+
+                Question: %s
+                Correct Answer: %s
+
+                Analyze the student's handwritten work in the image and provide:
+                1. A score out of 10
+                2. Whether the answer is correct (true/false)
+                3. Detailed feedback on what they did right or wrong
+                4. Step-by-step correct solution
+                5. Topic tags (e.g., ["algebra", "equations"])
+
+                Respond ONLY with valid JSON in this exact format:
+                {
+                  "score": 8.5,
+                  "correct": true,
+                  "feedback": "Your work is mostly correct...",
+                  "correctSteps": ["Step 1: ...", "Step 2: ..."],
+                  "topicTags": ["algebra", "linear equations"]
+                }
+                """, gradeLevel, questionText, correctAnswer);
+    }
+
+    static GradingResult parseGradingResponse(ObjectMapper objectMapper, String jsonResponse) {
+        try {
+            // Clean response if it contains markdown code blocks
+            String cleaned = jsonResponse.trim();
+            if (cleaned.startsWith("```json")) {
+                cleaned = cleaned.substring(7);
+            }
+            if (cleaned.startsWith("```")) {
+                cleaned = cleaned.substring(3);
+            }
+            if (cleaned.endsWith("```")) {
+                cleaned = cleaned.substring(0, cleaned.length() - 3);
+            }
+            cleaned = cleaned.trim();
+
+            JsonNode node = objectMapper.readTree(cleaned);
+
+            GradingResult result = new GradingResult();
+            result.setScore(BigDecimal.valueOf(node.get("score").asDouble()));
+            result.setCorrect(node.get("correct").asBoolean());
+            result.setFeedback(node.get("feedback").asText());
+
+            // Parse correctSteps array
+            JsonNode stepsNode = node.get("correctSteps");
+            if (stepsNode != null && stepsNode.isArray()) {
+                List<String> steps = new ArrayList<>();
+                stepsNode.forEach(step -> steps.add(step.asText()));
+                result.setCorrectSteps(steps);
+            }
+
+            // Parse topicTags array
+            JsonNode tagsNode = node.get("topicTags");
+            if (tagsNode != null && tagsNode.isArray()) {
+                List<String> tags = new ArrayList<>();
+                tagsNode.forEach(tag -> tags.add(tag.asText()));
+                result.setTopicTags(tags);
+            }
+
+            return result;
+        } catch (Exception e) {
+            log.error("Failed to parse AI grading response", e);
+            throw new AIGradingException("Failed to parse AI response: " + e.getMessage(), e);
+        }
+    }
+}
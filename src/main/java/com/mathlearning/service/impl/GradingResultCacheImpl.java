@@ -0,0 +1,118 @@
+package com.mathlearning.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mathlearning.dto.CachedGrading;
+import com.mathlearning.service.IGradingResultCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Two-tier grading cache: a per-node Caffeine cache in front of Redis. Redis
+ * errors are treated as misses so a cache outage never fails a submission.
+ */
+@Service
+@Slf4j
+public class GradingResultCacheImpl implements IGradingResultCache {
+
+    private static final String KEY_PREFIX = "grading:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final Cache<String, CachedGrading> localCache;
+
+    private final boolean enabled;
+    private final String promptVersion;
+    private final Duration redisTtl;
+
+    private final Counter localHits;
+    private final Counter redisHits;
+    private final Counter misses;
+
+    public GradingResultCacheImpl(StringRedisTemplate redisTemplate,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${app.grading.cache.enabled:true}") boolean enabled,
+            @Value("${app.ai.prompt-version:v1}") String promptVersion,
+            @Value("${app.grading.cache.local.max-size:10000}") long localMaxSize,
+            @Value("${app.grading.cache.local.ttl:1h}") Duration localTtl,
+            @Value("${app.grading.cache.redis.ttl:24h}") Duration redisTtl) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.promptVersion = promptVersion;
+        this.redisTtl = redisTtl;
+
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(localTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, localCache, "grading-results");
+
+        this.localHits = Counter.builder("grading.cache.requests")
+                .tag("tier", "local").tag("result", "hit").register(meterRegistry);
+        this.redisHits = Counter.builder("grading.cache.requests")
+                .tag("tier", "redis").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("grading.cache.requests")
+                .tag("tier", "all").tag("result", "miss").register(meterRegistry);
+    }
+
+    @Override
+    public String keyFor(String imageHash, Long questionId) {
+        return KEY_PREFIX + promptVersion + ":" + questionId + ":" + imageHash;
+    }
+
+    @Override
+    public Optional<CachedGrading> get(String key) {
+        if (!enabled || key == null) {
+            return Optional.empty();
+        }
+
+        CachedGrading local = localCache.getIfPresent(key);
+        if (local != null) {
+            localHits.increment();
+            log.debug("Grading cache hit (local): {}", key);
+            return Optional.of(local);
+        }
+
+        try {
+            String json = redisTemplate.opsForValue().get(key);
+            if (json != null) {
+                CachedGrading shared = objectMapper.readValue(json, CachedGrading.class);
+                localCache.put(key, shared);
+                redisHits.increment();
+                log.debug("Grading cache hit (redis): {}", key);
+                return Optional.of(shared);
+            }
+        } catch (Exception e) {
+            log.warn("Grading cache lookup failed, treating as miss: {}", e.getMessage());
+        }
+
+        misses.increment();
+        return Optional.empty();
+    }
+
+    @Override
+    public void put(String key, CachedGrading grading) {
+        if (!enabled || key == null) {
+            return;
+        }
+
+        localCache.put(key, grading);
+        try {
+            redisTemplate.opsForValue().set(key, objectMapper.writeValueAsString(grading), redisTtl);
+        } catch (Exception e) {
+            log.warn("Failed to write grading to shared cache: {}", e.getMessage());
+        }
+    }
+}
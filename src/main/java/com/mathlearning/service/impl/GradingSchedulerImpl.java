@@ -0,0 +1,357 @@
+package com.mathlearning.service.impl;
+
+import com.mathlearning.exception.ServiceUnavailableException;
+import com.mathlearning.service.IGradingScheduler;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Weighted fair queuing of grading work in front of the AI providers. At most
+ * as many calls run as {@link AIGradingGuard}'s adaptive concurrency limit
+ * allows, so the guard rarely has to reject one; the rest wait in one queue per
+ * priority class.
+ *
+ * <p>When a slot frees up, the waiting class with the lowest pass goes next and
+ * its pass advances by {@code 1 / weight}: under contention each class gets
+ * capacity in proportion to its weight and none is starved. A class that was
+ * idle starts from the current pass instead of banking credit. Within a class,
+ * each piece of work is tagged one past the same user's previous tag (or the
+ * class's last dispatched tag, whichever is later), so users take turns: 40
+ * queued uploads of one user are interleaved with everyone else's, not run in a
+ * row.
+ *
+ * <p>Waiting work is dispatched whenever a slot frees up: after a release, after
+ * work is queued and when the guard raises its limit. Background work runs on
+ * virtual threads and must not call back into the scheduler, as it already
+ * holds a slot.
+ */
+@Service
+@Slf4j
+public class GradingSchedulerImpl implements IGradingScheduler {
+
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(60);
+
+    private final AIGradingGuard guard;
+    private final MeterRegistry meterRegistry;
+    private final Map<Priority, ClassQueue> queues = new EnumMap<>(Priority.class);
+    private final ExecutorService executor;
+    private final Duration retryAfter;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition idle = lock.newCondition();
+    // Changed under the lock; atomic so the gauge can read it lock-free
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private long sequence;
+    private double lastPass;
+
+    /**
+     * Settings, waiting work and fair-queuing state of one priority class.
+     * Guarded by the scheduler's lock, except {@code depth}.
+     */
+    private static final class ClassQueue {
+        private final Priority priority;
+        private final double weight;
+        private final int capacity;
+        private final Duration maxWait;
+        private final Timer waitTimer;
+        private final PriorityQueue<Ticket> waiting = new PriorityQueue<>(
+                Comparator.comparingLong((Ticket ticket) -> ticket.tag).thenComparingLong(ticket -> ticket.sequence));
+        private final Map<Long, Long> lastTags = new HashMap<>();
+        private final AtomicInteger depth = new AtomicInteger();
+        private long virtualTime;
+        private double pass;
+
+        private ClassQueue(Priority priority, double weight, int capacity, Duration maxWait, Timer waitTimer) {
+            this.priority = priority;
+            this.weight = weight;
+            this.capacity = capacity;
+            this.maxWait = maxWait;
+            this.waitTimer = waitTimer;
+        }
+    }
+
+    /**
+     * One piece of waiting work: a background task, or a caller blocked on
+     * {@code ready} when {@code task} is null.
+     */
+    private static final class Ticket {
+        private final ClassQueue queue;
+        private final Long userId;
+        private final long tag;
+        private final long sequence;
+        private final long enqueuedNanos = System.nanoTime();
+        private final Runnable task;
+        private final Condition ready;
+        private boolean admitted;
+
+        private Ticket(ClassQueue queue, Long userId, long tag, long sequence, Runnable task, Condition ready) {
+            this.queue = queue;
+            this.userId = userId;
+            this.tag = tag;
+            this.sequence = sequence;
+            this.task = task;
+            this.ready = ready;
+        }
+    }
+
+    public GradingSchedulerImpl(AIGradingGuard guard,
+            MeterRegistry meterRegistry,
+            Environment environment,
+            @Value("${app.grading.scheduler.retry-after:5s}") Duration retryAfter) {
+        this.guard = guard;
+        this.meterRegistry = meterRegistry;
+        this.retryAfter = retryAfter;
+        // Grading work blocks on HTTP; virtual threads keep it cheap, the slots bound it
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("grading-", 0).factory());
+
+        for (Priority priority : Priority.values()) {
+            String name = priority.name().toLowerCase();
+            String prefix = "app.grading.scheduler." + name + ".";
+            ClassQueue queue = new ClassQueue(priority,
+                    environment.getProperty(prefix + "weight", Double.class, defaultWeight(priority)),
+                    environment.getProperty(prefix + "queue-capacity", Integer.class, 500),
+                    DurationStyle.detectAndParse(environment.getProperty(prefix + "max-wait", "10s")),
+                    Timer.builder("grading.scheduler.wait")
+                            .description("Time grading work waited for AI capacity")
+                            .tag("priority", name)
+                            .register(meterRegistry));
+            Gauge.builder("grading.scheduler.queue.depth", queue.depth, AtomicInteger::get)
+                    .description("Grading work waiting for AI capacity")
+                    .tag("priority", name)
+                    .register(meterRegistry);
+            queues.put(priority, queue);
+            log.info("Configuring grading scheduler class {} - weight: {}, queue: {}, max wait: {}",
+                    name, queue.weight, queue.capacity, queue.maxWait);
+        }
+        Gauge.builder("grading.scheduler.in.flight", inFlight, AtomicInteger::get)
+                .description("Grading work holding AI capacity")
+                .register(meterRegistry);
+        // A grown limit frees slots no release would hand out
+        guard.onLimitIncrease(this::limitIncreased);
+    }
+
+    private static double defaultWeight(Priority priority) {
+        return switch (priority) {
+            case INTERACTIVE -> 16;
+            case BATCH -> 4;
+            case REGRADE -> 1;
+        };
+    }
+
+    @Override
+    public <T> T call(Priority priority, Long userId, Supplier<T> work) {
+        ClassQueue queue = queues.get(priority);
+        long start = System.nanoTime();
+        lock.lock();
+        try {
+            if (!admitNow()) {
+                Ticket ticket = enqueue(queue, userId, null);
+                dispatch();
+                awaitTurn(ticket);
+            }
+        } finally {
+            lock.unlock();
+        }
+        queue.waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        try {
+            return work.get();
+        } finally {
+            release();
+        }
+    }
+
+    @Override
+    public void submit(Priority priority, Long userId, Runnable work) {
+        ClassQueue queue = queues.get(priority);
+        long start = System.nanoTime();
+        lock.lock();
+        try {
+            if (admitNow()) {
+                launch(queue, work, start);
+            } else {
+                enqueue(queue, userId, work);
+                dispatch();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits for up to the class's max wait until the ticket is dispatched, and
+     * withdraws it otherwise. Called with the lock held.
+     */
+    private void awaitTurn(Ticket ticket) {
+        long remaining = ticket.queue.maxWait.toNanos();
+        try {
+            while (!ticket.admitted && remaining > 0) {
+                remaining = ticket.ready.awaitNanos(remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!ticket.admitted) {
+            ticket.queue.waiting.remove(ticket);
+            ticket.queue.depth.decrementAndGet();
+            ticket.queue.lastTags.remove(ticket.userId, ticket.tag);
+            signalIfIdle();
+            throw rejected(ticket.queue, "timeout");
+        }
+    }
+
+    /**
+     * Takes a slot right away when one is free and nothing is waiting for it.
+     * Called with the lock held.
+     */
+    private boolean admitNow() {
+        if (inFlight.get() >= guard.concurrencyLimit() || waiting() > 0) {
+            return false;
+        }
+        inFlight.incrementAndGet();
+        return true;
+    }
+
+    private Ticket enqueue(ClassQueue queue, Long userId, Runnable task) {
+        if (queue.waiting.size() >= queue.capacity) {
+            throw rejected(queue, "queue-full");
+        }
+        if (queue.waiting.isEmpty()) {
+            queue.pass = Math.max(queue.pass, lastPass);
+        }
+        long tag = Math.max(queue.virtualTime, queue.lastTags.getOrDefault(userId, 0L)) + 1;
+        queue.lastTags.put(userId, tag);
+        Ticket ticket = new Ticket(queue, userId, tag, sequence++, task, task == null ? lock.newCondition() : null);
+        queue.waiting.add(ticket);
+        queue.depth.incrementAndGet();
+        return ticket;
+    }
+
+    /**
+     * Hands free slots to waiting work, lowest class pass first. Called with
+     * the lock held.
+     */
+    private void dispatch() {
+        while (inFlight.get() < guard.concurrencyLimit()) {
+            ClassQueue next = null;
+            for (ClassQueue queue : queues.values()) {
+                if (!queue.waiting.isEmpty() && (next == null || queue.pass < next.pass)) {
+                    next = queue;
+                }
+            }
+            if (next == null) {
+                return;
+            }
+            Ticket ticket = next.waiting.poll();
+            next.depth.decrementAndGet();
+            next.virtualTime = ticket.tag;
+            next.lastTags.remove(ticket.userId, ticket.tag);
+            lastPass = next.pass;
+            next.pass += 1 / next.weight;
+
+            inFlight.incrementAndGet();
+            ticket.admitted = true;
+            if (ticket.task != null) {
+                launch(next, ticket.task, ticket.enqueuedNanos);
+            } else {
+                ticket.ready.signal();
+            }
+        }
+    }
+
+    private void launch(ClassQueue queue, Runnable task, long enqueuedNanos) {
+        executor.execute(() -> {
+            queue.waitTimer.record(System.nanoTime() - enqueuedNanos, TimeUnit.NANOSECONDS);
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                log.error("Background grading work failed", e);
+            } finally {
+                release();
+            }
+        });
+    }
+
+    private void release() {
+        lock.lock();
+        try {
+            inFlight.decrementAndGet();
+            dispatch();
+            signalIfIdle();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void limitIncreased() {
+        lock.lock();
+        try {
+            dispatch();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void signalIfIdle() {
+        if (inFlight.get() == 0 && waiting() == 0) {
+            idle.signalAll();
+        }
+    }
+
+    private int waiting() {
+        int waiting = 0;
+        for (ClassQueue queue : queues.values()) {
+            waiting += queue.waiting.size();
+        }
+        return waiting;
+    }
+
+    private ServiceUnavailableException rejected(ClassQueue queue, String reason) {
+        meterRegistry.counter("grading.scheduler.rejected",
+                "priority", queue.priority.name().toLowerCase(), "reason", reason).increment();
+        return new ServiceUnavailableException("Grading is busy, please retry later", retryAfter, null);
+    }
+
+    /**
+     * Lets queued and running work finish before stopping the threads, so
+     * accepted uploads still get graded.
+     */
+    @PreDestroy
+    public void shutdown() {
+        lock.lock();
+        try {
+            long remaining = SHUTDOWN_TIMEOUT.toNanos();
+            while ((inFlight.get() > 0 || waiting() > 0) && remaining > 0) {
+                remaining = idle.awaitNanos(remaining);
+            }
+            if (waiting() > 0) {
+                log.warn("Grading scheduler stopped with {} jobs still queued", waiting());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lock.unlock();
+        }
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,166 @@
+package com.mathlearning.service.impl;
+
+import com.mathlearning.event.SubmissionQueuedEvent;
+import com.mathlearning.exception.ServiceUnavailableException;
+import com.mathlearning.repository.SubmissionRepository;
+import com.mathlearning.service.IGradingScheduler;
+import com.mathlearning.service.ISubmissionService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands queued submissions to the grading scheduler as batch work. Runs on the
+ * publishing thread so a full queue is reported back to the upload.
+ *
+ * <p>When AI grading fails fast (open circuit, concurrency limit, quota), the
+ * submission stays PENDING and is queued again after the Retry-After, up to
+ * {@code max-attempts} times before it is marked failed.
+ *
+ * <p>Queued jobs and pending retries live only in memory, so a recovery sweep
+ * runs at startup and every {@code recovery.interval}: PROCESSING submissions
+ * claimed longer than {@code recovery.stale-after} ago are returned to PENDING,
+ * and PENDING submissions this instance does not hold are queued again. The
+ * claim in {@link ISubmissionService#gradePendingSubmission} keeps a job that
+ * is queued twice from being graded twice.
+ */
+@Component
+@Slf4j
+public class GradingWorker {
+
+    private static final int RECOVERY_BATCH_SIZE = 500;
+
+    private final ISubmissionService submissionService;
+    private final IGradingScheduler gradingScheduler;
+    private final SubmissionRepository submissionRepository;
+    private final ScheduledExecutorService retries;
+    /** Submissions queued or waiting for a retry on this instance. */
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    private final int maxAttempts;
+    private final Duration retryDelay;
+    private final Duration recoveryInterval;
+    private final Duration staleAfter;
+
+    public GradingWorker(ISubmissionService submissionService,
+            IGradingScheduler gradingScheduler,
+            SubmissionRepository submissionRepository,
+            @Value("${app.grading.retry.max-attempts:20}") int maxAttempts,
+            @Value("${app.grading.retry.delay:5s}") Duration retryDelay,
+            @Value("${app.grading.recovery.interval:1m}") Duration recoveryInterval,
+            @Value("${app.grading.recovery.stale-after:10m}") Duration staleAfter) {
+        this.submissionService = submissionService;
+        this.gradingScheduler = gradingScheduler;
+        this.submissionRepository = submissionRepository;
+        this.maxAttempts = maxAttempts;
+        this.retryDelay = retryDelay;
+        this.recoveryInterval = recoveryInterval;
+        this.staleAfter = staleAfter;
+        this.retries = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofVirtual().name("grading-retry-", 0).factory());
+    }
+
+    @EventListener
+    public void onSubmissionQueued(SubmissionQueuedEvent event) {
+        log.debug("Scheduling background grading for submission: {}", event.submissionId());
+        enqueue(event);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startRecovery() {
+        retries.scheduleWithFixedDelay(this::recover, 0, recoveryInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queues again the submissions left in flight by a stopped instance or a
+     * dropped retry.
+     */
+    public void recover() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            int released = submissionRepository.releaseStaleClaims(now.minus(staleAfter));
+            if (released > 0) {
+                log.warn("Returned {} submissions with a stale claim to the grading queue", released);
+            }
+
+            // Rows saved within the last interval may still be on their way to the listener
+            for (SubmissionQueuedEvent job : submissionRepository.findPendingJobs(now.minus(recoveryInterval),
+                    Limit.of(RECOVERY_BATCH_SIZE))) {
+                if (inFlight.contains(job.submissionId())) {
+                    continue;
+                }
+                log.info("Recovering pending submission: {}", job.submissionId());
+                enqueue(job);
+            }
+        } catch (ServiceUnavailableException e) {
+            log.info("Grading queue is full, leaving the remaining pending submissions for the next sweep");
+        } catch (RuntimeException e) {
+            // An exception would cancel the periodic sweep
+            log.error("Grading recovery sweep failed", e);
+        }
+    }
+
+    private void enqueue(SubmissionQueuedEvent event) {
+        if (!inFlight.add(event.submissionId())) {
+            return;
+        }
+        try {
+            schedule(event, 1);
+        } catch (ServiceUnavailableException e) {
+            inFlight.remove(event.submissionId());
+            throw e;
+        }
+    }
+
+    private void schedule(SubmissionQueuedEvent event, int attempt) {
+        gradingScheduler.submit(IGradingScheduler.Priority.BATCH, event.userId(), () -> {
+            try {
+                submissionService.gradePendingSubmission(event.submissionId());
+                inFlight.remove(event.submissionId());
+            } catch (ServiceUnavailableException e) {
+                retryLater(event, attempt, e);
+            } catch (RuntimeException e) {
+                inFlight.remove(event.submissionId());
+                throw e;
+            }
+        });
+    }
+
+    private void retryLater(SubmissionQueuedEvent event, int attempt, ServiceUnavailableException cause) {
+        if (attempt >= maxAttempts) {
+            log.warn("Giving up on submission {} after {} attempts: {}", event.submissionId(), attempt,
+                    cause.getMessage());
+            submissionRepository.markFailed(event.submissionId(), cause.getMessage());
+            inFlight.remove(event.submissionId());
+            return;
+        }
+        Duration delay = cause.getRetryAfter() != null ? cause.getRetryAfter() : retryDelay;
+        log.info("Retrying submission {} in {} (attempt {} of {})", event.submissionId(), delay, attempt + 1,
+                maxAttempts);
+        retries.schedule(() -> {
+            try {
+                schedule(event, attempt + 1);
+            } catch (ServiceUnavailableException e) {
+                // The batch queue is full as well; wait another round
+                retryLater(event, attempt + 1, e);
+            }
+        }, delay.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        retries.shutdownNow();
+    }
+}
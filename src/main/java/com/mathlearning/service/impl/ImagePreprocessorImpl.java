@@ -0,0 +1,313 @@
+package com.mathlearning.service.impl;
+
+import com.mathlearning.dto.ProcessedImage;
+import com.mathlearning.service.IImagePreprocessor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Optional;
+
+/**
+ * ImageIO based preprocessing. The photo is decoded once, subsampled while
+ * decoding so a 12MP image never lands on the heap at full resolution, then
+ * rotated, scaled and converted to grayscale in a single draw. Re-encoding
+ * without metadata drops EXIF (including GPS) from the stored copy.
+ */
+@Service
+@Slf4j
+public class ImagePreprocessorImpl implements IImagePreprocessor {
+
+    private static final String JPEG_METADATA_FORMAT = "javax_imageio_jpeg_image_1.0";
+    private static final int EXIF_MARKER = 0xE1;
+    private static final int ORIENTATION_TAG = 0x0112;
+
+    @Value("${app.grading.image.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.grading.image.max-edge:1600}")
+    private int maxEdge;
+
+    @Value("${app.grading.image.jpeg-quality:0.8}")
+    private float jpegQuality;
+
+    @Value("${app.grading.image.contrast-stretch:true}")
+    private boolean contrastStretch;
+
+    static {
+        // Decode straight from the request stream instead of spooling to a temp file
+        ImageIO.setUseCache(false);
+    }
+
+    @Override
+    public Optional<ProcessedImage> preprocess(MultipartFile image) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+
+        long startTime = System.currentTimeMillis();
+        try (InputStream in = image.getInputStream();
+                ImageInputStream imageStream = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = imageStream != null
+                    ? ImageIO.getImageReaders(imageStream)
+                    : Collections.emptyIterator();
+            if (!readers.hasNext()) {
+                log.debug("No decoder for uploaded image type {}, storing original", image.getContentType());
+                return Optional.empty();
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageStream, true, false);
+                int orientation = readOrientation(reader.getImageMetadata(0));
+
+                int sourceWidth = reader.getWidth(0);
+                int sourceHeight = reader.getHeight(0);
+
+                // Subsample during decode to at least maxEdge, then scale precisely
+                int subsampling = Math.max(1, Math.max(sourceWidth, sourceHeight) / maxEdge);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                BufferedImage decoded = reader.read(0, param);
+
+                BufferedImage gray = transform(decoded, orientation);
+                if (contrastStretch) {
+                    stretchContrast(gray);
+                }
+
+                byte[] data = encodeJpeg(gray);
+                log.debug("Preprocessed image {}x{} ({} bytes) -> {}x{} ({} bytes) in {}ms",
+                        sourceWidth, sourceHeight, image.getSize(), gray.getWidth(), gray.getHeight(),
+                        data.length, System.currentTimeMillis() - startTime);
+
+                return Optional.of(ProcessedImage.builder()
+                        .data(data)
+                        .contentType("image/jpeg")
+                        .fileName(jpegFileName(image.getOriginalFilename()))
+                        .width(gray.getWidth())
+                        .height(gray.getHeight())
+                        .build());
+            } finally {
+                reader.dispose();
+            }
+        } catch (Exception e) {
+            log.warn("Image preprocessing failed, storing original: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Applies EXIF orientation, scales to maxEdge and converts to grayscale in
+     * one pass, compositing any transparency onto white.
+     */
+    private BufferedImage transform(BufferedImage source, int orientation) {
+        double scale = Math.min(1.0, (double) maxEdge / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+        boolean swapsAxes = orientation >= 5 && orientation <= 8;
+
+        AffineTransform transform = orientationTransform(orientation, width, height);
+        transform.scale(scale, scale);
+
+        BufferedImage target = new BufferedImage(swapsAxes ? height : width, swapsAxes ? width : height,
+                BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            // Transparent areas (screenshots, exported PNGs) show the paper colour, not black
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, target.getWidth(), target.getHeight());
+            graphics.drawImage(source, transform, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    /**
+     * Maps EXIF orientation values 2-8 to the transform that displays the image
+     * upright. Width and height are those of the unrotated image.
+     */
+    private AffineTransform orientationTransform(int orientation, int width, int height) {
+        AffineTransform transform = new AffineTransform();
+        switch (orientation) {
+            case 2 -> {
+                transform.translate(width, 0);
+                transform.scale(-1, 1);
+            }
+            case 3 -> {
+                transform.translate(width, height);
+                transform.rotate(Math.PI);
+            }
+            case 4 -> {
+                transform.translate(0, height);
+                transform.scale(1, -1);
+            }
+            case 5 -> {
+                transform.rotate(-Math.PI / 2);
+                transform.scale(-1, 1);
+            }
+            case 6 -> {
+                transform.translate(height, 0);
+                transform.rotate(Math.PI / 2);
+            }
+            case 7 -> {
+                transform.translate(height, width);
+                transform.rotate(Math.PI / 2);
+                transform.scale(-1, 1);
+            }
+            case 8 -> {
+                transform.translate(0, width);
+                transform.rotate(3 * Math.PI / 2);
+            }
+            default -> {
+                // 1 or unknown: already upright
+            }
+        }
+        return transform;
+    }
+
+    /**
+     * Linear contrast stretch between the 1st and 99th percentile, which lifts
+     * pencil strokes off grey paper without blowing out the page.
+     */
+    private void stretchContrast(BufferedImage gray) {
+        byte[] pixels = ((DataBufferByte) gray.getRaster().getDataBuffer()).getData();
+        int[] histogram = new int[256];
+        for (byte pixel : pixels) {
+            histogram[pixel & 0xFF]++;
+        }
+
+        int clip = pixels.length / 100;
+        int low = 0;
+        for (int count = 0; low < 255 && (count += histogram[low]) <= clip; low++) {
+            // advance to the 1st percentile
+        }
+        int high = 255;
+        for (int count = 0; high > 0 && (count += histogram[high]) <= clip; high--) {
+            // advance to the 99th percentile
+        }
+        if (high - low < 32) {
+            return; // blank or already high-contrast
+        }
+
+        byte[] lookup = new byte[256];
+        for (int i = 0; i < 256; i++) {
+            int value = (i - low) * 255 / (high - low);
+            lookup[i] = (byte) Math.max(0, Math.min(255, value));
+        }
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = lookup[pixels[i] & 0xFF];
+        }
+    }
+
+    private byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream imageOut = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(imageOut);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            param.setProgressiveMode(ImageWriteParam.MODE_DISABLED);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Reads the EXIF orientation tag from JPEG metadata; 1 (upright) when absent.
+     */
+    private int readOrientation(IIOMetadata metadata) {
+        if (metadata == null || !JPEG_METADATA_FORMAT.equals(metadata.getNativeMetadataFormatName())) {
+            return 1;
+        }
+        try {
+            IIOMetadataNode root = (IIOMetadataNode) metadata.getAsTree(JPEG_METADATA_FORMAT);
+            NodeList markers = root.getElementsByTagName("unknown");
+            for (int i = 0; i < markers.getLength(); i++) {
+                Node marker = markers.item(i);
+                String tag = ((IIOMetadataNode) marker).getAttribute("MarkerTag");
+                if (String.valueOf(EXIF_MARKER).equals(tag)) {
+                    return parseExifOrientation((byte[]) ((IIOMetadataNode) marker).getUserObject());
+                }
+            }
+        } catch (RuntimeException e) {
+            log.debug("Could not read EXIF orientation: {}", e.getMessage());
+        }
+        return 1;
+    }
+
+    /**
+     * Walks IFD0 of an APP1 "Exif\0\0" segment looking for the orientation tag.
+     */
+    static int parseExifOrientation(byte[] exif) {
+        if (exif == null || exif.length < 14 || exif[0] != 'E' || exif[1] != 'x' || exif[2] != 'i'
+                || exif[3] != 'f') {
+            return 1;
+        }
+        int tiff = 6;
+        boolean littleEndian = exif[tiff] == 'I';
+        int ifdOffset = tiff + readInt(exif, tiff + 4, littleEndian);
+        if (ifdOffset + 2 > exif.length) {
+            return 1;
+        }
+        int entries = readShort(exif, ifdOffset, littleEndian);
+        for (int i = 0; i < entries; i++) {
+            int entry = ifdOffset + 2 + i * 12;
+            if (entry + 12 > exif.length) {
+                break;
+            }
+            if (readShort(exif, entry, littleEndian) == ORIENTATION_TAG) {
+                int orientation = readShort(exif, entry + 8, littleEndian);
+                return orientation >= 1 && orientation <= 8 ? orientation : 1;
+            }
+        }
+        return 1;
+    }
+
+    private static int readShort(byte[] data, int offset, boolean littleEndian) {
+        int b0 = data[offset] & 0xFF;
+        int b1 = data[offset + 1] & 0xFF;
+        return littleEndian ? (b1 << 8) | b0 : (b0 << 8) | b1;
+    }
+
+    private static int readInt(byte[] data, int offset, boolean littleEndian) {
+        int high = readShort(data, littleEndian ? offset + 2 : offset, littleEndian);
+        int low = readShort(data, littleEndian ? offset : offset + 2, littleEndian);
+        return (high << 16) | low;
+    }
+
+    private String jpegFileName(String originalFilename) {
+        String name = originalFilename != null && !originalFilename.isBlank() ? originalFilename : "image";
+        int dot = name.lastIndexOf('.');
+        return (dot > 0 ? name.substring(0, dot) : name) + ".jpg";
+    }
+}
@@ -0,0 +1,341 @@
+package com.mathlearning.service.impl;
+
+import com.mathlearning.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Headers;
+import okhttp3.Interceptor;
+import okhttp3.Response;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client-side view of each AI provider's per-minute request and token quota,
+ * shared by all nodes through Redis. A call takes one request and its
+ * estimated tokens from two buckets refilled at the per-minute rates; when
+ * they are short, the call waits up to {@code max-wait} and is otherwise shed
+ * with a 503, before the provider would answer 429.
+ *
+ * <p>The buckets calibrate themselves from the provider's rate limit response
+ * headers: reported limits replace the configured ones, reported remaining
+ * counts lower the shared buckets (other clients may use the same key), and a
+ * 429 pauses the provider on every node for its Retry-After. Until a
+ * provider's limits are known, configured or reported, its calls are not
+ * limited: a guessed limit below the account's tier would shed calls the
+ * provider would have served. Redis errors fail open as well, leaving the
+ * provider's own limit as the backstop.
+ */
+@Component
+@Slf4j
+public class ProviderQuotaLimiter {
+
+    private static final String KEY_PREFIX = "ai-quota:";
+
+    /**
+     * Refills both buckets of KEYS[1] to the current time. ARGV[1] and ARGV[2]
+     * are the per-minute request and token limits.
+     */
+    private static final String REFILL = """
+            local rpm = tonumber(ARGV[1])
+            local tpm = tonumber(ARGV[2])
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+            local bucket = redis.call('HMGET', KEYS[1], 'requests', 'tokens', 'ts')
+            local requests = tonumber(bucket[1])
+            local tokens = tonumber(bucket[2])
+            local ts = tonumber(bucket[3])
+            if requests == nil or tokens == nil or ts == nil then
+                requests = rpm
+                tokens = tpm
+                ts = now
+            end
+            local elapsed = math.max(0, now - ts)
+            requests = math.min(rpm, requests + elapsed * rpm / 60000)
+            tokens = math.min(tpm, tokens + elapsed * tpm / 60000)
+            """;
+
+    private static final String SAVE = """
+            redis.call('HSET', KEYS[1], 'requests', tostring(requests), 'tokens', tostring(tokens),
+                'ts', tostring(now))
+            redis.call('PEXPIRE', KEYS[1], 120000)
+            """;
+
+    /**
+     * Takes one request and ARGV[3] tokens, or nothing. KEYS[2] is set while
+     * the provider is paused after a 429. Returns {granted, ms to wait}.
+     */
+    private static final RedisScript<List> TAKE = new DefaultRedisScript<>("""
+            local paused = redis.call('PTTL', KEYS[2])
+            if paused > 0 then
+                return {0, paused}
+            end
+            """ + REFILL + """
+            local cost = tonumber(ARGV[3])
+            local wait = 0
+            if requests < 1 then
+                wait = math.ceil((1 - requests) * 60000 / rpm)
+            end
+            if tokens < cost then
+                wait = math.max(wait, math.ceil((cost - tokens) * 60000 / tpm))
+            end
+            if wait == 0 then
+                requests = requests - 1
+                tokens = tokens - cost
+            end
+            """ + SAVE + """
+            if wait == 0 then
+                return {1, 0}
+            end
+            return {0, wait}
+            """, List.class);
+
+    /**
+     * Lowers the buckets to the remaining counts the provider reported in
+     * ARGV[3] and ARGV[4]; negative values are unknown.
+     */
+    private static final RedisScript<Long> SYNC = new DefaultRedisScript<>(REFILL + """
+            local remainingRequests = tonumber(ARGV[3])
+            local remainingTokens = tonumber(ARGV[4])
+            if remainingRequests >= 0 then
+                requests = math.min(requests, remainingRequests)
+            end
+            if remainingTokens >= 0 then
+                tokens = math.min(tokens, remainingTokens)
+            end
+            """ + SAVE + """
+            return 1
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Environment environment;
+    private final Map<String, Quota> quotas = new ConcurrentHashMap<>();
+    private final Timer waitTimer;
+
+    private final boolean enabled;
+    private final Duration maxWait;
+    private final Duration defaultPause;
+
+    /**
+     * Per-minute limits of one provider, zero while unknown, and the token cost
+     * of an image.
+     */
+    static final class Quota {
+        private volatile long requestsPerMinute;
+        private volatile long tokensPerMinute;
+        private final int imageTokens;
+
+        Quota(long requestsPerMinute, long tokensPerMinute, int imageTokens) {
+            this.requestsPerMinute = requestsPerMinute;
+            this.tokensPerMinute = tokensPerMinute;
+            this.imageTokens = imageTokens;
+        }
+
+        long requestsPerMinute() {
+            return requestsPerMinute;
+        }
+
+        long tokensPerMinute() {
+            return tokensPerMinute;
+        }
+
+        boolean known() {
+            return requestsPerMinute > 0 && tokensPerMinute > 0;
+        }
+    }
+
+    public ProviderQuotaLimiter(StringRedisTemplate redisTemplate,
+            MeterRegistry meterRegistry,
+            Environment environment,
+            @Value("${app.ai.quota.enabled:true}") boolean enabled,
+            @Value("${app.ai.quota.max-wait:2s}") Duration maxWait,
+            @Value("${app.ai.quota.default-pause:5s}") Duration defaultPause) {
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.environment = environment;
+        this.enabled = enabled;
+        this.maxWait = maxWait;
+        this.defaultPause = defaultPause;
+        this.waitTimer = Timer.builder("ai.quota.wait")
+                .description("Time AI grading calls waited for provider quota")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Takes quota for one call, waiting up to {@code max-wait} for it.
+     *
+     * @param provider   provider name, e.g. {@code openai}
+     * @param textTokens estimated prompt and completion tokens
+     * @param withImage  whether the call carries an image
+     * @throws ServiceUnavailableException if the quota does not free up in time
+     */
+    public void acquire(String provider, int textTokens, boolean withImage) {
+        if (!enabled) {
+            return;
+        }
+        Quota quota = quota(provider);
+        if (!quota.known()) {
+            count(provider, "uncalibrated");
+            return;
+        }
+        long cost = Math.min(quota.tokensPerMinute(), textTokens + (withImage ? quota.imageTokens : 0L));
+
+        long start = System.nanoTime();
+        long deadline = start + maxWait.toNanos();
+        boolean waited = false;
+        while (true) {
+            List<?> result;
+            try {
+                result = redisTemplate.execute(TAKE, List.of(bucketKey(provider), pausedKey(provider)),
+                        String.valueOf(quota.requestsPerMinute()),
+                        String.valueOf(quota.tokensPerMinute()),
+                        String.valueOf(cost));
+            } catch (Exception e) {
+                log.warn("AI quota check failed, allowing call: {}", e.getMessage());
+                result = null;
+            }
+            if (result == null || result.size() < 2) {
+                count(provider, "error");
+                return;
+            }
+            if (((Number) result.get(0)).longValue() == 1) {
+                if (waited) {
+                    waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+                count(provider, waited ? "queued" : "granted");
+                return;
+            }
+
+            long waitMs = ((Number) result.get(1)).longValue();
+            long now = System.nanoTime();
+            if (now + TimeUnit.MILLISECONDS.toNanos(waitMs) > deadline) {
+                count(provider, "shed");
+                throw new ServiceUnavailableException("AI provider " + provider
+                        + " quota exhausted, please retry later", Duration.ofMillis(waitMs), null);
+            }
+            waited = true;
+            try {
+                Thread.sleep(Math.max(1, waitMs));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ServiceUnavailableException("Interrupted while waiting for AI quota",
+                        Duration.ofMillis(waitMs), e);
+            }
+        }
+    }
+
+    /**
+     * Interceptor for the provider's HTTP client that calibrates its quota from
+     * every response.
+     */
+    public Interceptor interceptor(String provider) {
+        return chain -> {
+            Response response = chain.proceed(chain.request());
+            if (enabled) {
+                calibrate(provider, response.code(), response.headers());
+            }
+            return response;
+        };
+    }
+
+    void calibrate(String provider, int status, Headers headers) {
+        Quota quota = quota(provider);
+        long requestLimit = header(headers, "x-ratelimit-limit-requests", "anthropic-ratelimit-requests-limit");
+        long tokenLimit = header(headers, "x-ratelimit-limit-tokens", "anthropic-ratelimit-tokens-limit");
+        if (requestLimit > 0 && requestLimit != quota.requestsPerMinute) {
+            log.info("AI provider {} request limit calibrated: {} -> {}/min", provider, quota.requestsPerMinute,
+                    requestLimit);
+            quota.requestsPerMinute = requestLimit;
+        }
+        if (tokenLimit > 0 && tokenLimit != quota.tokensPerMinute) {
+            log.info("AI provider {} token limit calibrated: {} -> {}/min", provider, quota.tokensPerMinute,
+                    tokenLimit);
+            quota.tokensPerMinute = tokenLimit;
+        }
+
+        try {
+            if (status == 429) {
+                long retryAfter = header(headers, "retry-after");
+                Duration pause = retryAfter > 0 ? Duration.ofSeconds(retryAfter) : defaultPause;
+                log.warn("AI provider {} rate limited us, pausing calls for {}", provider, pause);
+                meterRegistry.counter("ai.quota.rate.limited", "provider", provider).increment();
+                redisTemplate.opsForValue().set(pausedKey(provider), "1", pause);
+            }
+
+            long remainingRequests = header(headers, "x-ratelimit-remaining-requests",
+                    "anthropic-ratelimit-requests-remaining");
+            long remainingTokens = header(headers, "x-ratelimit-remaining-tokens",
+                    "anthropic-ratelimit-tokens-remaining");
+            if (quota.known() && (remainingRequests >= 0 || remainingTokens >= 0)) {
+                redisTemplate.execute(SYNC, List.of(bucketKey(provider)),
+                        String.valueOf(quota.requestsPerMinute()),
+                        String.valueOf(quota.tokensPerMinute()),
+                        String.valueOf(remainingRequests),
+                        String.valueOf(remainingTokens));
+            }
+        } catch (Exception e) {
+            log.warn("Failed to calibrate AI quota for {}: {}", provider, e.getMessage());
+        }
+    }
+
+    private Quota quota(String provider) {
+        return quotas.computeIfAbsent(provider, name -> {
+            String prefix = "app.ai." + name + ".quota.";
+            Quota quota = new Quota(
+                    environment.getProperty(prefix + "requests-per-minute", Long.class, 0L),
+                    environment.getProperty(prefix + "tokens-per-minute", Long.class, 0L),
+                    environment.getProperty(prefix + "image-tokens", Integer.class, 0));
+            Gauge.builder("ai.quota.limit", quota, Quota::requestsPerMinute)
+                    .description("Per-minute AI provider quota in use")
+                    .tags("provider", name, "dimension", "requests")
+                    .register(meterRegistry);
+            Gauge.builder("ai.quota.limit", quota, Quota::tokensPerMinute)
+                    .description("Per-minute AI provider quota in use")
+                    .tags("provider", name, "dimension", "tokens")
+                    .register(meterRegistry);
+            return quota;
+        });
+    }
+
+    // The hash tag keeps both keys of a provider in one cluster slot for TAKE
+    private static String bucketKey(String provider) {
+        return KEY_PREFIX + "{" + provider + "}";
+    }
+
+    private static String pausedKey(String provider) {
+        return bucketKey(provider) + ":paused";
+    }
+
+    /**
+     * @return the first of the headers that holds a whole number, or -1
+     */
+    private static long header(Headers headers, String... names) {
+        for (String name : names) {
+            String value = headers.get(name);
+            if (value != null) {
+                try {
+                    return Long.parseLong(value.trim());
+                } catch (NumberFormatException e) {
+                    // e.g. an HTTP-date Retry-After; try the next name
+                }
+            }
+        }
+        return -1;
+    }
+
+    private void count(String provider, String outcome) {
+        meterRegistry.counter("ai.quota.requests", "provider", provider, "outcome", outcome).increment();
+    }
+}
@@ -0,0 +1,236 @@
+package com.mathlearning.service.impl;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mathlearning.model.Question;
+import com.mathlearning.repository.QuestionRepository;
+import com.mathlearning.service.IQuestionCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Two-tier question cache: per-node Caffeine caches in front of Redis, loaded
+ * from the database on a miss in both. A grade level is cached as a whole and
+ * indexed by topic and difficulty in memory, so filtered reads never query.
+ *
+ * <p>Shared entries are namespaced by a generation number kept in Redis.
+ * {@link #invalidateAll()} bumps the generation, which orphans every shared
+ * entry at once, and announces it on a pub/sub channel so each node clears its
+ * local tier. Nodes that miss the message catch up within the local TTL. Redis
+ * errors fall through to the database so a cache outage never fails a request.
+ */
+@Service
+@Slf4j
+public class QuestionCacheImpl implements IQuestionCache, MessageListener {
+
+    static final String CHANNEL = "questions:invalidate";
+    private static final String GENERATION_KEY = "questions:generation";
+    private static final String KEY_PREFIX = "questions:";
+
+    private final QuestionRepository questionRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final JavaType questionListType;
+
+    private final Cache<Integer, GradeBank> gradeBanks;
+    private final Cache<Long, Question> questionsById;
+    private final Duration redisTtl;
+
+    private final Counter localHits;
+    private final Counter redisHits;
+    private final Counter misses;
+    private final Counter invalidations;
+
+    /**
+     * All questions of one grade level with in-memory indexes.
+     */
+    record GradeBank(List<Question> all, Map<String, List<Question>> byTopic,
+            Map<Question.Difficulty, List<Question>> byDifficulty) {
+
+        static GradeBank of(List<Question> questions) {
+            return new GradeBank(List.copyOf(questions),
+                    questions.stream()
+                            .filter(question -> question.getTopic() != null)
+                            .collect(Collectors.groupingBy(Question::getTopic,
+                                    Collectors.collectingAndThen(Collectors.toList(), List::copyOf))),
+                    questions.stream()
+                            .filter(question -> question.getDifficulty() != null)
+                            .collect(Collectors.groupingBy(Question::getDifficulty,
+                                    () -> new EnumMap<>(Question.Difficulty.class),
+                                    Collectors.collectingAndThen(Collectors.toList(), List::copyOf))));
+        }
+    }
+
+    public QuestionCacheImpl(QuestionRepository questionRepository,
+            StringRedisTemplate redisTemplate,
+            ObjectMapper objectMapper,
+            RedisMessageListenerContainer listenerContainer,
+            MeterRegistry meterRegistry,
+            @Value("${app.questions.cache.local.max-grades:32}") long localMaxGrades,
+            @Value("${app.questions.cache.local.max-size:10000}") long localMaxSize,
+            @Value("${app.questions.cache.local.ttl:10m}") Duration localTtl,
+            @Value("${app.questions.cache.redis.ttl:6h}") Duration redisTtl) {
+        this.questionRepository = questionRepository;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.listenerContainer = listenerContainer;
+        this.questionListType = objectMapper.getTypeFactory().constructCollectionType(List.class, Question.class);
+        this.redisTtl = redisTtl;
+
+        this.gradeBanks = Caffeine.newBuilder()
+                .maximumSize(localMaxGrades)
+                .expireAfterWrite(localTtl)
+                .recordStats()
+                .build();
+        this.questionsById = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(localTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, gradeBanks, "questions-by-grade");
+        CaffeineCacheMetrics.monitor(meterRegistry, questionsById, "questions-by-id");
+
+        this.localHits = Counter.builder("question.cache.requests")
+                .tag("tier", "local").tag("result", "hit").register(meterRegistry);
+        this.redisHits = Counter.builder("question.cache.requests")
+                .tag("tier", "redis").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("question.cache.requests")
+                .tag("tier", "all").tag("result", "miss").register(meterRegistry);
+        this.invalidations = Counter.builder("question.cache.invalidations")
+                .description("Question cache invalidations received")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void subscribe() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    @Override
+    public Optional<Question> findById(Long questionId) {
+        if (questionId == null) {
+            return Optional.empty();
+        }
+        Question cached = questionsById.getIfPresent(questionId);
+        if (cached != null) {
+            localHits.increment();
+            return Optional.of(cached);
+        }
+        // Caffeine runs one load per key per node; null results are not cached
+        return Optional.ofNullable(questionsById.get(questionId, id -> loadShared("id:" + id, Question.class,
+                () -> questionRepository.findById(id).orElse(null))));
+    }
+
+    @Override
+    public List<Question> findByGradeLevel(Integer gradeLevel) {
+        return gradeBank(gradeLevel).all();
+    }
+
+    @Override
+    public List<Question> findByGradeLevelAndTopic(Integer gradeLevel, String topic) {
+        return gradeBank(gradeLevel).byTopic().getOrDefault(topic, List.of());
+    }
+
+    @Override
+    public List<Question> findByGradeLevelAndDifficulty(Integer gradeLevel, Question.Difficulty difficulty) {
+        return gradeBank(gradeLevel).byDifficulty().getOrDefault(difficulty, List.of());
+    }
+
+    @Override
+    public void invalidateAll() {
+        try {
+            Long generation = redisTemplate.opsForValue().increment(GENERATION_KEY);
+            redisTemplate.convertAndSend(CHANNEL, String.valueOf(generation));
+            log.info("Question cache invalidated, generation {}", generation);
+        } catch (Exception e) {
+            log.warn("Failed to broadcast question cache invalidation: {}", e.getMessage());
+        }
+        clearLocal();
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        log.debug("Question cache invalidation received: {}", new String(message.getBody()));
+        invalidations.increment();
+        clearLocal();
+    }
+
+    private GradeBank gradeBank(Integer gradeLevel) {
+        if (gradeLevel == null) {
+            return GradeBank.of(List.of());
+        }
+        GradeBank cached = gradeBanks.getIfPresent(gradeLevel);
+        if (cached != null) {
+            localHits.increment();
+            return cached;
+        }
+        return gradeBanks.get(gradeLevel, grade -> {
+            List<Question> questions = loadShared("grade:" + grade, questionListType,
+                    () -> questionRepository.findByGradeLevel(grade));
+            return GradeBank.of(questions != null ? questions : Collections.emptyList());
+        });
+    }
+
+    private void clearLocal() {
+        gradeBanks.invalidateAll();
+        questionsById.invalidateAll();
+    }
+
+    private <T> T loadShared(String suffix, Class<T> type, Supplier<T> loader) {
+        return loadShared(suffix, objectMapper.getTypeFactory().constructType(type), loader);
+    }
+
+    /**
+     * Reads an entry from Redis under the current generation, falling back to
+     * the database and writing the result back. Missing values are not stored.
+     */
+    private <T> T loadShared(String suffix, JavaType type, Supplier<T> loader) {
+        String key = null;
+        try {
+            String generation = redisTemplate.opsForValue().get(GENERATION_KEY);
+            key = KEY_PREFIX + "g" + Objects.requireNonNullElse(generation, "0") + ":" + suffix;
+            String json = redisTemplate.opsForValue().get(key);
+            if (json != null) {
+                redisHits.increment();
+                return objectMapper.readValue(json, type);
+            }
+        } catch (Exception e) {
+            log.warn("Question cache lookup failed, loading from database: {}", e.getMessage());
+            key = null;
+        }
+
+        misses.increment();
+        T loaded = loader.get();
+        if (loaded != null && key != null) {
+            try {
+                redisTemplate.opsForValue().set(key, objectMapper.writeValueAsString(loaded), redisTtl);
+            } catch (Exception e) {
+                log.warn("Failed to write questions to shared cache: {}", e.getMessage());
+            }
+        }
+        return loaded;
+    }
+}
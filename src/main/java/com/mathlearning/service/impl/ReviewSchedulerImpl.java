@@ -0,0 +1,83 @@
+package com.mathlearning.service.impl;
+
+import com.mathlearning.dto.DueReviewDto;
+import com.mathlearning.exception.ResourceNotFoundException;
+import com.mathlearning.model.MistakeNotebook;
+import com.mathlearning.model.Question;
+import com.mathlearning.repository.MistakeNotebookRepository;
+import com.mathlearning.service.IReviewScheduler;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * SuperMemo-2 scheduler. Each review reads one row by primary key, updates its
+ * ease factor, interval and due time in place and writes it back, so the cost
+ * does not depend on how many mistakes the student has collected.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReviewSchedulerImpl implements IReviewScheduler {
+
+    private static final double MIN_EASE_FACTOR = 1.3;
+    private static final int PASSING_QUALITY = 3;
+
+    private final MistakeNotebookRepository mistakeNotebookRepository;
+
+    @Value("${app.review.retire-after-days:180}")
+    private int retireAfterDays;
+
+    @Override
+    @Transactional
+    public DueReviewDto recordReview(Long userId, Long mistakeId, int quality) {
+        MistakeNotebook mistake = mistakeNotebookRepository.findForReview(mistakeId, userId)
+                .orElseThrow(() -> new ResourceNotFoundException("Mistake", "id", mistakeId));
+
+        LocalDateTime now = LocalDateTime.now();
+        int repetitions = mistake.getRepetitions();
+        int interval;
+        if (quality >= PASSING_QUALITY) {
+            interval = switch (repetitions) {
+                case 0 -> 1;
+                case 1 -> 6;
+                default -> (int) Math.round(mistake.getIntervalDays() * mistake.getEaseFactor());
+            };
+            repetitions++;
+        } else {
+            // A failed recall starts the sequence again
+            interval = 1;
+            repetitions = 0;
+        }
+        int miss = 5 - quality;
+        double easeFactor = Math.max(MIN_EASE_FACTOR,
+                mistake.getEaseFactor() + 0.1 - miss * (0.08 + miss * 0.02));
+
+        mistake.setRepetitions(repetitions);
+        mistake.setIntervalDays(interval);
+        mistake.setEaseFactor(easeFactor);
+        mistake.setLastReviewedAt(now);
+        mistake.setDueAt(now.plusDays(interval));
+        if (interval >= retireAfterDays) {
+            mistake.setReviewed(true);
+        }
+        log.debug("Mistake {} reviewed with quality {}, next review in {} days", mistakeId, quality, interval);
+
+        Question question = mistake.getSubmission().getQuestion();
+        return DueReviewDto.builder()
+                .id(mistake.getId())
+                .submissionId(mistake.getSubmission().getId())
+                .questionId(question.getId())
+                .questionText(question.getQuestionText())
+                .topic(question.getTopic())
+                .dueAt(mistake.getDueAt())
+                .intervalDays(interval)
+                .easeFactor(easeFactor)
+                .repetitions(repetitions)
+                .build();
+    }
+}
@@ -0,0 +1,421 @@
+package com.mathlearning.service.impl;
+
+import com.mathlearning.dto.GradingResult;
+import com.mathlearning.model.Question;
+import com.mathlearning.service.IAnswerPreGrader;
+import com.mathlearning.util.MathExpression;
+import com.mathlearning.util.MathExpression.Polynomial;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Grades short final answers (fractions, decimals, units, simple algebraic
+ * forms and solution sets) without calling an AI provider. Anything it cannot
+ * decide with certainty is left to {@link com.mathlearning.service.IAIGradingService}.
+ */
+@Service
+@Slf4j
+public class RuleBasedPreGrader implements IAnswerPreGrader {
+
+    static final String PROVIDER = "RULES";
+
+    private static final double APPROXIMATE_TOLERANCE = 0.01;
+
+    private static final Map<Character, Character> SUPERSCRIPTS = Map.ofEntries(
+            Map.entry('\u2070', '0'), Map.entry('\u00b9', '1'), Map.entry('\u00b2', '2'), Map.entry('\u00b3', '3'),
+            Map.entry('\u2074', '4'), Map.entry('\u2075', '5'), Map.entry('\u2076', '6'), Map.entry('\u2077', '7'),
+            Map.entry('\u2078', '8'), Map.entry('\u2079', '9'), Map.entry('\u207b', '-'));
+
+    private static final Set<String> SINGLE_LETTER_UNITS = Set.of("m", "g", "l", "s", "h");
+
+    private static final Pattern ANSWER_PREFIX = Pattern.compile("^(?:final\\s+answer|answer|ans)\\s*[:=]?\\s*");
+    private static final Pattern LIST_SEPARATOR = Pattern.compile("\\s+(?:or|and)\\s+|\\s*[,;]\\s*");
+    private static final Pattern ASSIGNMENT_TARGET = Pattern.compile("[a-z](\\([^()]*\\))?");
+    private static final Pattern SPACED_UNIT = Pattern.compile("^(.*\\S)\\s+([a-z]+(?:\\^[23])?)$");
+    private static final Pattern ATTACHED_UNIT = Pattern.compile("^(.*[0-9)])([a-z]{2,}(?:\\^[23])?|%|\u00b0)$");
+    private static final Pattern TYPED_UNIT_POWER = Pattern.compile("^(.*[0-9)]\\s*[a-z]+)([23])$");
+    private static final Pattern WORD = Pattern.compile("[a-z]{3,}");
+    private static final Pattern FRACTION = Pattern.compile("^-?(\\d+)/(\\d+)$");
+    private static final Pattern FACTOR = Pattern.compile("\\(([^()]+)\\)(?:\\^(\\d+))?");
+
+    @Value("${app.grading.pre-grader.enabled:true}")
+    private boolean enabled;
+
+    @Override
+    public Optional<GradingResult> tryGrade(Question question, String answer) {
+        if (!enabled || answer == null || answer.isBlank() || question.getCorrectAnswer() == null) {
+            return Optional.empty();
+        }
+
+        long startTime = System.currentTimeMillis();
+        Optional<Verdict> verdict = decide(question.getCorrectAnswer(), answer);
+        if (verdict.isEmpty()) {
+            log.debug("Pre-grader could not decide answer '{}' for question: {}", answer, question.getId());
+            return Optional.empty();
+        }
+
+        log.debug("Pre-grader decided answer '{}' for question {}: correct={}",
+                answer, question.getId(), verdict.get().correct());
+        return Optional.of(buildResult(question, answer.trim(), verdict.get(), startTime));
+    }
+
+    /**
+     * Compares a student's answer to the canonical answer.
+     *
+     * @return the verdict, or empty when the answers cannot be compared reliably
+     */
+    Optional<Verdict> decide(String correctAnswer, String studentAnswer) {
+        Optional<List<ParsedValue>> expected = parseList(correctAnswer);
+        Optional<List<ParsedValue>> actual = parseList(studentAnswer);
+        if (expected.isEmpty() || actual.isEmpty()) {
+            return Optional.empty();
+        }
+
+        if (isSolutionSet(expected.get())) {
+            return compareSolutionSets(expected.get(), actual.get());
+        }
+
+        // "3^5 or 243" lists equivalent forms; one matching form is enough
+        if (actual.get().size() != 1) {
+            return Optional.empty();
+        }
+        ParsedValue student = actual.get().get(0);
+        boolean undecided = false;
+        for (ParsedValue alternative : expected.get()) {
+            Optional<Verdict> verdict = compare(alternative, student);
+            if (verdict.isEmpty()) {
+                undecided = true;
+            } else if (verdict.get().correct()) {
+                return verdict;
+            }
+        }
+        return undecided ? Optional.empty() : Optional.of(Verdict.INCORRECT);
+    }
+
+    private Optional<Verdict> compareSolutionSets(List<ParsedValue> expected, List<ParsedValue> actual) {
+        if (actual.size() != expected.size()) {
+            return Optional.of(Verdict.INCORRECT);
+        }
+
+        List<ParsedValue> remaining = new ArrayList<>(expected);
+        boolean unitMissing = false;
+        for (ParsedValue student : actual) {
+            ParsedValue match = null;
+            for (ParsedValue candidate : remaining) {
+                Optional<Verdict> verdict = compare(candidate, student);
+                if (verdict.isEmpty()) {
+                    return Optional.empty();
+                }
+                if (verdict.get().correct()) {
+                    match = candidate;
+                    unitMissing |= verdict.get().unitMissing();
+                    break;
+                }
+            }
+            if (match == null) {
+                return Optional.of(Verdict.INCORRECT);
+            }
+            remaining.remove(match);
+        }
+        return Optional.of(new Verdict(true, unitMissing, expected.get(0).unit()));
+    }
+
+    private Optional<Verdict> compare(ParsedValue expected, ParsedValue student) {
+        if (expected.target() != null && student.target() != null && !expected.target().equals(student.target())) {
+            return Optional.empty();
+        }
+
+        // Letters in place of an expected measurement are most likely a unit the parser did not recognise
+        if (expected.unit() != null && expected.value().isConstant() && !student.value().isConstant()) {
+            return Optional.empty();
+        }
+
+        boolean unitMissing = false;
+        if (expected.unit() != null) {
+            if (student.unit() == null) {
+                unitMissing = true;
+            } else if (!expected.unit().equals(student.unit())) {
+                return Optional.empty(); // possibly the same quantity in another unit
+            }
+        } else if (student.unit() != null) {
+            return Optional.empty();
+        }
+
+        // An unsimplified answer ("12/16", "3^2*3^3") may be right or wrong
+        // depending on what the question asked for
+        if (operatorCount(student.expression()) > operatorCount(expected.expression())
+                || isUnreducedFraction(student.expression())) {
+            return Optional.empty();
+        }
+
+        List<String> expectedFactors = factors(expected.expression());
+        if (expectedFactors.size() > 1) {
+            List<String> studentFactors = factors(student.expression());
+            if (studentFactors.size() > 1 && sameFactors(expectedFactors, studentFactors)) {
+                return Optional.of(new Verdict(true, unitMissing, expected.unit()));
+            }
+            // Same product written with different factors, e.g. 2(x+1) vs (2x+2)
+            if (expected.value().equals(student.value()) && studentFactors.size() > 1) {
+                return Optional.empty();
+            }
+            return Optional.of(Verdict.INCORRECT);
+        }
+
+        boolean equal;
+        if (expected.approximate() && expected.value().isConstant() && student.value().isConstant()) {
+            double difference = Math.abs(expected.value().constantValue().doubleValue()
+                    - student.value().constantValue().doubleValue());
+            if (difference > APPROXIMATE_TOLERANCE) {
+                return Optional.empty(); // could be a different but valid rounding
+            }
+            equal = true;
+        } else {
+            equal = expected.value().equals(student.value());
+        }
+
+        return Optional.of(equal ? new Verdict(true, unitMissing, expected.unit()) : Verdict.INCORRECT);
+    }
+
+    private Optional<List<ParsedValue>> parseList(String raw) {
+        String normalized = normalize(raw);
+        if (normalized.isEmpty()) {
+            return Optional.empty();
+        }
+
+        List<ParsedValue> values = new ArrayList<>();
+        for (String part : LIST_SEPARATOR.split(normalized)) {
+            Optional<ParsedValue> value = parseValue(part);
+            if (value.isEmpty()) {
+                return Optional.empty();
+            }
+            values.add(value.get());
+        }
+        return Optional.of(values);
+    }
+
+    private Optional<ParsedValue> parseValue(String part) {
+        String text = part.trim();
+        boolean approximate = text.contains("\u2248") || text.contains("~");
+        text = text.replace("~=", "=").replace("\u2248", "=").replace("~", "=");
+
+        String target = null;
+        int equals = text.indexOf('=');
+        if (equals >= 0) {
+            if (text.indexOf('=', equals + 1) >= 0) {
+                return Optional.empty();
+            }
+            target = text.substring(0, equals).replaceAll("\\s+", "");
+            if (!ASSIGNMENT_TARGET.matcher(target).matches()) {
+                return Optional.empty();
+            }
+            text = text.substring(equals + 1).trim();
+        }
+
+        String unit = null;
+        Matcher unitMatcher = matchUnit(text);
+        if (unitMatcher == null) {
+            // "20 cm2" is "20 cm²" typed without a superscript
+            Matcher power = TYPED_UNIT_POWER.matcher(text);
+            if (power.matches()) {
+                unitMatcher = matchUnit(power.group(1) + "^" + power.group(2));
+            }
+        }
+        if (unitMatcher != null) {
+            unit = unitMatcher.group(2);
+            text = unitMatcher.group(1);
+        }
+
+        String expression = text.replaceAll("\\s+", "").replace(")*(", ")(");
+        if (WORD.matcher(expression).find()) {
+            return Optional.empty(); // words ("five", "sqrt") are not products of variables
+        }
+        Optional<Polynomial> value = MathExpression.parse(expression);
+        if (value.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(new ParsedValue(target, expression, value.get(), unit, approximate));
+    }
+
+    /**
+     * Matches a number followed by a unit.
+     *
+     * @return the matcher with the quantity in group 1 and the unit in group 2,
+     *         or null when the text does not end in a unit
+     */
+    private Matcher matchUnit(String text) {
+        Matcher matcher = SPACED_UNIT.matcher(text);
+        if (!matcher.matches()) {
+            matcher = ATTACHED_UNIT.matcher(text);
+        }
+        return matcher.matches() && isUnit(matcher.group(2), matcher.group(1)) ? matcher : null;
+    }
+
+    private boolean isUnit(String candidate, String quantity) {
+        String base = candidate.replaceAll("\\^[23]$", "");
+        if (base.length() == 1 && Character.isLetter(base.charAt(0)) && !SINGLE_LETTER_UNITS.contains(base)) {
+            return false;
+        }
+        // Only a number carries a unit; "x + y" must not lose its last variable
+        return MathExpression.parse(quantity.replaceAll("\\s+", ""))
+                .map(Polynomial::isConstant)
+                .orElse(false);
+    }
+
+    private boolean isSolutionSet(List<ParsedValue> values) {
+        if (values.size() < 2) {
+            return false;
+        }
+        String target = values.get(0).target();
+        if (target == null || target.length() != 1) {
+            return false;
+        }
+        return values.stream().allMatch(value -> target.equals(value.target()));
+    }
+
+    private int operatorCount(String expression) {
+        int count = 0;
+        for (int i = 1; i < expression.length(); i++) {
+            char c = expression.charAt(i);
+            char previous = expression.charAt(i - 1);
+            if ("+-*/^".indexOf(c) >= 0 && "(+-*/^".indexOf(previous) < 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private boolean isUnreducedFraction(String expression) {
+        Matcher matcher = FRACTION.matcher(expression);
+        return matcher.matches()
+                && !new BigInteger(matcher.group(1)).gcd(new BigInteger(matcher.group(2))).equals(BigInteger.ONE);
+    }
+
+    /**
+     * Splits "(x+3)(x-3)" or "2(x+1)^2" into its factors; anything else is
+     * returned as a single factor.
+     */
+    private List<String> factors(String expression) {
+        int firstParen = expression.indexOf('(');
+        if (firstParen < 0) {
+            return List.of(expression);
+        }
+
+        List<String> result = new ArrayList<>();
+        String coefficient = expression.substring(0, firstParen);
+        if (coefficient.equals("-")) {
+            result.add("-1");
+        } else if (!coefficient.isEmpty()) {
+            result.add(coefficient);
+        }
+
+        Matcher matcher = FACTOR.matcher(expression);
+        int pos = firstParen;
+        while (pos < expression.length()) {
+            matcher.region(pos, expression.length());
+            if (!matcher.lookingAt()) {
+                return List.of(expression);
+            }
+            int times = matcher.group(2) != null ? Integer.parseInt(matcher.group(2)) : 1;
+            for (int i = 0; i < times; i++) {
+                result.add(matcher.group(1));
+            }
+            pos = matcher.end();
+        }
+        return result;
+    }
+
+    private boolean sameFactors(List<String> expected, List<String> actual) {
+        if (expected.size() != actual.size()) {
+            return false;
+        }
+        List<Optional<Polynomial>> remaining = new ArrayList<>(expected.stream().map(MathExpression::parse).toList());
+        for (String factor : actual) {
+            Optional<Polynomial> parsed = MathExpression.parse(factor);
+            if (parsed.isEmpty() || !remaining.remove(parsed)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String normalize(String raw) {
+        String text = ANSWER_PREFIX.matcher(raw.trim().toLowerCase(Locale.ROOT)).replaceFirst("");
+
+        StringBuilder builder = new StringBuilder(text.length());
+        boolean inSuperscript = false;
+        for (char c : text.toCharArray()) {
+            Character superscript = SUPERSCRIPTS.get(c);
+            if (superscript != null) {
+                if (!inSuperscript) {
+                    builder.append('^');
+                }
+                builder.append(superscript.charValue());
+                inSuperscript = true;
+                continue;
+            }
+            inSuperscript = false;
+            switch (c) {
+                case '\u2212', '\u2013', '\u2014' -> builder.append('-');
+                case '\u00d7', '\u00b7', '\u2219', '\u22c5' -> builder.append('*');
+                case '\u00f7' -> builder.append('/');
+                case '{', '}' -> {
+                    // set braces carry no meaning here
+                }
+                default -> builder.append(c);
+            }
+        }
+
+        String normalized = builder.toString().trim();
+        if (normalized.endsWith(".")) {
+            normalized = normalized.substring(0, normalized.length() - 1).trim();
+        }
+        return normalized;
+    }
+
+    private GradingResult buildResult(Question question, String answer, Verdict verdict, long startTime) {
+        BigDecimal score;
+        String feedback;
+        if (!verdict.correct()) {
+            score = BigDecimal.ZERO;
+            feedback = String.format("Your answer %s is not correct. The expected answer is %s. "
+                    + "Review the solution steps to see where it went wrong.", answer, question.getCorrectAnswer());
+        } else if (verdict.unitMissing()) {
+            score = BigDecimal.valueOf(9.0);
+            feedback = String.format("Correct! Remember to include the unit (%s) in your final answer.",
+                    verdict.expectedUnit());
+        } else {
+            score = BigDecimal.valueOf(10.0);
+            feedback = String.format("Correct! Your answer %s matches the expected answer.", answer);
+        }
+
+        return GradingResult.builder()
+                .score(score)
+                .correct(verdict.correct())
+                .feedback(feedback)
+                .correctSteps(question.getSolutionSteps())
+                .topicTags(question.getTopic() != null ? List.of(question.getTopic()) : List.of())
+                .processingTimeMs((int) (System.currentTimeMillis() - startTime))
+                .aiProvider(PROVIDER)
+                .build();
+    }
+
+    record Verdict(boolean correct, boolean unitMissing, String expectedUnit) {
+        static final Verdict INCORRECT = new Verdict(false, false, null);
+    }
+
+    private record ParsedValue(String target, String expression, Polynomial value, String unit,
+            boolean approximate) {
+    }
+}
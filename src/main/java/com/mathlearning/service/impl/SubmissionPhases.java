@@ -0,0 +1,62 @@
+package com.mathlearning.service.impl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+/**
+ * Runs the steps of the submission flow as separate phases so a pooled
+ * connection is only held for short database work, never across S3 uploads or
+ * AI calls. Each phase is timed under {@code submission.phase}, tagged with the
+ * phase name and whether a connection was held, so the
+ * {@code connection=held} series is the per-phase connection hold time.
+ */
+@Component
+public class SubmissionPhases {
+
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    public SubmissionPhases(PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Runs database reads in a short read-only transaction.
+     */
+    public <T> T read(String phase, Supplier<T> work) {
+        return timer(phase, true).record(() -> readOnlyTransactionTemplate.execute(status -> work.get()));
+    }
+
+    /**
+     * Runs database writes in a single short transaction.
+     */
+    public <T> T write(String phase, Supplier<T> work) {
+        return timer(phase, true).record(() -> transactionTemplate.execute(status -> work.get()));
+    }
+
+    /**
+     * Runs external I/O. Must be called outside any transaction; database access
+     * inside would take a connection per repository call.
+     */
+    public <T> T external(String phase, Callable<T> work) throws Exception {
+        return timer(phase, false).recordCallable(work);
+    }
+
+    private Timer timer(String phase, boolean holdsConnection) {
+        return Timer.builder("submission.phase")
+                .description("Duration of each submission processing phase")
+                .tag("phase", phase)
+                .tag("connection", holdsConnection ? "held" : "none")
+                .register(meterRegistry);
+    }
+}
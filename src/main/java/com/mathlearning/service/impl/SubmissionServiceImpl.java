@@ -1,24 +1,50 @@
 package com.mathlearning.service.impl;
 
+import com.mathlearning.dto.CachedGrading;
+import com.mathlearning.dto.CursorPage;
 import com.mathlearning.dto.GradingResult;
+import com.mathlearning.dto.PresignedUploadResponse;
+import com.mathlearning.dto.ProcessedImage;
+import com.mathlearning.dto.StoredObject;
 import com.mathlearning.dto.SubmissionDto;
+import com.mathlearning.dto.SubmissionJobResponse;
 import com.mathlearning.dto.SubmissionResponse;
+import com.mathlearning.dto.SubmissionSummaryDto;
+import com.mathlearning.event.SubmissionQueuedEvent;
 import com.mathlearning.exception.InvalidRequestException;
 import com.mathlearning.exception.ResourceNotFoundException;
+import com.mathlearning.exception.ServiceUnavailableException;
 import com.mathlearning.model.*;
 import com.mathlearning.repository.*;
 import com.mathlearning.service.IAIGradingService;
+import com.mathlearning.service.IAnswerPreGrader;
+import com.mathlearning.service.IContentAddressedStorage;
+import com.mathlearning.service.IGradingResultCache;
+import com.mathlearning.service.IGradingScheduler;
+import com.mathlearning.service.IImagePreprocessor;
+import com.mathlearning.service.IQuestionCache;
 import com.mathlearning.service.ISubmissionService;
 import com.mathlearning.service.IStorageService;
+import com.mathlearning.util.ContentHash;
+import com.mathlearning.util.KeysetCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Optional;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -26,16 +52,53 @@ import java.util.stream.Collectors;
 public class SubmissionServiceImpl implements ISubmissionService {
 
     private final SubmissionRepository submissionRepository;
-    private final QuestionRepository questionRepository;
+    private final IQuestionCache questionCache;
     private final UserRepository userRepository;
     private final UserProgressRepository userProgressRepository;
     private final MistakeNotebookRepository mistakeNotebookRepository;
     private final IAIGradingService aiGradingService;
+    private final IGradingScheduler gradingScheduler;
+    private final IAnswerPreGrader answerPreGrader;
+    private final IImagePreprocessor imagePreprocessor;
     private final IStorageService storageService;
+    private final IContentAddressedStorage contentStorage;
+    private final IGradingResultCache gradingResultCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SubmissionPhases phases;
+
+    @Value("${app.pagination.default-page-size:20}")
+    private int defaultPageSize;
+
+    @Value("${app.pagination.max-page-size:100}")
+    private int maxPageSize;
+
+    @Value("${app.storage.content-addressed:true}")
+    private boolean contentAddressed;
+
+    @Value("${app.storage.direct-upload.max-size:10MB}")
+    private DataSize directUploadMaxSize;
+
+    @Value("${app.storage.direct-upload.allowed-content-types:image/jpeg,image/png,image/webp}")
+    private Set<String> directUploadContentTypes;
+
+    /**
+     * User and question loaded in the first phase; detached afterwards, which is
+     * fine as only their ids and simple columns are used.
+     */
+    private record SubmissionContext(User user, Question question) {
+    }
+
+    /**
+     * Stored image plus its grading, which is null until the AI has graded it.
+     */
+    private record PreparedImage(String imageUrl, String imageHash, GradingResult result) {
+        PreparedImage withResult(GradingResult gradingResult) {
+            return new PreparedImage(imageUrl, imageHash, gradingResult);
+        }
+    }
 
     @Override
-    @Transactional
-    public SubmissionResponse createSubmission(Long userId, Long questionId, MultipartFile image) {
+    public SubmissionResponse createSubmission(Long userId, Long questionId, MultipartFile image, String answer) {
         log.debug("Creating submission for user: {}, question: {}", userId, questionId);
 
         // Validate image
@@ -43,117 +106,237 @@ public class SubmissionServiceImpl implements ISubmissionService {
             throw new InvalidRequestException("Image file is required");
         }
 
-        // Fetch user and question
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("User", "id", userId));
-        Question question = questionRepository.findById(questionId)
-                .orElseThrow(() -> new ResourceNotFoundException("Question", "id", questionId));
+        // Phase 1: fetch user and question, releasing the connection straight after
+        SubmissionContext context = loadContext(userId, questionId);
 
+        // Phase 2: storage and AI grading with no connection held
+        PreparedImage prepared;
         try {
-            // Upload image to storage
-            String imageUrl = storageService.uploadFile(image, "submissions");
-            log.debug("Image uploaded successfully: {}", imageUrl);
-
-            // Grade with AI
-            GradingResult gradingResult = aiGradingService.gradeSubmission(
-                    imageUrl,
-                    question.getQuestionText(),
-                    question.getCorrectAnswer(),
-                    question.getGradeLevel());
-
-            // Create submission record
-            Submission submission = Submission.builder()
-                    .user(user)
-                    .question(question)
-                    .originalImageUrl(imageUrl)
-                    .aiScore(gradingResult.getScore())
-                    .isCorrect(gradingResult.getCorrect())
-                    .aiFeedback(gradingResult.getFeedback())
-                    .correctSteps(gradingResult.getCorrectSteps())
-                    .topicTags(gradingResult.getTopicTags())
-                    .processingTimeMs(gradingResult.getProcessingTimeMs())
-                    .aiProvider(gradingResult.getAiProvider())
-                    .build();
+            prepared = phases.external("grade", () -> {
+                PreparedImage stored = prepareImage(context.question(), image, answer);
+                return stored.result() != null ? stored
+                        : stored.withResult(gradingScheduler.call(IGradingScheduler.Priority.INTERACTIVE, userId,
+                                () -> gradeWithAi(context.question(), stored.imageUrl(), stored.imageHash())));
+            });
+        } catch (InvalidRequestException | ResourceNotFoundException | ServiceUnavailableException e) {
+            throw e; // Re-throw custom exceptions; 503 tells the client to retry when grading is overloaded
+        } catch (Exception e) {
+            log.error("Error creating submission", e);
+            throw new InvalidRequestException("Failed to process submission: " + e.getMessage());
+        }
 
-            submission = submissionRepository.save(submission);
-
-            // Calculate XP reward
-            int xpEarned = calculateXp(gradingResult.getScore(), question.getDifficulty());
-            log.debug("XP calculated: {} (score: {}, difficulty: {})",
-                    xpEarned, gradingResult.getScore(), question.getDifficulty());
-
-            // Update user progress
-            UserProgress progress = userProgressRepository.findByUserId(userId)
-                    .orElseGet(() -> {
-                        log.info("Creating new progress record for user: {}", userId);
-                        UserProgress newProgress = UserProgress.builder()
-                                .userId(userId)
-                                .user(user)
-                                .totalXp(0)
-                                .currentStreak(0)
-                                .longestStreak(0)
-                                .build();
-                        return userProgressRepository.save(newProgress);
-                    });
-
-            progress.setTotalXp(progress.getTotalXp() + xpEarned);
-
-            // Update streak
-            updateStreak(progress);
-
-            userProgressRepository.save(progress);
-            log.info("User progress updated - XP: {}, Streak: {}",
-                    progress.getTotalXp(), progress.getCurrentStreak());
-
-            // Add to mistake notebook if incorrect
-            if (!gradingResult.getCorrect()) {
-                MistakeNotebook mistake = MistakeNotebook.builder()
-                        .user(user)
-                        .submission(submission)
-                        .reviewed(false)
-                        .build();
-                mistakeNotebookRepository.save(mistake);
-                log.debug("Added submission to mistake notebook");
-            }
+        // Phase 3: persist submission, progress and mistake in one short transaction
+        return phases.write("persist", () -> recordGradingOutcome(
+                buildSubmission(context.user(), context.question(), prepared.imageUrl(), prepared.imageHash(),
+                        answer),
+                context.user(), context.question(), prepared.result()));
+    }
 
-            // Build response
-            return SubmissionResponse.builder()
-                    .submissionId(submission.getId())
-                    .score(submission.getAiScore())
-                    .correct(submission.getIsCorrect())
-                    .feedback(submission.getAiFeedback())
-                    .correctSteps(submission.getCorrectSteps())
-                    .topicTags(submission.getTopicTags())
-                    .xpEarned(xpEarned)
-                    .totalXp(progress.getTotalXp())
-                    .currentStreak(progress.getCurrentStreak())
-                    .processingTimeMs(submission.getProcessingTimeMs())
-                    .build();
+    @Override
+    public SubmissionJobResponse submitForGrading(Long userId, Long questionId, MultipartFile image,
+            String answer) {
+        log.debug("Queueing submission for user: {}, question: {}", userId, questionId);
+
+        if (image == null || image.isEmpty()) {
+            throw new InvalidRequestException("Image file is required");
+        }
+
+        SubmissionContext context = loadContext(userId, questionId);
 
-        } catch (InvalidRequestException | ResourceNotFoundException e) {
-            throw e; // Re-throw custom exceptions
+        PreparedImage prepared;
+        try {
+            prepared = phases.external("upload", () -> prepareImage(context.question(), image, answer));
         } catch (Exception e) {
-            log.error("Error creating submission", e);
+            log.error("Error uploading submission image", e);
             throw new InvalidRequestException("Failed to process submission: " + e.getMessage());
         }
+
+        return queueOrComplete(context, prepared, answer);
+    }
+
+    @Override
+    public PresignedUploadResponse createUploadUrl(Long userId, String fileName, String contentType,
+            long contentLength, String sha256) {
+        validateDirectUpload(contentType, contentLength);
+
+        // Keys live under the user's folder so finalize can check ownership from the key alone
+        return storageService.presignUpload(uploadFolder(userId), safeFileName(fileName), contentType,
+                contentLength, sha256 == null ? null : sha256.toLowerCase());
+    }
+
+    @Override
+    public SubmissionJobResponse finalizeUpload(Long userId, Long questionId, String objectKey, String answer) {
+        log.debug("Finalizing direct upload for user: {}, question: {}", userId, questionId);
+
+        if (objectKey == null || !objectKey.startsWith(uploadFolder(userId) + "/") || objectKey.contains("..")) {
+            throw new InvalidRequestException("Invalid object key");
+        }
+
+        StoredObject stored;
+        try {
+            stored = phases.external("verify", () -> storageService.describeObject(objectKey))
+                    .orElseThrow(() -> new InvalidRequestException("Upload not found, PUT the image first"));
+        } catch (InvalidRequestException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Error reading uploaded object: {}", objectKey, e);
+            throw new InvalidRequestException("Failed to process submission: " + e.getMessage());
+        }
+        // The signed URL enforces these too; checked again as the object is what gets graded
+        validateDirectUpload(stored.getContentType(), stored.getContentLength());
+
+        SubmissionContext context = loadContext(userId, questionId);
+        String imageUrl = storageService.getFileUrl(objectKey);
+        String imageHash = stored.getSha256();
+
+        GradingResult result = answerPreGrader.tryGrade(context.question(), answer).orElse(null);
+        if (result == null && imageHash != null) {
+            long startTime = System.currentTimeMillis();
+            result = gradingResultCache.get(gradingResultCache.keyFor(imageHash, questionId))
+                    .map(cached -> fromCache(cached, startTime))
+                    .orElse(null);
+        }
+
+        return queueOrComplete(context, new PreparedImage(imageUrl, imageHash, result), answer);
+    }
+
+    private String uploadFolder(Long userId) {
+        return "uploads/" + userId;
+    }
+
+    private static String safeFileName(String fileName) {
+        String name = fileName == null ? "" : fileName.replaceAll("[^A-Za-z0-9._-]", "_");
+        return name.isBlank() || name.chars().allMatch(c -> c == '.') ? "image" : name;
+    }
+
+    private void validateDirectUpload(String contentType, long contentLength) {
+        if (contentType == null || !directUploadContentTypes.contains(contentType.toLowerCase())) {
+            throw new InvalidRequestException("Unsupported image type: " + contentType);
+        }
+        if (contentLength <= 0 || contentLength > directUploadMaxSize.toBytes()) {
+            throw new InvalidRequestException("Image must be between 1 byte and " + directUploadMaxSize);
+        }
+    }
+
+    /**
+     * Completes submissions that already have a result and queues the rest for
+     * the grading workers.
+     */
+    private SubmissionJobResponse queueOrComplete(SubmissionContext context, PreparedImage prepared,
+            String answer) {
+        // Locally gradable answers and resubmitted photos complete immediately, no job needed
+        if (prepared.result() != null) {
+            return completedJob(phases.write("persist", () -> recordGradingOutcome(
+                    buildSubmission(context.user(), context.question(), prepared.imageUrl(), prepared.imageHash(),
+                            answer),
+                    context.user(), context.question(), prepared.result())));
+        }
+
+        Submission submission = buildSubmission(context.user(), context.question(), prepared.imageUrl(),
+                prepared.imageHash(), answer);
+        submission.setStatus(Submission.Status.PENDING);
+        Submission queued = phases.write("queue", () -> submissionRepository.save(submission));
+
+        // Published after commit so the worker always finds the row
+        try {
+            eventPublisher.publishEvent(new SubmissionQueuedEvent(queued.getId(), context.user().getId()));
+        } catch (ServiceUnavailableException e) {
+            log.warn("Grading queue is full, rejecting submission: {}", queued.getId());
+            submissionRepository.markFailed(queued.getId(), "Grading queue is full");
+            throw e;
+        }
+
+        log.info("Submission {} queued for grading", queued.getId());
+
+        return SubmissionJobResponse.builder()
+                .submissionId(queued.getId())
+                .status(Submission.Status.PENDING.name())
+                .build();
+    }
+
+    @Override
+    public void gradePendingSubmission(Long submissionId) {
+        // Claim the job so a redelivered event cannot grade it twice
+        if (submissionRepository.claimPending(submissionId, LocalDateTime.now()) == 0) {
+            log.warn("Submission {} is not pending, skipping grading", submissionId);
+            return;
+        }
+
+        try {
+            Submission submission = phases.read("load", () -> submissionRepository
+                    .findWithUserAndQuestionById(submissionId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Submission", "id", submissionId)));
+            Question question = submission.getQuestion();
+
+            // Already scheduled as batch work, so the AI call is made directly
+            GradingResult gradingResult = phases.external("grade", () -> gradeWithAi(
+                    question, submission.getOriginalImageUrl(), submission.getImageHash()));
+
+            phases.write("persist",
+                    () -> recordGradingOutcome(submission, submission.getUser(), question, gradingResult));
+            log.info("Background grading completed for submission: {}", submissionId);
+        } catch (ServiceUnavailableException e) {
+            // Open circuit, full limit or quota shed: AI capacity is short for now, the submission is fine
+            log.warn("AI grading unavailable for submission {}, returning it to the queue: {}", submissionId,
+                    e.getMessage());
+            submissionRepository.transitionStatus(submissionId,
+                    Submission.Status.PROCESSING, Submission.Status.PENDING);
+            throw e;
+        } catch (Exception e) {
+            log.error("Background grading failed for submission: {}", submissionId, e);
+            submissionRepository.markFailed(submissionId, e.getMessage());
+        }
     }
 
     @Override
-    public List<SubmissionDto> getUserSubmissions(Long userId) {
-        log.debug("Fetching submissions for user: {}", userId);
-        List<Submission> submissions = submissionRepository.findByUserIdOrderByCreatedAtDesc(userId);
-        log.debug("Found {} submissions for user: {}", submissions.size(), userId);
+    @Transactional(readOnly = true)
+    public SubmissionJobResponse getSubmissionStatus(Long submissionId, Long userId) {
+        Submission submission = submissionRepository.findById(submissionId)
+                .orElseThrow(() -> new ResourceNotFoundException("Submission", "id", submissionId));
+
+        if (!submission.getUser().getId().equals(userId)) {
+            log.warn("Unauthorized status check on submission: {} by user: {}", submissionId, userId);
+            throw new InvalidRequestException("You don't have permission to access this submission");
+        }
 
-        return submissions.stream()
-                .map(this::toDto)
-                .collect(Collectors.toList());
+        SubmissionJobResponse.SubmissionJobResponseBuilder response = SubmissionJobResponse.builder()
+                .submissionId(submission.getId())
+                .status(submission.getStatus().name())
+                .errorMessage(submission.getErrorMessage());
+
+        if (submission.getStatus() == Submission.Status.COMPLETED) {
+            UserProgress progress = userProgressRepository.findByUserId(userId).orElse(null);
+            response.result(toResponse(submission,
+                    progress != null ? progress.getTotalXp() : null,
+                    progress != null ? progress.getCurrentStreak() : null));
+        }
+
+        return response.build();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<SubmissionSummaryDto> getSubmissionHistory(Long userId, String cursor, Integer limit) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        int pageSize = limit == null ? defaultPageSize : Math.max(1, Math.min(limit, maxPageSize));
+        log.debug("Fetching submission history for user: {}, after: {}, size: {}", userId, after, pageSize);
+
+        // One extra row tells whether another page exists without a count query
+        Limit fetch = Limit.of(pageSize + 1);
+        List<SubmissionRepository.SubmissionSummary> rows = after == null
+                ? submissionRepository.findHistory(userId, fetch)
+                : submissionRepository.findHistoryBefore(userId, after.sortKey(), after.id(), fetch);
+
+        return CursorPage.fromRows(rows, pageSize, this::toSummaryDto,
+                row -> new KeysetCursor(row.getCreatedAt(), row.getId()));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public SubmissionDto getSubmission(Long submissionId, Long userId) {
         log.debug("Fetching submission: {} for user: {}", submissionId, userId);
 
-        Submission submission = submissionRepository.findById(submissionId)
+        Submission submission = submissionRepository.findWithUserAndQuestionById(submissionId)
                 .orElseThrow(() -> new ResourceNotFoundException("Submission", "id", submissionId));
 
         // Verify ownership
@@ -165,6 +348,160 @@ public class SubmissionServiceImpl implements ISubmissionService {
         return toDto(submission);
     }
 
+    private Submission buildSubmission(User user, Question question, String imageUrl, String imageHash,
+            String answer) {
+        return Submission.builder()
+                .user(user)
+                .question(question)
+                .originalImageUrl(imageUrl)
+                .imageHash(imageHash)
+                .studentAnswer(answer)
+                .build();
+    }
+
+    private SubmissionContext loadContext(Long userId, Long questionId) {
+        return phases.read("load", () -> new SubmissionContext(
+                userRepository.findById(userId)
+                        .orElseThrow(() -> new ResourceNotFoundException("User", "id", userId)),
+                questionCache.findById(questionId)
+                        .orElseThrow(() -> new ResourceNotFoundException("Question", "id", questionId))));
+    }
+
+    /**
+     * Hashes and stores the image, grading it locally or from the cache when
+     * possible. The result is left null when the AI still has to grade it.
+     */
+    private PreparedImage prepareImage(Question question, MultipartFile image, String answer) throws IOException {
+        long startTime = System.currentTimeMillis();
+        String imageHash = ContentHash.sha256Hex(image.getInputStream());
+
+        // A typed final answer that can be checked locally needs no AI call
+        Optional<GradingResult> preGraded = answerPreGrader.tryGrade(question, answer);
+        if (preGraded.isPresent()) {
+            log.info("Submission graded locally for question: {}", question.getId());
+            return new PreparedImage(storeImage(image, imageHash), imageHash, preGraded.get());
+        }
+
+        // A resubmitted photo skips both storage and the AI call
+        Optional<CachedGrading> cached = gradingResultCache.get(
+                gradingResultCache.keyFor(imageHash, question.getId()));
+        if (cached.isPresent()) {
+            log.info("Reusing cached grading for question: {}", question.getId());
+            return new PreparedImage(cached.get().getImageUrl(), imageHash, fromCache(cached.get(), startTime));
+        }
+
+        String imageUrl = storeImage(image, imageHash);
+        log.debug("Image uploaded successfully: {}", imageUrl);
+        return new PreparedImage(imageUrl, imageHash, null);
+    }
+
+    private GradingResult gradeWithAi(Question question, String imageUrl, String imageHash) {
+        GradingResult gradingResult = aiGradingService.gradeSubmission(
+                imageUrl,
+                question.getQuestionText(),
+                question.getCorrectAnswer(),
+                question.getGradeLevel());
+
+        if (imageHash != null) {
+            gradingResultCache.put(gradingResultCache.keyFor(imageHash, question.getId()), CachedGrading.builder()
+                    .imageUrl(imageUrl)
+                    .result(gradingResult)
+                    .build());
+        }
+        return gradingResult;
+    }
+
+    private SubmissionJobResponse completedJob(SubmissionResponse result) {
+        return SubmissionJobResponse.builder()
+                .submissionId(result.getSubmissionId())
+                .status(Submission.Status.COMPLETED.name())
+                .result(result)
+                .build();
+    }
+
+    /**
+     * Uploads the preprocessed image, or the original upload when it could not
+     * be decoded. The content hash is always taken from the original bytes. In
+     * content-addressed mode an image that is already stored is not uploaded
+     * again.
+     */
+    private String storeImage(MultipartFile image, String imageHash) throws IOException {
+        Optional<ProcessedImage> processed = imagePreprocessor.preprocess(image);
+        if (processed.isEmpty()) {
+            if (contentAddressed) {
+                try (InputStream content = image.getInputStream()) {
+                    return contentStorage.store(content, image.getSize(), image.getContentType(), imageHash);
+                }
+            }
+            return storageService.uploadFile(image, "submissions");
+        }
+        ProcessedImage prepared = processed.get();
+        if (contentAddressed) {
+            // Keyed by the stored bytes, which differ from the original's hash
+            return contentStorage.store(new ByteArrayInputStream(prepared.getData()), prepared.getData().length,
+                    prepared.getContentType(), ContentHash.sha256Hex(prepared.getData()));
+        }
+        return storageService.uploadFile(new ByteArrayInputStream(prepared.getData()), prepared.getData().length,
+                prepared.getContentType(), "submissions", prepared.getFileName());
+    }
+
+    /**
+     * Copies a cached grading, reporting the lookup time instead of the original
+     * AI processing time.
+     */
+    private GradingResult fromCache(CachedGrading cached, long startTime) {
+        return cached.getResult().toBuilder()
+                .processingTimeMs((int) (System.currentTimeMillis() - startTime))
+                .build();
+    }
+
+    /**
+     * Stores the grading result on the submission and applies XP, streak and
+     * mistake notebook updates. Shared by the synchronous and background paths;
+     * callers run it inside a {@link SubmissionPhases#write} phase.
+     */
+    private SubmissionResponse recordGradingOutcome(Submission submission, User user, Question question,
+            GradingResult gradingResult) {
+        Long userId = user.getId();
+
+        // Calculate XP reward
+        int xpEarned = calculateXp(gradingResult.getScore(), question.getDifficulty());
+        log.debug("XP calculated: {} (score: {}, difficulty: {})",
+                xpEarned, gradingResult.getScore(), question.getDifficulty());
+
+        submission.setAiScore(gradingResult.getScore());
+        submission.setIsCorrect(gradingResult.getCorrect());
+        submission.setAiFeedback(gradingResult.getFeedback());
+        submission.setCorrectSteps(gradingResult.getCorrectSteps());
+        submission.setTopicTags(gradingResult.getTopicTags());
+        submission.setProcessingTimeMs(gradingResult.getProcessingTimeMs());
+        submission.setAiProvider(gradingResult.getAiProvider());
+        submission.setXpEarned(xpEarned);
+        submission.setStatus(Submission.Status.COMPLETED);
+        submission.setErrorMessage(null);
+
+        submission = submissionRepository.save(submission);
+
+        // XP, counters and streak are applied atomically in the database, safe under parallel submissions
+        UserProgressRepository.ProgressSnapshot progress = userProgressRepository.applySubmission(
+                userId, xpEarned, Boolean.TRUE.equals(gradingResult.getCorrect()), LocalDate.now());
+        log.info("User progress updated - XP: {}, Streak: {}",
+                progress.getTotalXp(), progress.getCurrentStreak());
+
+        // Add to mistake notebook if incorrect
+        if (!gradingResult.getCorrect()) {
+            MistakeNotebook mistake = MistakeNotebook.builder()
+                    .user(user)
+                    .submission(submission)
+                    .reviewed(false)
+                    .build();
+            mistakeNotebookRepository.save(mistake);
+            log.debug("Added submission to mistake notebook");
+        }
+
+        return toResponse(submission, progress.getTotalXp(), progress.getCurrentStreak());
+    }
+
     /**
      * Calculates XP earned based on score and difficulty
      * Easy: 1x multiplier, Medium: 1.5x, Hard: 2x
@@ -184,35 +521,33 @@ public class SubmissionServiceImpl implements ISubmissionService {
         return (int) (baseXp * multiplier);
     }
 
-    /**
-     * Updates user's streak based on last activity date
-     */
-    private void updateStreak(UserProgress progress) {
-        LocalDate today = LocalDate.now();
-        LocalDate lastActivity = progress.getLastActivityDate();
-
-        if (lastActivity == null) {
-            // First submission ever
-            progress.setCurrentStreak(1);
-            progress.setLongestStreak(1);
-            log.debug("Started new streak");
-        } else if (lastActivity.equals(today)) {
-            // Already submitted today, no change to streak
-            return;
-        } else if (lastActivity.equals(today.minusDays(1))) {
-            // Submitted yesterday, increment streak
-            progress.setCurrentStreak(progress.getCurrentStreak() + 1);
-            if (progress.getCurrentStreak() > progress.getLongestStreak()) {
-                progress.setLongestStreak(progress.getCurrentStreak());
-                log.debug("New longest streak: {}", progress.getLongestStreak());
-            }
-        } else {
-            // Streak broken
-            log.debug("Streak broken, resetting to 1");
-            progress.setCurrentStreak(1);
-        }
+    private SubmissionResponse toResponse(Submission submission, Integer totalXp, Integer currentStreak) {
+        return SubmissionResponse.builder()
+                .submissionId(submission.getId())
+                .score(submission.getAiScore())
+                .correct(submission.getIsCorrect())
+                .feedback(submission.getAiFeedback())
+                .correctSteps(submission.getCorrectSteps())
+                .topicTags(submission.getTopicTags())
+                .xpEarned(submission.getXpEarned())
+                .totalXp(totalXp)
+                .currentStreak(currentStreak)
+                .processingTimeMs(submission.getProcessingTimeMs())
+                .build();
+    }
 
-        progress.setLastActivityDate(today);
+    private SubmissionSummaryDto toSummaryDto(SubmissionRepository.SubmissionSummary row) {
+        return SubmissionSummaryDto.builder()
+                .id(row.getId())
+                .questionId(row.getQuestionId())
+                .questionText(row.getQuestionText())
+                .topic(row.getTopic())
+                .status(row.getStatus() != null ? row.getStatus().name() : null)
+                .score(row.getScore())
+                .correct(row.getCorrect())
+                .xpEarned(row.getXpEarned())
+                .createdAt(row.getCreatedAt())
+                .build();
     }
 
     private SubmissionDto toDto(Submission submission) {
@@ -0,0 +1,90 @@
+package com.mathlearning.util;
+
+import okhttp3.Call;
+import okhttp3.Interceptor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lets one thread cancel the HTTP calls another thread makes. A scope is bound
+ * to the thread doing the work with {@link #bind()}; the {@link #interceptor()}
+ * on the AI HTTP client registers every call made on that thread, and
+ * {@link #cancel()} aborts them from anywhere, freeing the connection instead
+ * of waiting for the response. Calls made after cancellation are aborted as
+ * soon as they start.
+ */
+public final class CallScope implements AutoCloseable {
+
+    private static final ThreadLocal<CallScope> CURRENT = new ThreadLocal<>();
+
+    private final List<Call> calls = new ArrayList<>();
+    private volatile boolean cancelled;
+
+    private CallScope() {
+    }
+
+    /**
+     * Creates a scope that is not yet bound to a thread.
+     */
+    public static CallScope create() {
+        return new CallScope();
+    }
+
+    /**
+     * Binds this scope to the current thread until it is closed.
+     */
+    public CallScope bind() {
+        CURRENT.set(this);
+        return this;
+    }
+
+    /**
+     * @return whether the scope bound to the current thread has been cancelled
+     */
+    public static boolean isCurrentCancelled() {
+        CallScope scope = CURRENT.get();
+        return scope != null && scope.cancelled;
+    }
+
+    /**
+     * Application interceptor that registers calls with the current scope.
+     */
+    public static Interceptor interceptor() {
+        return chain -> {
+            CallScope scope = CURRENT.get();
+            if (scope != null) {
+                scope.register(chain.call());
+            }
+            return chain.proceed(chain.request());
+        };
+    }
+
+    public synchronized void cancel() {
+        cancelled = true;
+        calls.forEach(Call::cancel);
+        calls.clear();
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    private synchronized void register(Call call) {
+        if (cancelled) {
+            call.cancel();
+        } else {
+            calls.add(call);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (CURRENT.get() == this) {
+            CURRENT.remove();
+        }
+        synchronized (this) {
+            calls.clear();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.mathlearning.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+
+/**
+ * SHA-256 content hashing for uploaded images. Streams the input instead of
+ * materialising it on the heap.
+ */
+public final class ContentHash {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private ContentHash() {
+    }
+
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public static String sha256Hex(InputStream in) throws IOException {
+        MessageDigest digest = newDigest();
+        try (DigestInputStream digestStream = new DigestInputStream(in, digest)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (digestStream.read(buffer) != -1) {
+                // reading drives the digest
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public static String sha256Hex(byte[] bytes) {
+        return HexFormat.of().formatHex(newDigest().digest(bytes));
+    }
+
+    /**
+     * Converts a hex digest to the base64 form S3 uses for
+     * {@code x-amz-checksum-sha256}.
+     */
+    public static String hexToBase64(String hex) {
+        return Base64.getEncoder().encodeToString(HexFormat.of().parseHex(hex));
+    }
+
+    public static String base64ToHex(String base64) {
+        return HexFormat.of().formatHex(Base64.getDecoder().decode(base64));
+    }
+}
@@ -0,0 +1,46 @@
+package com.mathlearning.util;
+
+import com.mathlearning.exception.InvalidRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque position in a list ordered by a timestamp and id, such as
+ * {@code (created_at DESC, id DESC)} or the review queue's {@code (due_at, id)}.
+ * Encoded as URL-safe Base64 so clients treat it as a token rather than
+ * building their own.
+ *
+ * @param sortKey timestamp the list is ordered by ({@code created_at},
+ *                {@code due_at}, ...) of the last row on the previous page
+ * @param id      id of the last row, breaking ties on equal timestamps
+ */
+public record KeysetCursor(LocalDateTime sortKey, Long id) {
+
+    private static final char SEPARATOR = '|';
+
+    public String encode() {
+        String raw = sortKey.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return the decoded cursor, or null for a blank token (first page)
+     * @throws InvalidRequestException if the token was not produced by {@link #encode()}
+     */
+    public static KeysetCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            return new KeysetCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new InvalidRequestException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,362 @@
+package com.mathlearning.util;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Parses short answer expressions (numbers, fractions, decimals and simple
+ * polynomials) into an exact canonical form so equivalent answers such as
+ * "0.75" and "3/4", or "(x-3)(x+3)" and "x^2-9", compare equal.
+ * <p>
+ * Input is expected to be normalised: lower case, no whitespace, ASCII
+ * operators. Unsupported syntax yields {@link Optional#empty()}.
+ */
+public final class MathExpression {
+
+    private static final int MAX_EXPONENT = 32;
+
+    private MathExpression() {
+    }
+
+    public static Optional<Polynomial> parse(String text) {
+        if (text == null || text.isEmpty()) {
+            return Optional.empty();
+        }
+        try {
+            Parser parser = new Parser(text);
+            Polynomial result = parser.parseExpression();
+            return parser.atEnd() ? Optional.of(result) : Optional.empty();
+        } catch (IllegalArgumentException | ArithmeticException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Exact fraction with a positive denominator in lowest terms.
+     */
+    public static final class Rational implements Comparable<Rational> {
+
+        public static final Rational ZERO = new Rational(BigInteger.ZERO, BigInteger.ONE);
+        public static final Rational ONE = new Rational(BigInteger.ONE, BigInteger.ONE);
+
+        private final BigInteger numerator;
+        private final BigInteger denominator;
+
+        private Rational(BigInteger numerator, BigInteger denominator) {
+            this.numerator = numerator;
+            this.denominator = denominator;
+        }
+
+        public static Rational of(BigInteger numerator, BigInteger denominator) {
+            if (denominator.signum() == 0) {
+                throw new ArithmeticException("Division by zero");
+            }
+            if (denominator.signum() < 0) {
+                numerator = numerator.negate();
+                denominator = denominator.negate();
+            }
+            BigInteger gcd = numerator.gcd(denominator);
+            if (!gcd.equals(BigInteger.ONE) && gcd.signum() != 0) {
+                numerator = numerator.divide(gcd);
+                denominator = denominator.divide(gcd);
+            }
+            return new Rational(numerator, denominator);
+        }
+
+        public static Rational parse(String decimal) {
+            BigDecimal value = new BigDecimal(decimal);
+            if (value.scale() <= 0) {
+                return of(value.toBigIntegerExact(), BigInteger.ONE);
+            }
+            return of(value.unscaledValue(), BigInteger.TEN.pow(value.scale()));
+        }
+
+        public Rational add(Rational other) {
+            return of(numerator.multiply(other.denominator).add(other.numerator.multiply(denominator)),
+                    denominator.multiply(other.denominator));
+        }
+
+        public Rational multiply(Rational other) {
+            return of(numerator.multiply(other.numerator), denominator.multiply(other.denominator));
+        }
+
+        public Rational divide(Rational other) {
+            return of(numerator.multiply(other.denominator), denominator.multiply(other.numerator));
+        }
+
+        public Rational negate() {
+            return new Rational(numerator.negate(), denominator);
+        }
+
+        public boolean isZero() {
+            return numerator.signum() == 0;
+        }
+
+        public boolean isInteger() {
+            return denominator.equals(BigInteger.ONE);
+        }
+
+        public int intValueExact() {
+            if (!isInteger()) {
+                throw new ArithmeticException("Not an integer: " + this);
+            }
+            return numerator.intValueExact();
+        }
+
+        public double doubleValue() {
+            return new BigDecimal(numerator).divide(new BigDecimal(denominator), java.math.MathContext.DECIMAL64)
+                    .doubleValue();
+        }
+
+        @Override
+        public int compareTo(Rational other) {
+            return numerator.multiply(other.denominator).compareTo(other.numerator.multiply(denominator));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Rational other)) {
+                return false;
+            }
+            return numerator.equals(other.numerator) && denominator.equals(other.denominator);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(numerator, denominator);
+        }
+
+        @Override
+        public String toString() {
+            return isInteger() ? numerator.toString() : numerator + "/" + denominator;
+        }
+    }
+
+    /**
+     * Polynomial in single-letter variables with rational coefficients. Each
+     * monomial maps variable to exponent; zero coefficients are never stored.
+     */
+    public static final class Polynomial {
+
+        private final Map<Map<Character, Integer>, Rational> terms;
+
+        private Polynomial(Map<Map<Character, Integer>, Rational> terms) {
+            this.terms = terms;
+        }
+
+        public static Polynomial constant(Rational value) {
+            Map<Map<Character, Integer>, Rational> terms = new HashMap<>();
+            if (!value.isZero()) {
+                terms.put(new TreeMap<>(), value);
+            }
+            return new Polynomial(terms);
+        }
+
+        public static Polynomial variable(char name) {
+            Map<Character, Integer> monomial = new TreeMap<>();
+            monomial.put(name, 1);
+            Map<Map<Character, Integer>, Rational> terms = new HashMap<>();
+            terms.put(monomial, Rational.ONE);
+            return new Polynomial(terms);
+        }
+
+        public Polynomial add(Polynomial other) {
+            Map<Map<Character, Integer>, Rational> result = new HashMap<>(terms);
+            other.terms.forEach((monomial, coefficient) -> {
+                Rational sum = result.getOrDefault(monomial, Rational.ZERO).add(coefficient);
+                if (sum.isZero()) {
+                    result.remove(monomial);
+                } else {
+                    result.put(monomial, sum);
+                }
+            });
+            return new Polynomial(result);
+        }
+
+        public Polynomial negate() {
+            Map<Map<Character, Integer>, Rational> result = new HashMap<>();
+            terms.forEach((monomial, coefficient) -> result.put(monomial, coefficient.negate()));
+            return new Polynomial(result);
+        }
+
+        public Polynomial multiply(Polynomial other) {
+            Polynomial result = constant(Rational.ZERO);
+            for (Map.Entry<Map<Character, Integer>, Rational> left : terms.entrySet()) {
+                for (Map.Entry<Map<Character, Integer>, Rational> right : other.terms.entrySet()) {
+                    Map<Character, Integer> monomial = new TreeMap<>(left.getKey());
+                    right.getKey().forEach((variable, exponent) -> monomial.merge(variable, exponent, Integer::sum));
+                    Map<Map<Character, Integer>, Rational> product = new HashMap<>();
+                    product.put(monomial, left.getValue().multiply(right.getValue()));
+                    result = result.add(new Polynomial(product));
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Division is only supported by a non-zero constant.
+         */
+        public Polynomial divide(Polynomial other) {
+            if (!other.isConstant() || other.constantValue().isZero()) {
+                throw new IllegalArgumentException("Unsupported division");
+            }
+            Rational divisor = other.constantValue();
+            Map<Map<Character, Integer>, Rational> result = new HashMap<>();
+            terms.forEach((monomial, coefficient) -> result.put(monomial, coefficient.divide(divisor)));
+            return new Polynomial(result);
+        }
+
+        public Polynomial pow(int exponent) {
+            if (exponent < 0 || exponent > MAX_EXPONENT) {
+                throw new IllegalArgumentException("Unsupported exponent: " + exponent);
+            }
+            Polynomial result = constant(Rational.ONE);
+            for (int i = 0; i < exponent; i++) {
+                result = result.multiply(this);
+            }
+            return result;
+        }
+
+        public boolean isConstant() {
+            return terms.isEmpty() || (terms.size() == 1 && terms.keySet().iterator().next().isEmpty());
+        }
+
+        public Rational constantValue() {
+            if (!isConstant()) {
+                throw new IllegalStateException("Polynomial is not constant");
+            }
+            return terms.isEmpty() ? Rational.ZERO : terms.values().iterator().next();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            return o instanceof Polynomial other && terms.equals(other.terms);
+        }
+
+        @Override
+        public int hashCode() {
+            return terms.hashCode();
+        }
+    }
+
+    private static final class Parser {
+
+        private final String text;
+        private int pos;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        boolean atEnd() {
+            return pos == text.length();
+        }
+
+        Polynomial parseExpression() {
+            Polynomial result = parseTerm();
+            while (!atEnd()) {
+                char c = text.charAt(pos);
+                if (c == '+') {
+                    pos++;
+                    result = result.add(parseTerm());
+                } else if (c == '-') {
+                    pos++;
+                    result = result.add(parseTerm().negate());
+                } else {
+                    break;
+                }
+            }
+            return result;
+        }
+
+        private Polynomial parseTerm() {
+            Polynomial result = parseUnary();
+            while (!atEnd()) {
+                char c = text.charAt(pos);
+                if (c == '*') {
+                    pos++;
+                    result = result.multiply(parseUnary());
+                } else if (c == '/') {
+                    pos++;
+                    result = result.divide(parseUnary());
+                } else if (Character.isLetterOrDigit(c) || c == '(' || c == '.') {
+                    // implicit multiplication: 2x, 3(x+1), (x+3)(x-3)
+                    result = result.multiply(parsePower());
+                } else {
+                    break;
+                }
+            }
+            return result;
+        }
+
+        private Polynomial parseUnary() {
+            if (!atEnd() && text.charAt(pos) == '-') {
+                pos++;
+                return parseUnary().negate();
+            }
+            if (!atEnd() && text.charAt(pos) == '+') {
+                pos++;
+                return parseUnary();
+            }
+            return parsePower();
+        }
+
+        private Polynomial parsePower() {
+            Polynomial base = parsePrimary();
+            if (!atEnd() && text.charAt(pos) == '^') {
+                pos++;
+                Polynomial exponent = parseUnary();
+                if (!exponent.isConstant() || !exponent.constantValue().isInteger()) {
+                    throw new IllegalArgumentException("Unsupported exponent");
+                }
+                int n = exponent.constantValue().intValueExact();
+                if (n < 0) {
+                    return Polynomial.constant(Rational.ONE).divide(base.pow(-n));
+                }
+                return base.pow(n);
+            }
+            return base;
+        }
+
+        private Polynomial parsePrimary() {
+            if (atEnd()) {
+                throw new IllegalArgumentException("Unexpected end of expression");
+            }
+            char c = text.charAt(pos);
+            if (c == '(') {
+                pos++;
+                Polynomial inner = parseExpression();
+                if (atEnd() || text.charAt(pos) != ')') {
+                    throw new IllegalArgumentException("Unbalanced parentheses");
+                }
+                pos++;
+                return inner;
+            }
+            if (Character.isDigit(c) || c == '.') {
+                int start = pos;
+                boolean seenDot = false;
+                while (!atEnd() && (Character.isDigit(text.charAt(pos)) || (!seenDot && text.charAt(pos) == '.'))) {
+                    seenDot |= text.charAt(pos) == '.';
+                    pos++;
+                }
+                return Polynomial.constant(Rational.parse(text.substring(start, pos)));
+            }
+            if (c >= 'a' && c <= 'z') {
+                pos++;
+                return Polynomial.variable(c);
+            }
+            throw new IllegalArgumentException("Unexpected character: " + c);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+-- SM-2 review state per mistake: ease factor, interval and next due time
+ALTER TABLE mistake_notebook
+    ADD COLUMN ease_factor DOUBLE PRECISION NOT NULL DEFAULT 2.5,
+    ADD COLUMN interval_days INTEGER NOT NULL DEFAULT 0,
+    ADD COLUMN repetitions INTEGER NOT NULL DEFAULT 0,
+    ADD COLUMN due_at TIMESTAMP,
+    ADD COLUMN last_reviewed_at TIMESTAMP;
+
+-- Existing mistakes get their first review one day after they were made
+UPDATE mistake_notebook SET due_at = COALESCE(created_at, NOW()) + INTERVAL '1 day';
+
+ALTER TABLE mistake_notebook ALTER COLUMN due_at SET NOT NULL;
+
+-- Serves the due-now queue in (due_at, id) order; retired mistakes are left out
+CREATE INDEX idx_mistake_notebook_user_due
+    ON mistake_notebook(user_id, due_at, id)
+    WHERE reviewed = false;
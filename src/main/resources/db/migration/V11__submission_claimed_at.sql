@@ -0,0 +1,4 @@
+-- When a worker claimed the submission; PROCESSING rows with an old claim were left by a stopped instance
+ALTER TABLE submissions ADD COLUMN claimed_at TIMESTAMP;
+
+-- Rows already PROCESSING have no claim time and are recovered by the first sweep
@@ -0,0 +1,10 @@
+-- Async grading pipeline: submissions are persisted as PENDING and graded by a worker pool
+ALTER TABLE submissions
+    ADD COLUMN status VARCHAR(20) NOT NULL DEFAULT 'COMPLETED'
+        CHECK (status IN ('PENDING', 'PROCESSING', 'COMPLETED', 'FAILED'));
+ALTER TABLE submissions ADD COLUMN error_message TEXT;
+ALTER TABLE submissions ADD COLUMN xp_earned INTEGER;
+
+-- Only in-flight jobs are looked up by status
+CREATE INDEX idx_submissions_status_pending ON submissions(status)
+    WHERE status IN ('PENDING', 'PROCESSING');
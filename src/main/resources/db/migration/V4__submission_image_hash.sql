@@ -0,0 +1,4 @@
+-- SHA-256 of the uploaded image, used to recognise resubmissions of the same photo
+ALTER TABLE submissions ADD COLUMN image_hash VARCHAR(64);
+
+CREATE INDEX idx_submissions_image_hash ON submissions(image_hash);
@@ -0,0 +1,2 @@
+-- Typed final answer, graded deterministically when possible
+ALTER TABLE submissions ADD COLUMN student_answer TEXT;
@@ -0,0 +1,5 @@
+-- Keyset pagination of a user's history walks this index in order, no sort needed
+CREATE INDEX idx_submissions_user_created ON submissions(user_id, created_at DESC, id DESC);
+
+-- Covered by the leading column of the index above
+DROP INDEX IF EXISTS idx_submissions_user_id;
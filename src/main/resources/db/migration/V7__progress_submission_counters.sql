@@ -0,0 +1,15 @@
+-- Submission counters kept next to XP so the dashboard is a primary-key lookup
+ALTER TABLE user_progress
+    ADD COLUMN total_submissions INTEGER NOT NULL DEFAULT 0,
+    ADD COLUMN correct_submissions INTEGER NOT NULL DEFAULT 0;
+
+-- Backfill from existing history; only graded submissions count, as before
+INSERT INTO user_progress (user_id, total_submissions, correct_submissions)
+SELECT user_id,
+       COUNT(*) FILTER (WHERE is_correct IS NOT NULL),
+       COUNT(*) FILTER (WHERE is_correct)
+FROM submissions
+GROUP BY user_id
+ON CONFLICT (user_id) DO UPDATE SET
+    total_submissions = EXCLUDED.total_submissions,
+    correct_submissions = EXCLUDED.correct_submissions;
@@ -0,0 +1,6 @@
+-- Serves the mistake notebook page queries in keyset order without sorting
+CREATE INDEX idx_mistake_notebook_user_reviewed_created
+    ON mistake_notebook(user_id, reviewed, created_at DESC, id DESC);
+
+-- Covered by the leading columns of the index above
+DROP INDEX IF EXISTS idx_mistake_notebook_user;
@@ -0,0 +1,11 @@
+-- Content-addressed image index: one row per distinct stored image, keyed by SHA-256
+CREATE TABLE stored_images (
+    content_hash VARCHAR(64) PRIMARY KEY,
+    object_key VARCHAR(255) NOT NULL,
+    content_type VARCHAR(100),
+    size_bytes BIGINT NOT NULL,
+    -- number of uploads that resolved to this object
+    ref_count INTEGER NOT NULL DEFAULT 1,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    last_referenced_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
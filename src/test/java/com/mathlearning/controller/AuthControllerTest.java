@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mathlearning.dto.AuthResponse;
 import com.mathlearning.dto.LoginRequest;
 import com.mathlearning.dto.RegisterRequest;
+import com.mathlearning.security.RateLimitDecision;
 import com.mathlearning.service.IAuthService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -39,6 +40,9 @@ class AuthControllerTest {
         @MockBean
         private com.mathlearning.security.JwtTokenProvider jwtTokenProvider;
 
+        @MockBean
+        private com.mathlearning.security.IRateLimiter rateLimiter;
+
         @MockBean
         private org.springframework.data.jpa.mapping.JpaMetamodelMappingContext jpaMetamodelMappingContext;
 
@@ -48,6 +52,8 @@ class AuthControllerTest {
 
         @BeforeEach
         void setUp() {
+                when(rateLimiter.tryAcquire(any(), any())).thenReturn(RateLimitDecision.unlimited());
+
                 registerRequest = RegisterRequest.builder()
                                 .email("test@example.com")
                                 .password("password123")
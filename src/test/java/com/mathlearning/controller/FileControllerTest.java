@@ -0,0 +1,94 @@
+package com.mathlearning.controller;
+
+import com.mathlearning.service.LocalFileStorageService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(FileController.class)
+@AutoConfigureMockMvc(addFilters = false)
+@TestPropertySource(properties = "app.storage.type=local")
+@DisplayName("FileController Unit Tests")
+@SuppressWarnings("null")
+class FileControllerTest {
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @MockBean
+        private LocalFileStorageService storageService;
+
+        @MockBean
+        private org.springframework.data.jpa.mapping.JpaMetamodelMappingContext jpaMetamodelMappingContext;
+
+        @TempDir
+        Path tempDir;
+
+        @BeforeEach
+        void setUp() throws Exception {
+                Path file = tempDir.resolve("photo.jpg");
+                Files.writeString(file, "0123456789");
+                when(storageService.pathFor("submissions/photo.jpg")).thenReturn(file);
+                when(storageService.contentTypeOf(file)).thenReturn("image/jpeg");
+        }
+
+        @Test
+        @DisplayName("Should stream the whole object")
+        void getFile_ReturnsContent() throws Exception {
+                mockMvc.perform(get("/api/files/submissions/photo.jpg"))
+                                .andExpect(status().isOk())
+                                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                                .andExpect(content().contentType("image/jpeg"))
+                                .andExpect(content().string("0123456789"));
+        }
+
+        @Test
+        @DisplayName("Should answer a byte range with partial content")
+        void getFile_Range_ReturnsPartialContent() throws Exception {
+                mockMvc.perform(get("/api/files/submissions/photo.jpg").header(HttpHeaders.RANGE, "bytes=2-5"))
+                                .andExpect(status().isPartialContent())
+                                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/10"))
+                                .andExpect(content().string("2345"));
+        }
+
+        @Test
+        @DisplayName("Should answer a suffix range with the final bytes")
+        void getFile_SuffixRange_ReturnsTail() throws Exception {
+                mockMvc.perform(get("/api/files/submissions/photo.jpg").header(HttpHeaders.RANGE, "bytes=-3"))
+                                .andExpect(status().isPartialContent())
+                                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 7-9/10"))
+                                .andExpect(content().string("789"));
+        }
+
+        @Test
+        @DisplayName("Should reject a range past the end of the object")
+        void getFile_RangePastEnd_ReturnsUnsatisfiable() throws Exception {
+                mockMvc.perform(get("/api/files/submissions/photo.jpg").header(HttpHeaders.RANGE, "bytes=20-"))
+                                .andExpect(status().isRequestedRangeNotSatisfiable())
+                                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */10"));
+        }
+
+        @Test
+        @DisplayName("Should return 404 for a missing object")
+        void getFile_Missing_ReturnsNotFound() throws Exception {
+                when(storageService.pathFor("submissions/missing.jpg")).thenReturn(tempDir.resolve("missing.jpg"));
+
+                mockMvc.perform(get("/api/files/submissions/missing.jpg"))
+                                .andExpect(status().isNotFound());
+        }
+}
@@ -1,14 +1,13 @@
 package com.mathlearning.controller;
 
+import com.mathlearning.dto.DueReviewDto;
 import com.mathlearning.dto.ProgressDto;
 import com.mathlearning.dto.MistakeDto;
-import com.mathlearning.model.MistakeNotebook;
-import com.mathlearning.model.Submission;
-import com.mathlearning.model.Question;
 import com.mathlearning.model.UserProgress;
 import com.mathlearning.repository.MistakeNotebookRepository;
-import com.mathlearning.repository.SubmissionRepository;
 import com.mathlearning.repository.UserProgressRepository;
+import com.mathlearning.service.IReviewScheduler;
+import com.mathlearning.util.KeysetCursor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -16,17 +15,22 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.LocalDateTime;
-import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(ProgressController.class)
@@ -42,16 +46,16 @@ class ProgressControllerTest {
         private UserProgressRepository userProgressRepository;
 
         @MockBean
-        private SubmissionRepository submissionRepository;
+        private MistakeNotebookRepository mistakeNotebookRepository;
 
         @MockBean
-        private MistakeNotebookRepository mistakeNotebookRepository;
+        private IReviewScheduler reviewScheduler;
 
         @MockBean
         private org.springframework.data.jpa.mapping.JpaMetamodelMappingContext jpaMetamodelMappingContext;
 
         private UserProgress testProgress;
-        private MistakeNotebook testMistake;
+        private MistakeDto testMistake;
 
         @BeforeEach
         void setUp() {
@@ -60,35 +64,18 @@ class ProgressControllerTest {
                                 .totalXp(500)
                                 .currentStreak(5)
                                 .longestStreak(10)
+                                .totalSubmissions(20)
+                                .correctSubmissions(8)
                                 .build();
 
-                Question question = Question.builder()
-                                .id(1L)
-                                .questionText("What is 2+2?")
-                                .topic("Addition")
-                                .build();
-
-                Submission submission = Submission.builder()
-                                .id(1L)
-                                .question(question)
-                                .build();
-
-                testMistake = MistakeNotebook.builder()
-                                .id(1L)
-                                .submission(submission)
-                                .reviewed(false)
-                                .createdAt(LocalDateTime.now())
-                                .build();
+                testMistake = new MistakeDto(1L, 1L, "What is 2+2?", "Addition",
+                                LocalDateTime.of(2024, 3, 10, 12, 0), false);
         }
 
         @Test
         @DisplayName("Should return user progress")
         void getProgress_ReturnsProgressDto() throws Exception {
                 when(userProgressRepository.findByUserId(any())).thenReturn(Optional.of(testProgress));
-                when(submissionRepository.countByUserIdAndIsCorrect(any(), anyBoolean()))
-                                .thenReturn(8L) // correct (first call for true)
-                                .thenReturn(12L) // incorrect (false)
-                                .thenReturn(8L); // correct (second call for true)
 
                 mockMvc.perform(get("/api/progress")
                                 .with(authentication(
@@ -108,7 +95,6 @@ class ProgressControllerTest {
         @DisplayName("Should return empty progress for new user")
         void getProgress_NewUser_ReturnsDefaultProgress() throws Exception {
                 when(userProgressRepository.findByUserId(any())).thenReturn(Optional.empty());
-                when(submissionRepository.countByUserIdAndIsCorrect(any(), anyBoolean())).thenReturn(0L);
 
                 mockMvc.perform(get("/api/progress")
                                 .with(authentication(
@@ -122,21 +108,105 @@ class ProgressControllerTest {
         }
 
         @Test
-        @DisplayName("Should return user mistakes")
-        void getMistakes_ReturnsMistakeList() throws Exception {
-                when(mistakeNotebookRepository.findByUserIdAndReviewed(any(), anyBoolean()))
-                                .thenReturn(Arrays.asList(testMistake));
+        @WithUserId(1L)
+        @DisplayName("Should return the first page of user mistakes")
+        void getMistakes_ReturnsMistakePage() throws Exception {
+                when(mistakeNotebookRepository.findPage(eq(1L), eq(false), isNull(), any(Limit.class)))
+                                .thenReturn(List.of(testMistake));
+
+                mockMvc.perform(get("/api/progress/mistakes"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.success").value(true))
+                                .andExpect(jsonPath("$.data.items").isArray())
+                                .andExpect(jsonPath("$.data.items[0].id").value(1))
+                                .andExpect(jsonPath("$.data.items[0].questionText").value("What is 2+2?"))
+                                .andExpect(jsonPath("$.data.items[0].topic").value("Addition"))
+                                .andExpect(jsonPath("$.data.items[0].reviewed").value(false))
+                                .andExpect(jsonPath("$.data.hasMore").value(false));
+        }
+
+        @Test
+        @WithUserId(1L)
+        @DisplayName("Should continue after the cursor and filter by topic")
+        void getMistakes_WithCursorAndTopic_QueriesNextPage() throws Exception {
+                LocalDateTime createdAt = LocalDateTime.of(2024, 3, 11, 9, 30);
+                String cursor = new KeysetCursor(createdAt, 7L).encode();
+                when(mistakeNotebookRepository.findPageBefore(eq(1L), eq(false), eq("Addition"), eq(createdAt),
+                                eq(7L), any(Limit.class)))
+                                .thenReturn(List.of(testMistake));
 
                 mockMvc.perform(get("/api/progress/mistakes")
+                                .param("cursor", cursor)
+                                .param("topic", "Addition"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.data.items[0].id").value(1))
+                                .andExpect(jsonPath("$.data.hasMore").value(false));
+        }
+
+        @Test
+        @WithUserId(1L)
+        @DisplayName("Should return due reviews with a cursor when more are due")
+        void getDueReviews_MoreDue_ReturnsCursor() throws Exception {
+                LocalDateTime dueAt = LocalDateTime.of(2024, 3, 10, 8, 0);
+                DueReviewDto first = new DueReviewDto(3L, 1L, 1L, "What is 2+2?", "Addition", dueAt, 1, 2.5, 1);
+                DueReviewDto second = new DueReviewDto(4L, 2L, 1L, "What is 2+2?", "Addition", dueAt, 0, 2.5, 0);
+                when(mistakeNotebookRepository.findDuePage(eq(1L), any(LocalDateTime.class), eq(Limit.of(2))))
+                                .thenReturn(List.of(first, second));
+
+                mockMvc.perform(get("/api/progress/mistakes/due")
+                                .param("limit", "1"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.data.items.length()").value(1))
+                                .andExpect(jsonPath("$.data.items[0].id").value(3))
+                                .andExpect(jsonPath("$.data.items[0].questionId").value(1))
+                                .andExpect(jsonPath("$.data.hasMore").value(true))
+                                .andExpect(jsonPath("$.data.nextCursor").value(new KeysetCursor(dueAt, 3L).encode()));
+        }
+
+        @Test
+        @WithUserId(1L)
+        @DisplayName("Should continue the due queue after the due time and id in the cursor")
+        void getDueReviews_WithCursor_QueriesAfterDueAt() throws Exception {
+                LocalDateTime dueAt = LocalDateTime.of(2024, 3, 10, 8, 0);
+                DueReviewDto next = new DueReviewDto(4L, 2L, 1L, "What is 2+2?", "Addition", dueAt, 0, 2.5, 0);
+                when(mistakeNotebookRepository.findDuePageAfter(eq(1L), any(LocalDateTime.class), eq(dueAt), eq(3L),
+                                any(Limit.class)))
+                                .thenReturn(List.of(next));
+
+                mockMvc.perform(get("/api/progress/mistakes/due")
+                                .param("cursor", new KeysetCursor(dueAt, 3L).encode()))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.data.items[0].id").value(4))
+                                .andExpect(jsonPath("$.data.hasMore").value(false));
+        }
+
+        @Test
+        @WithUserId(1L)
+        @DisplayName("Should record a review and return the next due date")
+        void reviewMistake_ValidQuality_ReturnsSchedule() throws Exception {
+                DueReviewDto scheduled = new DueReviewDto(3L, 1L, 1L, "What is 2+2?", "Addition",
+                                LocalDateTime.of(2024, 3, 16, 8, 0), 6, 2.6, 2);
+                when(reviewScheduler.recordReview(1L, 3L, 5)).thenReturn(scheduled);
+
+                mockMvc.perform(post("/api/progress/mistakes/3/review")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("{\"quality\":5}"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.data.intervalDays").value(6))
+                                .andExpect(jsonPath("$.data.repetitions").value(2));
+        }
+
+        @Test
+        @DisplayName("Should reject a review quality outside 0-5")
+        void reviewMistake_InvalidQuality_ReturnsBadRequest() throws Exception {
+                mockMvc.perform(post("/api/progress/mistakes/3/review")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("{\"quality\":7}")
                                 .with(authentication(
                                                 new org.springframework.security.authentication.TestingAuthenticationToken(
                                                                 1L, null))))
-                                .andExpect(status().isOk())
-                                .andExpect(jsonPath("$.success").value(true))
-                                .andExpect(jsonPath("$.data").isArray())
-                                .andExpect(jsonPath("$.data[0].id").value(1))
-                                .andExpect(jsonPath("$.data[0].questionText").value("What is 2+2?"))
-                                .andExpect(jsonPath("$.data[0].topic").value("Addition"))
-                                .andExpect(jsonPath("$.data[0].reviewed").value(false));
+                                .andExpect(status().isBadRequest());
+
+                verifyNoInteractions(reviewScheduler);
         }
 }
@@ -2,8 +2,8 @@ package com.mathlearning.controller;
 
 import com.mathlearning.model.Question;
 import com.mathlearning.model.User;
-import com.mathlearning.repository.QuestionRepository;
 import com.mathlearning.repository.UserRepository;
+import com.mathlearning.service.IDailyQuestionSelector;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -17,8 +17,8 @@ import org.springframework.test.web.servlet.MockMvc;
 import java.util.Arrays;
 import java.util.Optional;
 
-import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -33,7 +33,7 @@ class QuestionControllerTest {
         private MockMvc mockMvc;
 
         @MockBean
-        private QuestionRepository questionRepository;
+        private IDailyQuestionSelector dailyQuestionSelector;
 
         @MockBean
         private UserRepository userRepository;
@@ -74,16 +74,14 @@ class QuestionControllerTest {
         }
 
         @Test
-        @DisplayName("Should return daily questions for user's grade level")
+        @WithUserId(1L)
+        @DisplayName("Should return the selected daily questions for user's grade level")
         void getDailyQuestions_ReturnsQuestionsForGradeLevel() throws Exception {
-                when(userRepository.findById(any())).thenReturn(Optional.of(testUser));
-                when(questionRepository.findByGradeLevel(anyInt()))
+                when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+                when(dailyQuestionSelector.selectDailyQuestions(eq(1L), eq(8), any()))
                                 .thenReturn(Arrays.asList(testQuestion1, testQuestion2));
 
-                mockMvc.perform(get("/api/questions/daily")
-                                .with(authentication(
-                                                new org.springframework.security.authentication.TestingAuthenticationToken(
-                                                                1L, null))))
+                mockMvc.perform(get("/api/questions/daily"))
                                 .andExpect(status().isOk())
                                 .andExpect(jsonPath("$.success").value(true))
                                 .andExpect(jsonPath("$.data").isArray())
@@ -113,7 +111,7 @@ class QuestionControllerTest {
         @DisplayName("Should return empty list when no questions available")
         void getDailyQuestions_NoQuestions_ReturnsEmptyList() throws Exception {
                 when(userRepository.findById(any())).thenReturn(Optional.of(testUser));
-                when(questionRepository.findByGradeLevel(anyInt())).thenReturn(Arrays.asList());
+                when(dailyQuestionSelector.selectDailyQuestions(eq(1L), eq(8), any())).thenReturn(Arrays.asList());
 
                 mockMvc.perform(get("/api/questions/daily")
                                 .with(authentication(
@@ -1,7 +1,10 @@
 package com.mathlearning.controller;
 
+import com.mathlearning.dto.CursorPage;
 import com.mathlearning.dto.SubmissionDto;
 import com.mathlearning.dto.SubmissionResponse;
+import com.mathlearning.dto.SubmissionSummaryDto;
+import com.mathlearning.exception.ServiceUnavailableException;
 import com.mathlearning.service.ISubmissionService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -10,6 +13,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
@@ -17,8 +21,8 @@ import org.springframework.context.annotation.Import;
 import org.springframework.test.context.TestPropertySource;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.Arrays;
 import java.util.List;
 
 import static org.mockito.ArgumentMatchers.*;
@@ -43,6 +47,9 @@ class SubmissionControllerTest {
         @MockBean
         private com.mathlearning.security.JwtTokenProvider jwtTokenProvider;
 
+        @MockBean
+        private com.mathlearning.security.IRateLimiter rateLimiter;
+
         @MockBean
         private org.springframework.data.jpa.mapping.JpaMetamodelMappingContext jpaMetamodelMappingContext;
 
@@ -82,7 +89,7 @@ class SubmissionControllerTest {
                                 "image/jpeg",
                                 "test image content".getBytes());
 
-                when(submissionService.createSubmission(any(), any(), any()))
+                when(submissionService.createSubmission(any(), any(), any(), any()))
                                 .thenReturn(submissionResponse);
 
                 mockMvc.perform(multipart("/api/submissions/upload")
@@ -110,7 +117,7 @@ class SubmissionControllerTest {
                                 "image/jpeg",
                                 "test image content".getBytes());
 
-                when(submissionService.createSubmission(any(), any(), any()))
+                when(submissionService.createSubmission(any(), any(), any(), any()))
                                 .thenThrow(new RuntimeException("Failed to process image"));
 
                 mockMvc.perform(multipart("/api/submissions/upload")
@@ -125,21 +132,73 @@ class SubmissionControllerTest {
         }
 
         @Test
-        @DisplayName("Should return submission history")
-        void getHistory_ReturnsSubmissionList() throws Exception {
-                List<SubmissionDto> submissions = Arrays.asList(submissionDto);
-                when(submissionService.getUserSubmissions(any())).thenReturn(submissions);
+        @DisplayName("Should return 503 with Retry-After when grading is busy")
+        void uploadSubmission_GradingBusy_ReturnsServiceUnavailable() throws Exception {
+                MockMultipartFile file = new MockMultipartFile(
+                                "image",
+                                "test.jpg",
+                                "image/jpeg",
+                                "test image content".getBytes());
 
-                mockMvc.perform(get("/api/submissions/history")
+                when(submissionService.createSubmission(any(), any(), any(), any()))
+                                .thenThrow(new ServiceUnavailableException("AI grading is at capacity",
+                                                Duration.ofSeconds(5), null));
+
+                mockMvc.perform(multipart("/api/submissions/upload")
+                                .file(file)
+                                .param("questionId", "1")
                                 .with(authentication(
                                                 new org.springframework.security.authentication.TestingAuthenticationToken(
                                                                 1L, null))))
+                                .andExpect(status().isServiceUnavailable())
+                                .andExpect(header().string("Retry-After", "5"))
+                                .andExpect(jsonPath("$.success").value(false))
+                                .andExpect(jsonPath("$.message").value("AI grading is at capacity"));
+        }
+
+        @Test
+        @DisplayName("Should return 503 with Retry-After when the grading queue is full on finalize")
+        void finalizeUpload_QueueFull_ReturnsServiceUnavailable() throws Exception {
+                when(submissionService.finalizeUpload(any(), any(), any(), any()))
+                                .thenThrow(new ServiceUnavailableException("Grading is busy, please retry later",
+                                                Duration.ofSeconds(30), null));
+
+                mockMvc.perform(post("/api/submissions/finalize")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("{\"questionId\": 1, \"objectKey\": \"submissions/1/photo.jpg\"}"))
+                                .andExpect(status().isServiceUnavailable())
+                                .andExpect(header().string("Retry-After", "30"))
+                                .andExpect(jsonPath("$.message").value("Grading is busy, please retry later"));
+        }
+
+        @Test
+        @WithUserId(1L)
+        @DisplayName("Should return a page of submission history")
+        void getHistory_ReturnsSubmissionPage() throws Exception {
+                CursorPage<SubmissionSummaryDto> page = CursorPage.<SubmissionSummaryDto>builder()
+                                .items(List.of(SubmissionSummaryDto.builder()
+                                                .id(1L)
+                                                .questionId(1L)
+                                                .questionText("What is 2+2?")
+                                                .correct(true)
+                                                .build()))
+                                .nextCursor("next-token")
+                                .hasMore(true)
+                                .build();
+                when(submissionService.getSubmissionHistory(eq(1L), eq("abc"), eq(10))).thenReturn(page);
+
+                mockMvc.perform(get("/api/submissions/history")
+                                .param("cursor", "abc")
+                                .param("limit", "10"))
                                 .andExpect(status().isOk())
                                 .andExpect(jsonPath("$.success").value(true))
-                                .andExpect(jsonPath("$.data").isArray())
-                                .andExpect(jsonPath("$.data[0].id").value(1))
-                                .andExpect(jsonPath("$.data[0].questionId").value(1))
-                                .andExpect(jsonPath("$.data[0].correct").value(true));
+                                .andExpect(jsonPath("$.data.items").isArray())
+                                .andExpect(jsonPath("$.data.items[0].id").value(1))
+                                .andExpect(jsonPath("$.data.items[0].questionId").value(1))
+                                .andExpect(jsonPath("$.data.items[0].correct").value(true))
+                                .andExpect(jsonPath("$.data.items[0].feedback").doesNotExist())
+                                .andExpect(jsonPath("$.data.nextCursor").value("next-token"))
+                                .andExpect(jsonPath("$.data.hasMore").value(true));
         }
 
         @Test
@@ -0,0 +1,22 @@
+package com.mathlearning.controller;
+
+import org.springframework.security.test.context.support.WithSecurityContext;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Runs a controller test as the given user, with the {@code Long} user ID as
+ * principal the way {@code JwtAuthenticationFilter} sets it. Unlike the
+ * {@code authentication(...)} request post-processor, the context reaches
+ * {@code SecurityContextHolder} even with filters disabled.
+ */
+@Target({ ElementType.METHOD, ElementType.TYPE })
+@Retention(RetentionPolicy.RUNTIME)
+@WithSecurityContext(factory = WithUserIdSecurityContextFactory.class)
+@interface WithUserId {
+
+        long value();
+}
@@ -0,0 +1,19 @@
+package com.mathlearning.controller;
+
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.test.context.support.WithSecurityContextFactory;
+
+import java.util.Collections;
+
+class WithUserIdSecurityContextFactory implements WithSecurityContextFactory<WithUserId> {
+
+        @Override
+        public SecurityContext createSecurityContext(WithUserId user) {
+                SecurityContext context = SecurityContextHolder.createEmptyContext();
+                context.setAuthentication(new UsernamePasswordAuthenticationToken(user.value(), null,
+                                Collections.emptyList()));
+                return context;
+        }
+}
@@ -0,0 +1,129 @@
+package com.mathlearning.repository;
+
+import com.mathlearning.model.User;
+import com.mathlearning.model.UserProgress;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs without a test transaction so every upsert commits on its own, as it
+ * does for parallel submissions in production.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@TestPropertySource(properties = "spring.flyway.enabled=false")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("UserProgressRepository Concurrency Tests")
+class UserProgressConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int SUBMISSIONS_PER_THREAD = 10;
+    private static final int XP_PER_SUBMISSION = 15;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserProgressRepository userProgressRepository;
+
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        testUser = userRepository.save(User.builder()
+                .email("concurrent@example.com")
+                .passwordHash("hashedPassword")
+                .fullName("Concurrent User")
+                .gradeLevel(8)
+                .authProvider(User.AuthProvider.EMAIL)
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        // user_progress rows are removed by ON DELETE CASCADE
+        userRepository.deleteById(testUser.getId());
+    }
+
+    private void submitInParallel(LocalDate today) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < SUBMISSIONS_PER_THREAD; j++) {
+                        // every other submission is correct
+                        userProgressRepository.applySubmission(testUser.getId(), XP_PER_SUBMISSION, j % 2 == 0,
+                                today);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Should not lose XP when many submissions create the progress row at once")
+    void applySubmission_ParallelFirstSubmissions_NoLostUpdates() throws Exception {
+        LocalDate today = LocalDate.now();
+
+        submitInParallel(today);
+
+        UserProgress progress = userProgressRepository.findByUserId(testUser.getId()).orElseThrow();
+        assertThat(progress.getTotalXp()).isEqualTo(THREADS * SUBMISSIONS_PER_THREAD * XP_PER_SUBMISSION);
+        assertThat(progress.getTotalSubmissions()).isEqualTo(THREADS * SUBMISSIONS_PER_THREAD);
+        assertThat(progress.getCorrectSubmissions()).isEqualTo(THREADS * SUBMISSIONS_PER_THREAD / 2);
+        assertThat(progress.getCurrentStreak()).isEqualTo(1);
+        assertThat(progress.getLongestStreak()).isEqualTo(1);
+        assertThat(progress.getLastActivityDate()).isEqualTo(today);
+    }
+
+    @Test
+    @DisplayName("Should extend the streak exactly once for parallel submissions on the next day")
+    void applySubmission_ParallelNextDaySubmissions_StreakExtendedOnce() throws Exception {
+        LocalDate today = LocalDate.now();
+        userProgressRepository.save(UserProgress.builder()
+                .user(testUser)
+                .totalXp(500)
+                .currentStreak(4)
+                .longestStreak(4)
+                .lastActivityDate(today.minusDays(1))
+                .build());
+
+        submitInParallel(today);
+
+        UserProgress progress = userProgressRepository.findByUserId(testUser.getId()).orElseThrow();
+        assertThat(progress.getTotalXp()).isEqualTo(500 + THREADS * SUBMISSIONS_PER_THREAD * XP_PER_SUBMISSION);
+        assertThat(progress.getCurrentStreak()).isEqualTo(5);
+        assertThat(progress.getLongestStreak()).isEqualTo(5);
+        assertThat(progress.getLastActivityDate()).isEqualTo(today);
+    }
+}
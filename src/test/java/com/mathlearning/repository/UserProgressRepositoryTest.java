@@ -12,6 +12,7 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.test.context.TestPropertySource;
 
+import java.time.LocalDate;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -104,4 +105,86 @@ class UserProgressRepositoryTest {
         assertThat(updated.getTotalXp()).isEqualTo(150);
         assertThat(updated.getCurrentStreak()).isEqualTo(6);
     }
+
+    @Test
+    @DisplayName("Should create progress on first submission")
+    void applySubmission_NoProgress_CreatesRow() {
+        LocalDate today = LocalDate.of(2024, 3, 10);
+
+        UserProgressRepository.ProgressSnapshot result =
+                userProgressRepository.applySubmission(testUser.getId(), 50, true, today);
+
+        assertThat(result.getTotalXp()).isEqualTo(50);
+        assertThat(result.getCurrentStreak()).isEqualTo(1);
+        assertThat(result.getLongestStreak()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should keep streak for another submission on the same day")
+    void applySubmission_SameDay_KeepsStreak() {
+        LocalDate today = LocalDate.of(2024, 3, 10);
+        persistProgress(100, 5, 10, today);
+
+        UserProgressRepository.ProgressSnapshot result =
+                userProgressRepository.applySubmission(testUser.getId(), 20, true, today);
+
+        assertThat(result.getTotalXp()).isEqualTo(120);
+        assertThat(result.getCurrentStreak()).isEqualTo(5);
+        assertThat(result.getLongestStreak()).isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("Should extend streak and longest streak on consecutive days")
+    void applySubmission_NextDay_ExtendsStreak() {
+        LocalDate today = LocalDate.of(2024, 3, 10);
+        persistProgress(100, 10, 10, today.minusDays(1));
+
+        UserProgressRepository.ProgressSnapshot result =
+                userProgressRepository.applySubmission(testUser.getId(), 20, true, today);
+
+        assertThat(result.getCurrentStreak()).isEqualTo(11);
+        assertThat(result.getLongestStreak()).isEqualTo(11);
+    }
+
+    @Test
+    @DisplayName("Should restart streak after a missed day")
+    void applySubmission_AfterGap_ResetsStreak() {
+        LocalDate today = LocalDate.of(2024, 3, 10);
+        persistProgress(100, 5, 10, today.minusDays(3));
+
+        UserProgressRepository.ProgressSnapshot result =
+                userProgressRepository.applySubmission(testUser.getId(), 20, true, today);
+
+        assertThat(result.getTotalXp()).isEqualTo(120);
+        assertThat(result.getCurrentStreak()).isEqualTo(1);
+        assertThat(result.getLongestStreak()).isEqualTo(10);
+    }
+
+    private void persistProgress(int totalXp, int currentStreak, int longestStreak, LocalDate lastActivity) {
+        entityManager.persist(UserProgress.builder()
+                .userId(testUser.getId())
+                .user(testUser)
+                .totalXp(totalXp)
+                .currentStreak(currentStreak)
+                .longestStreak(longestStreak)
+                .lastActivityDate(lastActivity)
+                .build());
+        entityManager.flush();
+    }
+
+    @Test
+    @DisplayName("Should count total and correct submissions")
+    void applySubmission_CountsSubmissions() {
+        LocalDate today = LocalDate.of(2024, 3, 10);
+        persistProgress(100, 5, 10, today);
+        entityManager.clear();
+
+        userProgressRepository.applySubmission(testUser.getId(), 20, true, today);
+        userProgressRepository.applySubmission(testUser.getId(), 0, false, today);
+        entityManager.clear();
+
+        UserProgress progress = userProgressRepository.findByUserId(testUser.getId()).orElseThrow();
+        assertThat(progress.getTotalSubmissions()).isEqualTo(2);
+        assertThat(progress.getCorrectSubmissions()).isEqualTo(1);
+    }
 }
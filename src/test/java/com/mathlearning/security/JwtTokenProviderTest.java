@@ -3,8 +3,13 @@ package com.mathlearning.security;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 @DisplayName("JwtTokenProvider Tests")
@@ -19,6 +24,7 @@ class JwtTokenProviderTest {
         jwtTokenProvider = new JwtTokenProvider();
         ReflectionTestUtils.setField(jwtTokenProvider, "jwtSecret", testSecret);
         ReflectionTestUtils.setField(jwtTokenProvider, "jwtExpiration", testExpiration);
+        ReflectionTestUtils.setField(jwtTokenProvider, "cacheMaxSize", 100L);
         jwtTokenProvider.init();
     }
 
@@ -117,4 +123,66 @@ class JwtTokenProviderTest {
         // then
         assertThat(token1).isNotEqualTo(token2);
     }
+
+    @Test
+    @DisplayName("Should return user ID and email from a single verification")
+    void verifyToken_ValidToken_ReturnsClaims() {
+        // given
+        String token = jwtTokenProvider.generateToken(42L, "test@example.com");
+
+        // when
+        Optional<VerifiedToken> verified = jwtTokenProvider.verifyToken(token);
+
+        // then
+        assertThat(verified).isPresent();
+        assertThat(verified.get().userId()).isEqualTo(42L);
+        assertThat(verified.get().email()).isEqualTo("test@example.com");
+        assertThat(verified.get().expiresAt()).isAfter(java.time.Instant.now());
+    }
+
+    @Test
+    @DisplayName("Should serve a repeated token from the cache without parsing it again")
+    void verifyToken_RepeatedToken_ServedFromCache() {
+        // given
+        String token = jwtTokenProvider.generateToken(1L, "test@example.com");
+        jwtTokenProvider.verifyToken(token);
+        // a parser that rejects every token proves the second call never reaches it
+        ReflectionTestUtils.setField(jwtTokenProvider, "parser", Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor("another-secret-key-that-is-long-enough-for-hmac-sha"
+                        .getBytes(StandardCharsets.UTF_8)))
+                .build());
+
+        // when
+        Optional<VerifiedToken> verified = jwtTokenProvider.verifyToken(token);
+
+        // then
+        assertThat(verified).map(VerifiedToken::userId).contains(1L);
+        assertThat(jwtTokenProvider.verifyToken(jwtTokenProvider.generateToken(2L, "other@example.com"))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should reject expired tokens")
+    void verifyToken_ExpiredToken_ReturnsEmpty() {
+        // given
+        ReflectionTestUtils.setField(jwtTokenProvider, "jwtExpiration", -1000L);
+        String token = jwtTokenProvider.generateToken(1L, "test@example.com");
+
+        // when & then
+        assertThat(jwtTokenProvider.verifyToken(token)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should reject a token signed with another key")
+    void verifyToken_ForeignSignature_ReturnsEmpty() {
+        // given
+        String token = Jwts.builder()
+                .subject("1")
+                .expiration(new java.util.Date(System.currentTimeMillis() + 60000))
+                .signWith(Keys.hmacShaKeyFor("another-secret-key-that-is-long-enough-for-hmac-sha"
+                        .getBytes(StandardCharsets.UTF_8)))
+                .compact();
+
+        // when & then
+        assertThat(jwtTokenProvider.verifyToken(token)).isEmpty();
+    }
 }
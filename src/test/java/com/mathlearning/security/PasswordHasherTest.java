@@ -0,0 +1,134 @@
+package com.mathlearning.security;
+
+import com.mathlearning.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("PasswordHasher Tests")
+class PasswordHasherTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private PasswordHasher passwordHasher;
+
+    @AfterEach
+    void tearDown() {
+        if (passwordHasher != null) {
+            passwordHasher.shutdown();
+        }
+    }
+
+    private PasswordHasher hasher(PasswordEncoder encoder, int threads, int queueCapacity, Duration maxWait) {
+        return new PasswordHasher(encoder, meterRegistry, threads, queueCapacity, maxWait, Duration.ofSeconds(7));
+    }
+
+    @Test
+    @DisplayName("Should hash and verify passwords on the hashing pool")
+    void hashAndMatches_RoundTrip() {
+        // given
+        passwordHasher = hasher(new BCryptPasswordEncoder(4), 2, 8, Duration.ofSeconds(5));
+
+        // when
+        String hash = passwordHasher.hash("password123");
+
+        // then
+        assertThat(passwordHasher.matches("password123", hash)).isTrue();
+        assertThat(passwordHasher.matches("wrong", hash)).isFalse();
+        assertThat(meterRegistry.timer("auth.password.hash", "operation", "matches").count()).isEqualTo(2);
+        assertThat(meterRegistry.timer("auth.password.queue.wait").count()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should flag hashes made with a lower work factor for rehashing")
+    void needsRehash_LowerStrength_ReturnsTrue() {
+        passwordHasher = hasher(new BCryptPasswordEncoder(5), 1, 8, Duration.ofSeconds(5));
+
+        assertThat(passwordHasher.needsRehash(new BCryptPasswordEncoder(4).encode("password123"))).isTrue();
+        assertThat(passwordHasher.needsRehash(new BCryptPasswordEncoder(5).encode("password123"))).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should refuse with Retry-After when the queue is full")
+    void hash_QueueFull_ThrowsServiceUnavailable() throws Exception {
+        // given: one thread blocked and one queued task fill the pool
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        passwordHasher = hasher(new BlockingEncoder(started, release), 1, 1, Duration.ofSeconds(5));
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> passwordHasher.hash("a"));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> passwordHasher.hash("b"));
+        waitForQueueDepth(1);
+
+        try {
+            // when & then
+            assertThatThrownBy(() -> passwordHasher.hash("c"))
+                    .isInstanceOf(ServiceUnavailableException.class)
+                    .satisfies(e -> assertThat(((ServiceUnavailableException) e).getRetryAfter())
+                            .isEqualTo(Duration.ofSeconds(7)));
+            assertThat(passwordHasher.hashIfIdle("d")).isCompletedExceptionally();
+            assertThat(meterRegistry.counter("auth.password.rejected").count()).isEqualTo(1);
+        } finally {
+            release.countDown();
+        }
+        assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("hash:a");
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("hash:b");
+    }
+
+    @Test
+    @DisplayName("Should refuse when waiting longer than the max wait")
+    void matches_SlowPool_TimesOut() throws Exception {
+        // given
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        passwordHasher = hasher(new BlockingEncoder(started, release), 1, 8, Duration.ofMillis(50));
+
+        try {
+            // when & then
+            assertThatThrownBy(() -> passwordHasher.matches("a", "hash:a"))
+                    .isInstanceOf(ServiceUnavailableException.class);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private void waitForQueueDepth(int depth) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("auth.password.queue.depth").gauge().value() < depth) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    /**
+     * Encoder that blocks until released, standing in for a slow BCrypt.
+     */
+    private record BlockingEncoder(CountDownLatch started, CountDownLatch release) implements PasswordEncoder {
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            started.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "hash:" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return encodedPassword.equals(encode(rawPassword));
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.mathlearning.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("RateLimitFilter Tests")
+class RateLimitFilterTest {
+
+    @Mock
+    private IRateLimiter rateLimiter;
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private MockHttpServletResponse run(MockHttpServletRequest request, MockFilterChain chain) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        new RateLimitFilter(rateLimiter, new ObjectMapper()).doFilter(request, response, chain);
+        return response;
+    }
+
+    @Test
+    @DisplayName("Should limit signed-in users per user and pass the request on")
+    void doFilter_Authenticated_LimitsPerUser() throws Exception {
+        // given
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(7L, null, Collections.emptyList()));
+        when(rateLimiter.tryAcquire(RateLimitRoute.READ, "u:7"))
+                .thenReturn(new RateLimitDecision(true, 300, 299, 0));
+        MockFilterChain chain = new MockFilterChain();
+
+        // when
+        MockHttpServletResponse response = run(new MockHttpServletRequest("GET", "/api/questions/daily"), chain);
+
+        // then
+        assertThat(chain.getRequest()).isNotNull();
+        assertThat(response.getHeader("X-RateLimit-Limit")).isEqualTo("300");
+        assertThat(response.getHeader("X-RateLimit-Remaining")).isEqualTo("299");
+    }
+
+    @Test
+    @DisplayName("Should answer 429 with Retry-After when the limit is reached")
+    void doFilter_Rejected_Returns429() throws Exception {
+        // given
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login");
+        request.setRemoteAddr("10.0.0.1");
+        when(rateLimiter.tryAcquire(RateLimitRoute.AUTH, "ip:10.0.0.1"))
+                .thenReturn(new RateLimitDecision(false, 20, 0, 3));
+        MockFilterChain chain = new MockFilterChain();
+
+        // when
+        MockHttpServletResponse response = run(request, chain);
+
+        // then
+        assertThat(chain.getRequest()).isNull();
+        assertThat(response.getStatus()).isEqualTo(429);
+        assertThat(response.getHeader("Retry-After")).isEqualTo("3");
+        assertThat(response.getHeader("X-RateLimit-Remaining")).isEqualTo("0");
+        assertThat(response.getContentAsString()).contains("\"success\":false");
+    }
+
+    @Test
+    @DisplayName("Should classify uploads separately from other writes")
+    void doFilter_Upload_UsesUploadRoute() throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(7L, null, Collections.emptyList()));
+        when(rateLimiter.tryAcquire(any(), any())).thenReturn(RateLimitDecision.unlimited());
+
+        MockHttpServletResponse response = run(new MockHttpServletRequest("POST", "/api/submissions/upload"),
+                new MockFilterChain());
+
+        verify(rateLimiter).tryAcquire(RateLimitRoute.UPLOAD, "u:7");
+        assertThat(response.getHeader("X-RateLimit-Limit")).isNull();
+    }
+
+    @Test
+    @DisplayName("Should not limit the health endpoint")
+    void doFilter_Health_Skipped() throws Exception {
+        run(new MockHttpServletRequest("GET", "/api/health"), new MockFilterChain());
+
+        verifyNoInteractions(rateLimiter);
+    }
+}
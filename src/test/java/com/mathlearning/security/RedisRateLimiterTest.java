@@ -0,0 +1,118 @@
+package com.mathlearning.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("RedisRateLimiter Tests")
+@SuppressWarnings({ "unchecked", "rawtypes" })
+class RedisRateLimiterTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private RedisRateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("app.rate-limit.read.capacity", "300")
+                .withProperty("app.rate-limit.read.refill-per-minute", "300");
+        rateLimiter = new RedisRateLimiter(redisTemplate, meterRegistry, environment, true, Duration.ofMinutes(1));
+    }
+
+    private void redisReturns(long granted, long remaining, long retryMs) {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(), any(), any()))
+                .thenReturn(List.of(granted, remaining, retryMs));
+    }
+
+    @Test
+    @DisplayName("Should serve later requests from the leased tokens without calling Redis")
+    void tryAcquire_LeasedTokens_ServedLocally() {
+        // given - 300/min leases 5 tokens at a time
+        redisReturns(5, 295, 0);
+
+        // when
+        RateLimitDecision first = rateLimiter.tryAcquire(RateLimitRoute.READ, "u:1");
+        RateLimitDecision last = null;
+        for (int i = 0; i < 4; i++) {
+            last = rateLimiter.tryAcquire(RateLimitRoute.READ, "u:1");
+        }
+
+        // then
+        assertThat(first.allowed()).isTrue();
+        assertThat(first.limit()).isEqualTo(300);
+        assertThat(first.remaining()).isEqualTo(299);
+        assertThat(last.allowed()).isTrue();
+        assertThat(last.remaining()).isEqualTo(295);
+        verify(redisTemplate, times(1)).execute(any(RedisScript.class), eq(List.of("ratelimit:read:u:1")),
+                eq("300"), any(), eq("5"));
+        assertThat(meterRegistry.counter("ratelimit.requests", "route", "read", "outcome", "local").count())
+                .isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Should go back to Redis once the lease is used up")
+    void tryAcquire_LeaseExhausted_CallsRedisAgain() {
+        redisReturns(2, 10, 0);
+
+        rateLimiter.tryAcquire(RateLimitRoute.READ, "u:1");
+        rateLimiter.tryAcquire(RateLimitRoute.READ, "u:1");
+        rateLimiter.tryAcquire(RateLimitRoute.READ, "u:1");
+
+        verify(redisTemplate, times(2)).execute(any(RedisScript.class), anyList(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should reject with a retry delay when the shared bucket is empty")
+    void tryAcquire_EmptyBucket_Rejects() {
+        // given
+        redisReturns(0, 0, 1500);
+
+        // when
+        RateLimitDecision decision = rateLimiter.tryAcquire(RateLimitRoute.AUTH, "ip:10.0.0.1");
+
+        // then
+        assertThat(decision.allowed()).isFalse();
+        assertThat(decision.remaining()).isZero();
+        assertThat(decision.retryAfterSeconds()).isEqualTo(2);
+        assertThat(meterRegistry.counter("ratelimit.requests", "route", "auth", "outcome", "rejected").count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should allow requests when Redis is unavailable")
+    void tryAcquire_RedisDown_FailsOpen() {
+        // given
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(), any(), any()))
+                .thenThrow(new RedisConnectionFailureException("down"));
+
+        // when
+        RateLimitDecision decision = rateLimiter.tryAcquire(RateLimitRoute.WRITE, "u:1");
+
+        // then
+        assertThat(decision.allowed()).isTrue();
+        assertThat(decision.limit()).isEqualTo(-1);
+    }
+}
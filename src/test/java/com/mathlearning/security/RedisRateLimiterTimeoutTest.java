@@ -0,0 +1,149 @@
+package com.mathlearning.security;
+
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.SocketOptions;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the limiter against a Redis that connects but never answers the rate
+ * limit script, with the timeouts from application.yml.
+ */
+@DisplayName("RedisRateLimiter Timeout Tests")
+class RedisRateLimiterTimeoutTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<Socket> clients = new CopyOnWriteArrayList<>();
+    private final AtomicInteger scripts = new AtomicInteger();
+    private ServerSocket hungRedis;
+    private LettuceConnectionFactory connectionFactory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        hungRedis = new ServerSocket(0);
+        Thread.ofVirtual().start(() -> {
+            while (!hungRedis.isClosed()) {
+                try {
+                    Socket client = hungRedis.accept();
+                    clients.add(client);
+                    Thread.ofVirtual().start(() -> serve(client));
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        });
+
+        Binder config = Binder.get(environment());
+        Duration timeout = config.bind("spring.data.redis.timeout", Duration.class).get();
+        Duration connectTimeout = config.bind("spring.data.redis.connect-timeout", Duration.class).get();
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration("localhost", hungRedis.getLocalPort()),
+                LettuceClientConfiguration.builder()
+                        .commandTimeout(timeout)
+                        .clientOptions(ClientOptions.builder()
+                                .socketOptions(SocketOptions.builder().connectTimeout(connectTimeout).build())
+                                .build())
+                        .build());
+        connectionFactory.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        connectionFactory.destroy();
+        hungRedis.close();
+        for (Socket client : clients) {
+            client.close();
+        }
+    }
+
+    private static StandardEnvironment environment() {
+        StandardEnvironment environment = new StandardEnvironment();
+        try {
+            new YamlPropertySourceLoader().load("application", new ClassPathResource("application.yml"))
+                    .forEach(environment.getPropertySources()::addLast);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return environment;
+    }
+
+    /**
+     * Refuses the RESP3 handshake so the client falls back to RESP2, accepts
+     * the other setup commands and never answers a script.
+     */
+    private void serve(Socket client) {
+        try (BufferedReader in = new BufferedReader(
+                new InputStreamReader(client.getInputStream(), StandardCharsets.US_ASCII));
+                OutputStream out = client.getOutputStream()) {
+            String header;
+            while ((header = in.readLine()) != null) {
+                String command = null;
+                for (int arg = Integer.parseInt(header.substring(1)); arg > 0; arg--) {
+                    char[] value = new char[Integer.parseInt(in.readLine().substring(1))];
+                    for (int read = 0; read < value.length;) {
+                        read += in.read(value, read, value.length - read);
+                    }
+                    in.readLine();
+                    command = command == null ? new String(value).toUpperCase() : command;
+                }
+                if ("EVAL".equals(command) || "EVALSHA".equals(command)) {
+                    scripts.incrementAndGet();
+                    continue;
+                }
+                out.write(("HELLO".equals(command) ? "-ERR unknown command\r\n" : "+OK\r\n")
+                        .getBytes(StandardCharsets.US_ASCII));
+                out.flush();
+            }
+        } catch (IOException e) {
+            // closed by the test
+        }
+    }
+
+    @Test
+    @DisplayName("Should fail open within the configured timeout when Redis stops answering")
+    void tryAcquire_RedisHangs_FailsOpenQuickly() {
+        // given
+        StringRedisTemplate redisTemplate = new StringRedisTemplate(connectionFactory);
+        RedisRateLimiter rateLimiter = new RedisRateLimiter(redisTemplate, meterRegistry, new MockEnvironment(), true,
+                Duration.ofSeconds(1));
+
+        // when
+        long start = System.nanoTime();
+        RateLimitDecision decision = rateLimiter.tryAcquire(RateLimitRoute.READ, "u:1");
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        // then - the script reached Redis and the wait for its reply was cut short
+        assertThat(scripts.get()).isEqualTo(1);
+        assertThat(decision.allowed()).isTrue();
+        assertThat(decision.limit()).isEqualTo(-1);
+        assertThat(elapsed).isLessThan(Duration.ofSeconds(2));
+        assertThat(meterRegistry.counter("ratelimit.requests", "route", "read", "outcome", "error").count())
+                .isEqualTo(1);
+    }
+}
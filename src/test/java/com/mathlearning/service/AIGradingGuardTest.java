@@ -0,0 +1,99 @@
+package com.mathlearning.service;
+
+import com.mathlearning.exception.ServiceUnavailableException;
+import com.mathlearning.service.impl.AIGradingGuard;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("AIGradingGuard Unit Tests")
+class AIGradingGuardTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    private AIGradingGuard guard(int maxConcurrent, int initialLimit) {
+        return new AIGradingGuard(meterRegistry, 20, 10, 0.5, Duration.ofSeconds(30), Duration.ofSeconds(30), 3,
+                maxConcurrent, Duration.ZERO, initialLimit, 2, 1.5, 0.5, Duration.ofSeconds(5));
+    }
+
+    private double limit() {
+        return meterRegistry.get("ai.grading.concurrency.limit").gauge().value();
+    }
+
+    @Test
+    @DisplayName("Should fail fast with Retry-After once the concurrency limit is reached")
+    void acquire_LimitReached_FailsFast() {
+        // given
+        AIGradingGuard guard = guard(32, 4);
+        for (int i = 0; i < 4; i++) {
+            guard.acquire();
+        }
+
+        // when / then
+        assertThatThrownBy(guard::acquire)
+                .isInstanceOfSatisfying(ServiceUnavailableException.class,
+                        e -> assertThat(e.getRetryAfter()).isEqualTo(Duration.ofSeconds(5)));
+        assertThat(meterRegistry.counter("ai.grading.rejected", "reason", "limit").count()).isEqualTo(1);
+        assertThat(meterRegistry.get("ai.grading.concurrency.in.flight").gauge().value()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Should admit another call once a permit is released")
+    void acquire_AfterRelease_Admitted() {
+        // given
+        AIGradingGuard guard = guard(32, 2);
+        AIGradingGuard.Permit first = guard.acquire();
+        guard.acquire();
+
+        // when
+        first.release(true);
+
+        // then
+        assertThat(guard.acquire()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Should shrink the limit after failed calls")
+    void release_Failure_ShrinksLimit() {
+        // given
+        AIGradingGuard guard = guard(32, 16);
+
+        // when
+        guard.acquire().release(false);
+
+        // then
+        assertThat(limit()).isEqualTo(8);
+    }
+
+    @Test
+    @DisplayName("Should report the limit and in-flight calls in health details")
+    void health_ReportsLimits() {
+        // given
+        AIGradingGuard guard = guard(32, 16);
+        guard.acquire();
+
+        // when
+        Health health = guard.health();
+
+        // then
+        assertThat(health.getStatus()).isEqualTo(Status.UP);
+        assertThat(health.getDetails())
+                .containsEntry("degraded", false)
+                .containsEntry("concurrencyLimit", 16)
+                .containsEntry("maxConcurrent", 32)
+                .containsEntry("inFlight", 1);
+    }
+}
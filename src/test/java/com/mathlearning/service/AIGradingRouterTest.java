@@ -0,0 +1,287 @@
+package com.mathlearning.service;
+
+import com.mathlearning.dto.GradingResult;
+import com.mathlearning.exception.AIGradingException;
+import com.mathlearning.exception.InvalidRequestException;
+import com.mathlearning.exception.ServiceUnavailableException;
+import com.mathlearning.service.impl.AIGradingGuard;
+import com.mathlearning.service.impl.AIGradingRouter;
+import com.mathlearning.service.impl.GradingHedger;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("AIGradingRouter Unit Tests")
+class AIGradingRouterTest {
+
+    @Mock
+    private IAIGradingProvider openai;
+
+    @Mock
+    private IAIGradingProvider anthropic;
+
+    private SimpleMeterRegistry meterRegistry;
+    private GradingResult result;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        result = GradingResult.builder().score(BigDecimal.TEN).correct(true).feedback("Great").build();
+
+        when(openai.getName()).thenReturn("openai");
+        when(openai.isAvailable()).thenReturn(true);
+        when(openai.getCostPerRequest()).thenReturn(0.01);
+        when(anthropic.getName()).thenReturn("anthropic");
+        when(anthropic.isAvailable()).thenReturn(true);
+        when(anthropic.getCostPerRequest()).thenReturn(0.01);
+    }
+
+    private AIGradingRouter router(String preferred) {
+        return router(preferred, guard(10, Duration.ofMinutes(5)));
+    }
+
+    private AIGradingRouter router(String preferred, AIGradingGuard guard) {
+        GradingHedger hedger = new GradingHedger(meterRegistry, false, 0.95, Duration.ofSeconds(2), 0.1, 200, 20);
+        return new AIGradingRouter(List.of(openai, anthropic), hedger, guard, meterRegistry, preferred,
+                Duration.ofSeconds(5), 10, 100_000, 0);
+    }
+
+    private AIGradingGuard guard(int minCalls, Duration openDuration) {
+        return new AIGradingGuard(meterRegistry, 10, minCalls, 0.5, Duration.ofSeconds(30), openDuration, 1,
+                32, Duration.ZERO, 16, 2, 1.5, 0.9, Duration.ofSeconds(5));
+    }
+
+    private GradingResult grade(AIGradingRouter router) {
+        return router.gradeSubmission("http://example.com/image.jpg", "What is 2+2?", "4", 6);
+    }
+
+    @Test
+    @DisplayName("Should use the preferred provider when scores are equal")
+    void gradeSubmission_EqualScores_UsesPreferred() {
+        // given
+        when(anthropic.gradeSubmission(anyString(), anyString(), anyString(), any())).thenReturn(result);
+
+        // when
+        GradingResult graded = grade(router("anthropic"));
+
+        // then
+        assertThat(graded).isSameAs(result);
+        verify(openai, never()).gradeSubmission(anyString(), anyString(), anyString(), any());
+    }
+
+    @Test
+    @DisplayName("Should prefer the cheaper provider before latency is known")
+    void gradeSubmission_LowerCost_Preferred() {
+        // given
+        when(openai.getCostPerRequest()).thenReturn(0.03);
+        when(anthropic.gradeSubmission(anyString(), anyString(), anyString(), any())).thenReturn(result);
+
+        // when
+        grade(router("openai"));
+
+        // then
+        verify(openai, never()).gradeSubmission(anyString(), anyString(), anyString(), any());
+    }
+
+    @Test
+    @DisplayName("Should fail over to the next provider when a call fails")
+    void gradeSubmission_ProviderFails_FailsOver() {
+        // given
+        when(openai.gradeSubmission(anyString(), anyString(), anyString(), any()))
+                .thenThrow(new AIGradingException("503 Service Unavailable"));
+        when(anthropic.gradeSubmission(anyString(), anyString(), anyString(), any())).thenReturn(result);
+
+        // when
+        GradingResult graded = grade(router("openai"));
+
+        // then
+        assertThat(graded).isSameAs(result);
+        assertThat(meterRegistry.counter("ai.grading.failovers", "from", "openai", "to", "anthropic").count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.timer("ai.grading.requests", "provider", "openai", "outcome", "error").count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should route around a provider whose error rate is high")
+    void gradeSubmission_DegradedProvider_RoutedAround() {
+        // given
+        when(openai.gradeSubmission(anyString(), anyString(), anyString(), any()))
+                .thenThrow(new AIGradingException("timeout"));
+        when(anthropic.gradeSubmission(anyString(), anyString(), anyString(), any())).thenReturn(result);
+        AIGradingRouter router = router("openai");
+
+        // when - the first call fails over, after that openai's error rate ranks it last
+        for (int i = 0; i < 5; i++) {
+            grade(router);
+        }
+
+        // then
+        verify(openai, times(1)).gradeSubmission(anyString(), anyString(), anyString(), any());
+        verify(anthropic, times(5)).gradeSubmission(anyString(), anyString(), anyString(), any());
+    }
+
+    @Test
+    @DisplayName("Should skip providers without an API key")
+    void gradeSubmission_UnconfiguredProvider_Skipped() {
+        when(openai.isAvailable()).thenReturn(false);
+        when(anthropic.gradeSubmission(anyString(), anyString(), anyString(), any())).thenReturn(result);
+
+        grade(router("openai"));
+
+        verify(openai, never()).gradeSubmission(anyString(), anyString(), anyString(), any());
+    }
+
+    @Test
+    @DisplayName("Should throw the last error when every provider fails")
+    void gradeSubmission_AllFail_Throws() {
+        when(openai.gradeSubmission(anyString(), anyString(), anyString(), any()))
+                .thenThrow(new AIGradingException("openai down"));
+        when(anthropic.gradeSubmission(anyString(), anyString(), anyString(), any()))
+                .thenThrow(new RuntimeException("anthropic down"));
+
+        assertThatThrownBy(() -> grade(router("openai")))
+                .isInstanceOf(AIGradingException.class)
+                .hasMessageContaining("anthropic down");
+    }
+
+    @Test
+    @DisplayName("Should fail over without tripping the circuit when a provider's quota is exhausted")
+    void gradeSubmission_QuotaExhausted_FailsOverWithoutFailure() {
+        // given
+        when(openai.gradeSubmission(anyString(), anyString(), anyString(), any()))
+                .thenThrow(new ServiceUnavailableException("quota exhausted", Duration.ofSeconds(3), null));
+        when(anthropic.gradeSubmission(anyString(), anyString(), anyString(), any())).thenReturn(result);
+        AIGradingRouter router = router("openai", guard(1, Duration.ofMinutes(5)));
+
+        // when
+        GradingResult graded = grade(router);
+
+        // then
+        assertThat(graded).isSameAs(result);
+        assertThat(meterRegistry.timer("ai.grading.requests", "provider", "openai", "outcome", "throttled").count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.counter("ai.grading.circuit.transitions",
+                "provider", "openai", "from", "CLOSED", "to", "OPEN").count()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should reject an unsupported image without failing over or tripping the circuit")
+    void gradeSubmission_UnsupportedImage_RejectedWithoutFailover() {
+        // given
+        when(openai.gradeSubmission(anyString(), anyString(), anyString(), any()))
+                .thenThrow(new InvalidRequestException("Image format is not supported for grading"));
+        AIGradingRouter router = router("openai", guard(1, Duration.ofMinutes(5)));
+
+        // when / then
+        assertThatThrownBy(() -> grade(router)).isInstanceOf(InvalidRequestException.class);
+        verify(anthropic, never()).gradeSubmission(anyString(), anyString(), anyString(), any());
+        assertThat(meterRegistry.counter("ai.grading.circuit.transitions",
+                "provider", "openai", "from", "CLOSED", "to", "OPEN").count()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should stop calling a provider once its circuit opens")
+    void gradeSubmission_CircuitOpen_ProviderSkipped() {
+        // given
+        when(openai.gradeSubmission(anyString(), anyString(), anyString(), any()))
+                .thenThrow(new AIGradingException("timeout"));
+        when(anthropic.gradeSubmission(anyString(), anyString(), anyString(), any())).thenReturn(result);
+        when(anthropic.getCostPerRequest()).thenReturn(1.0);
+        AIGradingRouter router = router("openai", guard(2, Duration.ofMinutes(5)));
+
+        // when - openai ranks first on cost until its breaker opens after two failures
+        for (int i = 0; i < 4; i++) {
+            grade(router);
+        }
+
+        // then
+        verify(openai, times(2)).gradeSubmission(anyString(), anyString(), anyString(), any());
+        assertThat(meterRegistry.counter("ai.grading.circuit.transitions",
+                "provider", "openai", "from", "CLOSED", "to", "OPEN").count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should stay UP and report the open circuit in health details")
+    void health_CircuitOpen_UpWithDetails() {
+        // given
+        when(openai.gradeSubmission(anyString(), anyString(), anyString(), any()))
+                .thenThrow(new AIGradingException("timeout"));
+        when(anthropic.gradeSubmission(anyString(), anyString(), anyString(), any())).thenReturn(result);
+        AIGradingGuard guard = guard(1, Duration.ofMinutes(5));
+        grade(router("openai", guard));
+
+        // when
+        Health health = guard.health();
+
+        // then
+        assertThat(health.getStatus()).isEqualTo(Status.UP);
+        assertThat(health.getDetails())
+                .containsEntry("degraded", true)
+                .containsEntry("circuits", Map.of("anthropic", "CLOSED", "openai", "OPEN"));
+    }
+
+    @Test
+    @DisplayName("Should fail fast with Retry-After when every circuit is open")
+    void gradeSubmission_AllCircuitsOpen_FailsFast() {
+        // given
+        when(openai.gradeSubmission(anyString(), anyString(), anyString(), any()))
+                .thenThrow(new AIGradingException("openai down"));
+        when(anthropic.gradeSubmission(anyString(), anyString(), anyString(), any()))
+                .thenThrow(new AIGradingException("anthropic down"));
+        AIGradingRouter router = router("openai", guard(1, Duration.ofMinutes(5)));
+        assertThatThrownBy(() -> grade(router)).isInstanceOf(AIGradingException.class);
+
+        // when / then
+        assertThatThrownBy(() -> grade(router))
+                .isInstanceOfSatisfying(ServiceUnavailableException.class,
+                        e -> assertThat(e.getRetryAfter()).isPositive());
+        verify(openai, times(1)).gradeSubmission(anyString(), anyString(), anyString(), any());
+        assertThat(meterRegistry.counter("ai.grading.rejected", "reason", "circuit-open").count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should close the circuit after a successful half-open probe")
+    void gradeSubmission_HalfOpenProbeSucceeds_ClosesCircuit() {
+        // given
+        when(openai.gradeSubmission(anyString(), anyString(), anyString(), any()))
+                .thenThrow(new AIGradingException("timeout"))
+                .thenReturn(result);
+        when(anthropic.gradeSubmission(anyString(), anyString(), anyString(), any())).thenReturn(result);
+        when(anthropic.getCostPerRequest()).thenReturn(1.0);
+        AIGradingRouter router = router("openai", guard(1, Duration.ZERO));
+
+        // when - the first call opens the circuit, the second probes it right away
+        grade(router);
+        grade(router);
+
+        // then
+        verify(openai, times(2)).gradeSubmission(anyString(), anyString(), anyString(), any());
+        assertThat(meterRegistry.counter("ai.grading.circuit.transitions",
+                "provider", "openai", "from", "HALF_OPEN", "to", "CLOSED").count()).isEqualTo(1);
+    }
+}
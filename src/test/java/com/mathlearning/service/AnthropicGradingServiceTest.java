@@ -0,0 +1,158 @@
+package com.mathlearning.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.mathlearning.dto.GradingResult;
+import com.mathlearning.exception.AIGradingException;
+import com.mathlearning.exception.InvalidRequestException;
+import com.mathlearning.service.impl.AnthropicGradingService;
+import com.mathlearning.service.impl.ProviderQuotaLimiter;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisplayName("AnthropicGradingService Unit Tests")
+class AnthropicGradingServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicReference<Request> sent = new AtomicReference<>();
+    private final IStorageService storageService = mock(IStorageService.class);
+    private final byte[] jpeg = { (byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0, 1, 2, 3 };
+
+    private AnthropicGradingService service(int status, String body) {
+        OkHttpClient client = new OkHttpClient.Builder()
+                .addInterceptor(chain -> {
+                    sent.set(chain.request());
+                    return new Response.Builder()
+                            .request(chain.request())
+                            .protocol(Protocol.HTTP_1_1)
+                            .code(status)
+                            .message("status " + status)
+                            .body(ResponseBody.create(body, MediaType.get("application/json")))
+                            .build();
+                })
+                .build();
+        return new AnthropicGradingService(client, objectMapper, mock(ProviderQuotaLimiter.class), storageService,
+                "test-key", "claude-test", "https://api.anthropic.test", 0.012);
+    }
+
+    @Test
+    @DisplayName("Should send the image and prompt and parse the graded JSON")
+    void gradeSubmission_Success_ParsesResult() throws Exception {
+        // given
+        String graded = "{\"score\": 9, \"correct\": true, \"feedback\": \"Good\", "
+                + "\"correctSteps\": [\"2+2=4\"], \"topicTags\": [\"addition\"]}";
+        ObjectNode reply = objectMapper.createObjectNode();
+        reply.putArray("content").addObject().put("type", "text").put("text", graded);
+        AnthropicGradingService service = service(200, reply.toString());
+        when(storageService.readFile("http://example.com/image.jpg")).thenReturn(jpeg);
+
+        // when
+        GradingResult result = service.gradeSubmission("http://example.com/image.jpg", "What is 2+2?", "4", 6);
+
+        // then
+        assertThat(result.getScore()).isEqualByComparingTo(BigDecimal.valueOf(9.0));
+        assertThat(result.getCorrect()).isTrue();
+        assertThat(result.getCorrectSteps()).containsExactly("2+2=4");
+        assertThat(result.getAiProvider()).isEqualTo("anthropic/claude-test");
+
+        Request request = sent.get();
+        assertThat(request.url().toString()).isEqualTo("https://api.anthropic.test/v1/messages");
+        Buffer buffer = new Buffer();
+        request.body().writeTo(buffer);
+        JsonNode body = objectMapper.readTree(buffer.readUtf8());
+        assertThat(body.path("model").asText()).isEqualTo("claude-test");
+        JsonNode content = body.path("messages").get(0).path("content");
+        assertThat(content.get(1).path("text").asText()).contains("What is 2+2?");
+    }
+
+    @Test
+    @DisplayName("Should send the stored image inline as base64 instead of its private URL")
+    void gradeSubmission_Image_SentAsBase64() throws Exception {
+        // given
+        ObjectNode reply = objectMapper.createObjectNode();
+        reply.putArray("content").addObject().put("type", "text")
+                .put("text", "{\"score\": 9, \"correct\": true, \"feedback\": \"Good\"}");
+        AnthropicGradingService service = service(200, reply.toString());
+        when(storageService.readFile("http://minio:9000/mathlearning/submissions/1/photo.jpg")).thenReturn(jpeg);
+
+        // when
+        service.gradeSubmission("http://minio:9000/mathlearning/submissions/1/photo.jpg", "What is 2+2?", "4", 6);
+
+        // then
+        Buffer buffer = new Buffer();
+        sent.get().body().writeTo(buffer);
+        JsonNode image = objectMapper.readTree(buffer.readUtf8()).path("messages").get(0).path("content").get(0);
+        assertThat(image.path("type").asText()).isEqualTo("image");
+        assertThat(image.path("source").path("type").asText()).isEqualTo("base64");
+        assertThat(image.path("source").path("media_type").asText()).isEqualTo("image/jpeg");
+        assertThat(image.path("source").path("data").asText()).isEqualTo(Base64.getEncoder().encodeToString(jpeg));
+        assertThat(image.path("source").has("url")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should throw AIGradingException when the image cannot be read from storage")
+    void gradeSubmission_ImageUnreadable_Throws() throws Exception {
+        // given
+        AnthropicGradingService service = service(200, "{}");
+        when(storageService.readFile("http://example.com/image.jpg")).thenThrow(new IOException("gone"));
+
+        // when / then
+        assertThatThrownBy(() -> service.gradeSubmission("http://example.com/image.jpg", "What is 2+2?", "4", 6))
+                .isInstanceOf(AIGradingException.class)
+                .hasMessageContaining("gone");
+        assertThat(sent.get()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should reject a HEIC image instead of sending it labelled as JPEG")
+    void gradeSubmission_HeicImage_Rejected() throws Exception {
+        // given - ISO media file with the heic brand, as iPhones upload directly
+        byte[] heic = { 0, 0, 0, 0x18, 'f', 't', 'y', 'p', 'h', 'e', 'i', 'c', 0, 0, 0, 0 };
+        AnthropicGradingService service = service(200, "{}");
+        when(storageService.readFile("http://example.com/photo.heic")).thenReturn(heic);
+
+        // when / then
+        assertThatThrownBy(() -> service.gradeSubmission("http://example.com/photo.heic", "What is 2+2?", "4", 6))
+                .isInstanceOf(InvalidRequestException.class)
+                .hasMessageContaining("not supported");
+        assertThat(sent.get()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should throw AIGradingException on an API error status")
+    void gradeSubmission_ErrorStatus_Throws() throws Exception {
+        AnthropicGradingService service = service(529,
+                "{\"type\":\"error\",\"error\":{\"type\":\"overloaded_error\"}}");
+        when(storageService.readFile("http://example.com/image.jpg")).thenReturn(jpeg);
+
+        assertThatThrownBy(() -> service.gradeSubmission("http://example.com/image.jpg", "What is 2+2?", "4", 6))
+                .isInstanceOf(AIGradingException.class)
+                .hasMessageContaining("529");
+    }
+
+    @Test
+    @DisplayName("Should only be available with an API key")
+    void isAvailable_RequiresApiKey() {
+        assertThat(service(200, "{}").isAvailable()).isTrue();
+        assertThat(new AnthropicGradingService(new OkHttpClient(), objectMapper, mock(ProviderQuotaLimiter.class),
+                storageService, "", "claude-test", "https://api.anthropic.test", 0.012).isAvailable()).isFalse();
+    }
+}
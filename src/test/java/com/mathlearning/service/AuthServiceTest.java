@@ -9,6 +9,7 @@ import com.mathlearning.model.UserProgress;
 import com.mathlearning.repository.UserProgressRepository;
 import com.mathlearning.repository.UserRepository;
 import com.mathlearning.security.IJwtTokenProvider;
+import com.mathlearning.security.IPasswordHasher;
 import com.mathlearning.service.impl.AuthServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -17,9 +18,10 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -37,7 +39,7 @@ class AuthServiceTest {
     private UserProgressRepository userProgressRepository;
 
     @Mock
-    private PasswordEncoder passwordEncoder;
+    private IPasswordHasher passwordHasher;
 
     @Mock
     private IJwtTokenProvider jwtTokenProvider;
@@ -78,7 +80,7 @@ class AuthServiceTest {
     void registerNewUser_Success() {
         // given
         when(userRepository.existsByEmail(anyString())).thenReturn(false);
-        when(passwordEncoder.encode(anyString())).thenReturn("encodedPassword");
+        when(passwordHasher.hash(anyString())).thenReturn("encodedPassword");
         when(userRepository.save(any(User.class))).thenReturn(testUser);
         when(userProgressRepository.save(any(UserProgress.class))).thenReturn(new UserProgress());
         when(jwtTokenProvider.generateToken(anyLong(), anyString())).thenReturn("test-jwt-token");
@@ -119,7 +121,7 @@ class AuthServiceTest {
     void login_ValidCredentials_Success() {
         // given
         when(userRepository.findByEmail(anyString())).thenReturn(Optional.of(testUser));
-        when(passwordEncoder.matches(anyString(), anyString())).thenReturn(true);
+        when(passwordHasher.matches(anyString(), anyString())).thenReturn(true);
         when(jwtTokenProvider.generateToken(anyLong(), anyString())).thenReturn("test-jwt-token");
 
         // when
@@ -131,7 +133,7 @@ class AuthServiceTest {
         assertThat(response.getEmail()).isEqualTo(testUser.getEmail());
 
         verify(userRepository).findByEmail(loginRequest.getEmail());
-        verify(passwordEncoder).matches(loginRequest.getPassword(), testUser.getPasswordHash());
+        verify(passwordHasher).matches(loginRequest.getPassword(), testUser.getPasswordHash());
         verify(jwtTokenProvider).generateToken(testUser.getId(), testUser.getEmail());
     }
 
@@ -147,7 +149,7 @@ class AuthServiceTest {
                 .hasMessageContaining("Invalid email or password");
 
         verify(userRepository).findByEmail(loginRequest.getEmail());
-        verify(passwordEncoder, never()).matches(anyString(), anyString());
+        verify(passwordHasher, never()).matches(anyString(), anyString());
     }
 
     @Test
@@ -155,7 +157,7 @@ class AuthServiceTest {
     void login_InvalidPassword_ThrowsException() {
         // given
         when(userRepository.findByEmail(anyString())).thenReturn(Optional.of(testUser));
-        when(passwordEncoder.matches(anyString(), anyString())).thenReturn(false);
+        when(passwordHasher.matches(anyString(), anyString())).thenReturn(false);
 
         // when & then
         assertThatThrownBy(() -> authService.login(loginRequest))
@@ -163,7 +165,43 @@ class AuthServiceTest {
                 .hasMessageContaining("Invalid email or password");
 
         verify(userRepository).findByEmail(loginRequest.getEmail());
-        verify(passwordEncoder).matches(loginRequest.getPassword(), testUser.getPasswordHash());
+        verify(passwordHasher).matches(loginRequest.getPassword(), testUser.getPasswordHash());
         verify(jwtTokenProvider, never()).generateToken(anyLong(), anyString());
     }
+
+    @Test
+    @DisplayName("Should rehash a password stored with an older work factor on login")
+    void login_OutdatedHash_RehashesPassword() {
+        // given
+        when(userRepository.findByEmail(anyString())).thenReturn(Optional.of(testUser));
+        when(passwordHasher.matches(anyString(), anyString())).thenReturn(true);
+        when(passwordHasher.needsRehash("encodedPassword")).thenReturn(true);
+        when(passwordHasher.hashIfIdle("password123")).thenReturn(CompletableFuture.completedFuture("newHash"));
+        when(jwtTokenProvider.generateToken(anyLong(), anyString())).thenReturn("test-jwt-token");
+
+        // when
+        authService.login(loginRequest);
+
+        // then
+        verify(userRepository).updatePasswordHash(1L, "newHash");
+    }
+
+    @Test
+    @DisplayName("Should still log in when the rehash is skipped because hashing is busy")
+    void login_OutdatedHashWhileBusy_SkipsRehash() {
+        // given
+        when(userRepository.findByEmail(anyString())).thenReturn(Optional.of(testUser));
+        when(passwordHasher.matches(anyString(), anyString())).thenReturn(true);
+        when(passwordHasher.needsRehash("encodedPassword")).thenReturn(true);
+        when(passwordHasher.hashIfIdle("password123"))
+                .thenReturn(CompletableFuture.failedFuture(new RejectedExecutionException("busy")));
+        when(jwtTokenProvider.generateToken(anyLong(), anyString())).thenReturn("test-jwt-token");
+
+        // when
+        AuthResponse response = authService.login(loginRequest);
+
+        // then
+        assertThat(response.getToken()).isEqualTo("test-jwt-token");
+        verify(userRepository, never()).updatePasswordHash(anyLong(), anyString());
+    }
 }
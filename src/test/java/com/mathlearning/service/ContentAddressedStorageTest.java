@@ -0,0 +1,80 @@
+package com.mathlearning.service;
+
+import com.mathlearning.repository.StoredImageRepository;
+import com.mathlearning.service.impl.ContentAddressedStorageImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ContentAddressedStorage Unit Tests")
+class ContentAddressedStorageTest {
+
+    private static final String HASH = "ab" + "0".repeat(62);
+    private static final String KEY = "cas/ab/" + HASH;
+
+    @Mock
+    private IStorageService storageService;
+
+    @Mock
+    private StoredImageRepository storedImageRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ContentAddressedStorageImpl contentStorage;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        contentStorage = new ContentAddressedStorageImpl(storageService, storedImageRepository, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Should upload and index an image seen for the first time")
+    void store_NewImage_UploadsAndRegisters() throws IOException {
+        // given
+        InputStream content = new ByteArrayInputStream("photo".getBytes());
+        when(storedImageRepository.addReference(HASH)).thenReturn(0);
+        when(storageService.uploadObject(KEY, content, 5L, "image/jpeg")).thenReturn("https://storage.com/" + KEY);
+
+        // when
+        String url = contentStorage.store(content, 5L, "image/jpeg", HASH);
+
+        // then
+        assertThat(url).isEqualTo("https://storage.com/" + KEY);
+        verify(storedImageRepository).register(HASH, KEY, "image/jpeg", 5L);
+        assertThat(meterRegistry.counter("storage.dedup.requests", "result", "miss").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should skip the upload for an image that is already stored")
+    void store_KnownImage_SkipsUpload() throws IOException {
+        // given
+        when(storedImageRepository.addReference(HASH)).thenReturn(1);
+        when(storageService.getFileUrl(KEY)).thenReturn("https://storage.com/" + KEY);
+
+        // when
+        String url = contentStorage.store(new ByteArrayInputStream("photo".getBytes()), 5L, "image/jpeg", HASH);
+
+        // then
+        assertThat(url).isEqualTo("https://storage.com/" + KEY);
+        verify(storageService, never()).uploadObject(anyString(), any(), anyLong(), any());
+        verify(storedImageRepository, never()).register(any(), any(), any(), anyLong());
+        assertThat(meterRegistry.counter("storage.dedup.requests", "result", "hit").count()).isEqualTo(1.0);
+    }
+}
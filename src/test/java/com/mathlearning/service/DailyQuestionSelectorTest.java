@@ -0,0 +1,178 @@
+package com.mathlearning.service;
+
+import com.mathlearning.model.Question;
+import com.mathlearning.repository.MistakeNotebookRepository;
+import com.mathlearning.repository.SubmissionRepository;
+import com.mathlearning.service.impl.DailyQuestionSelectorImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("DailyQuestionSelector Unit Tests")
+class DailyQuestionSelectorTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 10);
+    private static final String KEY = "daily-questions:2024-03-10:1:8";
+
+    @Mock
+    private IQuestionCache questionCache;
+
+    @Mock
+    private SubmissionRepository submissionRepository;
+
+    @Mock
+    private MistakeNotebookRepository mistakeNotebookRepository;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private final Map<Long, Question> questions = new HashMap<>();
+    private List<Question> bank;
+
+    @BeforeEach
+    void setUp() {
+        bank = new ArrayList<>();
+        for (long id = 1; id <= 100; id++) {
+            Question question = Question.builder()
+                    .id(id)
+                    .topic(id <= 50 ? "Algebra" : "Geometry")
+                    .gradeLevel(8)
+                    .difficulty(Question.Difficulty.EASY)
+                    .build();
+            bank.add(question);
+            questions.put(id, question);
+        }
+        when(questionCache.findByGradeLevel(8)).thenReturn(bank);
+        when(questionCache.findById(anyLong()))
+                .thenAnswer(invocation -> Optional.ofNullable(questions.get(invocation.getArgument(0))));
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+    }
+
+    private DailyQuestionSelectorImpl selector() {
+        return new DailyQuestionSelectorImpl(questionCache, submissionRepository, mistakeNotebookRepository,
+                redisTemplate, new SimpleMeterRegistry(), 10, 0.3, Duration.ofDays(90), Duration.ofDays(14));
+    }
+
+    private SubmissionRepository.QuestionAttempts attempts(Long questionId, String topic, long attempts,
+            long correct) {
+        return new SubmissionRepository.QuestionAttempts() {
+            public Long getQuestionId() {
+                return questionId;
+            }
+
+            public String getTopic() {
+                return topic;
+            }
+
+            public Long getAttempts() {
+                return attempts;
+            }
+
+            public Long getCorrect() {
+                return correct;
+            }
+
+            public LocalDateTime getLastAttemptAt() {
+                return DAY.minusDays(30).atStartOfDay();
+            }
+        };
+    }
+
+    @Test
+    @DisplayName("Should put open mistakes first and fill the rest from the bank")
+    void selectDailyQuestions_OpenMistakes_ComeFirst() {
+        // given
+        when(mistakeNotebookRepository.findOpenMistakeQuestionIds(eq(1L), any(Limit.class)))
+                .thenReturn(List.of(42L, 7L));
+
+        // when
+        List<Question> selected = selector().selectDailyQuestions(1L, 8, DAY);
+
+        // then
+        assertThat(selected).hasSize(10).doesNotHaveDuplicates();
+        assertThat(selected.get(0).getId()).isEqualTo(42L);
+        assertThat(selected.get(1).getId()).isEqualTo(7L);
+        verify(mistakeNotebookRepository).findOpenMistakeQuestionIds(1L, Limit.of(3));
+        verify(valueOperations).setIfAbsent(eq(KEY), anyString(), any(Duration.class));
+    }
+
+    @Test
+    @DisplayName("Should favour topics the user has not mastered")
+    void selectDailyQuestions_WeakTopic_Preferred() {
+        // given - every Algebra attempt was correct, every Geometry attempt wrong
+        when(submissionRepository.findQuestionAttempts(eq(1L), any())).thenReturn(List.of(
+                attempts(1L, "Algebra", 20, 20),
+                attempts(51L, "Geometry", 20, 0)));
+
+        // when
+        List<Question> selected = selector().selectDailyQuestions(1L, 8, DAY);
+
+        // then
+        assertThat(selected).hasSize(10);
+        assertThat(selected.stream().filter(q -> q.getTopic().equals("Geometry")).count())
+                .isGreaterThanOrEqualTo(8);
+    }
+
+    @Test
+    @DisplayName("Should pick the same set when computed again for the same user and day")
+    void selectDailyQuestions_SameUserAndDay_Deterministic() {
+        List<Question> first = selector().selectDailyQuestions(1L, 8, DAY);
+        List<Question> second = selector().selectDailyQuestions(1L, 8, DAY);
+        List<Question> nextDay = selector().selectDailyQuestions(1L, 8, DAY.plusDays(1));
+
+        assertThat(second).isEqualTo(first);
+        assertThat(nextDay).isNotEqualTo(first);
+    }
+
+    @Test
+    @DisplayName("Should serve a stored set without recomputing it")
+    void selectDailyQuestions_StoredSet_NotRecomputed() {
+        // given
+        when(valueOperations.get(KEY)).thenReturn("5,6,7");
+        DailyQuestionSelectorImpl selector = selector();
+
+        // when
+        List<Question> selected = selector.selectDailyQuestions(1L, 8, DAY);
+        selector.selectDailyQuestions(1L, 8, DAY);
+
+        // then
+        assertThat(selected).extracting(Question::getId).containsExactly(5L, 6L, 7L);
+        verify(valueOperations, times(1)).get(KEY);
+        verify(submissionRepository, never()).findQuestionAttempts(any(), any());
+        verify(valueOperations, never()).setIfAbsent(anyString(), anyString(), any(Duration.class));
+    }
+}
@@ -0,0 +1,169 @@
+package com.mathlearning.service;
+
+import com.mathlearning.dto.GradingResult;
+import com.mathlearning.exception.AIGradingException;
+import com.mathlearning.service.impl.GradingHedger;
+import com.mathlearning.util.CallScope;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("GradingHedger Unit Tests")
+class GradingHedgerTest {
+
+    @Mock
+    private IAIGradingProvider primary;
+
+    @Mock
+    private IAIGradingProvider backup;
+
+    private SimpleMeterRegistry meterRegistry;
+    private GradingHedger hedger;
+    private List<String> called;
+
+    private final GradingResult primaryResult = GradingResult.builder().score(BigDecimal.ONE).build();
+    private final GradingResult backupResult = GradingResult.builder().score(BigDecimal.TEN).build();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        called = Collections.synchronizedList(new ArrayList<>());
+        when(primary.getName()).thenReturn("openai");
+        when(backup.getName()).thenReturn("anthropic");
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (hedger != null) {
+            hedger.shutdown();
+        }
+    }
+
+    private GradingHedger hedger(boolean enabled, double maxRatio) {
+        hedger = new GradingHedger(meterRegistry, enabled, 0.95, Duration.ofMillis(50), maxRatio, 20, 0);
+        return hedger;
+    }
+
+    @Test
+    @DisplayName("Should hedge a slow call, return the backup answer and cancel the primary")
+    void grade_SlowPrimary_HedgeWinsAndPrimaryCancelled() throws Exception {
+        // given
+        CountDownLatch primaryCancelled = new CountDownLatch(1);
+
+        // when
+        GradingResult result = hedger(true, 1.0).grade(primary, backup, provider -> {
+            called.add(provider.getName());
+            if (provider == backup) {
+                return backupResult;
+            }
+            while (!CallScope.isCurrentCancelled()) {
+                sleep(5);
+            }
+            primaryCancelled.countDown();
+            throw new AIGradingException("Canceled");
+        });
+
+        // then
+        assertThat(result).isSameAs(backupResult);
+        assertThat(called).containsExactly("openai", "anthropic");
+        assertThat(primaryCancelled.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(meterRegistry.counter("ai.grading.hedges", "provider", "openai", "winner", "hedge").count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should not hedge a call that returns before the hedge delay")
+    void grade_FastPrimary_NoHedge() {
+        // when
+        GradingResult result = hedger(true, 1.0).grade(primary, backup, provider -> {
+            called.add(provider.getName());
+            return provider == primary ? primaryResult : backupResult;
+        });
+
+        // then
+        assertThat(result).isSameAs(primaryResult);
+        assertThat(called).containsExactly("openai");
+        assertThat(meterRegistry.find("ai.grading.hedges").counter()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should wait for the primary when the hedge budget is spent")
+    void grade_BudgetSpent_WaitsForPrimary() {
+        // when
+        GradingResult result = hedger(true, 0).grade(primary, backup, provider -> {
+            called.add(provider.getName());
+            sleep(150);
+            return provider == primary ? primaryResult : backupResult;
+        });
+
+        // then
+        assertThat(result).isSameAs(primaryResult);
+        assertThat(called).containsExactly("openai");
+        assertThat(meterRegistry.counter("ai.grading.hedges.throttled", "provider", "openai").count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should throw the last error when both calls fail")
+    void grade_BothFail_Throws() {
+        // when / then
+        assertThatThrownBy(() -> hedger(true, 1.0).grade(primary, backup, provider -> {
+            if (provider == primary) {
+                sleep(150);
+                throw new AIGradingException("openai down");
+            }
+            throw new AIGradingException("anthropic down");
+        }))
+                .isInstanceOf(AIGradingException.class)
+                .hasMessage("openai down");
+        assertThat(meterRegistry.counter("ai.grading.hedges", "provider", "openai", "winner", "none").count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should call only the primary on the caller's thread when disabled")
+    void grade_Disabled_CallsPrimaryOnly() {
+        // given
+        Thread caller = Thread.currentThread();
+
+        // when
+        GradingResult result = hedger(false, 1.0).grade(primary, backup, provider -> {
+            called.add(provider.getName());
+            assertThat(Thread.currentThread()).isSameAs(caller);
+            return primaryResult;
+        });
+
+        // then
+        assertThat(result).isSameAs(primaryResult);
+        assertThat(called).containsExactly("openai");
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
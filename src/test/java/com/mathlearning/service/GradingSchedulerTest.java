@@ -0,0 +1,220 @@
+package com.mathlearning.service;
+
+import com.mathlearning.exception.ServiceUnavailableException;
+import com.mathlearning.service.IGradingScheduler.Priority;
+import com.mathlearning.service.impl.AIGradingGuard;
+import com.mathlearning.service.impl.GradingSchedulerImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("GradingScheduler Unit Tests")
+class GradingSchedulerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private AIGradingGuard guard;
+    private GradingSchedulerImpl scheduler;
+    private CountDownLatch gate;
+    private List<String> order;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        gate = new CountDownLatch(1);
+        order = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    @AfterEach
+    void tearDown() {
+        gate.countDown();
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    /**
+     * Scheduler with one slot, so every further piece of work queues.
+     */
+    private GradingSchedulerImpl scheduler(MockEnvironment environment) {
+        guard = new AIGradingGuard(meterRegistry, 20, 10, 0.5, Duration.ofSeconds(30),
+                Duration.ofSeconds(30), 3, 32, Duration.ZERO, 1, 1, 1.5, 0.5, Duration.ofSeconds(5));
+        scheduler = new GradingSchedulerImpl(guard, meterRegistry, environment, Duration.ofSeconds(5));
+        return scheduler;
+    }
+
+    /**
+     * Takes the only slot until the gate opens.
+     */
+    private void holdSlot() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        scheduler.submit(Priority.BATCH, 99L, () -> {
+            started.countDown();
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private Runnable record(String name, CountDownLatch done) {
+        return () -> {
+            order.add(name);
+            done.countDown();
+        };
+    }
+
+    private double depth(String priority) {
+        return meterRegistry.get("grading.scheduler.queue.depth").tag("priority", priority).gauge().value();
+    }
+
+    @Test
+    @DisplayName("Should run work right away while a slot is free")
+    void call_SlotFree_RunsImmediately() {
+        // given
+        scheduler(new MockEnvironment());
+
+        // when
+        String result = scheduler.call(Priority.INTERACTIVE, 1L, () -> "graded");
+
+        // then
+        assertThat(result).isEqualTo("graded");
+        assertThat(meterRegistry.timer("grading.scheduler.wait", "priority", "interactive").count()).isEqualTo(1);
+        assertThat(meterRegistry.get("grading.scheduler.in.flight").gauge().value()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should let users take turns instead of running one user's uploads in a row")
+    void submit_ManyFromOneUser_Interleaved() throws InterruptedException {
+        // given
+        scheduler(new MockEnvironment());
+        holdSlot();
+        CountDownLatch done = new CountDownLatch(4);
+        scheduler.submit(Priority.BATCH, 1L, record("a1", done));
+        scheduler.submit(Priority.BATCH, 1L, record("a2", done));
+        scheduler.submit(Priority.BATCH, 1L, record("a3", done));
+        scheduler.submit(Priority.BATCH, 2L, record("b1", done));
+        assertThat(depth("batch")).isEqualTo(4);
+
+        // when
+        gate.countDown();
+
+        // then
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(order).containsExactly("a1", "b1", "a2", "a3");
+        assertThat(meterRegistry.timer("grading.scheduler.wait", "priority", "batch").count()).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("Should give a waiting interactive call the next slot ahead of queued batch work")
+    void call_InteractiveWaiting_RunsBeforeBatch() throws InterruptedException {
+        // given
+        scheduler(new MockEnvironment());
+        holdSlot();
+        CountDownLatch done = new CountDownLatch(3);
+        scheduler.submit(Priority.BATCH, 1L, record("batch", done));
+        scheduler.submit(Priority.BATCH, 1L, record("batch", done));
+        Thread.ofVirtual().start(() -> scheduler.call(Priority.INTERACTIVE, 2L, () -> {
+            record("interactive", done).run();
+            return null;
+        }));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (depth("interactive") < 1 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+
+        // when
+        gate.countDown();
+
+        // then
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(order).containsExactly("interactive", "batch", "batch");
+    }
+
+    @Test
+    @DisplayName("Should share capacity by weight without starving the lower class")
+    void submit_BatchAndRegrade_SharedByWeight() throws InterruptedException {
+        // given - batch weighs 4, regrade 1
+        scheduler(new MockEnvironment());
+        holdSlot();
+        CountDownLatch done = new CountDownLatch(8);
+        for (int i = 0; i < 6; i++) {
+            scheduler.submit(Priority.BATCH, (long) i, record("b", done));
+        }
+        scheduler.submit(Priority.REGRADE, 1L, record("r", done));
+        scheduler.submit(Priority.REGRADE, 2L, record("r", done));
+
+        // when
+        gate.countDown();
+
+        // then
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(order).containsExactly("b", "r", "b", "b", "b", "b", "r", "b");
+    }
+
+    @Test
+    @DisplayName("Should start queued work as soon as the guard raises its limit")
+    void submit_LimitRaised_DispatchesWithoutRelease() throws InterruptedException {
+        // given
+        scheduler(new MockEnvironment());
+        holdSlot();
+        CountDownLatch done = new CountDownLatch(1);
+        scheduler.submit(Priority.BATCH, 1L, record("queued", done));
+
+        // when - fast successful calls grow the limit while the first slot is still held
+        while (meterRegistry.get("ai.grading.concurrency.limit").gauge().value() < 2) {
+            guard.acquire().release(true);
+        }
+
+        // then
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(depth("batch")).isZero();
+    }
+
+    @Test
+    @DisplayName("Should reject work with Retry-After when its class's queue is full")
+    void submit_QueueFull_Rejected() throws InterruptedException {
+        // given
+        scheduler(new MockEnvironment().withProperty("app.grading.scheduler.batch.queue-capacity", "1"));
+        holdSlot();
+        scheduler.submit(Priority.BATCH, 1L, () -> {
+        });
+
+        // when / then
+        assertThatThrownBy(() -> scheduler.submit(Priority.BATCH, 2L, () -> {
+        }))
+                .isInstanceOfSatisfying(ServiceUnavailableException.class,
+                        e -> assertThat(e.getRetryAfter()).isEqualTo(Duration.ofSeconds(5)));
+        assertThat(meterRegistry.counter("grading.scheduler.rejected",
+                "priority", "batch", "reason", "queue-full").count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should give up on an interactive call that waits longer than its max wait")
+    void call_WaitTooLong_Rejected() throws InterruptedException {
+        // given
+        scheduler(new MockEnvironment().withProperty("app.grading.scheduler.interactive.max-wait", "50ms"));
+        holdSlot();
+
+        // when / then
+        assertThatThrownBy(() -> scheduler.call(Priority.INTERACTIVE, 1L, () -> "graded"))
+                .isInstanceOf(ServiceUnavailableException.class);
+        assertThat(meterRegistry.counter("grading.scheduler.rejected",
+                "priority", "interactive", "reason", "timeout").count()).isEqualTo(1);
+        assertThat(depth("interactive")).isZero();
+    }
+}
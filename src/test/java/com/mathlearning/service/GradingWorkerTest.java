@@ -0,0 +1,132 @@
+package com.mathlearning.service;
+
+import com.mathlearning.event.SubmissionQueuedEvent;
+import com.mathlearning.exception.ServiceUnavailableException;
+import com.mathlearning.repository.SubmissionRepository;
+import com.mathlearning.service.impl.GradingWorker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("GradingWorker Tests")
+class GradingWorkerTest {
+
+    @Mock
+    private ISubmissionService submissionService;
+
+    @Mock
+    private IGradingScheduler gradingScheduler;
+
+    @Mock
+    private SubmissionRepository submissionRepository;
+
+    private GradingWorker worker;
+
+    @BeforeEach
+    void setUp() {
+        // Runs submitted work on the caller's thread
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(2).run();
+            return null;
+        }).when(gradingScheduler).submit(any(), any(), any());
+        worker = new GradingWorker(submissionService, gradingScheduler, submissionRepository, 3,
+                Duration.ofMillis(10), Duration.ofMinutes(1), Duration.ofMinutes(10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        worker.shutdown();
+    }
+
+    private ServiceUnavailableException unavailable() {
+        return new ServiceUnavailableException("AI grading is temporarily unavailable", Duration.ofMillis(20), null);
+    }
+
+    @Test
+    @DisplayName("Should queue the submission again after the Retry-After when AI grading fails fast")
+    void onSubmissionQueued_GradingUnavailable_Requeues() {
+        // given
+        doThrow(unavailable()).doNothing().when(submissionService).gradePendingSubmission(7L);
+
+        // when
+        worker.onSubmissionQueued(new SubmissionQueuedEvent(7L, 1L));
+
+        // then
+        verify(submissionService, timeout(2000).times(2)).gradePendingSubmission(7L);
+        verify(gradingScheduler, times(2)).submit(eq(IGradingScheduler.Priority.BATCH), eq(1L), any());
+        verify(submissionRepository, never()).markFailed(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should mark the submission failed once the retries run out")
+    void onSubmissionQueued_StillUnavailable_FailsAfterMaxAttempts() {
+        // given
+        doThrow(unavailable()).when(submissionService).gradePendingSubmission(7L);
+
+        // when
+        worker.onSubmissionQueued(new SubmissionQueuedEvent(7L, 1L));
+
+        // then
+        verify(submissionRepository, timeout(2000)).markFailed(eq(7L), anyString());
+        verify(submissionService, times(3)).gradePendingSubmission(7L);
+    }
+
+    @Test
+    @DisplayName("Should release stale claims and queue pending submissions again after a restart")
+    void startRecovery_RowsLeftInFlight_RequeuedOnStartup() {
+        // given - the previous instance stopped with 7 claimed and 8 still queued
+        when(submissionRepository.releaseStaleClaims(any())).thenReturn(1);
+        when(submissionRepository.findPendingJobs(any(), any())).thenReturn(List.of(
+                new SubmissionQueuedEvent(7L, 1L), new SubmissionQueuedEvent(8L, 2L)));
+
+        // when
+        worker.startRecovery();
+
+        // then
+        verify(submissionService, timeout(2000)).gradePendingSubmission(7L);
+        verify(submissionService, timeout(2000)).gradePendingSubmission(8L);
+        verify(submissionRepository).releaseStaleClaims(
+                argThat(claimedBefore -> claimedBefore.isBefore(LocalDateTime.now().minusMinutes(9))));
+        verify(submissionRepository).findPendingJobs(
+                argThat(queuedBefore -> queuedBefore.isBefore(LocalDateTime.now().minusSeconds(59))), any());
+    }
+
+    @Test
+    @DisplayName("Should not queue a pending submission twice while it waits for a retry here")
+    void recover_SubmissionAwaitingRetry_NotQueuedAgain() {
+        // given - 7 failed fast and waits a minute for its retry
+        doThrow(new ServiceUnavailableException("AI grading is temporarily unavailable", Duration.ofMinutes(1), null))
+                .when(submissionService).gradePendingSubmission(7L);
+        worker.onSubmissionQueued(new SubmissionQueuedEvent(7L, 1L));
+        when(submissionRepository.findPendingJobs(any(), any())).thenReturn(List.of(
+                new SubmissionQueuedEvent(7L, 1L), new SubmissionQueuedEvent(8L, 2L)));
+
+        // when
+        worker.recover();
+
+        // then
+        verify(submissionService).gradePendingSubmission(7L);
+        verify(submissionService).gradePendingSubmission(8L);
+    }
+}
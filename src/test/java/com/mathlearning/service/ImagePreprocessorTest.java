@@ -0,0 +1,119 @@
+package com.mathlearning.service;
+
+import com.mathlearning.dto.ProcessedImage;
+import com.mathlearning.service.impl.ImagePreprocessorImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("ImagePreprocessor Unit Tests")
+class ImagePreprocessorTest {
+
+    private ImagePreprocessorImpl preprocessor;
+
+    @BeforeEach
+    void setUp() {
+        preprocessor = new ImagePreprocessorImpl();
+        ReflectionTestUtils.setField(preprocessor, "enabled", true);
+        ReflectionTestUtils.setField(preprocessor, "maxEdge", 800);
+        ReflectionTestUtils.setField(preprocessor, "jpegQuality", 0.8f);
+        ReflectionTestUtils.setField(preprocessor, "contrastStretch", true);
+    }
+
+    private MockMultipartFile png(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.LIGHT_GRAY);
+        graphics.fillRect(0, 0, width, height);
+        graphics.setColor(Color.DARK_GRAY);
+        graphics.drawString("x = 5", width / 2, height / 2);
+        graphics.dispose();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return new MockMultipartFile("image", "solution.png", "image/png", out.toByteArray());
+    }
+
+    @Test
+    @DisplayName("Should downsample large photos to the configured max edge as JPEG")
+    void preprocess_LargeImage_DownsampledJpeg() throws IOException {
+        // given
+        MockMultipartFile upload = png(4000, 3000);
+
+        // when
+        Optional<ProcessedImage> result = preprocessor.preprocess(upload);
+
+        // then
+        assertThat(result).isPresent();
+        assertThat(result.get().getContentType()).isEqualTo("image/jpeg");
+        assertThat(result.get().getFileName()).isEqualTo("solution.jpg");
+        assertThat(result.get().getWidth()).isEqualTo(800);
+        assertThat(result.get().getHeight()).isEqualTo(600);
+
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(result.get().getData()));
+        assertThat(decoded.getWidth()).isEqualTo(800);
+        assertThat(decoded.getRaster().getNumBands()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should keep the size of images already within the max edge")
+    void preprocess_SmallImage_NotUpscaled() throws IOException {
+        Optional<ProcessedImage> result = preprocessor.preprocess(png(300, 200));
+
+        assertThat(result).isPresent();
+        assertThat(result.get().getWidth()).isEqualTo(300);
+        assertThat(result.get().getHeight()).isEqualTo(200);
+    }
+
+    @Test
+    @DisplayName("Should put transparent areas on white rather than black")
+    void preprocess_TransparentPng_WhiteBackground() throws IOException {
+        // given - handwriting on a fully transparent background
+        BufferedImage image = new BufferedImage(400, 300, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.BLACK);
+        graphics.fillRect(150, 140, 100, 20);
+        graphics.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        MockMultipartFile upload = new MockMultipartFile("image", "export.png", "image/png", out.toByteArray());
+
+        // when
+        Optional<ProcessedImage> result = preprocessor.preprocess(upload);
+
+        // then
+        assertThat(result).isPresent();
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(result.get().getData()));
+        assertThat(decoded.getRaster().getSample(10, 10, 0)).isGreaterThan(240);
+        assertThat(decoded.getRaster().getSample(200, 150, 0)).isLessThan(15);
+    }
+
+    @Test
+    @DisplayName("Should fall back to the original for undecodable uploads")
+    void preprocess_NotAnImage_ReturnsEmpty() {
+        MockMultipartFile upload = new MockMultipartFile("image", "photo.heic", "image/heic", "not an image".getBytes());
+
+        assertThat(preprocessor.preprocess(upload)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should do nothing when disabled")
+    void preprocess_Disabled_ReturnsEmpty() throws IOException {
+        ReflectionTestUtils.setField(preprocessor, "enabled", false);
+
+        assertThat(preprocessor.preprocess(png(4000, 3000))).isEmpty();
+    }
+}
@@ -0,0 +1,97 @@
+package com.mathlearning.service;
+
+import com.mathlearning.dto.StoredObject;
+import com.mathlearning.exception.InvalidRequestException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("LocalFileStorageService Unit Tests")
+class LocalFileStorageServiceTest {
+
+    @TempDir
+    Path root;
+
+    private LocalFileStorageService storageService;
+
+    @BeforeEach
+    void setUp() {
+        storageService = new LocalFileStorageService(root.toString(), "http://localhost:8080/api/files/", true);
+    }
+
+    @Test
+    @DisplayName("Should write the object under a hash-prefix shard and return its URL")
+    void uploadObject_WritesShardedFile() throws IOException {
+        // given
+        byte[] content = "jpeg-bytes".getBytes();
+
+        // when
+        String url = storageService.uploadObject("cas/ab/abc123", new ByteArrayInputStream(content), content.length,
+                "image/jpeg");
+
+        // then
+        assertThat(url).isEqualTo("http://localhost:8080/api/files/cas/ab/abc123");
+        Path stored = storageService.pathFor("cas/ab/abc123");
+        assertThat(root.relativize(stored).getNameCount()).isEqualTo(4);
+        assertThat(root.relativize(stored).getName(0).toString()).matches("[0-9a-f]{2}");
+        assertThat(Files.readAllBytes(stored)).isEqualTo(content);
+        try (var files = Files.list(stored.getParent())) {
+            assertThat(files).containsExactly(stored); // no temp file left behind
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject a body shorter than the declared length")
+    void uploadObject_TruncatedBody_ThrowsAndCleansUp() {
+        assertThatThrownBy(() -> storageService.uploadObject("submissions/a.jpg",
+                new ByteArrayInputStream("short".getBytes()), 100, "image/jpeg"))
+                .isInstanceOf(IOException.class);
+
+        assertThat(Files.exists(storageService.pathFor("submissions/a.jpg"))).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should describe stored objects and report missing ones as empty")
+    void describeObject_ReturnsSize() throws IOException {
+        storageService.uploadObject("submissions/photo.png", new ByteArrayInputStream(new byte[42]), 42,
+                "image/png");
+
+        Optional<StoredObject> stored = storageService.describeObject("submissions/photo.png");
+
+        assertThat(stored).isPresent();
+        assertThat(stored.get().getContentLength()).isEqualTo(42);
+        assertThat(stored.get().getContentType()).isEqualTo("image/png");
+        assertThat(storageService.describeObject("submissions/missing.png")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should read an object back by its URL")
+    void readFile_StoredUrl_ReturnsContent() throws IOException {
+        byte[] content = "jpeg-bytes".getBytes();
+        String url = storageService.uploadObject("submissions/photo.jpg", new ByteArrayInputStream(content),
+                content.length, "image/jpeg");
+
+        assertThat(storageService.readFile(url)).isEqualTo(content);
+        assertThatThrownBy(() -> storageService.readFile("http://elsewhere.test/submissions/photo.jpg"))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    @DisplayName("Should refuse keys that escape the storage root")
+    void pathFor_TraversalKey_ThrowsException() {
+        assertThatThrownBy(() -> storageService.pathFor("../etc/passwd"))
+                .isInstanceOf(InvalidRequestException.class);
+        assertThatThrownBy(() -> storageService.pathFor("/etc/passwd"))
+                .isInstanceOf(InvalidRequestException.class);
+    }
+}
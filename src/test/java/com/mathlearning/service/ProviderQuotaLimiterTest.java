@@ -0,0 +1,205 @@
+package com.mathlearning.service;
+
+import com.mathlearning.exception.ServiceUnavailableException;
+import com.mathlearning.service.impl.ProviderQuotaLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ProviderQuotaLimiter Tests")
+@SuppressWarnings({ "unchecked", "rawtypes" })
+class ProviderQuotaLimiterTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ProviderQuotaLimiter quotaLimiter;
+
+    @BeforeEach
+    void setUp() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("app.ai.openai.quota.requests-per-minute", "500")
+                .withProperty("app.ai.openai.quota.tokens-per-minute", "30000")
+                .withProperty("app.ai.anthropic.quota.requests-per-minute", "50")
+                .withProperty("app.ai.anthropic.quota.tokens-per-minute", "40000")
+                .withProperty("app.ai.anthropic.quota.image-tokens", "1600");
+        quotaLimiter = new ProviderQuotaLimiter(redisTemplate, meterRegistry, environment, true,
+                Duration.ofSeconds(2), Duration.ofSeconds(5));
+    }
+
+    private void respond(int status, Map<String, String> headers) throws IOException {
+        respond("openai", status, headers);
+    }
+
+    private void respond(String provider, int status, Map<String, String> headers) throws IOException {
+        OkHttpClient client = new OkHttpClient.Builder()
+                .addInterceptor(quotaLimiter.interceptor(provider))
+                .addInterceptor(chain -> {
+                    Response.Builder response = new Response.Builder()
+                            .request(chain.request())
+                            .protocol(Protocol.HTTP_1_1)
+                            .code(status)
+                            .message("status " + status)
+                            .body(ResponseBody.create("{}", MediaType.get("application/json")));
+                    headers.forEach(response::header);
+                    return response.build();
+                })
+                .build();
+        client.newCall(new Request.Builder().url("https://api.openai.test/v1/chat/completions").build())
+                .execute()
+                .close();
+    }
+
+    private double outcomes(String provider, String outcome) {
+        return meterRegistry.counter("ai.quota.requests", "provider", provider, "outcome", outcome).count();
+    }
+
+    @Test
+    @DisplayName("Should take one request and the estimated tokens plus the image from the shared buckets")
+    void acquire_Available_TakesRequestAndTokens() {
+        // given
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(), any(), any()))
+                .thenReturn(List.of(1L, 0L));
+
+        // when
+        quotaLimiter.acquire("anthropic", 700, true);
+
+        // then
+        verify(redisTemplate).execute(any(RedisScript.class),
+                eq(List.of("ai-quota:{anthropic}", "ai-quota:{anthropic}:paused")),
+                eq("50"), eq("40000"), eq("2300"));
+        assertThat(outcomes("anthropic", "granted")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should wait for quota that frees up within the max wait")
+    void acquire_ShortWait_Queues() {
+        // given
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(), any(), any()))
+                .thenReturn(List.of(0L, 20L))
+                .thenReturn(List.of(1L, 0L));
+
+        // when
+        quotaLimiter.acquire("openai", 700, false);
+
+        // then
+        assertThat(outcomes("openai", "queued")).isEqualTo(1);
+        assertThat(meterRegistry.timer("ai.quota.wait").count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should shed with Retry-After when the quota frees up too late")
+    void acquire_LongWait_Sheds() {
+        // given
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(), any(), any()))
+                .thenReturn(List.of(0L, 15_000L));
+
+        // when / then
+        assertThatThrownBy(() -> quotaLimiter.acquire("openai", 700, false))
+                .isInstanceOfSatisfying(ServiceUnavailableException.class,
+                        e -> assertThat(e.getRetryAfter()).isEqualTo(Duration.ofSeconds(15)));
+        assertThat(outcomes("openai", "shed")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should allow calls when Redis is unavailable")
+    void acquire_RedisDown_FailsOpen() {
+        // given
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(), any(), any()))
+                .thenThrow(new RedisConnectionFailureException("down"));
+
+        // when
+        quotaLimiter.acquire("openai", 700, false);
+
+        // then
+        assertThat(outcomes("openai", "error")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should not limit a provider until its limits are known")
+    void acquire_UnknownLimits_NotEnforcedUntilCalibrated() throws IOException {
+        // given - no limits configured for the provider
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(), any(), any()))
+                .thenReturn(List.of(1L, 0L));
+
+        // when
+        quotaLimiter.acquire("custom", 700, false);
+        respond("custom", 200, Map.of(
+                "x-ratelimit-limit-requests", "5000",
+                "x-ratelimit-limit-tokens", "800000"));
+        quotaLimiter.acquire("custom", 700, false);
+
+        // then
+        assertThat(outcomes("custom", "uncalibrated")).isEqualTo(1);
+        assertThat(outcomes("custom", "granted")).isEqualTo(1);
+        verify(redisTemplate).execute(any(RedisScript.class),
+                eq(List.of("ai-quota:{custom}", "ai-quota:{custom}:paused")),
+                eq("5000"), eq("800000"), eq("700"));
+    }
+
+    @Test
+    @DisplayName("Should adopt the limits and remaining counts reported by the provider")
+    void interceptor_RateLimitHeaders_Calibrates() throws IOException {
+        // when
+        respond(200, Map.of(
+                "x-ratelimit-limit-requests", "5000",
+                "x-ratelimit-limit-tokens", "800000",
+                "x-ratelimit-remaining-requests", "4999",
+                "x-ratelimit-remaining-tokens", "799000"));
+
+        // then
+        assertThat(meterRegistry.get("ai.quota.limit").tags("provider", "openai", "dimension", "requests")
+                .gauge().value()).isEqualTo(5000);
+        assertThat(meterRegistry.get("ai.quota.limit").tags("provider", "openai", "dimension", "tokens")
+                .gauge().value()).isEqualTo(800000);
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of("ai-quota:{openai}")),
+                eq("5000"), eq("800000"), eq("4999"), eq("799000"));
+    }
+
+    @Test
+    @DisplayName("Should pause the provider for its Retry-After on a 429")
+    void interceptor_TooManyRequests_PausesProvider() throws IOException {
+        // given
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+
+        // when
+        respond(429, Map.of("retry-after", "20"));
+
+        // then
+        verify(valueOperations).set("ai-quota:{openai}:paused", "1", Duration.ofSeconds(20));
+        assertThat(meterRegistry.counter("ai.quota.rate.limited", "provider", "openai").count()).isEqualTo(1);
+    }
+}
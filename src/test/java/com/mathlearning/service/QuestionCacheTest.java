@@ -0,0 +1,176 @@
+package com.mathlearning.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mathlearning.model.Question;
+import com.mathlearning.repository.QuestionRepository;
+import com.mathlearning.service.impl.QuestionCacheImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("QuestionCache Unit Tests")
+class QuestionCacheTest {
+
+    @Mock
+    private QuestionRepository questionRepository;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @Mock
+    private RedisMessageListenerContainer listenerContainer;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private SimpleMeterRegistry meterRegistry;
+    private QuestionCacheImpl questionCache;
+
+    private Question algebraMedium;
+    private Question geometryEasy;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        questionCache = new QuestionCacheImpl(questionRepository, redisTemplate, objectMapper, listenerContainer,
+                meterRegistry, 32, 1000, Duration.ofMinutes(10), Duration.ofHours(6));
+
+        algebraMedium = Question.builder().id(1L).topic("Algebra").gradeLevel(8)
+                .questionText("Solve for x: 2x + 5 = 15").correctAnswer("5")
+                .difficulty(Question.Difficulty.MEDIUM).build();
+        geometryEasy = Question.builder().id(2L).topic("Geometry").gradeLevel(8)
+                .questionText("Find the area of a square with side 3").correctAnswer("9")
+                .difficulty(Question.Difficulty.EASY).build();
+    }
+
+    @Test
+    @DisplayName("Should load a grade once and serve every index from the local tier")
+    void findByGradeLevel_LocalTier_QueriesDatabaseOnce() throws Exception {
+        // given
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get("questions:generation")).thenReturn(null);
+        when(valueOperations.get("questions:g0:grade:8")).thenReturn(null);
+        when(questionRepository.findByGradeLevel(8)).thenReturn(List.of(algebraMedium, geometryEasy));
+
+        // when
+        List<Question> all = questionCache.findByGradeLevel(8);
+        List<Question> algebra = questionCache.findByGradeLevelAndTopic(8, "Algebra");
+        List<Question> easy = questionCache.findByGradeLevelAndDifficulty(8, Question.Difficulty.EASY);
+        List<Question> hard = questionCache.findByGradeLevelAndDifficulty(8, Question.Difficulty.HARD);
+
+        // then
+        assertThat(all).containsExactly(algebraMedium, geometryEasy);
+        assertThat(algebra).containsExactly(algebraMedium);
+        assertThat(easy).containsExactly(geometryEasy);
+        assertThat(hard).isEmpty();
+        verify(questionRepository, times(1)).findByGradeLevel(8);
+        verify(valueOperations).set(eq("questions:g0:grade:8"), anyString(), eq(Duration.ofHours(6)));
+        assertThat(meterRegistry.counter("question.cache.requests", "tier", "local", "result", "hit").count())
+                .isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should use the shared tier before the database")
+    void findById_RedisHit_SkipsDatabase() throws Exception {
+        // given
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get("questions:generation")).thenReturn("3");
+        when(valueOperations.get("questions:g3:id:1")).thenReturn(objectMapper.writeValueAsString(algebraMedium));
+
+        // when
+        Optional<Question> found = questionCache.findById(1L);
+
+        // then
+        assertThat(found).isPresent();
+        assertThat(found.get().getQuestionText()).isEqualTo("Solve for x: 2x + 5 = 15");
+        verify(questionRepository, never()).findById(any());
+        assertThat(meterRegistry.counter("question.cache.requests", "tier", "redis", "result", "hit").count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should fall back to the database when Redis is unavailable")
+    void findById_RedisDown_LoadsFromDatabase() {
+        // given
+        when(redisTemplate.opsForValue()).thenThrow(new RedisConnectionFailureException("down"));
+        when(questionRepository.findById(1L)).thenReturn(Optional.of(algebraMedium));
+
+        // when
+        Optional<Question> found = questionCache.findById(1L);
+
+        // then
+        assertThat(found).contains(algebraMedium);
+    }
+
+    @Test
+    @DisplayName("Should not cache missing questions")
+    void findById_Missing_NotCached() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(questionRepository.findById(99L)).thenReturn(Optional.empty());
+
+        assertThat(questionCache.findById(99L)).isEmpty();
+        assertThat(questionCache.findById(99L)).isEmpty();
+
+        verify(questionRepository, times(2)).findById(99L);
+        verify(valueOperations, never()).set(anyString(), anyString(), any(Duration.class));
+    }
+
+    @Test
+    @DisplayName("Should bump the generation, broadcast and clear the local tier on invalidation")
+    void invalidateAll_BroadcastsAndClearsLocal() {
+        // given
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(questionRepository.findByGradeLevel(8)).thenReturn(List.of(algebraMedium));
+        when(valueOperations.increment("questions:generation")).thenReturn(4L);
+        questionCache.findByGradeLevel(8);
+
+        // when
+        questionCache.invalidateAll();
+        questionCache.findByGradeLevel(8);
+
+        // then
+        verify(redisTemplate).convertAndSend("questions:invalidate", "4");
+        verify(questionRepository, times(2)).findByGradeLevel(8);
+    }
+
+    @Test
+    @DisplayName("Should clear the local tier when another node invalidates")
+    void onMessage_ClearsLocalTier() {
+        // given
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(questionRepository.findByGradeLevel(8)).thenReturn(List.of(algebraMedium));
+        questionCache.findByGradeLevel(8);
+
+        // when
+        questionCache.onMessage(new DefaultMessage("questions:invalidate".getBytes(), "5".getBytes()), null);
+        questionCache.findByGradeLevel(8);
+
+        // then
+        verify(questionRepository, times(2)).findByGradeLevel(8);
+        assertThat(meterRegistry.counter("question.cache.invalidations").count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,122 @@
+package com.mathlearning.service;
+
+import com.mathlearning.dto.DueReviewDto;
+import com.mathlearning.exception.ResourceNotFoundException;
+import com.mathlearning.model.MistakeNotebook;
+import com.mathlearning.model.Question;
+import com.mathlearning.model.Submission;
+import com.mathlearning.repository.MistakeNotebookRepository;
+import com.mathlearning.service.impl.ReviewSchedulerImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ReviewScheduler Unit Tests")
+class ReviewSchedulerTest {
+
+    @Mock
+    private MistakeNotebookRepository mistakeNotebookRepository;
+
+    @InjectMocks
+    private ReviewSchedulerImpl reviewScheduler;
+
+    private MistakeNotebook mistake;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(reviewScheduler, "retireAfterDays", 180);
+
+        Question question = Question.builder().id(1L).questionText("What is 2+2?").topic("Addition").build();
+        mistake = MistakeNotebook.builder()
+                .id(3L)
+                .submission(Submission.builder().id(9L).question(question).build())
+                .reviewed(false)
+                .dueAt(LocalDateTime.now().minusDays(1))
+                .build();
+    }
+
+    private DueReviewDto review(int quality) {
+        when(mistakeNotebookRepository.findForReview(3L, 1L)).thenReturn(Optional.of(mistake));
+        return reviewScheduler.recordReview(1L, 3L, quality);
+    }
+
+    @Test
+    @DisplayName("Should schedule 1, 6 and then ease-scaled intervals for good recalls")
+    void recordReview_GoodRecalls_GrowInterval() {
+        // when
+        DueReviewDto first = review(4);
+        DueReviewDto second = review(4);
+        DueReviewDto third = review(4);
+
+        // then - quality 4 keeps the ease factor at 2.5
+        assertThat(first.getIntervalDays()).isEqualTo(1);
+        assertThat(second.getIntervalDays()).isEqualTo(6);
+        assertThat(third.getIntervalDays()).isEqualTo(15);
+        assertThat(third.getRepetitions()).isEqualTo(3);
+        assertThat(third.getEaseFactor()).isCloseTo(2.5, within(1e-9));
+        assertThat(mistake.getDueAt()).isAfter(LocalDateTime.now().plusDays(14));
+        assertThat(third.getQuestionId()).isEqualTo(1L);
+    }
+
+    @Test
+    @DisplayName("Should restart the sequence and lower the ease factor on a failed recall")
+    void recordReview_FailedRecall_Resets() {
+        // given
+        mistake.setRepetitions(4);
+        mistake.setIntervalDays(40);
+
+        // when
+        DueReviewDto result = review(1);
+
+        // then
+        assertThat(result.getIntervalDays()).isEqualTo(1);
+        assertThat(result.getRepetitions()).isZero();
+        assertThat(result.getEaseFactor()).isCloseTo(1.96, within(1e-9));
+        assertThat(mistake.getLastReviewedAt()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Should never drop the ease factor below 1.3")
+    void recordReview_RepeatedFailures_EaseFloor() {
+        mistake.setEaseFactor(1.4);
+
+        DueReviewDto result = review(0);
+
+        assertThat(result.getEaseFactor()).isEqualTo(1.3);
+    }
+
+    @Test
+    @DisplayName("Should retire a mistake once its interval reaches the threshold")
+    void recordReview_LongInterval_Retires() {
+        mistake.setRepetitions(5);
+        mistake.setIntervalDays(100);
+
+        DueReviewDto result = review(5);
+
+        assertThat(result.getIntervalDays()).isEqualTo(250);
+        assertThat(mistake.getReviewed()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should throw when the mistake does not belong to the user")
+    void recordReview_OtherUsersMistake_ThrowsNotFound() {
+        when(mistakeNotebookRepository.findForReview(3L, 2L)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> reviewScheduler.recordReview(2L, 3L, 4))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+}
@@ -0,0 +1,135 @@
+package com.mathlearning.service;
+
+import com.mathlearning.dto.GradingResult;
+import com.mathlearning.model.Question;
+import com.mathlearning.service.impl.RuleBasedPreGrader;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("RuleBasedPreGrader Unit Tests")
+class RuleBasedPreGraderTest {
+
+    private RuleBasedPreGrader preGrader;
+
+    @BeforeEach
+    void setUp() {
+        preGrader = new RuleBasedPreGrader();
+        ReflectionTestUtils.setField(preGrader, "enabled", true);
+    }
+
+    private Question question(String correctAnswer) {
+        return Question.builder()
+                .id(1L)
+                .topic("Algebra")
+                .gradeLevel(8)
+                .questionText("Test question")
+                .correctAnswer(correctAnswer)
+                .solutionSteps(List.of("Step 1", "Final Answer: " + correctAnswer))
+                .difficulty(Question.Difficulty.EASY)
+                .build();
+    }
+
+    @ParameterizedTest(name = "{1} is equivalent to {0}")
+    @CsvSource(delimiter = '|', value = {
+            "3/4 | 0.75",
+            "3/4 | 3 / 4",
+            "10 | 10.0",
+            "-1 | −1",
+            "x = 5 | 5",
+            "x = 5 | x=5",
+            "5x | 5x",
+            "m = 2 | 2",
+            "f(5) = 13 | 13",
+            "20 cm² | 20 cm^2",
+            "20 cm² | 20 cm2",
+            "20 cm² | 20cm2",
+            "5 cm | 5cm",
+            "(x + 3)(x - 3) | (x - 3)(x + 3)",
+            "(x + 3)(x - 3) | (x+3)*(x-3)",
+            "x = 2 or x = 3 | x = 3 or x = 2",
+            "x = 2 or x = 3 | 2, 3",
+            "3⁵ or 243 | 243",
+            "3⁵ or 243 | 3^5",
+            "C ≈ 43.96 cm | 43.96 cm"
+    })
+    void tryGrade_EquivalentAnswer_MarkedCorrect(String correctAnswer, String answer) {
+        Optional<GradingResult> result = preGrader.tryGrade(question(correctAnswer), answer);
+
+        assertThat(result).isPresent();
+        assertThat(result.get().getCorrect()).isTrue();
+        assertThat(result.get().getScore()).isEqualByComparingTo(BigDecimal.TEN);
+        assertThat(result.get().getAiProvider()).isEqualTo("RULES");
+    }
+
+    @ParameterizedTest(name = "{1} is not equivalent to {0}")
+    @CsvSource(delimiter = '|', value = {
+            "3/4 | 2/3",
+            "x = 5 | 6",
+            "5x | 6x",
+            "(x + 3)(x - 3) | x^2 - 9",
+            "(x + 3)(x - 3) | (x + 3)(x + 3)",
+            "x = 2 or x = 3 | x = 2",
+            "3⁵ or 243 | 242"
+    })
+    void tryGrade_WrongAnswer_MarkedIncorrect(String correctAnswer, String answer) {
+        Optional<GradingResult> result = preGrader.tryGrade(question(correctAnswer), answer);
+
+        assertThat(result).isPresent();
+        assertThat(result.get().getCorrect()).isFalse();
+        assertThat(result.get().getScore()).isEqualByComparingTo(BigDecimal.ZERO);
+    }
+
+    @ParameterizedTest(name = "{1} is left to the AI for {0}")
+    @CsvSource(delimiter = '|', value = {
+            "3/4 | 12/16",
+            "3⁵ or 243 | 3^2 * 3^3",
+            "20 cm² | 0.002 m^2",
+            "20 cm² | 20 c m",
+            "C ≈ 43.96 cm | 43.98 cm",
+            "x = 5 | five",
+            "10 | √100"
+    })
+    void tryGrade_AmbiguousAnswer_ReturnsEmpty(String correctAnswer, String answer) {
+        assertThat(preGrader.tryGrade(question(correctAnswer), answer)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should accept value without unit but deduct a point")
+    void tryGrade_MissingUnit_CorrectWithReminder() {
+        Optional<GradingResult> result = preGrader.tryGrade(question("20 cm²"), "20");
+
+        assertThat(result).isPresent();
+        assertThat(result.get().getCorrect()).isTrue();
+        assertThat(result.get().getScore()).isEqualByComparingTo(BigDecimal.valueOf(9));
+        assertThat(result.get().getFeedback()).contains("cm^2");
+    }
+
+    @Test
+    @DisplayName("Should use the question's solution steps in the result")
+    void tryGrade_UsesSolutionSteps() {
+        Question question = question("3/4");
+
+        Optional<GradingResult> result = preGrader.tryGrade(question, "3/4");
+
+        assertThat(result).isPresent();
+        assertThat(result.get().getCorrectSteps()).isEqualTo(question.getSolutionSteps());
+        assertThat(result.get().getTopicTags()).containsExactly("Algebra");
+    }
+
+    @Test
+    @DisplayName("Should not grade when no answer is typed")
+    void tryGrade_NoAnswer_ReturnsEmpty() {
+        assertThat(preGrader.tryGrade(question("3/4"), null)).isEmpty();
+        assertThat(preGrader.tryGrade(question("3/4"), "  ")).isEmpty();
+    }
+}
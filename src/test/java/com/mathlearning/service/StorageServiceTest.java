@@ -0,0 +1,177 @@
+package com.mathlearning.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ServiceClientConfiguration;
+import software.amazon.awssdk.services.s3.model.HeadBucketRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("StorageService Tests")
+class StorageServiceTest {
+
+    @Mock
+    private S3Client s3Client;
+
+    @Mock
+    private S3AsyncClient s3AsyncClient;
+
+    @Mock
+    private S3Presigner s3Presigner;
+
+    private final ExecutorService uploadExecutor = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "storage-upload-test"));
+    private final ByteArrayOutputStream uploaded = new ByteArrayOutputStream();
+    private StorageService storageService;
+
+    @BeforeEach
+    void setUp() {
+        storageService = new StorageService(s3Client, s3AsyncClient, uploadExecutor, s3Presigner);
+        ReflectionTestUtils.setField(storageService, "bucketName", "mathlearning");
+    }
+
+    @AfterEach
+    void tearDown() {
+        uploadExecutor.shutdownNow();
+    }
+
+    private void storageAccepts() {
+        when(s3Client.serviceClientConfiguration()).thenReturn(S3ServiceClientConfiguration.builder()
+                .endpointOverride(URI.create("http://minio:9000"))
+                .build());
+        // Drains the body the way the SDK does, one requested chunk at a time
+        when(s3AsyncClient.putObject(any(PutObjectRequest.class), any(AsyncRequestBody.class)))
+                .thenAnswer(invocation -> {
+                    AsyncRequestBody body = invocation.getArgument(1);
+                    CompletableFuture<PutObjectResponse> done = new CompletableFuture<>();
+                    body.subscribe(new Subscriber<ByteBuffer>() {
+                        private Subscription subscription;
+
+                        @Override
+                        public void onSubscribe(Subscription subscription) {
+                            this.subscription = subscription;
+                            subscription.request(1);
+                        }
+
+                        @Override
+                        public void onNext(ByteBuffer chunk) {
+                            byte[] bytes = new byte[chunk.remaining()];
+                            chunk.get(bytes);
+                            uploaded.write(bytes, 0, bytes.length);
+                            subscription.request(1);
+                        }
+
+                        @Override
+                        public void onError(Throwable error) {
+                            done.completeExceptionally(error);
+                        }
+
+                        @Override
+                        public void onComplete() {
+                            done.complete(PutObjectResponse.builder().build());
+                        }
+                    });
+                    return done;
+                });
+    }
+
+    @Test
+    @DisplayName("Should stream the upload through the async client with its length, reading on the upload executor")
+    void uploadFile_LargeImage_StreamedOnExecutor() throws IOException {
+        // given - above the 8MB multipart threshold
+        byte[] content = new byte[9 * 1024 * 1024];
+        new Random(42).nextBytes(content);
+        Set<String> readers = ConcurrentHashMap.newKeySet();
+        InputStream stream = new FilterInputStream(new ByteArrayInputStream(content)) {
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                readers.add(Thread.currentThread().getName());
+                return super.read(buffer, offset, length);
+            }
+        };
+        storageAccepts();
+
+        // when
+        String url = storageService.uploadFile(stream, content.length, "image/jpeg", "submissions", "photo.jpg");
+
+        // then
+        assertThat(url).startsWith("http://minio:9000/mathlearning/submissions/").endsWith("-photo.jpg");
+        assertThat(uploaded.toByteArray()).isEqualTo(content);
+        assertThat(readers).containsOnly("storage-upload-test");
+        verify(s3AsyncClient).putObject(
+                argThat((PutObjectRequest request) -> request.contentLength() == content.length
+                        && "image/jpeg".equals(request.contentType())
+                        && "mathlearning".equals(request.bucket())),
+                argThat((AsyncRequestBody body) -> body.contentLength().equals(Optional.of((long) content.length))));
+    }
+
+    @Test
+    @DisplayName("Should check the bucket once, at the first upload when storage was down at startup")
+    void uploadFile_BucketCheckedOnce() throws IOException {
+        // given
+        when(s3Client.headBucket(any(HeadBucketRequest.class)))
+                .thenThrow(SdkClientException.create("storage unreachable"))
+                .thenReturn(null);
+        storageAccepts();
+        storageService.verifyBucketOnStartup();
+
+        // when
+        storageService.uploadFile(new ByteArrayInputStream(new byte[16]), 16, "image/jpeg", "submissions", "a.jpg");
+        storageService.uploadFile(new ByteArrayInputStream(new byte[16]), 16, "image/jpeg", "submissions", "b.jpg");
+
+        // then - the failed startup check and the first upload's retry, none after
+        verify(s3Client, times(2)).headBucket(any(HeadBucketRequest.class));
+    }
+
+    @Test
+    @DisplayName("Should report a failed upload as an IOException")
+    void uploadObject_UploadFails_ThrowsIOException() {
+        // given
+        storageService.ensureBucketExists();
+        when(s3AsyncClient.putObject(any(PutObjectRequest.class), any(AsyncRequestBody.class)))
+                .thenReturn(CompletableFuture.failedFuture(SdkClientException.create("connection reset")));
+
+        // when / then
+        assertThatThrownBy(() -> storageService.uploadObject("cas/ab/abc", new ByteArrayInputStream(new byte[4]), 4,
+                "image/jpeg"))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("cas/ab/abc");
+    }
+}
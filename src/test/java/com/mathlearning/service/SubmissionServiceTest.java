@@ -1,27 +1,54 @@
 package com.mathlearning.service;
 
+import com.mathlearning.dto.CachedGrading;
+import com.mathlearning.dto.CursorPage;
 import com.mathlearning.dto.GradingResult;
+import com.mathlearning.dto.PresignedUploadResponse;
+import com.mathlearning.dto.ProcessedImage;
+import com.mathlearning.dto.StoredObject;
 import com.mathlearning.dto.SubmissionDto;
+import com.mathlearning.dto.SubmissionJobResponse;
 import com.mathlearning.dto.SubmissionResponse;
+import com.mathlearning.dto.SubmissionSummaryDto;
 import com.mathlearning.exception.InvalidRequestException;
 import com.mathlearning.exception.ResourceNotFoundException;
+import com.mathlearning.exception.ServiceUnavailableException;
+import com.mathlearning.event.SubmissionQueuedEvent;
 import com.mathlearning.model.*;
 import com.mathlearning.repository.*;
+import com.mathlearning.service.impl.SubmissionPhases;
 import com.mathlearning.service.impl.SubmissionServiceImpl;
+import com.mathlearning.util.ContentHash;
+import com.mathlearning.util.KeysetCursor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -34,7 +61,7 @@ class SubmissionServiceTest {
         @Mock
         private SubmissionRepository submissionRepository;
         @Mock
-        private QuestionRepository questionRepository;
+        private IQuestionCache questionCache;
         @Mock
         private UserRepository userRepository;
         @Mock
@@ -44,8 +71,25 @@ class SubmissionServiceTest {
         @Mock
         private IAIGradingService aiGradingService;
         @Mock
+        private IGradingScheduler gradingScheduler;
+        @Mock
+        private IImagePreprocessor imagePreprocessor;
+        @Mock
         private IStorageService storageService;
         @Mock
+        private IContentAddressedStorage contentStorage;
+        @Mock
+        private IAnswerPreGrader answerPreGrader;
+        @Mock
+        private IGradingResultCache gradingResultCache;
+        @Mock
+        private ApplicationEventPublisher eventPublisher;
+
+        private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        @Spy
+        private SubmissionPhases phases = new SubmissionPhases(transactionManager, meterRegistry);
+        @Mock
         private MultipartFile image;
 
         @InjectMocks
@@ -53,11 +97,20 @@ class SubmissionServiceTest {
 
         private User testUser;
         private Question testQuestion;
-        private UserProgress testProgress;
+        private UserProgressRepository.ProgressSnapshot testProgress;
         private GradingResult gradingResult;
 
         @BeforeEach
         void setUp() {
+                ReflectionTestUtils.setField(submissionService, "defaultPageSize", 20);
+                ReflectionTestUtils.setField(submissionService, "maxPageSize", 100);
+                ReflectionTestUtils.setField(submissionService, "directUploadMaxSize", DataSize.ofMegabytes(10));
+                ReflectionTestUtils.setField(submissionService, "directUploadContentTypes",
+                                Set.of("image/jpeg", "image/png"));
+                // Admits every call straight away
+                lenient().when(gradingScheduler.call(any(), any(), any()))
+                                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(2).get());
+
                 testUser = User.builder()
                                 .id(1L)
                                 .email("test@example.com")
@@ -73,14 +126,22 @@ class SubmissionServiceTest {
                                 .difficulty(Question.Difficulty.EASY)
                                 .build();
 
-                testProgress = UserProgress.builder()
+                testProgress = new UserProgressRepository.ProgressSnapshot() {
+                        @Override
+                        public Integer getTotalXp() {
+                                return 195;
+                        }
 
-                                .userId(1L)
-                                .user(testUser)
-                                .totalXp(100)
-                                .currentStreak(5)
-                                .longestStreak(10)
-                                .build();
+                        @Override
+                        public Integer getCurrentStreak() {
+                                return 5;
+                        }
+
+                        @Override
+                        public Integer getLongestStreak() {
+                                return 10;
+                        }
+                };
 
                 gradingResult = GradingResult.builder()
                                 .score(BigDecimal.valueOf(9.5))
@@ -99,7 +160,8 @@ class SubmissionServiceTest {
                 // given
                 when(image.isEmpty()).thenReturn(false);
                 when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
-                when(questionRepository.findById(1L)).thenReturn(Optional.of(testQuestion));
+                when(questionCache.findById(1L)).thenReturn(Optional.of(testQuestion));
+                when(image.getInputStream()).thenReturn(new ByteArrayInputStream("photo".getBytes()));
                 when(storageService.uploadFile(any(), anyString())).thenReturn("https://storage.com/image.jpg");
                 when(aiGradingService.gradeSubmission(anyString(), anyString(), anyString(), anyInt()))
                                 .thenReturn(gradingResult);
@@ -108,7 +170,8 @@ class SubmissionServiceTest {
                         sub.setId(1L);
                         return sub;
                 });
-                when(userProgressRepository.findByUserId(1L)).thenReturn(Optional.of(testProgress));
+                when(userProgressRepository.applySubmission(eq(1L), anyInt(), anyBoolean(), any(LocalDate.class)))
+                                .thenReturn(testProgress);
 
                 // when
                 SubmissionResponse response = submissionService.createSubmission(1L, 1L, image);
@@ -119,12 +182,130 @@ class SubmissionServiceTest {
                 assertThat(response.getScore()).isEqualByComparingTo(BigDecimal.valueOf(9.5));
                 assertThat(response.getCorrect()).isTrue();
                 assertThat(response.getXpEarned()).isGreaterThan(0);
+                assertThat(response.getTotalXp()).isEqualTo(195);
 
+                verify(gradingScheduler).call(eq(IGradingScheduler.Priority.INTERACTIVE), eq(1L), any());
                 verify(submissionRepository).save(any(Submission.class));
-                verify(userProgressRepository).save(any(UserProgress.class));
+                verify(userProgressRepository).applySubmission(eq(1L), anyInt(), anyBoolean(), any(LocalDate.class));
                 verify(mistakeNotebookRepository, never()).save(any(MistakeNotebook.class)); // Correct answer
         }
 
+        @Test
+        @DisplayName("Should store and grade the preprocessed image when available")
+        void createSubmission_PreprocessedImage_UploadsProcessedCopy() throws java.io.IOException {
+                // given
+                byte[] processed = "small-jpeg".getBytes();
+                when(image.isEmpty()).thenReturn(false);
+                when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+                when(questionCache.findById(1L)).thenReturn(Optional.of(testQuestion));
+                when(image.getInputStream()).thenReturn(new ByteArrayInputStream("photo".getBytes()));
+                when(imagePreprocessor.preprocess(image)).thenReturn(Optional.of(ProcessedImage.builder()
+                                .data(processed)
+                                .contentType("image/jpeg")
+                                .fileName("photo.jpg")
+                                .build()));
+                when(storageService.uploadFile(any(java.io.InputStream.class), eq((long) processed.length),
+                                eq("image/jpeg"), eq("submissions"), eq("photo.jpg")))
+                                .thenReturn("https://storage.com/photo.jpg");
+                when(aiGradingService.gradeSubmission(eq("https://storage.com/photo.jpg"), anyString(), anyString(),
+                                anyInt())).thenReturn(gradingResult);
+                when(submissionRepository.save(any(Submission.class))).thenAnswer(invocation -> invocation.getArgument(0));
+                when(userProgressRepository.applySubmission(eq(1L), anyInt(), anyBoolean(), any(LocalDate.class)))
+                                .thenReturn(testProgress);
+
+                // when
+                SubmissionResponse response = submissionService.createSubmission(1L, 1L, image);
+
+                // then
+                assertThat(response.getCorrect()).isTrue();
+                verify(storageService, never()).uploadFile(any(MultipartFile.class), anyString());
+        }
+
+        @Test
+        @DisplayName("Should not hold a transaction while uploading and grading")
+        void createSubmission_GradesOutsideTransaction() throws java.io.IOException {
+                // given
+                when(image.isEmpty()).thenReturn(false);
+                when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+                when(questionCache.findById(1L)).thenReturn(Optional.of(testQuestion));
+                when(image.getInputStream()).thenReturn(new ByteArrayInputStream("photo".getBytes()));
+                when(storageService.uploadFile(any(), anyString())).thenReturn("https://storage.com/image.jpg");
+                when(aiGradingService.gradeSubmission(anyString(), anyString(), anyString(), anyInt()))
+                                .thenReturn(gradingResult);
+                when(submissionRepository.save(any(Submission.class))).thenAnswer(invocation -> invocation.getArgument(0));
+                when(userProgressRepository.applySubmission(eq(1L), anyInt(), anyBoolean(), any(LocalDate.class)))
+                                .thenReturn(testProgress);
+
+                // when
+                submissionService.createSubmission(1L, 1L, image);
+
+                // then
+                InOrder inOrder = inOrder(transactionManager, storageService, aiGradingService, submissionRepository);
+                inOrder.verify(transactionManager).commit(any());
+                inOrder.verify(storageService).uploadFile(any(), anyString());
+                inOrder.verify(aiGradingService).gradeSubmission(anyString(), anyString(), anyString(), anyInt());
+                inOrder.verify(transactionManager).getTransaction(any());
+                inOrder.verify(submissionRepository).save(any(Submission.class));
+                inOrder.verify(transactionManager).commit(any());
+
+                assertThat(meterRegistry.get("submission.phase").tag("phase", "persist")
+                                .tag("connection", "held").timer().count()).isEqualTo(1);
+                assertThat(meterRegistry.get("submission.phase").tag("phase", "grade")
+                                .tag("connection", "none").timer().count()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should store the preprocessed image by content hash in content-addressed mode")
+        void createSubmission_ContentAddressed_StoresByHash() throws java.io.IOException {
+                // given
+                ReflectionTestUtils.setField(submissionService, "contentAddressed", true);
+                byte[] processed = "small-jpeg".getBytes();
+                when(image.isEmpty()).thenReturn(false);
+                when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+                when(questionCache.findById(1L)).thenReturn(Optional.of(testQuestion));
+                when(image.getInputStream()).thenReturn(new ByteArrayInputStream("photo".getBytes()));
+                when(imagePreprocessor.preprocess(image)).thenReturn(Optional.of(ProcessedImage.builder()
+                                .data(processed)
+                                .contentType("image/jpeg")
+                                .fileName("photo.jpg")
+                                .build()));
+                when(contentStorage.store(any(java.io.InputStream.class), eq((long) processed.length),
+                                eq("image/jpeg"), eq(ContentHash.sha256Hex(processed))))
+                                .thenReturn("https://storage.com/cas/ab/hash");
+                when(aiGradingService.gradeSubmission(eq("https://storage.com/cas/ab/hash"), anyString(), anyString(),
+                                anyInt())).thenReturn(gradingResult);
+                when(submissionRepository.save(any(Submission.class))).thenAnswer(invocation -> invocation.getArgument(0));
+                when(userProgressRepository.applySubmission(eq(1L), anyInt(), anyBoolean(), any(LocalDate.class)))
+                                .thenReturn(testProgress);
+
+                // when
+                SubmissionResponse response = submissionService.createSubmission(1L, 1L, image);
+
+                // then
+                assertThat(response.getCorrect()).isTrue();
+                verifyNoInteractions(storageService);
+        }
+
+        @Test
+        @DisplayName("Should pass through a fast-fail from overloaded AI grading")
+        void createSubmission_GradingOverloaded_ThrowsServiceUnavailable() throws java.io.IOException {
+                // given
+                when(image.isEmpty()).thenReturn(false);
+                when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+                when(questionCache.findById(1L)).thenReturn(Optional.of(testQuestion));
+                when(image.getInputStream()).thenReturn(new ByteArrayInputStream("photo".getBytes()));
+                when(storageService.uploadFile(any(), anyString())).thenReturn("https://storage.com/image.jpg");
+                when(aiGradingService.gradeSubmission(anyString(), anyString(), anyString(), anyInt()))
+                                .thenThrow(new ServiceUnavailableException("AI grading is at capacity",
+                                                java.time.Duration.ofSeconds(5), null));
+
+                // when & then
+                assertThatThrownBy(() -> submissionService.createSubmission(1L, 1L, image))
+                                .isInstanceOf(ServiceUnavailableException.class);
+
+                verify(submissionRepository, never()).save(any());
+        }
+
         @Test
         @DisplayName("Should throw exception when image is empty")
         void createSubmission_EmptyImage_ThrowsException() {
@@ -158,7 +339,7 @@ class SubmissionServiceTest {
                 // given
                 when(image.isEmpty()).thenReturn(false);
                 when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
-                when(questionRepository.findById(1L)).thenReturn(Optional.empty());
+                when(questionCache.findById(1L)).thenReturn(Optional.empty());
 
                 // when & then
                 assertThatThrownBy(() -> submissionService.createSubmission(1L, 1L, image))
@@ -175,13 +356,15 @@ class SubmissionServiceTest {
 
                 when(image.isEmpty()).thenReturn(false);
                 when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
-                when(questionRepository.findById(1L)).thenReturn(Optional.of(testQuestion));
+                when(questionCache.findById(1L)).thenReturn(Optional.of(testQuestion));
+                when(image.getInputStream()).thenReturn(new ByteArrayInputStream("photo".getBytes()));
                 when(storageService.uploadFile(any(), anyString())).thenReturn("https://storage.com/image.jpg");
                 when(aiGradingService.gradeSubmission(anyString(), anyString(), anyString(), anyInt()))
                                 .thenReturn(gradingResult);
                 when(submissionRepository.save(any(Submission.class)))
                                 .thenAnswer(invocation -> invocation.getArgument(0));
-                when(userProgressRepository.findByUserId(1L)).thenReturn(Optional.of(testProgress));
+                when(userProgressRepository.applySubmission(eq(1L), anyInt(), anyBoolean(), any(LocalDate.class)))
+                                .thenReturn(testProgress);
 
                 // when
                 SubmissionResponse response = submissionService.createSubmission(1L, 1L, image);
@@ -192,25 +375,301 @@ class SubmissionServiceTest {
         }
 
         @Test
-        @DisplayName("Should get user submissions")
-        void getUserSubmissions_ReturnsSubmissionList() {
+        @DisplayName("Should grade typed answer locally without calling AI")
+        void createSubmission_PreGraded_SkipsAi() throws java.io.IOException {
+                // given
+                GradingResult localResult = GradingResult.builder()
+                                .score(BigDecimal.valueOf(10.0))
+                                .correct(true)
+                                .feedback("Correct!")
+                                .aiProvider("RULES")
+                                .build();
+                when(image.isEmpty()).thenReturn(false);
+                when(image.getInputStream()).thenReturn(new ByteArrayInputStream("photo".getBytes()));
+                when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+                when(questionCache.findById(1L)).thenReturn(Optional.of(testQuestion));
+                when(answerPreGrader.tryGrade(testQuestion, "4")).thenReturn(Optional.of(localResult));
+                when(storageService.uploadFile(any(), anyString())).thenReturn("https://storage.com/image.jpg");
+                when(submissionRepository.save(any(Submission.class)))
+                                .thenAnswer(invocation -> invocation.getArgument(0));
+                when(userProgressRepository.applySubmission(eq(1L), anyInt(), anyBoolean(), any(LocalDate.class)))
+                                .thenReturn(testProgress);
+
+                // when
+                SubmissionResponse response = submissionService.createSubmission(1L, 1L, image, "4");
+
+                // then
+                assertThat(response.getCorrect()).isTrue();
+                verify(aiGradingService, never()).gradeSubmission(any(), any(), any(), any());
+                verify(gradingResultCache, never()).get(any());
+        }
+
+        @Test
+        @DisplayName("Should reuse cached grading without uploading or calling AI")
+        void createSubmission_CacheHit_SkipsUploadAndAi() throws java.io.IOException {
+                // given
+                when(image.isEmpty()).thenReturn(false);
+                when(image.getInputStream()).thenReturn(new ByteArrayInputStream("photo".getBytes()));
+                when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+                when(questionCache.findById(1L)).thenReturn(Optional.of(testQuestion));
+                when(gradingResultCache.keyFor(anyString(), eq(1L))).thenReturn("grading:v1:1:abc");
+                when(gradingResultCache.get("grading:v1:1:abc")).thenReturn(Optional.of(CachedGrading.builder()
+                                .imageUrl("https://storage.com/original.jpg")
+                                .result(gradingResult)
+                                .build()));
+                when(submissionRepository.save(any(Submission.class)))
+                                .thenAnswer(invocation -> invocation.getArgument(0));
+                when(userProgressRepository.applySubmission(eq(1L), anyInt(), anyBoolean(), any(LocalDate.class)))
+                                .thenReturn(testProgress);
+
+                // when
+                SubmissionResponse response = submissionService.createSubmission(1L, 1L, image);
+
+                // then
+                assertThat(response.getCorrect()).isTrue();
+                assertThat(response.getXpEarned()).isGreaterThan(0);
+                verify(storageService, never()).uploadFile(any(), anyString());
+                verify(aiGradingService, never()).gradeSubmission(any(), any(), any(), any());
+                verify(userProgressRepository).applySubmission(eq(1L), anyInt(), anyBoolean(), any(LocalDate.class));
+        }
+
+        @Test
+        @DisplayName("Should persist pending submission and queue it for grading")
+        void submitForGrading_Success_QueuesJob() throws java.io.IOException {
                 // given
-                Submission submission1 = Submission.builder()
+                when(image.isEmpty()).thenReturn(false);
+                when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+                when(questionCache.findById(1L)).thenReturn(Optional.of(testQuestion));
+                when(image.getInputStream()).thenReturn(new ByteArrayInputStream("photo".getBytes()));
+                when(storageService.uploadFile(any(), anyString())).thenReturn("https://storage.com/image.jpg");
+                when(submissionRepository.save(any(Submission.class))).thenAnswer(invocation -> {
+                        Submission sub = invocation.getArgument(0);
+                        sub.setId(7L);
+                        return sub;
+                });
+
+                // when
+                SubmissionJobResponse response = submissionService.submitForGrading(1L, 1L, image, null);
+
+                // then
+                assertThat(response.getSubmissionId()).isEqualTo(7L);
+                assertThat(response.getStatus()).isEqualTo("PENDING");
+                verify(eventPublisher).publishEvent(new SubmissionQueuedEvent(7L, 1L));
+                verify(aiGradingService, never()).gradeSubmission(any(), any(), any(), any());
+        }
+
+        @Test
+        @DisplayName("Should fail fast when grading queue is full")
+        void submitForGrading_QueueFull_ThrowsServiceUnavailable() throws java.io.IOException {
+                // given
+                when(image.isEmpty()).thenReturn(false);
+                when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+                when(questionCache.findById(1L)).thenReturn(Optional.of(testQuestion));
+                when(image.getInputStream()).thenReturn(new ByteArrayInputStream("photo".getBytes()));
+                when(storageService.uploadFile(any(), anyString())).thenReturn("https://storage.com/image.jpg");
+                when(submissionRepository.save(any(Submission.class))).thenAnswer(invocation -> {
+                        Submission sub = invocation.getArgument(0);
+                        sub.setId(7L);
+                        return sub;
+                });
+                doThrow(new ServiceUnavailableException("Grading is busy, please retry later"))
+                                .when(eventPublisher).publishEvent(any(Object.class));
+
+                // when & then
+                assertThatThrownBy(() -> submissionService.submitForGrading(1L, 1L, image, null))
+                                .isInstanceOf(ServiceUnavailableException.class);
+                verify(submissionRepository).markFailed(eq(7L), anyString());
+        }
+
+        @Test
+        @DisplayName("Should skip grading when submission was already claimed")
+        void gradePendingSubmission_AlreadyClaimed_Skips() {
+                // given
+                when(submissionRepository.claimPending(eq(1L), any())).thenReturn(0);
+
+                // when
+                submissionService.gradePendingSubmission(1L);
+
+                // then
+                verify(aiGradingService, never()).gradeSubmission(any(), any(), any(), any());
+                verify(submissionRepository, never()).findWithUserAndQuestionById(any());
+        }
+
+        @Test
+        @DisplayName("Should return the submission to the queue instead of failing it when AI grading fails fast")
+        void gradePendingSubmission_GradingUnavailable_BackToPending() {
+                // given
+                Submission submission = Submission.builder()
                                 .id(1L)
                                 .user(testUser)
                                 .question(testQuestion)
-                                .aiScore(BigDecimal.valueOf(9.5))
+                                .originalImageUrl("https://storage.com/image.jpg")
+                                .build();
+                when(submissionRepository.claimPending(eq(1L), any())).thenReturn(1);
+                when(submissionRepository.findWithUserAndQuestionById(1L)).thenReturn(Optional.of(submission));
+                when(aiGradingService.gradeSubmission(anyString(), anyString(), anyString(), anyInt()))
+                                .thenThrow(new ServiceUnavailableException("AI grading is temporarily unavailable",
+                                                java.time.Duration.ofSeconds(30), null));
+
+                // when & then
+                assertThatThrownBy(() -> submissionService.gradePendingSubmission(1L))
+                                .isInstanceOfSatisfying(ServiceUnavailableException.class,
+                                                e -> assertThat(e.getRetryAfter())
+                                                                .isEqualTo(java.time.Duration.ofSeconds(30)));
+
+                verify(submissionRepository).transitionStatus(1L, Submission.Status.PROCESSING,
+                                Submission.Status.PENDING);
+                verify(submissionRepository, never()).markFailed(any(), any());
+        }
+
+        @Test
+        @DisplayName("Should presign uploads under the user's folder with a sanitised name")
+        void createUploadUrl_Valid_PresignsUserKey() {
+                // given
+                String sha256 = "A".repeat(64);
+                PresignedUploadResponse presigned = PresignedUploadResponse.builder()
+                                .uploadUrl("https://storage.com/signed")
+                                .objectKey("uploads/1/abc-my_photo_.jpg")
                                 .build();
+                when(storageService.presignUpload("uploads/1", "my_photo_.jpg", "image/jpeg", 2048L,
+                                "a".repeat(64))).thenReturn(presigned);
+
+                // when
+                PresignedUploadResponse response = submissionService.createUploadUrl(1L, "my photo!.jpg",
+                                "image/jpeg", 2048L, sha256);
+
+                // then
+                assertThat(response).isSameAs(presigned);
+        }
+
+        @Test
+        @DisplayName("Should refuse to presign unsupported types and oversized images")
+        void createUploadUrl_InvalidUpload_ThrowsException() {
+                assertThatThrownBy(() -> submissionService.createUploadUrl(1L, "doc.pdf", "application/pdf", 2048L,
+                                null)).isInstanceOf(InvalidRequestException.class);
+                assertThatThrownBy(() -> submissionService.createUploadUrl(1L, "big.jpg", "image/jpeg",
+                                DataSize.ofMegabytes(11).toBytes(), null)).isInstanceOf(InvalidRequestException.class);
+                verify(storageService, never()).presignUpload(any(), any(), any(), anyLong(), any());
+        }
+
+        @Test
+        @DisplayName("Should queue a directly uploaded image for grading")
+        void finalizeUpload_Success_QueuesJob() {
+                // given
+                String key = "uploads/1/abc-photo.jpg";
+                when(storageService.describeObject(key)).thenReturn(Optional.of(StoredObject.builder()
+                                .key(key)
+                                .contentLength(2048L)
+                                .contentType("image/jpeg")
+                                .sha256("b".repeat(64))
+                                .build()));
+                when(storageService.getFileUrl(key)).thenReturn("https://storage.com/" + key);
+                when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+                when(questionCache.findById(1L)).thenReturn(Optional.of(testQuestion));
+                when(submissionRepository.save(any(Submission.class))).thenAnswer(invocation -> {
+                        Submission sub = invocation.getArgument(0);
+                        sub.setId(7L);
+                        return sub;
+                });
+
+                // when
+                SubmissionJobResponse response = submissionService.finalizeUpload(1L, 1L, key, null);
+
+                // then
+                assertThat(response.getSubmissionId()).isEqualTo(7L);
+                assertThat(response.getStatus()).isEqualTo("PENDING");
+                verify(gradingResultCache).keyFor("b".repeat(64), 1L);
+                verify(submissionRepository).save(argThat(sub -> ("https://storage.com/" + key)
+                                .equals(sub.getOriginalImageUrl()) && "b".repeat(64).equals(sub.getImageHash())));
+                verify(eventPublisher).publishEvent(new SubmissionQueuedEvent(7L, 1L));
+        }
+
+        @Test
+        @DisplayName("Should reject finalizing another user's upload")
+        void finalizeUpload_ForeignKey_ThrowsException() {
+                assertThatThrownBy(() -> submissionService.finalizeUpload(1L, 1L, "uploads/2/abc-photo.jpg", null))
+                                .isInstanceOf(InvalidRequestException.class)
+                                .hasMessageContaining("Invalid object key");
+                verify(storageService, never()).describeObject(any());
+        }
+
+        @Test
+        @DisplayName("Should reject finalizing before the image was uploaded")
+        void finalizeUpload_NotUploaded_ThrowsException() {
+                when(storageService.describeObject("uploads/1/abc-photo.jpg")).thenReturn(Optional.empty());
+
+                assertThatThrownBy(() -> submissionService.finalizeUpload(1L, 1L, "uploads/1/abc-photo.jpg", null))
+                                .isInstanceOf(InvalidRequestException.class)
+                                .hasMessageContaining("Upload not found");
+                verify(submissionRepository, never()).save(any());
+        }
 
-                when(submissionRepository.findByUserIdOrderByCreatedAtDesc(1L))
-                                .thenReturn(Arrays.asList(submission1));
+        private SubmissionRepository.SubmissionSummary summaryRow(long id, LocalDateTime createdAt) {
+                return new SpelAwareProxyProjectionFactory().createProjection(
+                                SubmissionRepository.SubmissionSummary.class,
+                                Map.of("id", id,
+                                                "questionId", 1L,
+                                                "questionText", "What is 2 + 2?",
+                                                "status", Submission.Status.COMPLETED,
+                                                "createdAt", createdAt));
+        }
+
+        @Test
+        @DisplayName("Should return first history page with a cursor to the next one")
+        void getSubmissionHistory_FirstPage_ReturnsCursor() {
+                // given
+                LocalDateTime now = LocalDateTime.of(2024, 3, 10, 12, 0);
+                when(submissionRepository.findHistory(1L, Limit.of(3))).thenReturn(List.of(
+                                summaryRow(9L, now), summaryRow(8L, now), summaryRow(7L, now.minusHours(1))));
+
+                // when
+                CursorPage<SubmissionSummaryDto> page = submissionService.getSubmissionHistory(1L, null, 2);
+
+                // then
+                assertThat(page.getItems()).extracting(SubmissionSummaryDto::getId).containsExactly(9L, 8L);
+                assertThat(page.getItems().get(0).getStatus()).isEqualTo("COMPLETED");
+                assertThat(page.isHasMore()).isTrue();
+                assertThat(KeysetCursor.decode(page.getNextCursor())).isEqualTo(new KeysetCursor(now, 8L));
+        }
+
+        @Test
+        @DisplayName("Should continue history after the cursor and stop on the last page")
+        void getSubmissionHistory_WithCursor_ReturnsLastPage() {
+                // given
+                LocalDateTime now = LocalDateTime.of(2024, 3, 10, 12, 0);
+                String cursor = new KeysetCursor(now, 8L).encode();
+                when(submissionRepository.findHistoryBefore(1L, now, 8L, Limit.of(3)))
+                                .thenReturn(List.of(summaryRow(7L, now.minusHours(1))));
 
                 // when
-                List<SubmissionDto> submissions = submissionService.getUserSubmissions(1L);
+                CursorPage<SubmissionSummaryDto> page = submissionService.getSubmissionHistory(1L, cursor, 2);
 
                 // then
-                assertThat(submissions).hasSize(1);
-                assertThat(submissions.get(0).getId()).isEqualTo(1L);
+                assertThat(page.getItems()).extracting(SubmissionSummaryDto::getId).containsExactly(7L);
+                assertThat(page.isHasMore()).isFalse();
+                assertThat(page.getNextCursor()).isNull();
+        }
+
+        @Test
+        @DisplayName("Should cap the requested page size")
+        void getSubmissionHistory_HugeLimit_Capped() {
+                // given
+                when(submissionRepository.findHistory(1L, Limit.of(101))).thenReturn(List.of());
+
+                // when
+                CursorPage<SubmissionSummaryDto> page = submissionService.getSubmissionHistory(1L, null, 10_000);
+
+                // then
+                assertThat(page.getItems()).isEmpty();
+                assertThat(page.isHasMore()).isFalse();
+        }
+
+        @Test
+        @DisplayName("Should reject a malformed cursor")
+        void getSubmissionHistory_InvalidCursor_ThrowsException() {
+                assertThatThrownBy(() -> submissionService.getSubmissionHistory(1L, "not-a-cursor", null))
+                                .isInstanceOf(InvalidRequestException.class)
+                                .hasMessageContaining("Invalid cursor");
         }
 
         @Test
@@ -224,7 +683,7 @@ class SubmissionServiceTest {
                                 .aiScore(BigDecimal.valueOf(9.5))
                                 .build();
 
-                when(submissionRepository.findById(1L)).thenReturn(Optional.of(submission));
+                when(submissionRepository.findWithUserAndQuestionById(1L)).thenReturn(Optional.of(submission));
 
                 // when
                 SubmissionDto result = submissionService.getSubmission(1L, 1L);
@@ -244,7 +703,7 @@ class SubmissionServiceTest {
                                 .question(testQuestion)
                                 .build();
 
-                when(submissionRepository.findById(1L)).thenReturn(Optional.of(submission));
+                when(submissionRepository.findWithUserAndQuestionById(1L)).thenReturn(Optional.of(submission));
 
                 // when & then - trying to access with different user ID
                 assertThatThrownBy(() -> submissionService.getSubmission(1L, 999L))